@@ -0,0 +1,296 @@
+#!/usr/bin/env python3
+"""
+Analytics export reader: decodes the columnar files of an analytics export
+(app.analytics-export.dir) into CSV or NDJSON, checking every block's CRC
+and each partition's row count against manifest.json.
+
+    # Newest export, every partition, as CSV
+    python3 analytics-export-reader.py --dir ./exports > persons.csv
+
+    # One AC as NDJSON
+    python3 analytics-export-reader.py --dir ./exports --ac 101 --format ndjson
+
+    # Trigger an export first (ADMIN), wait for it, then verify it only
+    python3 analytics-export-reader.py --dir ./exports --admin admin:admin123 --mode full --verify
+
+Only the Python standard library is needed, so data teams can run it where
+the export files are copied to.
+"""
+import argparse
+import csv
+import datetime
+import http.cookiejar
+import json
+import os
+import struct
+import sys
+import time
+import urllib.error
+import urllib.parse
+import urllib.request
+import zlib
+from html.parser import HTMLParser
+
+MAGIC = b'VHSNAP'
+TYPES = ('BIGINT', 'INT', 'BOOLEAN', 'STRING', 'TIMESTAMP')
+EPOCH = datetime.datetime(1970, 1, 1)
+
+
+class Buffer:
+    def __init__(self, data):
+        self.data = data
+        self.pos = 0
+
+    def read(self, n):
+        if self.pos + n > len(self.data):
+            raise ValueError('truncated data')
+        chunk = self.data[self.pos:self.pos + n]
+        self.pos += n
+        return chunk
+
+    def byte(self):
+        return self.read(1)[0]
+
+    def varint(self):
+        value, shift = 0, 0
+        while True:
+            b = self.byte()
+            value |= (b & 0x7F) << shift
+            if not b & 0x80:
+                return value
+            shift += 7
+
+    def string(self):
+        return self.read(self.varint()).decode('utf-8')
+
+
+class StreamReader(Buffer):
+    """Buffer over a file, read as needed."""
+
+    def __init__(self, stream):
+        super().__init__(b'')
+        self.stream = stream
+
+    def read(self, n):
+        chunk = self.stream.read(n)
+        if len(chunk) != n:
+            raise ValueError('truncated file')
+        return chunk
+
+    def utf(self):
+        return self.read(struct.unpack('>H', self.read(2))[0]).decode('utf-8')
+
+
+def unzigzag(value):
+    return (value >> 1) ^ -(value & 1)
+
+
+def bits(data, n):
+    return [(data[r >> 3] >> (r & 7)) & 1 == 1 for r in range(n)]
+
+
+def decode_column(buf, type_name, n):
+    nulls = bits(buf.read((n + 7) // 8), n) if buf.byte() else [False] * n
+    values = [None] * n
+    if type_name in ('BIGINT', 'INT', 'TIMESTAMP'):
+        previous = 0
+        for r in range(n):
+            if not nulls[r]:
+                previous += unzigzag(buf.varint())
+                values[r] = EPOCH + datetime.timedelta(microseconds=previous) if type_name == 'TIMESTAMP' else previous
+    elif type_name == 'BOOLEAN':
+        flags = bits(buf.read((n + 7) // 8), n)
+        for r in range(n):
+            if not nulls[r]:
+                values[r] = flags[r]
+    else:
+        dictionary = None
+        if buf.byte():
+            dictionary = [buf.string() for _ in range(buf.varint())]
+        for r in range(n):
+            if not nulls[r]:
+                values[r] = dictionary[buf.varint()] if dictionary is not None else buf.string()
+    return values
+
+
+def read_table(path):
+    """Yields the column list, then one list of rows per block."""
+    with open(path, 'rb') as stream:
+        reader = StreamReader(stream)
+        if reader.read(len(MAGIC)) != MAGIC:
+            raise SystemExit('%s is not a snapshot file' % path)
+        version = reader.byte()
+        if version != 1:
+            raise SystemExit('%s: unsupported format version %d' % (path, version))
+        reader.utf()
+        columns = [(reader.utf(), TYPES[reader.byte()]) for _ in range(reader.varint())]
+        yield columns
+
+        total = 0
+        while True:
+            rows = reader.varint()
+            if rows == 0:
+                expected = struct.unpack('>q', reader.read(8))[0]
+                if expected != total:
+                    raise SystemExit('%s holds %d rows, end marker says %d' % (path, total, expected))
+                return
+            raw_length, compressed_length, crc = struct.unpack('>iii', reader.read(12))
+            payload = reader.read(compressed_length)
+            if zlib.crc32(payload) & 0xFFFFFFFF != crc & 0xFFFFFFFF:
+                raise SystemExit('%s: checksum mismatch after %d rows' % (path, total))
+            buf = Buffer(zlib.decompress(payload))
+            if len(buf.data) != raw_length:
+                raise SystemExit('%s: block after %d rows is shorter than recorded' % (path, total))
+            values = [decode_column(buf, type_name, rows) for _, type_name in columns]
+            yield list(zip(*values))
+            total += rows
+
+
+def latest_export(directory):
+    names = sorted(d for d in os.listdir(directory)
+                   if os.path.isfile(os.path.join(directory, d, 'manifest.json')))
+    if not names:
+        raise SystemExit('No complete export in %s' % directory)
+    return os.path.join(directory, names[-1])
+
+
+class FormParser(HTMLParser):
+    """Collects the input values of the first form with a matching action."""
+
+    def __init__(self, action_suffix):
+        super().__init__()
+        self.action_suffix = action_suffix
+        self.in_form = False
+        self.values = {}
+
+    def handle_starttag(self, tag, attrs):
+        attrs = dict(attrs)
+        if tag == 'form' and attrs.get('action', '').endswith(self.action_suffix):
+            self.in_form = True
+        elif self.in_form and tag == 'input' and attrs.get('name'):
+            self.values[attrs['name']] = attrs.get('value') or ''
+
+    def handle_endtag(self, tag):
+        if tag == 'form':
+            self.in_form = False
+
+
+def trigger_export(base_url, user, mode):
+    """Logs in through the form, starts an export and waits for it; returns its name."""
+    username, password = user.split(':', 1)
+    opener = urllib.request.build_opener(urllib.request.HTTPCookieProcessor(http.cookiejar.CookieJar()))
+
+    def form(path, action_suffix):
+        parser = FormParser(action_suffix)
+        with opener.open(base_url + path) as response:
+            parser.feed(response.read().decode('utf-8'))
+        return parser.values
+
+    def get_json(path, data=None):
+        try:
+            with opener.open(base_url + path, data) as response:
+                return json.loads(response.read().decode('utf-8'))
+        except urllib.error.HTTPError as e:
+            raise SystemExit('%s failed: %d %s' % (path, e.code, e.read().decode('utf-8', errors='replace')[:500]))
+
+    values = form('/login', '/login')
+    values.update(username=username, password=password)
+    with opener.open(base_url + '/login', urllib.parse.urlencode(values).encode('utf-8')) as response:
+        if 'error' in response.geturl():
+            raise SystemExit('Login failed for %s' % username)
+    # Admin endpoints take the session's CSRF token as a form parameter
+    csrf = form('/families/dashboard', '/logout')
+
+    before = {e['name'] for e in get_json('/admin/analytics-export')['exports']}
+    get_json('/admin/analytics-export?mode=' + mode, urllib.parse.urlencode(csrf).encode('utf-8'))
+    while True:
+        time.sleep(2)
+        status = get_json('/admin/analytics-export')
+        if not status['running']:
+            break
+        print('  exporting %s...' % (status['currentPartition'] or ''), file=sys.stderr)
+    if status['lastError']:
+        raise SystemExit('Export failed: %s' % status['lastError'])
+    fresh = [e for e in status['exports'] if e['name'] not in before]
+    if not fresh:
+        raise SystemExit('The export finished without a new manifest')
+    export = fresh[0]
+    print('Export %s (%s): %d rows, %d of %d partitions written in %.1f s' % (
+        export['name'], export['mode'], export['rows'], export['partitionsWritten'],
+        len(export['partitions']), export['elapsedMillis'] / 1000.0), file=sys.stderr)
+    return export['name']
+
+
+def main():
+    parser = argparse.ArgumentParser(description='Decode and verify an analytics export')
+    parser.add_argument('--dir', required=True, help='app.analytics-export.dir, or one export directory')
+    parser.add_argument('--export', help='export name (default: the newest)')
+    parser.add_argument('--ac', action='append', help='only this AC (repeatable); __none__ for persons without one')
+    parser.add_argument('--format', choices=('csv', 'ndjson'), default='csv')
+    parser.add_argument('--output', help='file to write (default: stdout)')
+    parser.add_argument('--verify', action='store_true', help='check the files only, write no rows')
+    parser.add_argument('--admin', help='username:password; triggers an export before reading')
+    parser.add_argument('--base-url', default='http://localhost:8080')
+    parser.add_argument('--mode', choices=('full', 'incremental'), default='incremental')
+    args = parser.parse_args()
+
+    name = args.export
+    if args.admin:
+        name = trigger_export(args.base_url, args.admin, args.mode)
+    if os.path.isfile(os.path.join(args.dir, 'manifest.json')):
+        export_dir = args.dir
+    elif name:
+        export_dir = os.path.join(args.dir, name)
+    else:
+        export_dir = latest_export(args.dir)
+    with open(os.path.join(export_dir, 'manifest.json')) as f:
+        manifest = json.load(f)
+
+    partitions = manifest['partitions']
+    if args.ac:
+        partitions = [p for p in partitions if (p['ac'] if p['ac'] is not None else '__none__') in args.ac]
+
+    out = open(args.output, 'w', newline='', encoding='utf-8') if args.output else sys.stdout
+    writer = None
+    ok = True
+    started = time.monotonic()
+    total = 0
+    for partition in partitions:
+        directory = os.path.join(export_dir, partition['directory'])
+        blocks = read_table(os.path.join(directory, 'persons.snap'))
+        names = [column for column, _ in next(blocks)]
+        rows = 0
+        for block in blocks:
+            rows += len(block)
+            if args.verify:
+                continue
+            if args.format == 'csv':
+                if writer is None:
+                    writer = csv.writer(out)
+                    writer.writerow(names)
+                writer.writerows(block)
+            else:
+                for row in block:
+                    out.write(json.dumps(dict(zip(names, row)), default=str) + '\n')
+
+        families = sum(len(block) for block in list(read_table(os.path.join(directory, 'families.snap')))[1:])
+        if rows != partition['rows'] or families != partition['families']:
+            print('%s: %d rows and %d families, manifest says %d and %d' % (
+                partition['directory'], rows, families, partition['rows'], partition['families']), file=sys.stderr)
+            ok = False
+        total += rows
+
+    if args.output:
+        out.close()
+    elapsed = time.monotonic() - started
+    print('%s: %d rows from %d partitions in %.1f s (%.0f rows/s)' % (
+        manifest['name'], total, len(partitions), elapsed, total / elapsed if elapsed else 0), file=sys.stderr)
+    if not args.ac and total != manifest['rows']:
+        print('Total %d rows, manifest says %d' % (total, manifest['rows']), file=sys.stderr)
+        ok = False
+    print('PASS' if ok else 'FAIL', file=sys.stderr)
+    sys.exit(0 if ok else 1)
+
+
+if __name__ == '__main__':
+    main()
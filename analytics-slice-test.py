@@ -0,0 +1,137 @@
+#!/usr/bin/env python3
+"""
+Analytics cache test: runs a set of breakdowns against
+/api/v1/analytics/persons and checks that they are fast and agree.
+
+1. Latency: every slice is requested --repeat times; prints the server-side
+   scan time and the round-trip p50/p99 per slice
+2. Consistency: the totals of every grouping equal the ungrouped total
+3. Freshness (with --write): uploads one family through the sync API into a
+   part of its own and measures how long until the slice counts it
+
+Step 3 adds a real family: use a test database.
+
+    python3 analytics-slice-test.py --user op1:secret1
+    python3 analytics-slice-test.py --user op1:secret1 --write
+"""
+import argparse
+import base64
+import json
+import random
+import time
+import urllib.error
+import urllib.parse
+import urllib.request
+import uuid
+
+SLICES = [
+    {},
+    {'groupBy': 'status'},
+    {'groupBy': 'ac,status'},
+    {'groupBy': 'part,status'},
+    {'groupBy': 'ac,part'},
+    {'groupBy': 'relation'},
+    {'groupBy': 'blo', 'valid': 'false'},
+    {'groupBy': 'ac,part,blo'},
+    {'groupBy': 'relation,status', 'head': 'false'},
+]
+
+
+def call(base_url, auth, path, body=None):
+    data = json.dumps(body).encode('utf-8') if body is not None else None
+    headers = {'Authorization': 'Basic ' + auth, 'Accept': 'application/json'}
+    if data is not None:
+        headers['Content-Type'] = 'application/json'
+    request = urllib.request.Request(base_url + path, data=data, headers=headers,
+                                     method='POST' if data is not None else 'GET')
+    try:
+        with urllib.request.urlopen(request, timeout=120) as response:
+            return json.loads(response.read().decode('utf-8'))
+    except urllib.error.HTTPError as e:
+        raise SystemExit('%s failed with HTTP %d: %s' % (path, e.code, e.read().decode(errors='replace')[:500]))
+
+
+def slice_path(params):
+    return '/api/v1/analytics/persons?' + urllib.parse.urlencode(params)
+
+
+def percentile(sorted_values, fraction):
+    return sorted_values[min(len(sorted_values) - 1, int(fraction * len(sorted_values)))]
+
+
+def wait_for_part(base_url, auth, part, expected, timeout):
+    started = time.monotonic()
+    while time.monotonic() - started < timeout:
+        result = call(base_url, auth, slice_path({'part': part}))
+        if result['persons'] == expected:
+            return time.monotonic() - started
+        time.sleep(0.2)
+    return None
+
+
+def main():
+    parser = argparse.ArgumentParser(description='Analytics cache latency and consistency test')
+    parser.add_argument('--base-url', default='http://localhost:8080')
+    parser.add_argument('--user', required=True, help='username:password (OPERATOR or ADMIN for --write)')
+    parser.add_argument('--repeat', type=int, default=20)
+    parser.add_argument('--write', action='store_true', help='also measure how fast a new family shows up')
+    args = parser.parse_args()
+
+    auth = base64.b64encode(args.user.encode('utf-8')).decode('ascii')
+    ok = True
+
+    total = call(args.base_url, auth, slice_path({}))
+    print('Cache: %d persons, %d families, refreshed %s' % (total['persons'], total['families'], total['refreshedAt']))
+
+    print('%-42s %7s %10s %10s %10s' % ('slice', 'groups', 'scan ms', 'p50 ms', 'p99 ms'))
+    for params in SLICES:
+        latencies, scans, result = [], [], None
+        for _ in range(args.repeat):
+            started = time.monotonic()
+            result = call(args.base_url, auth, slice_path(params))
+            latencies.append((time.monotonic() - started) * 1000)
+            scans.append(result['tookMicros'] / 1000.0)
+        latencies.sort()
+        scans.sort()
+        print('%-42s %7d %10.1f %10.1f %10.1f' % (
+            urllib.parse.urlencode(params) or '(totals)', result['groupCount'], percentile(scans, 0.5),
+            percentile(latencies, 0.5), percentile(latencies, 0.99)))
+
+        # Groupings without filters must add up to the ungrouped totals
+        if len(params) == 1 and not result['truncated']:
+            if sum(g['persons'] for g in result['groups']) != result['persons'] or result['persons'] != total['persons']:
+                print('  totals differ: %d persons, ungrouped %d' % (result['persons'], total['persons']))
+                ok = False
+
+    if args.write:
+        run = uuid.uuid4().hex[:8]
+        part = str(random.randint(90000, 99999))
+        members = 2
+
+        def details(serial):
+            return {'status': 'ACTIVE', 'nameCurrent': 'Slice Person %d' % serial,
+                    'parentSpouseNameCurrent': 'Slice Parent %d' % serial, 'epicNoCurrent': 'SLC%07d' % serial,
+                    'acNoCurrent': '7', 'partNoCurrent': part, 'serialNoCurrent': str(serial)}
+        serial = random.randint(1, 9000000)
+        head = {'contactPerson': 'Slice Head', 'contactNumber': '9600000000', 'name2002': 'Slice Head',
+                'parentSpouseName2002': 'Slice Father', 'epicNo2002': 'SLO%07d' % serial, 'acNo2002': '7',
+                'partNo2002': '1', 'serialNo2002': '1'}
+        head.update(details(serial))
+        family = {'clientRef': run + '-f', 'head': head, 'members': [
+            {'clientRef': '%s-m%d' % (run, m), 'member': dict(details(serial + m + 1), relationType='SON', age=20 + m)}
+            for m in range(members)]}
+
+        before = call(args.base_url, auth, slice_path({'part': part}))['persons']
+        call(args.base_url, auth, '/api/v1/sync', {'deviceId': 'slice-test-' + run, 'families': [family]})
+        lag = wait_for_part(args.base_url, auth, part, before + members + 1, 60)
+        if lag is None:
+            print('Fresh: the new family did not show up within 60 s')
+            ok = False
+        else:
+            print('Fresh: new family counted after %.1f s' % lag)
+
+    print('PASS' if ok else 'FAIL')
+
+
+if __name__ == '__main__':
+    main()
@@ -0,0 +1,145 @@
+#!/usr/bin/env python3
+"""
+Change feed test: records a burst of changes through the sync API (new
+families with members, then an edit of each family) and checks that a
+consumer catches up incrementally from its cursor via /api/v1/changes:
+
+1. Cursor: takes the current end of the feed before writing
+2. Pages: reads JSON pages from that cursor until hasMore is false; every
+   family and member written shows up once, with its current state;
+   prints the catch-up time
+3. Stream: reads the same range as NDJSON; the event IDs match the pages and
+   each line's cursor resumes right after it
+4. Idle: a read from the final cursor returns no changes
+
+The test adds real families: use a test database.
+
+    python3 change-feed-test.py --user op1:secret1 --families 200
+"""
+import argparse
+import base64
+import json
+import time
+import urllib.error
+import urllib.parse
+import urllib.request
+import uuid
+
+
+def call(base_url, auth, path, body=None, accept='application/json'):
+    data = json.dumps(body).encode('utf-8') if body is not None else None
+    headers = {'Authorization': 'Basic ' + auth, 'Accept': accept}
+    if data is not None:
+        headers['Content-Type'] = 'application/json'
+    request = urllib.request.Request(base_url + path, data=data, headers=headers,
+                                     method='POST' if data is not None else 'GET')
+    try:
+        with urllib.request.urlopen(request, timeout=600) as response:
+            return response.read().decode('utf-8')
+    except urllib.error.HTTPError as e:
+        raise SystemExit('%s failed with HTTP %d: %s' % (path, e.code, e.read().decode(errors='replace')[:500]))
+
+
+def changes_path(cursor, limit=None):
+    params = {'since': cursor}
+    if limit:
+        params['limit'] = limit
+    return '/api/v1/changes?' + urllib.parse.urlencode(params)
+
+
+def make_family(run, index, members):
+    def details(serial):
+        return {
+            'status': 'ACTIVE', 'nameCurrent': 'Feed Person %d' % serial,
+            'parentSpouseNameCurrent': 'Feed Parent %d' % serial, 'epicNoCurrent': 'CHF%07d' % serial,
+            'acNoCurrent': '7', 'partNoCurrent': '1', 'serialNoCurrent': str(serial),
+        }
+    head = {'contactPerson': 'Feed Head %d' % index, 'contactNumber': '97%08d' % index,
+            'name2002': 'Feed Head %d' % index, 'parentSpouseName2002': 'Father %d' % index,
+            'epicNo2002': 'CHO%07d' % index, 'acNo2002': '7', 'partNo2002': '1', 'serialNo2002': str(index)}
+    head.update(details(index * 10))
+    family = {'clientRef': '%s-f%d' % (run, index), 'head': head, 'members': []}
+    for m in range(members):
+        member = {'relationType': 'DAUGHTER', 'age': 20 + m}
+        member.update(details(index * 10 + m + 1))
+        family['members'].append({'clientRef': '%s-f%d-m%d' % (run, index, m), 'member': member})
+    return family
+
+
+def main():
+    parser = argparse.ArgumentParser(description='Change feed catch-up test')
+    parser.add_argument('--base-url', default='http://localhost:8080')
+    parser.add_argument('--user', required=True, help='username:password of an OPERATOR or ADMIN')
+    parser.add_argument('--families', type=int, default=200)
+    parser.add_argument('--members', type=int, default=2, help='members per family besides the head')
+    parser.add_argument('--page-size', type=int, default=500)
+    args = parser.parse_args()
+
+    auth = base64.b64encode(args.user.encode('utf-8')).decode('ascii')
+    run = uuid.uuid4().hex[:8]
+
+    start = json.loads(call(args.base_url, auth, '/api/v1/changes/cursor'))['cursor']
+
+    families = [make_family(run, i, args.members) for i in range(1, args.families + 1)]
+    upload = json.loads(call(args.base_url, auth, '/api/v1/sync',
+                             {'deviceId': 'feed-test-' + run, 'families': families}))
+    ids = {r['clientRef']: r['id'] for r in upload['results']}
+    versions = {r['clientRef']: r['version'] for r in upload['results']}
+    edits = []
+    for family in families:
+        edit = dict(family, id=ids[family['clientRef']], revision=versions[family['clientRef']], members=[])
+        edit['head'] = dict(family['head'], contactNumber='9333333333')
+        edits.append(edit)
+    call(args.base_url, auth, '/api/v1/sync', {'deviceId': 'feed-test-' + run, 'families': edits})
+    family_ids = {ids[f['clientRef']] for f in families}
+    person_ids = {ids[m['clientRef']] for f in families for m in f['members']}
+
+    started = time.monotonic()
+    cursor, pages, entries = start, 0, []
+    while True:
+        page = json.loads(call(args.base_url, auth, changes_path(cursor, args.page_size)))
+        pages += 1
+        entries.extend(page['changes'])
+        cursor = page['cursor']
+        if not page['hasMore']:
+            break
+    elapsed = time.monotonic() - started
+    print('Pages:  %d changes in %d pages, caught up in %.2f s (%.0f changes/s)' % (
+        len(entries), pages, elapsed, len(entries) / elapsed if elapsed else 0))
+
+    ok = True
+    seen_families = {e['familyId'] for e in entries if e['changeType'].startswith('FAMILY_')}
+    seen_members = {e['personId'] for e in entries if e['changeType'] == 'MEMBER_ADDED'}
+    ok = ok and family_ids <= seen_families and person_ids <= seen_members
+    latest = {}
+    for e in entries:
+        if e['familyId'] in family_ids and e['family']:
+            latest[e['familyId']] = e['family']['contactNumber']
+    ok = ok and all(latest.get(i) == '9333333333' for i in family_ids)
+    # A change committed late comes after higher IDs, but never twice
+    ok = ok and len({(e['shard'], e['eventId']) for e in entries}) == len(entries)
+    print('        %d families and %d members found; latest state %s' % (
+        len(family_ids & seen_families), len(person_ids & seen_members),
+        'current' if all(latest.get(i) == '9333333333' for i in family_ids) else 'STALE'))
+
+    started = time.monotonic()
+    stream = call(args.base_url, auth, changes_path(start), accept='application/x-ndjson')
+    lines = [json.loads(line) for line in stream.splitlines() if line]
+    elapsed = time.monotonic() - started
+    print('Stream: %d changes in %.2f s' % (len(lines), elapsed))
+    stream_ids = [(e['shard'], e['eventId']) for e in lines]
+    ok = ok and stream_ids[:len(entries)] == [(e['shard'], e['eventId']) for e in entries]
+    if len(lines) > 1:
+        resumed = json.loads(call(args.base_url, auth, changes_path(lines[0]['cursor'], 1)))
+        ok = ok and bool(resumed['changes']) and resumed['changes'][0]['eventId'] == lines[1]['eventId']
+
+    idle = json.loads(call(args.base_url, auth, changes_path(cursor)))
+    print('Idle:   %d changes after the final cursor' % len(idle['changes']))
+    ok = ok and not idle['changes']
+
+    print('PASS' if ok else 'FAIL')
+    raise SystemExit(0 if ok else 1)
+
+
+if __name__ == '__main__':
+    main()
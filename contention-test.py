@@ -0,0 +1,173 @@
+#!/usr/bin/env python3
+"""
+Concurrent-editor contention test for family edits.
+
+Several operators repeatedly open the same family's edit form, add one to the
+contact number and save. A save that loses the version check gets the merge
+screen instead of a redirect; the editor then reloads and retries. At the end
+the contact number must equal the starting value plus the number of saves that
+were accepted - any difference is a lost update.
+
+Each editor needs its own account (sessions are limited to one per user).
+
+    python3 contention-test.py --family-id 1 \\
+        --editor op1:secret1 --editor op2:secret2 --editor op3:secret3 \\
+        --increments 50
+"""
+import argparse
+import http.cookiejar
+import threading
+import time
+import urllib.error
+import urllib.parse
+import urllib.request
+from html.parser import HTMLParser
+
+
+class FormParser(HTMLParser):
+    """Collects the values of the first form with a matching action."""
+
+    def __init__(self, action_suffix):
+        super().__init__()
+        self.action_suffix = action_suffix
+        self.in_form = False
+        self.select_name = None
+        self.values = {}
+
+    def handle_starttag(self, tag, attrs):
+        attrs = dict(attrs)
+        if tag == 'form' and attrs.get('action', '').endswith(self.action_suffix):
+            self.in_form = True
+        elif not self.in_form:
+            return
+        elif tag == 'input' and attrs.get('name'):
+            self.values[attrs['name']] = attrs.get('value') or ''
+        elif tag == 'select':
+            self.select_name = attrs.get('name')
+        elif tag == 'option' and self.select_name and 'selected' in attrs:
+            self.values[self.select_name] = attrs.get('value') or ''
+
+    def handle_endtag(self, tag):
+        if tag == 'select':
+            self.select_name = None
+        elif tag == 'form':
+            self.in_form = False
+
+
+class NoRedirect(urllib.request.HTTPRedirectHandler):
+    def redirect_request(self, req, fp, code, msg, headers, newurl):
+        return None
+
+
+class Editor:
+    def __init__(self, base_url, username, password):
+        self.base_url = base_url
+        self.cookies = http.cookiejar.CookieJar()
+        self.opener = urllib.request.build_opener(urllib.request.HTTPCookieProcessor(self.cookies))
+        self.no_redirect = urllib.request.build_opener(
+            urllib.request.HTTPCookieProcessor(self.cookies), NoRedirect())
+        self.login(username, password)
+
+    def get(self, path):
+        while True:
+            try:
+                with self.opener.open(self.base_url + path) as response:
+                    return response.read().decode('utf-8')
+            except urllib.error.HTTPError as e:
+                # Shed by admission control: wait as told and retry
+                if e.code != 503:
+                    raise
+                time.sleep(int(e.headers.get('Retry-After', '1')))
+
+    def post(self, path, values):
+        data = urllib.parse.urlencode(values).encode('utf-8')
+        try:
+            with self.no_redirect.open(self.base_url + path, data) as response:
+                return response.status, response.headers.get('Location', ''), response.read().decode('utf-8')
+        except urllib.error.HTTPError as e:
+            return e.code, e.headers.get('Location', ''), e.read().decode('utf-8', 'replace')
+
+    def form(self, path, action_suffix):
+        parser = FormParser(action_suffix)
+        parser.feed(self.get(path))
+        return parser.values
+
+    def login(self, username, password):
+        values = self.form('/login', '/login')
+        values.update(username=username, password=password)
+        status, location, _ = self.post('/login', values)
+        if status != 302 or 'error' in location:
+            raise SystemExit('Login failed for ' + username)
+
+
+def read_modify_write(editor, family_id, stats, lock):
+    """One increment, retried until a save is accepted."""
+    while True:
+        values = editor.form('/families/%d/edit' % family_id, '/families/%d/update' % family_id)
+        values['contactNumber'] = str(int(values['contactNumber']) + 1)
+        status, location, body = editor.post('/families/%d/update' % family_id, values)
+        if status == 302 and location.endswith('/hierarchy'):
+            with lock:
+                stats['saved'] += 1
+            return
+        if status == 503:
+            with lock:
+                stats['shed'] += 1
+            time.sleep(1)
+            continue
+        if 'id="merge-conflict"' in body:
+            with lock:
+                stats['conflicts'] += 1
+            continue
+        raise SystemExit('Unexpected response %d from update: %s' % (status, location or body[:200]))
+
+
+def main():
+    parser = argparse.ArgumentParser(description='Concurrent family edit contention test')
+    parser.add_argument('--base-url', default='http://localhost:8080')
+    parser.add_argument('--family-id', type=int, required=True)
+    parser.add_argument('--editor', action='append', required=True, help='username:password, once per editor')
+    parser.add_argument('--increments', type=int, default=20, help='saves per editor')
+    args = parser.parse_args()
+
+    editors = [Editor(args.base_url, *credentials.split(':', 1)) for credentials in args.editor]
+
+    # Start from a known numeric contact number
+    start_value = 9000000000
+    values = editors[0].form('/families/%d/edit' % args.family_id, '/families/%d/update' % args.family_id)
+    values['contactNumber'] = str(start_value)
+    editors[0].post('/families/%d/update' % args.family_id, values)
+
+    stats = {'saved': 0, 'conflicts': 0, 'shed': 0}
+    lock = threading.Lock()
+
+    def run(editor):
+        for _ in range(args.increments):
+            read_modify_write(editor, args.family_id, stats, lock)
+
+    threads = [threading.Thread(target=run, args=(editor,)) for editor in editors]
+    started = time.monotonic()
+    for thread in threads:
+        thread.start()
+    for thread in threads:
+        thread.join()
+    elapsed = time.monotonic() - started
+
+    final = editors[0].form('/families/%d/edit' % args.family_id, '/families/%d/update' % args.family_id)
+    final_value = int(final['contactNumber'])
+    expected = start_value + stats['saved']
+
+    print('Editors:           %d' % len(editors))
+    print('Accepted saves:    %d' % stats['saved'])
+    print('Conflicts retried: %d' % stats['conflicts'])
+    print('Shed (503) retried: %d' % stats['shed'])
+    print('Elapsed:           %.2f s' % elapsed)
+    print('Saves/second:      %.1f' % (stats['saved'] / elapsed))
+    print('Final value:       %d (expected %d)' % (final_value, expected))
+    if final_value != expected:
+        raise SystemExit('LOST UPDATES: %d' % (expected - final_value))
+    print('No lost updates.')
+
+
+if __name__ == '__main__':
+    main()
@@ -0,0 +1,143 @@
+#!/usr/bin/env python3
+"""
+Offline field sync test: uploads a day's work of a BLO (500 families by
+default, each with a head and a few members) in one gzip-compressed round-trip
+to /api/v1/sync, then checks the sync contract:
+
+1. Upload: every family and member is CREATED; prints the round-trip time
+   and the upload size before and after compression
+2. Replay: the same upload sent again (a retry after a lost response)
+   creates nothing; every item is UNCHANGED
+3. Conflict: an edit made from an outdated family revision is refused with
+   CONFLICT, while an edit from the current revision is UPDATED
+4. Pull: a sync with no upload from the returned cursor brings no changes
+
+The test adds real families: use a test database.
+
+    python3 field-sync-test.py --user op1:secret1 --families 500
+"""
+import argparse
+import base64
+import gzip
+import json
+import random
+import time
+import urllib.error
+import urllib.request
+import uuid
+from collections import Counter
+
+
+def sync(base_url, auth, body):
+    raw = json.dumps(body).encode('utf-8')
+    compressed = gzip.compress(raw)
+    request = urllib.request.Request(base_url + '/api/v1/sync', data=compressed, method='POST', headers={
+        'Authorization': 'Basic ' + auth,
+        'Content-Type': 'application/json',
+        'Content-Encoding': 'gzip',
+        'Accept-Encoding': 'gzip',
+    })
+    started = time.monotonic()
+    try:
+        with urllib.request.urlopen(request, timeout=600) as response:
+            payload = response.read()
+            if response.headers.get('Content-Encoding') == 'gzip':
+                payload = gzip.decompress(payload)
+    except urllib.error.HTTPError as e:
+        raise SystemExit('Sync failed with HTTP %d: %s' % (e.code, e.read().decode(errors='replace')[:500]))
+    elapsed = time.monotonic() - started
+    return json.loads(payload), elapsed, len(raw), len(compressed)
+
+
+def active_details(prefix, serial, ac):
+    return {
+        'status': 'ACTIVE',
+        'nameCurrent': '%s Person %d' % (prefix, serial),
+        'parentSpouseNameCurrent': '%s Parent %d' % (prefix, serial),
+        'epicNoCurrent': 'FSY%07d' % serial,
+        'acNoCurrent': ac, 'partNoCurrent': str(serial % 200 + 1), 'serialNoCurrent': str(serial),
+        'bloName': 'Field BLO', 'bloMobile': '9000000000',
+    }
+
+
+def make_family(run, index, members):
+    ac = str(random.randint(1, 20))
+    head_name = 'Head %s %d' % (run, index)
+    head = {
+        'contactPerson': head_name, 'contactNumber': '98%08d' % index,
+        'name2002': head_name, 'parentSpouseName2002': 'Father %d' % index,
+        'epicNo2002': 'OLD%07d' % index, 'acNo2002': ac, 'partNo2002': '1', 'serialNo2002': str(index),
+    }
+    head.update(active_details('Head', index * 10, ac))
+    family = {'clientRef': '%s-f%d' % (run, index), 'head': head, 'members': []}
+    for m in range(members):
+        member = {'relationType': 'SON', 'age': random.randint(18, 40)}
+        member.update(active_details('Member', index * 10 + m + 1, ac))
+        family['members'].append({'clientRef': '%s-f%d-m%d' % (run, index, m), 'member': member})
+    return family
+
+
+def outcomes(response):
+    return Counter(result['outcome'] for result in response['results'])
+
+
+def main():
+    parser = argparse.ArgumentParser(description='Offline field sync round-trip test')
+    parser.add_argument('--base-url', default='http://localhost:8080')
+    parser.add_argument('--user', required=True, help='username:password of an OPERATOR or ADMIN')
+    parser.add_argument('--families', type=int, default=500)
+    parser.add_argument('--members', type=int, default=3, help='members per family besides the head')
+    args = parser.parse_args()
+
+    auth = base64.b64encode(args.user.encode('utf-8')).decode('ascii')
+    run = uuid.uuid4().hex[:8]
+    families = [make_family(run, i, args.members) for i in range(1, args.families + 1)]
+    items = args.families * (args.members + 1)
+
+    # Start from the server's current cursor so only this run's changes come back
+    start, _, _, _ = sync(args.base_url, auth, {'deviceId': 'sync-test-' + run, 'cursor': None, 'families': []})
+    while start['hasMore']:
+        start, _, _, _ = sync(args.base_url, auth, {'deviceId': 'sync-test-' + run, 'cursor': start['cursor']})
+    cursor = start['cursor']
+
+    upload = {'deviceId': 'sync-test-' + run, 'cursor': cursor, 'families': families}
+    first, elapsed, raw_size, gzip_size = sync(args.base_url, auth, upload)
+    counts = outcomes(first)
+    print('Upload:   %d families, %d items in %.2f s (%.0f families/s); body %.0f KB, %.0f KB gzipped' % (
+        args.families, items, elapsed, args.families / elapsed, raw_size / 1024, gzip_size / 1024))
+    print('          outcomes %s; %d changed families returned' % (dict(counts), len(first['changed'])))
+    ok = counts.get('CREATED', 0) == items
+
+    replay, elapsed, _, _ = sync(args.base_url, auth, upload)
+    counts = outcomes(replay)
+    print('Replay:   %.2f s, outcomes %s' % (elapsed, dict(counts)))
+    ok = ok and counts.get('UNCHANGED', 0) == items
+    ids = {r['clientRef']: r['id'] for r in first['results']}
+    ok = ok and all(ids.get(r['clientRef']) == r['id'] for r in replay['results'])
+
+    # Edit the first family twice from the same revision: the second edit is outdated
+    target = dict(families[0])
+    target_result = next(r for r in first['results'] if r['clientRef'] == target['clientRef'])
+    target['id'], target['revision'], target['members'] = target_result['id'], target_result['version'], []
+    target['head'] = dict(target['head'], contactNumber='9111111111')
+    edit, _, _, _ = sync(args.base_url, auth, {'deviceId': 'sync-test-' + run, 'cursor': replay['cursor'],
+                                               'families': [target]})
+    target['head'] = dict(target['head'], contactNumber='9222222222')
+    stale, _, _, _ = sync(args.base_url, auth, {'deviceId': 'sync-test-' + run, 'cursor': edit['cursor'],
+                                                'families': [target]})
+    print('Conflict: edit %s, outdated edit %s' % (edit['results'][0]['outcome'], stale['results'][0]['outcome']))
+    ok = ok and edit['results'][0]['outcome'] == 'UPDATED' and stale['results'][0]['outcome'] == 'CONFLICT'
+    server_copy = [f for f in edit['changed'] if f['familyId'] == target['id']]
+    ok = ok and len(server_copy) == 1 and server_copy[0]['contactNumber'] == '9111111111'
+    ok = ok and server_copy[0]['revision'] == edit['results'][0]['version']
+
+    pull, _, _, _ = sync(args.base_url, auth, {'deviceId': 'sync-test-' + run, 'cursor': stale['cursor']})
+    print('Pull:     %d changed, %d deleted since the last cursor' % (len(pull['changed']), len(pull['deleted'])))
+    ok = ok and not pull['changed']
+
+    print('PASS' if ok else 'FAIL')
+    raise SystemExit(0 if ok else 1)
+
+
+if __name__ == '__main__':
+    main()
@@ -0,0 +1,160 @@
+#!/usr/bin/env python3
+"""
+Resident family graph benchmark (app.graph.enabled=true):
+
+1. Footprint: families, persons, heap and off-heap MB and bytes per person
+   from GET /admin/graph
+2. In-process: POST /admin/graph/benchmark times hierarchy, validation,
+   dashboard counts and head-name search on the server, without HTTP
+3. End to end: requests /api/v1/families/{id}/hierarchy for random families
+   and prints the round-trip p50/p99, to compare with the same run against a
+   node with the graph disabled (--no-admin there)
+
+    python3 graph-benchmark.py --admin admin:admin123 --user op1:secret1
+    python3 graph-benchmark.py --user op1:secret1 --no-admin --base-url http://nograph:8080
+"""
+import argparse
+import base64
+import http.cookiejar
+import json
+import random
+import sys
+import time
+import urllib.error
+import urllib.parse
+import urllib.request
+from html.parser import HTMLParser
+
+
+class FormParser(HTMLParser):
+    """Collects the input values of the first form with a matching action."""
+
+    def __init__(self, action_suffix):
+        super().__init__()
+        self.action_suffix = action_suffix
+        self.in_form = False
+        self.values = {}
+
+    def handle_starttag(self, tag, attrs):
+        attrs = dict(attrs)
+        if tag == 'form' and attrs.get('action', '').endswith(self.action_suffix):
+            self.in_form = True
+        elif self.in_form and tag == 'input' and attrs.get('name'):
+            self.values[attrs['name']] = attrs.get('value') or ''
+
+    def handle_endtag(self, tag):
+        if tag == 'form':
+            self.in_form = False
+
+
+class AdminSession:
+    """Form login; admin endpoints take the session's CSRF token as a form parameter."""
+
+    def __init__(self, base_url, user):
+        self.base_url = base_url
+        self.opener = urllib.request.build_opener(urllib.request.HTTPCookieProcessor(http.cookiejar.CookieJar()))
+        username, password = user.split(':', 1)
+        values = self.form('/login', '/login')
+        values.update(username=username, password=password)
+        with self.opener.open(base_url + '/login', urllib.parse.urlencode(values).encode('utf-8')) as response:
+            if 'error' in response.geturl():
+                raise SystemExit('Login failed for %s' % username)
+        self.csrf = self.form('/families/dashboard', '/logout')
+
+    def form(self, path, action_suffix):
+        parser = FormParser(action_suffix)
+        with self.opener.open(self.base_url + path) as response:
+            parser.feed(response.read().decode('utf-8'))
+        return parser.values
+
+    def call(self, path, post=False):
+        data = urllib.parse.urlencode(self.csrf).encode('utf-8') if post else None
+        try:
+            with self.opener.open(self.base_url + path, data, timeout=600) as response:
+                return json.loads(response.read().decode('utf-8'))
+        except urllib.error.HTTPError as e:
+            raise SystemExit('%s failed: %d %s' % (path, e.code, e.read().decode('utf-8', errors='replace')[:500]))
+
+
+def api(base_url, auth, path):
+    request = urllib.request.Request(base_url + path, headers={
+        'Authorization': 'Basic ' + auth, 'Accept': 'application/json'})
+    try:
+        with urllib.request.urlopen(request, timeout=60) as response:
+            return json.loads(response.read().decode('utf-8'))
+    except urllib.error.HTTPError as e:
+        raise SystemExit('%s failed with HTTP %d: %s' % (path, e.code, e.read().decode(errors='replace')[:500]))
+
+
+def percentile(sorted_values, fraction):
+    return sorted_values[min(len(sorted_values) - 1, int(fraction * len(sorted_values)))]
+
+
+def wait_loaded(session, timeout):
+    started = time.monotonic()
+    while True:
+        status = session.call('/admin/graph')
+        if not status['enabled']:
+            raise SystemExit('The family graph is disabled on this node (app.graph.enabled=false)')
+        if status.get('families') is not None and not status['loading']:
+            return status
+        if time.monotonic() - started > timeout:
+            raise SystemExit('The family graph did not load within %d s' % timeout)
+        print('  loading...', file=sys.stderr)
+        time.sleep(2)
+
+
+def main():
+    parser = argparse.ArgumentParser(description='Resident family graph footprint and latency benchmark')
+    parser.add_argument('--base-url', default='http://localhost:8080')
+    parser.add_argument('--admin', default='admin:admin123', help='username:password of an ADMIN')
+    parser.add_argument('--no-admin', action='store_true', help='only the end-to-end part (e.g. graph disabled)')
+    parser.add_argument('--user', required=True, help='username:password for the family API')
+    parser.add_argument('--iterations', type=int, default=10000, help='server-side runs per operation')
+    parser.add_argument('--requests', type=int, default=500, help='hierarchy requests over HTTP')
+    parser.add_argument('--families', type=int, default=2000, help='family IDs to sample from the API')
+    args = parser.parse_args()
+
+    if not args.no_admin:
+        session = AdminSession(args.base_url, args.admin)
+        status = wait_loaded(session, 1800)
+        print('Graph: %d families, %d persons, loaded in %.1f s' % (
+            status['families'], status['persons'], status['loadMillis'] / 1000.0))
+        print('Memory: %.1f MB heap, %.1f MB off-heap, %d bytes per person' % (
+            status['heapMb'], status['offHeapMb'], status['bytesPerPerson']))
+        for name, value in status['footprintBytes'].items():
+            print('  %-18s %10.1f MB' % (name, value / 1048576.0))
+
+        results = session.call('/admin/graph/benchmark?iterations=%d' % args.iterations, post=True)
+        print('%-12s %8s %10s %10s %10s %12s' % ('operation', 'runs', 'p50 us', 'p99 us', 'max us', 'ops/s'))
+        for name in ('hierarchy', 'validation', 'counts', 'search'):
+            if name in results:
+                r = results[name]
+                print('%-12s %8d %10.1f %10.1f %10.1f %12d' % (
+                    name, r['runs'], r['p50Micros'], r['p99Micros'], r['maxMicros'], r['opsPerSecond']))
+
+    auth = base64.b64encode(args.user.encode('utf-8')).decode('ascii')
+    ids = []
+    page = 0
+    while len(ids) < args.families:
+        result = api(args.base_url, auth, '/api/v1/families?page=%d&size=500' % page)
+        ids.extend(f['familyId'] for f in result['content'])
+        if not result['hasNext']:
+            break
+        page += 1
+    if not ids:
+        raise SystemExit('No families to request')
+
+    latencies = []
+    for _ in range(args.requests):
+        family_id = random.choice(ids)
+        started = time.monotonic()
+        api(args.base_url, auth, '/api/v1/families/%d/hierarchy' % family_id)
+        latencies.append((time.monotonic() - started) * 1000)
+    latencies.sort()
+    print('HTTP hierarchy over %d families: p50 %.2f ms, p99 %.2f ms' % (
+        len(ids), percentile(latencies, 0.5), percentile(latencies, 0.99)))
+
+
+if __name__ == '__main__':
+    main()
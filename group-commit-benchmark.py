@@ -0,0 +1,205 @@
+#!/usr/bin/env python3
+"""
+Commit throughput benchmark for "add member": per-request transactions
+against group commit.
+
+Simulated operators add members to random families as fast as the server
+answers (or with --think-ms between saves). Run it once against a node with
+group commit disabled (the default) and once with
+--app.group-commit.enabled=true; every run is appended to the results file
+and, once both are present, saves per second and latency are compared.
+
+Operators share a few accounts (one session per user, many requests each).
+The benchmark adds real rows: use a test database.
+
+    python3 group-commit-benchmark.py --label per-request --operator op1:secret1 --clients 100
+    # restart with --app.group-commit.enabled=true
+    python3 group-commit-benchmark.py --label group-commit --operator op1:secret1 --clients 100
+"""
+import argparse
+import http.cookiejar
+import json
+import random
+import re
+import threading
+import time
+import urllib.error
+import urllib.parse
+import urllib.request
+from html.parser import HTMLParser
+
+FAMILY_LINK = re.compile(r'/families/(\d+)/hierarchy')
+
+
+class FormParser(HTMLParser):
+    """Collects the input values of the first form with a matching action."""
+
+    def __init__(self, action_suffix):
+        super().__init__()
+        self.action_suffix = action_suffix
+        self.in_form = False
+        self.values = {}
+
+    def handle_starttag(self, tag, attrs):
+        attrs = dict(attrs)
+        if tag == 'form' and attrs.get('action', '').endswith(self.action_suffix):
+            self.in_form = True
+        elif self.in_form and tag == 'input' and attrs.get('name'):
+            self.values[attrs['name']] = attrs.get('value') or ''
+
+    def handle_endtag(self, tag):
+        if tag == 'form':
+            self.in_form = False
+
+
+class NoRedirect(urllib.request.HTTPRedirectHandler):
+    def redirect_request(self, req, fp, code, msg, headers, newurl):
+        return None
+
+
+class Operator:
+    def __init__(self, base_url, username, password):
+        self.base_url = base_url
+        self.cookies = http.cookiejar.CookieJar()
+        self.opener = urllib.request.build_opener(urllib.request.HTTPCookieProcessor(self.cookies))
+        self.no_redirect = urllib.request.build_opener(
+            urllib.request.HTTPCookieProcessor(self.cookies), NoRedirect())
+        values = self.form('/login', '/login')
+        values.update(username=username, password=password)
+        status, location = self.post('/login', values)
+        if status != 302 or 'error' in location:
+            raise SystemExit('Login failed for ' + username)
+
+    def get(self, path):
+        with self.opener.open(self.base_url + path) as response:
+            return response.read().decode('utf-8')
+
+    def post(self, path, values):
+        data = urllib.parse.urlencode(values).encode('utf-8')
+        try:
+            with self.no_redirect.open(self.base_url + path, data, timeout=120) as response:
+                response.read()
+                return response.status, response.headers.get('Location', '')
+        except urllib.error.HTTPError as e:
+            e.read()
+            return e.code, e.headers.get('Location', '')
+
+    def form(self, path, action_suffix):
+        parser = FormParser(action_suffix)
+        parser.feed(self.get(path))
+        return parser.values
+
+
+def member_values(csrf_values, serial):
+    values = dict(csrf_values)
+    values.update(
+        relationType='SON', age='25', status='ACTIVE',
+        nameCurrent='Bench Member %d' % serial, parentSpouseNameCurrent='Bench Parent',
+        epicNoCurrent='BNC%07d' % serial, acNoCurrent='101', partNoCurrent='1',
+        serialNoCurrent=str(serial), bloName='Bench BLO', bloMobile='9000000000')
+    return values
+
+
+def client(operator, csrf_values, family_ids, deadline, think_ms, counter, results, lock):
+    latencies, errors, shed = [], 0, 0
+    while time.monotonic() < deadline:
+        family_id = random.choice(family_ids)
+        with lock:
+            counter[0] += 1
+            serial = counter[0]
+        started = time.monotonic()
+        try:
+            status, location = operator.post('/families/%d/members/add' % family_id,
+                                             member_values(csrf_values, serial))
+        except (urllib.error.URLError, ConnectionError, OSError):
+            status, location = None, ''
+        elapsed_ms = (time.monotonic() - started) * 1000
+        if status == 302 and location.endswith('/members/new'):
+            latencies.append(elapsed_ms)
+        elif status == 503:
+            shed += 1
+        else:
+            errors += 1
+        if think_ms > 0:
+            time.sleep(random.uniform(0, 2 * think_ms) / 1000)
+    with lock:
+        results['latencies'].extend(latencies)
+        results['errors'] += errors
+        results['shed'] += shed
+
+
+def percentile(sorted_values, fraction):
+    if not sorted_values:
+        return 0.0
+    return sorted_values[min(len(sorted_values) - 1, int(fraction * len(sorted_values)))]
+
+
+def print_run(run):
+    print('%-13s clients %4d  %7.1f saves/s  p50 %7.1f ms  p99 %7.1f ms  503s %d  errors %d' % (
+        run['label'], run['clients'], run['savesPerSecond'], run['p50Ms'], run['p99Ms'],
+        run['shed'], run['errors']))
+
+
+def main():
+    parser = argparse.ArgumentParser(description='Per-request vs group commit benchmark')
+    parser.add_argument('--base-url', default='http://localhost:8080')
+    parser.add_argument('--label', choices=['per-request', 'group-commit'], required=True,
+                        help='write mode the server was started in')
+    parser.add_argument('--operator', action='append', required=True, help='username:password, repeatable')
+    parser.add_argument('--clients', type=int, default=50)
+    parser.add_argument('--duration', type=int, default=60)
+    parser.add_argument('--think-ms', type=int, default=0)
+    parser.add_argument('--results', default='group-commit-results.jsonl')
+    args = parser.parse_args()
+
+    operators = [Operator(args.base_url, *credentials.split(':', 1)) for credentials in args.operator]
+    family_ids = sorted({int(i) for i in FAMILY_LINK.findall(operators[0].get('/families'))})
+    if not family_ids:
+        raise SystemExit('No families found; create a few first')
+    # The add-member form carries the session's CSRF token
+    csrf = [operator.form('/families/%d/members/new' % family_ids[0], '/members/add') for operator in operators]
+
+    results = {'latencies': [], 'errors': 0, 'shed': 0}
+    lock = threading.Lock()
+    counter = [int(time.time()) % 1000000 * 100]
+    deadline = time.monotonic() + args.duration
+    threads = [threading.Thread(target=client, args=(
+                   operators[i % len(operators)], csrf[i % len(operators)], family_ids, deadline,
+                   args.think_ms, counter, results, lock))
+               for i in range(args.clients)]
+    for thread in threads:
+        thread.start()
+    for thread in threads:
+        thread.join()
+
+    latencies = sorted(results['latencies'])
+    run = {
+        'label': args.label,
+        'clients': args.clients,
+        'savesPerSecond': len(latencies) / args.duration,
+        'p50Ms': percentile(latencies, 0.50),
+        'p99Ms': percentile(latencies, 0.99),
+        'shed': results['shed'],
+        'errors': results['errors'],
+    }
+    print_run(run)
+    with open(args.results, 'a') as f:
+        f.write(json.dumps(run) + '\n')
+
+    latest = {}
+    with open(args.results) as f:
+        for line in f:
+            previous = json.loads(line)
+            if previous['clients'] == args.clients:
+                latest[previous['label']] = previous
+    if len(latest) == 2:
+        before, after = latest['per-request'], latest['group-commit']
+        print()
+        print('Comparison at %d clients (latest run of each mode):' % args.clients)
+        print_run(before)
+        print_run(after)
+        print('Commit throughput: %.2fx' % (after['savesPerSecond'] / max(before['savesPerSecond'], 0.001)))
+
+
+if __name__ == '__main__':
+    main()
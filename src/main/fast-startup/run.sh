@@ -0,0 +1,12 @@
+#!/bin/sh
+# Fast-startup launcher (built by mvn -Pfast-startup package). Uses the AOT
+# initializers and the class data sharing archive recorded at build time; the
+# archive only applies to the same JVM and the same jars, so rebuild after a
+# JDK upgrade. Extra arguments are passed to the application, e.g.
+#   sh run.sh --spring.profiles.active=cluster
+cd "$(dirname "$0")"
+exec java ${JAVA_OPTS} \
+    -XX:SharedArchiveFile=application.jsa \
+    -Dspring.aot.enabled=true \
+    -cp "${project.build.finalName}-fast-startup.jar:lib/*" \
+    com.election.voterhierarchy.VoterHierarchyApplication "$@"
@@ -2,8 +2,18 @@ package com.election.voterhierarchy;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.r2dbc.R2dbcDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.r2dbc.R2dbcRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 
-@SpringBootApplication
+// R2DBC is only used by the reactive viewer (ViewerApplication)
+@SpringBootApplication(exclude = {
+    R2dbcAutoConfiguration.class,
+    R2dbcTransactionManagerAutoConfiguration.class,
+    R2dbcDataAutoConfiguration.class,
+    R2dbcRepositoriesAutoConfiguration.class
+})
 public class VoterHierarchyApplication {
 
     public static void main(String[] args) {
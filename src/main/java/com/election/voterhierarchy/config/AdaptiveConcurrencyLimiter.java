@@ -0,0 +1,253 @@
+package com.election.voterhierarchy.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limit for application requests that adapts to measured latency
+ * (AIMD): each request finishing within its class's latency target while the
+ * limit is in use raises the limit by 1/limit (about +1 per round of
+ * requests); a request over its target, or failing, cuts it by the backoff
+ * ratio, at most once per target interval.
+ *
+ * Reads and writes share the limit but each class has a guaranteed share of
+ * it: above the limit a class is still admitted while it runs fewer requests
+ * than its share, so a surge of saves cannot lock out page loads or the
+ * other way round. Streamed downloads have a small fixed limit of their own
+ * and do not count towards the shared one, since they hold their slot for as
+ * long as the client reads.
+ */
+@Component
+@ConditionalOnProperty(name = "app.admission.enabled", havingValue = "true")
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    public enum RequestClass {
+        READ, WRITE, STREAM
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final Map<RequestClass, Partition> partitions = new EnumMap<>(RequestClass.class);
+    private final AtomicInteger inflight = new AtomicInteger();
+    private double limit;
+    private long lastDecreaseNanos;
+    private volatile Instant lastDecreaseAt;
+
+    public AdaptiveConcurrencyLimiter(@Value("${app.admission.initial-limit:10}") int initialLimit,
+                                      @Value("${app.admission.min-limit:2}") int minLimit,
+                                      @Value("${app.admission.max-limit:100}") int maxLimit,
+                                      @Value("${app.admission.backoff-ratio:0.9}") double backoffRatio,
+                                      @Value("${app.admission.write-share:0.6}") double writeShare,
+                                      @Value("${app.admission.write-target-ms:1500}") long writeTargetMs,
+                                      @Value("${app.admission.read-target-ms:500}") long readTargetMs,
+                                      @Value("${app.admission.stream-limit:3}") int streamLimit) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Admission limits must satisfy 1 <= min <= initial <= max");
+        }
+        if (streamLimit < 1) {
+            throw new IllegalArgumentException("Admission stream limit must be at least 1");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1 || writeShare <= 0 || writeShare >= 1) {
+            throw new IllegalArgumentException("Admission backoff ratio and write share must be between 0 and 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.limit = initialLimit;
+        this.lastDecreaseNanos = System.nanoTime();
+        partitions.put(RequestClass.WRITE, new Partition(writeShare, TimeUnit.MILLISECONDS.toNanos(writeTargetMs)));
+        partitions.put(RequestClass.READ, new Partition(1 - writeShare, TimeUnit.MILLISECONDS.toNanos(readTargetMs)));
+        partitions.put(RequestClass.STREAM, Partition.fixed(streamLimit));
+        log.info("Admission control: limit {} (min {}, max {}), writes {}% / reads {}%, streams {}",
+            initialLimit, minLimit, maxLimit, Math.round(writeShare * 100), Math.round((1 - writeShare) * 100),
+            streamLimit);
+    }
+
+    /**
+     * Admits the request or returns null when it has to be shed. An admitted
+     * request must be completed through exactly one of the Permit methods.
+     */
+    public Permit tryAcquire(RequestClass requestClass) {
+        Partition partition = partitions.get(requestClass);
+        if (partition.fixedLimit > 0) {
+            return tryAcquireFixed(partition);
+        }
+        int currentLimit = getLimit();
+        int total = inflight.incrementAndGet();
+        int own = partition.inflight.incrementAndGet();
+        if (total > currentLimit && own > partition.guaranteed(currentLimit)) {
+            inflight.decrementAndGet();
+            partition.inflight.decrementAndGet();
+            partition.rejected.incrementAndGet();
+            return null;
+        }
+        partition.admitted.incrementAndGet();
+        return new Permit(partition, System.nanoTime(), total);
+    }
+
+    private Permit tryAcquireFixed(Partition partition) {
+        if (partition.inflight.incrementAndGet() > partition.fixedLimit) {
+            partition.inflight.decrementAndGet();
+            partition.rejected.incrementAndGet();
+            return null;
+        }
+        partition.admitted.incrementAndGet();
+        return new Permit(partition, System.nanoTime(), 0);
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("limit", getLimit());
+        metrics.put("minLimit", minLimit);
+        metrics.put("maxLimit", maxLimit);
+        metrics.put("inflight", inflight.get());
+        metrics.put("lastDecreaseAt", lastDecreaseAt);
+        int currentLimit = getLimit();
+        partitions.forEach((requestClass, partition) ->
+            metrics.put(requestClass.name().toLowerCase(), partition.metrics(currentLimit)));
+        return metrics;
+    }
+
+    private synchronized void onSample(Partition partition, long latencyNanos, int inflightAtStart, boolean dropped) {
+        long now = System.nanoTime();
+        if (dropped || latencyNanos > partition.targetNanos) {
+            // One decrease per target interval: a burst of slow requests is one congestion signal
+            if (now - lastDecreaseNanos > partition.targetNanos) {
+                double previous = limit;
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecreaseNanos = now;
+                lastDecreaseAt = Instant.now();
+                log.debug("Admission limit {} -> {} ({} ms{})", (int) previous, (int) limit,
+                    TimeUnit.NANOSECONDS.toMillis(latencyNanos), dropped ? ", failed" : "");
+            }
+        } else if (inflightAtStart * 2 >= limit) {
+            // Grow only while the limit is actually in use
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    public final class Permit {
+
+        private final Partition partition;
+        private final long startNanos;
+        private final int inflightAtStart;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Partition partition, long startNanos, int inflightAtStart) {
+            this.partition = partition;
+            this.startNanos = startNanos;
+            this.inflightAtStart = inflightAtStart;
+        }
+
+        /** Completed normally; the latency counts towards the limit. */
+        public void success() {
+            complete(false, true);
+        }
+
+        /** Failed with a server error (e.g. no connection available). */
+        public void dropped() {
+            complete(true, true);
+        }
+
+        /** Completed, but its duration says nothing about load (e.g. a long download). */
+        public void ignore() {
+            complete(false, false);
+        }
+
+        private void complete(boolean dropped, boolean sample) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            partition.inflight.decrementAndGet();
+            if (partition.fixedLimit > 0) {
+                // Outside the shared limit: neither counted in it nor moving it
+                return;
+            }
+            inflight.decrementAndGet();
+            if (sample) {
+                long latencyNanos = System.nanoTime() - startNanos;
+                partition.record(latencyNanos, dropped);
+                onSample(partition, latencyNanos, inflightAtStart, dropped);
+            }
+        }
+    }
+
+    private static final class Partition {
+
+        private static final double EWMA_WEIGHT = 0.1;
+
+        private final double share;
+        private final long targetNanos;
+        private final int fixedLimit;
+        private final AtomicInteger inflight = new AtomicInteger();
+        private final AtomicLong admitted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong overTarget = new AtomicLong();
+        private double averageLatencyMs;
+
+        private Partition(double share, long targetNanos) {
+            this(share, targetNanos, 0);
+        }
+
+        private Partition(double share, long targetNanos, int fixedLimit) {
+            this.share = share;
+            this.targetNanos = targetNanos;
+            this.fixedLimit = fixedLimit;
+        }
+
+        private static Partition fixed(int limit) {
+            return new Partition(0, 0, limit);
+        }
+
+        private int guaranteed(int limit) {
+            return Math.max(1, (int) (limit * share));
+        }
+
+        private synchronized void record(long latencyNanos, boolean failed) {
+            double latencyMs = latencyNanos / 1_000_000.0;
+            averageLatencyMs = averageLatencyMs == 0 ? latencyMs
+                : averageLatencyMs + EWMA_WEIGHT * (latencyMs - averageLatencyMs);
+            if (failed) {
+                dropped.incrementAndGet();
+            } else if (latencyNanos > targetNanos) {
+                overTarget.incrementAndGet();
+            }
+        }
+
+        private synchronized Map<String, Object> metrics(int limit) {
+            Map<String, Object> metrics = new HashMap<>();
+            if (fixedLimit > 0) {
+                metrics.put("limit", fixedLimit);
+            } else {
+                metrics.put("share", share);
+                metrics.put("guaranteed", guaranteed(limit));
+                metrics.put("targetMs", TimeUnit.NANOSECONDS.toMillis(targetNanos));
+            }
+            metrics.put("inflight", inflight.get());
+            metrics.put("admitted", admitted.get());
+            metrics.put("rejected", rejected.get());
+            metrics.put("failed", dropped.get());
+            metrics.put("overTarget", overTarget.get());
+            metrics.put("averageLatencyMs", Math.round(averageLatencyMs * 10) / 10.0);
+            return metrics;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.election.voterhierarchy.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * How AdmissionControlFilter admits requests to a handler (method or whole
+ * controller). Handlers without it are ordinary reads or writes.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Admission {
+
+    Mode value();
+
+    enum Mode {
+        /**
+         * Streamed download: admitted against its own fixed limit rather than
+         * the shared one, since it holds its slot for as long as the client reads.
+         */
+        STREAM,
+        /**
+         * Admitted as usual, but its duration is not a load signal (e.g. a sync
+         * uploading a day's work in one request).
+         */
+        UNTIMED
+    }
+}
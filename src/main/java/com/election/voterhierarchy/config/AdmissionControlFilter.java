@@ -0,0 +1,168 @@
+package com.election.voterhierarchy.config;
+
+import com.election.voterhierarchy.config.AdaptiveConcurrencyLimiter.Permit;
+import com.election.voterhierarchy.config.AdaptiveConcurrencyLimiter.RequestClass;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.RequestPath;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sheds load when the adaptive limit is reached: a request that cannot be
+ * admitted gets an immediate 503 with a Retry-After hint (randomized, so
+ * rejected operators do not all retry in the same second) instead of waiting
+ * on the connection pool. POST requests are writes, everything else reads;
+ * handlers marked {@link Admission} are streams or untimed instead, which
+ * the filter finds by resolving the request's handler up front. Sign-in,
+ * static resources and the admin endpoints are never shed. Runs after Spring
+ * Security, so unauthenticated requests never take a slot.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+@ConditionalOnProperty(name = "app.admission.enabled", havingValue = "true")
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final ObjectProvider<HandlerMapping> handlerMapping;
+    private final int maxRetryAfterSeconds;
+
+    public AdmissionControlFilter(AdaptiveConcurrencyLimiter limiter,
+                                  @Qualifier("requestMappingHandlerMapping") ObjectProvider<HandlerMapping> handlerMapping,
+                                  @Value("${app.admission.max-retry-after-seconds:5}") int maxRetryAfterSeconds) {
+        this.limiter = limiter;
+        this.handlerMapping = handlerMapping;
+        this.maxRetryAfterSeconds = Math.max(1, maxRetryAfterSeconds);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.startsWith("/css/") || path.startsWith("/js/") || path.startsWith("/images/")
+            || path.equals("/login") || path.equals("/logout") || path.equals("/error")
+            || path.startsWith("/admin/") || path.startsWith("/h2-console");
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Admission.Mode mode = admissionMode(request);
+        RequestClass requestClass = mode == Admission.Mode.STREAM ? RequestClass.STREAM
+            : isWrite(request) ? RequestClass.WRITE : RequestClass.READ;
+        Permit permit = limiter.tryAcquire(requestClass);
+        if (permit == null) {
+            int retryAfter = ThreadLocalRandom.current().nextInt(1, maxRetryAfterSeconds + 1);
+            log.debug("Shed {} {} ({}), limit {}", request.getMethod(), request.getRequestURI(),
+                requestClass, limiter.getLimit());
+            response.setHeader("Retry-After", String.valueOf(retryAfter));
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), switch (requestClass) {
+                case WRITE -> "Too many entries are being saved right now. Nothing was saved; please retry in a few seconds.";
+                case STREAM -> "Too many downloads are running right now. Please retry in a few seconds.";
+                case READ -> "The server is busy. Please retry in a few seconds.";
+            });
+            return;
+        }
+
+        boolean completed = false;
+        try {
+            chain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Streamed downloads: free the slot when done, but their duration is not a load signal
+                request.getAsyncContext().addListener(new IgnoringListener(permit));
+            } else if (!completed || response.getStatus() >= 500) {
+                permit.dropped();
+            } else if (mode != null) {
+                // Untimed handlers, and streams answered without streaming (e.g. an error)
+                permit.ignore();
+            } else {
+                permit.success();
+            }
+        }
+    }
+
+    /**
+     * The {@link Admission} mode of the handler the request will be
+     * dispatched to (method first, then controller), or null when it has none.
+     */
+    private Admission.Mode admissionMode(HttpServletRequest request) {
+        HandlerMapping mapping = handlerMapping.getIfAvailable();
+        if (mapping == null) {
+            return null;
+        }
+        // The mapping needs the parsed path the DispatcherServlet would set; put back whatever was there
+        RequestPath previousPath = (RequestPath) request.getAttribute(ServletRequestPathUtils.PATH_ATTRIBUTE);
+        ServletRequestPathUtils.parseAndCache(request);
+        try {
+            HandlerExecutionChain chain = mapping.getHandler(request);
+            if (chain != null && chain.getHandler() instanceof HandlerMethod handlerMethod) {
+                Admission admission = handlerMethod.getMethodAnnotation(Admission.class);
+                if (admission == null) {
+                    admission = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), Admission.class);
+                }
+                return admission != null ? admission.value() : null;
+            }
+        } catch (Exception e) {
+            // No matching handler (e.g. unsupported media type): the dispatcher answers it, as an ordinary request
+            log.trace("No handler for {} {}: {}", request.getMethod(), request.getRequestURI(), e.getMessage());
+        } finally {
+            ServletRequestPathUtils.setParsedRequestPath(previousPath, request);
+        }
+        return null;
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method));
+    }
+
+    private record IgnoringListener(Permit permit) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permit.ignore();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            permit.ignore();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            permit.ignore();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.election.voterhierarchy.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.Session;
+import org.springframework.session.security.SpringSessionBackedSessionRegistry;
+
+/**
+ * Session registry backed by the shared session store, so the
+ * one-session-per-user limit holds across nodes: a login on one node expires
+ * the user's older session wherever it was created.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+public class ClusterSessionConfig {
+
+    @Bean
+    public <S extends Session> SpringSessionBackedSessionRegistry<S> sessionRegistry(
+            FindByIndexNameSessionRepository<S> sessionRepository) {
+        return new SpringSessionBackedSessionRegistry<>(sessionRepository);
+    }
+}
@@ -0,0 +1,142 @@
+package com.election.voterhierarchy.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps in-flight requests in the virtual-thread mode. Platform threads were
+ * bounded by Tomcat's pool; virtual threads are not, and with open-in-view
+ * every request holds a Hikari connection, so thousands of them would pile
+ * up in Hikari's queue and fail with connection timeouts. Requests beyond the
+ * limit wait here (fairly, without a connection) and get a 503 after the
+ * queue timeout. The default limit leaves a few connections for the
+ * scheduler and batch workers.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class ConnectionBoundRequestLimiter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long queueTimeoutMs;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public ConnectionBoundRequestLimiter(
+            @Value("${app.virtual-threads.max-concurrent-requests:0}") int configuredLimit,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize,
+            @Value("${app.virtual-threads.reserved-connections:2}") int reservedConnections,
+            @Value("${app.virtual-threads.queue-timeout-ms:10000}") long queueTimeoutMs) {
+        this.maxConcurrent = configuredLimit > 0 ? configuredLimit : Math.max(1, connectionPoolSize - reservedConnections);
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.queueTimeoutMs = queueTimeoutMs;
+        log.info("Virtual-thread request limit: {} concurrent requests (connection pool {})",
+            maxConcurrent, connectionPoolSize);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.startsWith("/css/") || path.startsWith("/js/") || path.startsWith("/images/");
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // The permit taken by the original dispatch covers the async part
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!acquired) {
+            rejected.incrementAndGet();
+            log.debug("Rejected {} after waiting {} ms for a request slot", request.getRequestURI(), queueTimeoutMs);
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Server busy, please retry");
+            return;
+        }
+
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        };
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Streaming downloads keep their connection until the body is written
+                request.getAsyncContext().addListener(new ReleasingListener(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    private record ReleasingListener(Runnable release) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.election.voterhierarchy.config;
+
+import com.election.voterhierarchy.service.FamilySummaryService;
+import com.election.voterhierarchy.service.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class FamilySummaryInitializer implements CommandLineRunner {
+
+    private final FamilySummaryService familySummaryService;
+    private final ShardRouter shardRouter;
+    private final boolean rebuildOnStartup;
+
+    public FamilySummaryInitializer(FamilySummaryService familySummaryService,
+                                    ShardRouter shardRouter,
+                                    @Value("${app.family-summary.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        this.familySummaryService = familySummaryService;
+        this.shardRouter = shardRouter;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        // Rebuild on request, or when the read model is missing rows (first start after upgrade)
+        shardRouter.forEachShard(() -> {
+            if (rebuildOnStartup || familySummaryService.needsRebuild()) {
+                log.info("Family summary read model out of date. Rebuilding...");
+                familySummaryService.rebuildAll();
+            }
+        });
+    }
+}
@@ -0,0 +1,162 @@
+package com.election.voterhierarchy.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Accepts gzip-compressed API request bodies (Content-Encoding: gzip), as
+ * sent by field devices syncing over slow mobile links. The body is inflated
+ * while the controller reads it; more than max-request-mb after inflating
+ * is refused, so a small upload cannot expand without limit. Response
+ * compression is Tomcat's (server.compression).
+ */
+@Component
+public class GzipRequestFilter extends OncePerRequestFilter {
+
+    private final long maxBytes;
+
+    public GzipRequestFilter(@Value("${app.api.max-request-mb:64}") long maxRequestMb) {
+        this.maxBytes = maxRequestMb * 1024 * 1024;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/")
+            || !"gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        chain.doFilter(new InflatingRequest(request, maxBytes), response);
+    }
+
+    private static class InflatingRequest extends HttpServletRequestWrapper {
+
+        private final long maxBytes;
+        private ServletInputStream inputStream;
+
+        InflatingRequest(HttpServletRequest request, long maxBytes) {
+            super(request);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new InflatingInputStream(new GZIPInputStream(super.getInputStream()), maxBytes);
+            }
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                encoding != null ? encoding : StandardCharsets.UTF_8.name()));
+        }
+
+        // The inflated length is unknown until the body has been read
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                return null;
+            }
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                return Collections.emptyEnumeration();
+            }
+            return super.getHeaders(name);
+        }
+    }
+
+    private static class InflatingInputStream extends ServletInputStream {
+
+        private final InputStream inflater;
+        private final long maxBytes;
+        private long read;
+        private boolean finished;
+
+        InflatingInputStream(InputStream inflater, long maxBytes) {
+            this.inflater = inflater;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = inflater.read();
+            count(b < 0 ? -1 : 1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = inflater.read(buffer, offset, length);
+            count(n);
+            return n;
+        }
+
+        private void count(int n) throws IOException {
+            if (n < 0) {
+                finished = true;
+                return;
+            }
+            read += n;
+            if (read > maxBytes) {
+                throw new IOException("Request body exceeds " + (maxBytes / (1024 * 1024)) + " MB after decompression");
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener listener) {
+            throw new UnsupportedOperationException("Asynchronous reads are not supported for compressed requests");
+        }
+
+        @Override
+        public void close() throws IOException {
+            inflater.close();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.election.voterhierarchy.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Local stand-in for database replication (replica-h2 profile only). Every
+ * sync interval it copies the whole primary H2 database into each replica
+ * H2 database, so replicas trail the primary by up to one interval, the way
+ * an asynchronous replica would. Not for real deployments.
+ */
+@Component
+@Profile("replica-h2")
+@Slf4j
+public class H2ReplicaSyncStandIn {
+
+    private final JdbcTemplate primaryJdbc;
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final ReplicaLagMonitor lagMonitor;
+
+    public H2ReplicaSyncStandIn(HikariDataSource primaryDataSource,
+                                ReplicaRoutingDataSource routingDataSource,
+                                ReplicaLagMonitor lagMonitor) {
+        this.primaryJdbc = new JdbcTemplate(primaryDataSource);
+        this.routingDataSource = routingDataSource;
+        this.lagMonitor = lagMonitor;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.h2-sync-interval-ms:3000}")
+    public void sync() {
+        List<String> script = primaryJdbc.queryForList("SCRIPT NOPASSWORDS NOSETTINGS", String.class);
+
+        for (ReplicaRoutingDataSource.Replica replica : routingDataSource.getReplicas()) {
+            // Keep reads off the replica while its tables are being replaced
+            replica.markUnavailable();
+            try (Connection connection = replica.getDataSource().getConnection()) {
+                connection.setReadOnly(false);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("DROP ALL OBJECTS");
+                    for (String sql : script) {
+                        if (!sql.startsWith("--") && !sql.startsWith("CREATE USER")) {
+                            statement.execute(sql);
+                        }
+                    }
+                }
+                log.debug("Synced {} statements to {}", script.size(), replica.getName());
+            } catch (Exception e) {
+                log.warn("H2 replica sync to {} failed: {}", replica.getName(), e.getMessage());
+            }
+            lagMonitor.check(replica);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.election.voterhierarchy.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Replaces the single auto-configured pool with a primary pool plus one
+ * read-only pool per replica URL, routed by ReplicaRoutingDataSource.
+ * Without app.datasource.replica.enabled=true nothing here is created and
+ * all traffic uses spring.datasource as before. Sharding, when enabled,
+ * takes precedence.
+ */
+@Configuration
+@ConditionalOnExpression("${app.datasource.replica.enabled:false} and !${app.sharding.enabled:false}")
+@Slf4j
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            DataSourceProperties properties,
+            @Value("${app.datasource.replica.urls}") String urls,
+            @Value("${app.datasource.replica.username:${spring.datasource.username}}") String username,
+            @Value("${app.datasource.replica.password:${spring.datasource.password}}") String password,
+            @Value("${app.datasource.replica.pool-size:10}") int poolSize,
+            @Value("${app.datasource.replica.max-lag-ms:5000}") long maxLagMs) {
+        List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+        List<String> replicaUrls = Arrays.stream(urls.split(","))
+            .map(String::trim)
+            .filter(url -> !url.isEmpty())
+            .toList();
+
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setJdbcUrl(replicaUrls.get(i));
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            // Do not fail startup when a replica is down; the lag monitor routes around it
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(new ReplicaRoutingDataSource.Replica(replica.getPoolName(), replica));
+        }
+
+        log.info("Read/write routing enabled with {} replica(s), max lag {} ms", replicas.size(), maxLagMs);
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLagMs);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
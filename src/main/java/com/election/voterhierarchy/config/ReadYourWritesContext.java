@@ -0,0 +1,31 @@
+package com.election.voterhierarchy.config;
+
+/**
+ * Time of the current caller's last committed write. A replica may serve the
+ * caller's reads only once it has replicated past that time. Web requests
+ * load and save it through the session (ReadYourWritesFilter); background
+ * threads keep their own value for the life of the thread.
+ */
+public final class ReadYourWritesContext {
+
+    private static final ThreadLocal<Long> LAST_WRITE_AT = ThreadLocal.withInitial(() -> 0L);
+
+    private ReadYourWritesContext() {
+    }
+
+    public static long getLastWriteAt() {
+        return LAST_WRITE_AT.get();
+    }
+
+    public static void setLastWriteAt(long lastWriteAt) {
+        LAST_WRITE_AT.set(lastWriteAt);
+    }
+
+    public static void recordWrite() {
+        LAST_WRITE_AT.set(System.currentTimeMillis());
+    }
+
+    public static void clear() {
+        LAST_WRITE_AT.remove();
+    }
+}
@@ -0,0 +1,53 @@
+package com.election.voterhierarchy.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.annotation.Order;
+import org.springframework.session.web.http.SessionRepositoryFilter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Carries the session's last write time across requests, so the page an
+ * operator is redirected to after saving is read from the primary (or a
+ * replica that has caught up), not from a replica that is still behind.
+ * Runs just inside the shared-session filter so the value lives in the
+ * clustered session when that is enabled.
+ */
+@Component
+@Order(SessionRepositoryFilter.DEFAULT_ORDER + 1)
+@ConditionalOnExpression("${app.datasource.replica.enabled:false} and !${app.sharding.enabled:false}")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String LAST_WRITE_AT = "READ_YOUR_WRITES_LAST_WRITE_AT";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        HttpSession session = request.getSession(false);
+        long lastWriteAt = session != null && session.getAttribute(LAST_WRITE_AT) instanceof Long stored ? stored : 0L;
+        ReadYourWritesContext.setLastWriteAt(lastWriteAt);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long latest = ReadYourWritesContext.getLastWriteAt();
+            ReadYourWritesContext.clear();
+            if (latest > lastWriteAt) {
+                HttpSession current = request.getSession(false);
+                if (current != null) {
+                    try {
+                        current.setAttribute(LAST_WRITE_AT, latest);
+                    } catch (IllegalStateException e) {
+                        // Session was invalidated during the request (logout)
+                    }
+                }
+            }
+        }
+    }
+}
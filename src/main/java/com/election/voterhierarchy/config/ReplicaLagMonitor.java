@@ -0,0 +1,80 @@
+package com.election.voterhierarchy.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Writes the replication heartbeat on the primary and reads it back from
+ * every replica. The value a replica returns is the primary time it has
+ * replicated up to, which drives both the lag limit and read-your-writes.
+ */
+@Component
+@ConditionalOnExpression("${app.datasource.replica.enabled:false} and !${app.sharding.enabled:false}")
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final int HEARTBEAT_ID = 1;
+
+    private final JdbcTemplate primaryJdbc;
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final long maxLagMs;
+
+    public ReplicaLagMonitor(HikariDataSource primaryDataSource,
+                             ReplicaRoutingDataSource routingDataSource,
+                             @Value("${app.datasource.replica.max-lag-ms:5000}") long maxLagMs) {
+        this.primaryJdbc = new JdbcTemplate(primaryDataSource);
+        this.routingDataSource = routingDataSource;
+        this.maxLagMs = maxLagMs;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.heartbeat-interval-ms:1000}")
+    public void heartbeat() {
+        try {
+            long now = System.currentTimeMillis();
+            int updated = primaryJdbc.update("UPDATE replication_heartbeat SET beat_at = ? WHERE id = ?", now, HEARTBEAT_ID);
+            if (updated == 0) {
+                primaryJdbc.update("INSERT INTO replication_heartbeat (id, beat_at) VALUES (?, ?)", HEARTBEAT_ID, now);
+            }
+        } catch (Exception e) {
+            log.warn("Replication heartbeat write failed: {}", e.getMessage());
+        }
+        checkReplicas();
+    }
+
+    public void checkReplicas() {
+        for (ReplicaRoutingDataSource.Replica replica : routingDataSource.getReplicas()) {
+            check(replica);
+        }
+    }
+
+    public void check(ReplicaRoutingDataSource.Replica replica) {
+        boolean wasUsable = replica.isAvailable() && replica.getLagMs() <= maxLagMs;
+        try {
+            JdbcTemplate jdbc = new JdbcTemplate(replica.getDataSource());
+            jdbc.setQueryTimeout(2);
+            List<Long> beats = jdbc.queryForList("SELECT beat_at FROM replication_heartbeat WHERE id = ?", Long.class, HEARTBEAT_ID);
+            long replicatedUpTo = beats.isEmpty() ? 0L : beats.get(0);
+            replica.update(replicatedUpTo, System.currentTimeMillis() - replicatedUpTo);
+        } catch (Exception e) {
+            replica.markUnavailable();
+            log.debug("Replica {} check failed: {}", replica.getName(), e.getMessage());
+        }
+
+        boolean usable = replica.isAvailable() && replica.getLagMs() <= maxLagMs;
+        if (usable != wasUsable) {
+            if (usable) {
+                log.info("Replica {} back in rotation (lag {} ms)", replica.getName(), replica.getLagMs());
+            } else {
+                log.warn("Replica {} out of rotation ({})", replica.getName(),
+                    replica.isAvailable() ? "lag " + replica.getLagMs() + " ms" : "unreachable");
+            }
+        }
+    }
+}
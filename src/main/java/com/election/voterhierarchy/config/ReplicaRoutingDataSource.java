@@ -0,0 +1,120 @@
+package com.election.voterhierarchy.config;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Sends read-only transactions to a replica and everything else to the
+ * primary. A replica is used only while it is reachable, within the lag
+ * limit and, for a caller that wrote recently, past that caller's last
+ * write; otherwise the read goes to the primary.
+ * Must sit behind a LazyConnectionDataSourceProxy so the connection is
+ * fetched after the transaction's read-only flag is set.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private static final Object WRITE_TRACKED = new Object();
+
+    @Getter
+    private final List<Replica> replicas;
+    private final long maxLagMs;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, long maxLagMs) {
+        this.replicas = replicas;
+        this.maxLagMs = maxLagMs;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (Replica replica : replicas) {
+            targets.put(replica.getName(), replica.getDataSource());
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            trackWrite();
+            return PRIMARY;
+        }
+
+        long lastWriteAt = ReadYourWritesContext.getLastWriteAt();
+        List<Replica> eligible = replicas.stream()
+            .filter(r -> r.isUsable(maxLagMs, lastWriteAt))
+            .collect(Collectors.toList());
+        if (eligible.isEmpty()) {
+            return PRIMARY;
+        }
+        return eligible.get(Math.floorMod(nextReplica.getAndIncrement(), eligible.size())).getName();
+    }
+
+    /**
+     * Records the commit time of a read-write transaction so the same caller
+     * keeps reading from the primary until the replicas have caught up.
+     */
+    private void trackWrite() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(WRITE_TRACKED)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(WRITE_TRACKED, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ReadYourWritesContext.recordWrite();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITE_TRACKED);
+            }
+        });
+    }
+
+    /**
+     * A replica pool and its last measured replication state.
+     */
+    @Getter
+    public static class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean available;
+        // Primary heartbeat time the replica has applied, and how old it was when read
+        private volatile long replicatedUpTo;
+        private volatile long lagMs = Long.MAX_VALUE;
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public void update(long replicatedUpTo, long lagMs) {
+            this.replicatedUpTo = replicatedUpTo;
+            this.lagMs = lagMs;
+            this.available = true;
+        }
+
+        public void markUnavailable() {
+            this.available = false;
+        }
+
+        boolean isUsable(long maxLagMs, long lastWriteAt) {
+            return available && lagMs <= maxLagMs && replicatedUpTo >= lastWriteAt;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.election.voterhierarchy.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * Picks the Flyway baseline for a database that has tables but no history
+ * table yet. A database of the release before the migrations only has the
+ * V1 schema and is baselined at 1, so V2 onwards (including their data
+ * backfills) run. A database that ran later code with ddl-auto=update
+ * already has some of the objects the migrations create; it is baselined at
+ * the last version whose objects are all present, so the migrations after
+ * it do not fail on existing columns or tables.
+ * Databases with a history table, and empty ones, are left to Flyway.
+ */
+@Component
+@Slf4j
+public class SchemaBaselineDetector implements FlywayConfigurationCustomizer {
+
+    private static final String DEFAULT_HISTORY_TABLE = "flyway_schema_history";
+
+    // Object created by each migration from V2 on, in version order: table, or table and column
+    private static final String[][] MARKERS = {
+        {"2", "family", "head_person_id"},
+        {"3", "family_summary", null},
+        {"4", "family_change_outbox", null},
+        {"5", "member_validation", null},
+        {"6", "family", "revision"},
+        {"7", "person", "version"},
+        {"8", "replication_heartbeat", null},
+        {"9", "shard_assignment", null},
+        {"10", "cache_invalidation", null},
+    };
+
+    @Override
+    public void customize(FluentConfiguration configuration) {
+        String detected = detect(configuration.getDataSource(), configuration.getTable());
+        if (detected != null) {
+            configuration.baselineVersion(detected);
+        }
+    }
+
+    /**
+     * Baseline version for the database the data source currently points at
+     * (the current shard, for the routing data source), or null if Flyway's
+     * configured baseline applies.
+     */
+    public String detect(DataSource dataSource, String historyTable) {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData meta = connection.getMetaData();
+            String catalog = connection.getCatalog();
+            String schema = connection.getSchema();
+            if (exists(meta, catalog, schema, historyTable != null ? historyTable : DEFAULT_HISTORY_TABLE, null)
+                    || !exists(meta, catalog, schema, "family", null)) {
+                return null;
+            }
+
+            String version = "1";
+            for (String[] marker : MARKERS) {
+                if (!exists(meta, catalog, schema, marker[1], marker[2])) {
+                    break;
+                }
+                version = marker[0];
+            }
+            log.info("Database without a migration history: baselining at V{}", version);
+            return version;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not inspect the schema for the Flyway baseline", e);
+        }
+    }
+
+    // Identifiers are stored in upper case by H2 and as written by MySQL
+    private static boolean exists(DatabaseMetaData meta, String catalog, String schema,
+                                  String table, String column) throws SQLException {
+        for (String name : new String[] {table, table.toUpperCase(Locale.ROOT)}) {
+            String columnName = column == null ? null
+                : name.equals(table) ? column : column.toUpperCase(Locale.ROOT);
+            try (ResultSet rs = column == null
+                    ? meta.getTables(catalog, schema, name, null)
+                    : meta.getColumns(catalog, schema, name, columnName)) {
+                if (rs.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
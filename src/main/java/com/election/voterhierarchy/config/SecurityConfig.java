@@ -1,8 +1,11 @@
 package com.election.voterhierarchy.config;
 
 import com.election.voterhierarchy.service.UserService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -11,6 +14,7 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.session.SessionRegistry;
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
@@ -20,11 +24,15 @@ public class SecurityConfig {
 
     private final UserService userService;
     private final PasswordEncoder passwordEncoder;
+    // Shared registry in cluster mode; otherwise Spring Security's in-memory one
+    private final ObjectProvider<SessionRegistry> sessionRegistry;
 
     public SecurityConfig(UserService userService,
-            PasswordEncoder passwordEncoder) {
+            PasswordEncoder passwordEncoder,
+            ObjectProvider<SessionRegistry> sessionRegistry) {
         this.userService = userService;
         this.passwordEncoder = passwordEncoder;
+        this.sessionRegistry = sessionRegistry;
     }
 
     @Bean
@@ -40,7 +48,30 @@ public class SecurityConfig {
         return authConfig.getAuthenticationManager();
     }
 
+    /**
+     * JSON API for downstream systems: HTTP Basic, no server-side session,
+     * so API clients never consume the single interactive session a user has.
+     */
     @Bean
+    @Order(1)
+    public SecurityFilterChain apiSecurityFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher("/api/**")
+                .authenticationProvider(authenticationProvider())
+                .authorizeHttpRequests(auth -> auth
+                .anyRequest().authenticated()
+                )
+                .httpBasic(Customizer.withDefaults())
+                .sessionManagement(session -> session
+                .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                )
+                .csrf(csrf -> csrf.disable());
+
+        return http.build();
+    }
+
+    @Bean
+    @Order(2)
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .authenticationProvider(authenticationProvider())
@@ -50,13 +81,17 @@ public class SecurityConfig {
                 .requestMatchers("/login").permitAll()
                 // Admin-only endpoints
                 .requestMatchers("/users/**").hasRole("ADMIN")
+                .requestMatchers("/admin/**").hasRole("ADMIN")
+                .requestMatchers("/families/summary/**").hasRole("ADMIN")
                 // ADMIN and OPERATOR can create/edit/delete
                 .requestMatchers("/families/new", "/families/create").hasAnyRole("ADMIN", "OPERATOR")
                 .requestMatchers("/families/*/edit", "/families/*/update").hasAnyRole("ADMIN", "OPERATOR")
                 .requestMatchers("/families/*/delete").hasAnyRole("ADMIN", "OPERATOR")
                 .requestMatchers("/families/*/members/new", "/families/*/members/add").hasAnyRole("ADMIN", "OPERATOR")
+                .requestMatchers("/families/*/members/batch", "/families/*/members/batch-add").hasAnyRole("ADMIN", "OPERATOR")
                 .requestMatchers("/families/*/members/*/edit", "/families/*/members/*/update").hasAnyRole("ADMIN", "OPERATOR")
                 .requestMatchers("/families/*/members/*/delete").hasAnyRole("ADMIN", "OPERATOR")
+                .requestMatchers("/families/export/**", "/families/print-jobs/**").hasAnyRole("ADMIN", "OPERATOR")
                 // All authenticated users can view
                 .requestMatchers("/families/**").authenticated()
                 // Require authentication for all other requests
@@ -82,6 +117,7 @@ public class SecurityConfig {
                 .maximumSessions(1)
                 .maxSessionsPreventsLogin(false)
                 .expiredUrl("/login?expired")
+                .sessionRegistry(sessionRegistry.getIfAvailable())
                 )
                 .csrf(csrf -> csrf.ignoringRequestMatchers("/h2-console/**"))
                 .headers(headers -> headers
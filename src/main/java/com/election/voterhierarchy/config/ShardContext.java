@@ -0,0 +1,31 @@
+package com.election.voterhierarchy.config;
+
+/**
+ * Shard the current thread's database work goes to. Null means the global
+ * database (users, shard directory), which is also the only database when
+ * sharding is off. Set per request by ShardRoutingInterceptor and per task
+ * by ShardRouter.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static void set(String shard) {
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
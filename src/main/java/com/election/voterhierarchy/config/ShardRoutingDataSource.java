@@ -0,0 +1,35 @@
+package com.election.voterhierarchy.config;
+
+import lombok.Getter;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Picks the shard database named by ShardContext, or the global database
+ * when no shard is set. Must sit behind a LazyConnectionDataSourceProxy so
+ * the shard can be chosen after the transaction has started.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    // In configuration order; the position is part of each shard's ID range
+    @Getter
+    private final List<String> shardNames;
+
+    public ShardRoutingDataSource(DataSource global, Map<String, DataSource> shards) {
+        this.shardNames = new ArrayList<>(shards.keySet());
+        setTargetDataSources(new HashMap<>(shards));
+        setDefaultTargetDataSource(global);
+        // An unknown shard name is a bug, not a reason to write to the global database
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+}
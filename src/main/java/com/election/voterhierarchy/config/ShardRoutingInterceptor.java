@@ -0,0 +1,55 @@
+package com.election.voterhierarchy.config;
+
+import com.election.voterhierarchy.service.ShardRouter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Points a family request at the family's shard: by the family ID in the
+ * path, or, when a family is being created, by the head's 2002 AC number.
+ * Requests without either run against the global database and reach the
+ * shards through ShardRouter's scatter-gather.
+ */
+@RequiredArgsConstructor
+public class ShardRoutingInterceptor implements AsyncHandlerInterceptor {
+
+    private final ShardRouter shardRouter;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> pathVariables =
+            (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+
+        String familyId = pathVariables != null
+            ? pathVariables.getOrDefault("familyId", pathVariables.get("id"))
+            : null;
+        if (familyId != null && !familyId.isEmpty() && familyId.chars().allMatch(Character::isDigit)) {
+            ShardContext.set(shardRouter.shardOfFamily(Long.valueOf(familyId)));
+            return true;
+        }
+
+        // Family creation (the only family form posted without a family ID)
+        String acNo = request.getParameter("acNo2002");
+        if ("POST".equals(request.getMethod()) && acNo != null && !acNo.isBlank()) {
+            ShardContext.set(shardRouter.assignAc(acNo));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ShardContext.clear();
+    }
+
+    // Streaming responses continue on another thread; free this one
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ShardContext.clear();
+    }
+}
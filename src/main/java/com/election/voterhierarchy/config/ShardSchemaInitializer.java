@@ -0,0 +1,82 @@
+package com.election.voterhierarchy.config;
+
+import com.election.voterhierarchy.service.ShardRouter;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayProperties;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Runs the Flyway migrations on every shard (Spring Boot only migrates the
+ * global database) and moves each shard's ID counters into its own range,
+ * before any request or scheduled task touches the shards.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ShardSchemaInitializer {
+
+    // Tables whose generated IDs are copied between shards by the rebalancer
+    private static final String[] ID_RANGE_TABLES = {
+        "family", "person", "voter_details_2002", "voter_details_current", "blo_details"
+    };
+
+    private final ShardRouter shardRouter;
+    private final FlywayProperties flywayProperties;
+    private final SchemaBaselineDetector baselineDetector;
+    private final DataSource dataSource;
+
+    @PostConstruct
+    public void initializeShards() {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        for (String shard : shardRouter.getShardNames()) {
+            shardRouter.runOnShard(shard, () -> {
+                DatabaseDriver driver = DatabaseDriver.fromProductName(jdbc.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName()));
+                migrate(driver);
+                alignIdRanges(jdbc, shard, driver == DatabaseDriver.MYSQL);
+            });
+            log.info("Shard {} schema ready", shard);
+        }
+    }
+
+    // Same locations and baseline rule as the global database; the routing
+    // data source sends Flyway's connections to the current shard
+    private void migrate(DatabaseDriver driver) {
+        String baseline = baselineDetector.detect(dataSource, flywayProperties.getTable());
+        String[] locations = flywayProperties.getLocations().stream()
+            .map(location -> location.replace("{vendor}", driver.getId()))
+            .toArray(String[]::new);
+        Flyway.configure()
+            .dataSource(dataSource)
+            .locations(locations)
+            .baselineOnMigrate(flywayProperties.isBaselineOnMigrate())
+            .baselineVersion(baseline != null ? baseline : flywayProperties.getBaselineVersion())
+            .load()
+            .migrate();
+    }
+
+    private void alignIdRanges(JdbcTemplate jdbc, String shard, boolean mysql) {
+        long rangeStart = shardRouter.idRangeStart(shard);
+
+        for (String table : ID_RANGE_TABLES) {
+            Long maxId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            if (maxId != null && maxId >= rangeStart) {
+                continue;
+            }
+            jdbc.execute(mysql
+                ? "ALTER TABLE " + table + " AUTO_INCREMENT = " + rangeStart
+                : "ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + rangeStart);
+            log.debug("Shard {} table {} now allocates IDs from {}", shard, table, rangeStart);
+        }
+    }
+}
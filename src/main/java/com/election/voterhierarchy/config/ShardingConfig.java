@@ -0,0 +1,77 @@
+package com.election.voterhierarchy.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Horizontal sharding by AC number. spring.datasource becomes the global
+ * database (users, shard directory) and every URL in app.sharding.shard-urls
+ * is one shard holding the full family schema. Shards are named shard-1,
+ * shard-2, ... in list order; the order must never change because each
+ * position owns an ID range. Replica routing is not combined with sharding.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+@Slf4j
+public class ShardingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource globalDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("global");
+        return dataSource;
+    }
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(
+            HikariDataSource globalDataSource,
+            DataSourceProperties properties,
+            @Value("${app.sharding.shard-urls}") String urls,
+            @Value("${app.sharding.username:${spring.datasource.username}}") String username,
+            @Value("${app.sharding.password:${spring.datasource.password}}") String password,
+            @Value("${app.sharding.pool-size:10}") int poolSize) {
+        List<String> shardUrls = Arrays.stream(urls.split(","))
+            .map(String::trim)
+            .filter(url -> !url.isEmpty())
+            .toList();
+        if (shardUrls.isEmpty()) {
+            throw new IllegalStateException("app.sharding.shard-urls must list at least one shard database");
+        }
+
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        for (int i = 0; i < shardUrls.size(); i++) {
+            HikariDataSource shard = new HikariDataSource();
+            shard.setPoolName("shard-" + (i + 1));
+            shard.setJdbcUrl(shardUrls.get(i));
+            shard.setUsername(username);
+            shard.setPassword(password);
+            shard.setDriverClassName(properties.determineDriverClassName());
+            shard.setMaximumPoolSize(poolSize);
+            shards.put(shard.getPoolName(), shard);
+        }
+
+        log.info("Sharding enabled with {} shard(s): {}", shards.size(), shards.keySet());
+        return new ShardRoutingDataSource(globalDataSource, shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+}
@@ -0,0 +1,22 @@
+package com.election.voterhierarchy.config;
+
+import com.election.voterhierarchy.service.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ShardingWebConfig implements WebMvcConfigurer {
+
+    private final ShardRouter shardRouter;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ShardRoutingInterceptor(shardRouter))
+            .addPathPatterns("/families/**", "/api/v1/families/**");
+    }
+}
@@ -0,0 +1,28 @@
+package com.election.voterhierarchy.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Guards the virtual-thread mode. Spring Boot switches Tomcat, the task
+ * executor and the scheduler to virtual threads on its own, but silently
+ * ignores the property on a runtime older than Java 21; refuse to start
+ * instead, so a node never runs the platform mode believing otherwise.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfig {
+
+    static final int REQUIRED_JAVA = 21;
+
+    public VirtualThreadConfig() {
+        int feature = Runtime.version().feature();
+        if (feature < REQUIRED_JAVA) {
+            throw new IllegalStateException("spring.threads.virtual.enabled needs Java " + REQUIRED_JAVA
+                + " or later at runtime, found Java " + feature);
+        }
+        log.info("Serving requests, async tasks and batch workers on virtual threads");
+    }
+}
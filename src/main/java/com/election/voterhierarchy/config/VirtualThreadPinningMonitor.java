@@ -0,0 +1,137 @@
+package com.election.voterhierarchy.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Watches the JDK's jdk.VirtualThreadPinned events, raised when a virtual
+ * thread blocks while pinned to its carrier (inside synchronized or a native
+ * frame) for longer than the threshold. Pinned JDBC calls are the ones that
+ * matter: each holds a carrier thread for the whole query, and with few
+ * carriers the node stalls. Events are grouped by the first application or
+ * library frame; the first event at each site is logged with its stack.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+    private static final List<String> JDBC_PACKAGES = List.of(
+        "com.mysql.", "com.zaxxer.hikari.", "org.h2.", "org.hibernate.",
+        "org.springframework.jdbc.", "org.springframework.orm.");
+
+    private final long thresholdMs;
+    private final Map<String, PinnedSite> sites = new ConcurrentHashMap<>();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(@Value("${app.virtual-threads.pinning-threshold-ms:20}") long thresholdMs) {
+        this.thresholdMs = thresholdMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::record);
+        stream.startAsync();
+        log.info("Watching for virtual threads pinned longer than {} ms", thresholdMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    /**
+     * Pinned sites seen since startup, longest total pinned time first.
+     */
+    public List<PinnedSite> getPinnedSites() {
+        return sites.values().stream()
+            .map(PinnedSite::snapshot)
+            .sorted(Comparator.comparingLong(PinnedSite::getTotalMs).reversed())
+            .collect(Collectors.toList());
+    }
+
+    private void record(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() != null
+            ? event.getStackTrace().getFrames() : List.of();
+        String site = frames.stream()
+            .filter(RecordedFrame::isJavaFrame)
+            .map(VirtualThreadPinningMonitor::describe)
+            .filter(frame -> !frame.startsWith("java.") && !frame.startsWith("jdk.") && !frame.startsWith("sun."))
+            .findFirst()
+            .orElse("unknown");
+        boolean jdbc = frames.stream().map(VirtualThreadPinningMonitor::describe)
+            .anyMatch(frame -> JDBC_PACKAGES.stream().anyMatch(frame::startsWith));
+        long durationMs = event.getDuration().toMillis();
+
+        PinnedSite pinned = sites.computeIfAbsent(site, s -> new PinnedSite(s, jdbc, 0, 0, 0));
+        boolean first;
+        synchronized (pinned) {
+            first = pinned.count == 0;
+            pinned.count++;
+            pinned.totalMs += durationMs;
+            pinned.maxMs = Math.max(pinned.maxMs, durationMs);
+        }
+        if (first) {
+            log.warn("Virtual thread pinned for {} ms{} at {}:\n{}", durationMs,
+                jdbc ? " during JDBC work" : "", site, formatStack(event.getStackTrace()));
+        }
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+            + ":" + frame.getLineNumber();
+    }
+
+    private static String formatStack(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "    (no stack trace)";
+        }
+        List<String> lines = new ArrayList<>();
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (lines.size() == LOGGED_FRAMES) {
+                lines.add("    ...");
+                break;
+            }
+            lines.add("    at " + describe(frame));
+        }
+        return String.join("\n", lines);
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class PinnedSite {
+        private String site;
+        private boolean jdbc;
+        private long count;
+        private long totalMs;
+        private long maxMs;
+
+        synchronized PinnedSite snapshot() {
+            return new PinnedSite(site, jdbc, count, totalMs, maxMs);
+        }
+    }
+}
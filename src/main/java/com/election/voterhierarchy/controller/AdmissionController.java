@@ -0,0 +1,30 @@
+package com.election.voterhierarchy.controller;
+
+import com.election.voterhierarchy.config.AdaptiveConcurrencyLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/admission")
+@RequiredArgsConstructor
+public class AdmissionController {
+
+    private final ObjectProvider<AdaptiveConcurrencyLimiter> limiter;
+
+    /**
+     * Current adaptive limit and, per request class, in-flight, admitted,
+     * shed and failed counts with the average latency.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public Map<String, Object> status() {
+        AdaptiveConcurrencyLimiter current = limiter.getIfAvailable();
+        return current != null ? current.getMetrics() : Map.of("enabled", false);
+    }
+}
@@ -0,0 +1,37 @@
+package com.election.voterhierarchy.controller;
+
+import com.election.voterhierarchy.service.PersonAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/analytics")
+@RequiredArgsConstructor
+@Slf4j
+public class AnalyticsAdminController {
+
+    private final PersonAnalyticsService analyticsService;
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public Map<String, Object> status() {
+        return analyticsService.getStatus();
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/reload")
+    public ResponseEntity<Map<String, Object>> reload() {
+        try {
+            analyticsService.requestReload();
+            return ResponseEntity.accepted().body(analyticsService.getStatus());
+        } catch (IllegalStateException e) {
+            log.warn("Analytics reload rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
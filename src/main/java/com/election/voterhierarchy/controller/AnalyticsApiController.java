@@ -0,0 +1,91 @@
+package com.election.voterhierarchy.controller;
+
+import com.election.voterhierarchy.dto.AnalyticsSlice;
+import com.election.voterhierarchy.enums.AnalyticsDimension;
+import com.election.voterhierarchy.service.PersonAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Breakdowns of persons by AC, part, status, relation, BLO, head flag and
+ * validation result, answered from the in-memory analytics cache:
+ *
+ *   GET /api/v1/analytics/persons?groupBy=part,status&ac=101
+ *   GET /api/v1/analytics/persons?groupBy=blo&valid=false&limit=20
+ *
+ * Every other parameter named after a dimension filters on it; commas
+ * separate accepted values.
+ */
+@RestController
+@RequestMapping("/api/v1/analytics")
+@RequiredArgsConstructor
+@Slf4j
+public class AnalyticsApiController {
+
+    private final PersonAnalyticsService analyticsService;
+
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping(value = "/persons", produces = MediaType.APPLICATION_JSON_VALUE)
+    public AnalyticsSlice slicePersons(@RequestParam(required = false) String groupBy,
+                                       @RequestParam(defaultValue = "1000") int limit,
+                                       @RequestParam MultiValueMap<String, String> params) {
+        List<AnalyticsDimension> dimensions = new ArrayList<>();
+        for (String name : split(groupBy)) {
+            dimensions.add(AnalyticsDimension.fromParam(name));
+        }
+
+        Map<AnalyticsDimension, Set<String>> filters = new EnumMap<>(AnalyticsDimension.class);
+        params.forEach((name, values) -> {
+            if ("groupBy".equals(name) || "limit".equals(name)) {
+                return;
+            }
+            AnalyticsDimension dimension = AnalyticsDimension.fromParam(name);
+            Set<String> accepted = filters.computeIfAbsent(dimension, d -> new LinkedHashSet<>());
+            values.forEach(value -> accepted.addAll(split(value)));
+        });
+
+        return analyticsService.slice(dimensions, filters, limit);
+    }
+
+    private static List<String> split(String value) {
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(value.split(","))
+            .map(String::trim)
+            .filter(v -> !v.isEmpty())
+            .toList();
+    }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<Map<String, String>> handleAccessDenied(AccessDeniedException e) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Access denied"));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, String>> handleUnavailable(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header("Retry-After", "10")
+            .body(Map.of("error", String.valueOf(e.getMessage())));
+    }
+}
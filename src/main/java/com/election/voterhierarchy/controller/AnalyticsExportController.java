@@ -0,0 +1,45 @@
+package com.election.voterhierarchy.controller;
+
+import com.election.voterhierarchy.enums.AnalyticsExportMode;
+import com.election.voterhierarchy.service.AnalyticsExportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/analytics-export")
+@RequiredArgsConstructor
+@Slf4j
+public class AnalyticsExportController {
+
+    private final AnalyticsExportService exportService;
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public Map<String, Object> status() {
+        return exportService.getStatus();
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> export(@RequestParam(defaultValue = "incremental") String mode) {
+        AnalyticsExportMode exportMode;
+        try {
+            exportMode = AnalyticsExportMode.valueOf(mode.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unknown export mode: " + mode));
+        }
+        try {
+            exportService.start(exportMode);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(exportService.getStatus());
+        } catch (IllegalStateException e) {
+            log.warn("Analytics export rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.election.voterhierarchy.controller;
+
+import com.election.voterhierarchy.dto.BloPrintJob;
+import com.election.voterhierarchy.enums.BloPrintFormat;
+import com.election.voterhierarchy.enums.BloPrintJobStatus;
+import com.election.voterhierarchy.service.BloPrintService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Part-wise BLO sheet printing. Submitting returns a job to poll; the file is
+ * downloadable once the job has completed.
+ */
+@RestController
+@RequestMapping("/families/print-jobs")
+@RequiredArgsConstructor
+@Slf4j
+public class BloPrintController {
+
+    private final BloPrintService bloPrintService;
+
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERATOR')")
+    @PostMapping
+    public ResponseEntity<?> submit(@RequestParam String acNo,
+                                    @RequestParam String partNo,
+                                    @RequestParam(defaultValue = "PDF") BloPrintFormat format) {
+        try {
+            BloPrintJob job = bloPrintService.submit(acNo, partNo, format);
+            return ResponseEntity.accepted()
+                .location(URI.create("/families/print-jobs/" + job.getJobId()))
+                .body(job);
+        } catch (IllegalArgumentException e) {
+            log.warn("Print job rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERATOR')")
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> status(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(bloPrintService.getJob(jobId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERATOR')")
+    @GetMapping("/{jobId}/download")
+    public ResponseEntity<?> download(@PathVariable String jobId) {
+        BloPrintJob job;
+        try {
+            job = bloPrintService.getJob(jobId);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+        if (job.getStatus() != BloPrintJobStatus.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "Print job is " + job.getStatus().getDisplayName().toLowerCase()));
+        }
+
+        Resource file = new FileSystemResource(job.getOutputFile());
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + job.getFileName() + "\"")
+            .contentType(MediaType.parseMediaType(job.getFormat().getContentType()))
+            .body(file);
+    }
+}
@@ -0,0 +1,112 @@
+package com.election.voterhierarchy.controller;
+
+import com.election.voterhierarchy.config.Admission;
+import com.election.voterhierarchy.service.ChangeFeedService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Change feed for downstream systems (see ChangeFeedService). Pages of JSON,
+ * or NDJSON up to the current end of the feed when the client asks for
+ * application/x-ndjson; every NDJSON line carries the cursor to resume from.
+ * An expired cursor gets 410 Gone.
+ */
+@RestController
+@RequestMapping("/api/v1/changes")
+@RequiredArgsConstructor
+@Slf4j
+public class ChangeFeedController {
+
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private final ChangeFeedService changeFeedService;
+    private final ObjectMapper objectMapper;
+
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getChanges(@RequestParam(required = false) String since,
+                                        @RequestParam(defaultValue = "500") int limit) {
+        if (changeFeedService.isExpired(since)) {
+            return expired();
+        }
+        return ResponseEntity.ok(changeFeedService.readPage(since, limit));
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @Admission(Admission.Mode.STREAM)
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamChanges(@RequestParam(required = false) String since)
+            throws JsonProcessingException {
+        if (changeFeedService.isExpired(since)) {
+            // Same body as the JSON endpoint; a streaming handler only takes a streaming body
+            byte[] error = objectMapper.writeValueAsBytes(expired().getBody());
+            return ResponseEntity.status(HttpStatus.GONE)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> outputStream.write(error));
+        }
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            long[] written = {0};
+            changeFeedService.stream(since, entry -> {
+                try {
+                    writer.write(objectMapper.writeValueAsString(entry));
+                    writer.write('\n');
+                    if (++written[0] % FLUSH_EVERY_ROWS == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping(value = "/cursor", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, String> getCurrentCursor() {
+        return Map.of("cursor", changeFeedService.currentCursor());
+    }
+
+    private static ResponseEntity<Map<String, String>> expired() {
+        return ResponseEntity.status(HttpStatus.GONE).body(Map.of("error",
+            "Cursor expired: changes after it were purged. Re-export, then continue from the cursor taken before the export."));
+    }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<Map<String, String>> handleAccessDenied(AccessDeniedException e) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Access denied"));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+    }
+
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<Map<String, String>> handleError(RuntimeException e) {
+        log.warn("Change feed request failed: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", String.valueOf(e.getMessage())));
+    }
+}
@@ -0,0 +1,112 @@
+package com.election.voterhierarchy.controller;
+
+import com.election.voterhierarchy.config.Admission;
+import com.election.voterhierarchy.dto.*;
+import com.election.voterhierarchy.service.FamilyQueryService;
+import com.election.voterhierarchy.service.FamilyService;
+import com.election.voterhierarchy.service.ShardRouter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned JSON API for downstream systems. Listings come as pages of JSON,
+ * or as NDJSON streamed straight from a database cursor when the client asks
+ * for application/x-ndjson.
+ */
+@RestController
+@RequestMapping("/api/v1/families")
+@RequiredArgsConstructor
+@Slf4j
+public class FamilyApiController {
+
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private final FamilyQueryService familyQueryService;
+    private final FamilyService familyService;
+    private final ObjectMapper objectMapper;
+    private final ShardRouter shardRouter;
+
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public SliceResponse<FamilySummaryResponse> listFamilies(@ModelAttribute FamilyFilterDTO filter,
+                                                             @RequestParam(defaultValue = "0") int page,
+                                                             @RequestParam(defaultValue = "100") int size) {
+        return familyQueryService.getSummaries(filter, page, size);
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @Admission(Admission.Mode.STREAM)
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFamilies(@ModelAttribute FamilyFilterDTO filter) {
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            long[] written = {0};
+            // One shard after the other, each from its own cursor
+            shardRouter.forEachShard(() -> familyQueryService.streamSummaries(filter, row -> {
+                try {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                    // Blocking writes to the socket throttle the cursor when the client reads slowly
+                    if (++written[0] % FLUSH_EVERY_ROWS == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            writer.flush();
+        };
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/{id}")
+    public FamilySummaryResponse getFamily(@PathVariable Long id) {
+        return familyQueryService.getSummary(id);
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/{id}/members")
+    public List<MemberResponse> getMembers(@PathVariable Long id) {
+        return familyQueryService.getMembers(id);
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/{id}/hierarchy")
+    public FamilyHierarchyDTO getHierarchy(@PathVariable Long id) {
+        return familyService.getFamilyHierarchy(id);
+    }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<Map<String, String>> handleAccessDenied(AccessDeniedException e) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Access denied"));
+    }
+
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<Map<String, String>> handleError(RuntimeException e) {
+        log.warn("API request failed: {}", e.getMessage());
+        HttpStatus status = e.getMessage() != null && e.getMessage().contains("not found")
+            ? HttpStatus.NOT_FOUND : HttpStatus.INTERNAL_SERVER_ERROR;
+        return ResponseEntity.status(status).body(Map.of("error", String.valueOf(e.getMessage())));
+    }
+}
@@ -1,26 +1,55 @@
 package com.election.voterhierarchy.controller;
 
+import com.election.voterhierarchy.config.Admission;
 import com.election.voterhierarchy.dto.*;
 import com.election.voterhierarchy.entity.Family;
+import com.election.voterhierarchy.entity.FamilySummary;
 import com.election.voterhierarchy.entity.Person;
 import com.election.voterhierarchy.enums.PersonStatus;
 import com.election.voterhierarchy.enums.RelationType;
+import com.election.voterhierarchy.service.BloExportService;
 import com.election.voterhierarchy.service.FamilyService;
+import com.election.voterhierarchy.service.GroupCommitWriter;
+import com.election.voterhierarchy.service.ShardRouter;
 import com.election.voterhierarchy.dto.PersonUpdateDTO;
 import com.election.voterhierarchy.entity.VoterDetails2002;
 import com.election.voterhierarchy.entity.VoterDetailsCurrent;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.DigestUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 import java.time.LocalDateTime;
 
 @Controller
@@ -29,12 +58,18 @@ import java.time.LocalDateTime;
 @Slf4j
 public class FamilyController {
 
+    private static final Comparator<FamilySummary> BY_FAMILY_ID = Comparator.comparing(FamilySummary::getId);
+
     private final FamilyService familyService;
+    private final GroupCommitWriter groupCommitWriter;
+    private final BloExportService bloExportService;
+    private final ObjectMapper objectMapper;
+    private final ShardRouter shardRouter;
 
     @PreAuthorize("isAuthenticated()")
     @GetMapping
     public String listFamilies(Model model) {
-        List<Family> families = familyService.getAllFamilies();
+        List<FamilySummary> families = shardRouter.gather(familyService::getFamilySummaries, BY_FAMILY_ID);
         model.addAttribute("families", families);
         return "family/list";
     }
@@ -107,7 +142,7 @@ public class FamilyController {
         }
 
         try {
-            familyService.addFamilyMember(id, familyMemberDTO);
+            groupCommitWriter.addFamilyMember(id, familyMemberDTO);
             redirectAttributes.addFlashAttribute("successMessage", "Member added successfully");
             return "redirect:/families/" + id + "/members/new";
         } catch (Exception e) {
@@ -123,13 +158,65 @@ public class FamilyController {
         }
     }
 
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERATOR')")
+    @GetMapping("/{id}/members/batch")
+    public String showBatchMemberForm(@PathVariable Long id, Model model) {
+        try {
+            prepareBatchMemberForm(id, model);
+            FamilyMembersBatchDTO batch = new FamilyMembersBatchDTO();
+            batch.getMembers().add(new FamilyMemberDTO());
+            model.addAttribute("batch", batch);
+            return "family/add-members-batch";
+        } catch (Exception e) {
+            log.error("Error loading batch member form", e);
+            return "redirect:/families";
+        }
+    }
+
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERATOR')")
+    @PostMapping("/{id}/members/batch-add")
+    public String addMembersBatch(@PathVariable Long id,
+                                  @Valid @ModelAttribute("batch") FamilyMembersBatchDTO batch,
+                                  BindingResult result,
+                                  Model model,
+                                  RedirectAttributes redirectAttributes) {
+        if (result.hasErrors()) {
+            prepareBatchMemberForm(id, model);
+            return "family/add-members-batch";
+        }
+
+        try {
+            int added = familyService.addFamilyMembers(id, batch.getMembers());
+            redirectAttributes.addFlashAttribute("successMessage", added + " members added successfully");
+            return "redirect:/families/" + id + "/hierarchy";
+        } catch (Exception e) {
+            log.error("Error adding members", e);
+            prepareBatchMemberForm(id, model);
+            model.addAttribute("errorMessage", "Error: " + e.getMessage());
+            return "family/add-members-batch";
+        }
+    }
+
+    private void prepareBatchMemberForm(Long familyId, Model model) {
+        model.addAttribute("family", familyService.getFamilySummary(familyId));
+        model.addAttribute("relationTypes", new RelationType[]{
+            RelationType.SPOUSE, RelationType.SON, RelationType.DAUGHTER, RelationType.DEPENDENT
+        });
+        model.addAttribute("statuses", PersonStatus.values());
+    }
+
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/{id}/hierarchy")
-    public String viewHierarchy(@PathVariable Long id, Model model) {
+    public String viewHierarchy(@PathVariable Long id, Model model,
+                                WebRequest webRequest, HttpServletResponse response) {
+        if (isNotModified("hierarchy", id, model, webRequest, response)) {
+            return null;
+        }
+
         try {
             Family family = familyService.getFamilyById(id);
             HierarchyNode hierarchy = familyService.buildHierarchy(id);
-            List<ValidationError> validationErrors = familyService.validateFamily(id);
+            List<ValidationError> validationErrors = familyService.getValidationErrors(id);
 
             model.addAttribute("family", family);
             model.addAttribute("hierarchy", hierarchy);
@@ -147,40 +234,7 @@ public class FamilyController {
     @GetMapping("/{id}/edit")
     public String showEditForm(@PathVariable Long id, Model model) {
         Family family = familyService.getFamilyById(id);
-        Person familyHead = family.getFamilyHead();
-        
-        FamilyUpdateDTO dto = FamilyUpdateDTO.builder()
-            .contactPerson(family.getContactPerson())
-            .contactNumber(family.getContactNumber())
-            .headStatus(familyHead.getStatus())
-            .build();
-        
-        // Load 2002 details
-        if (familyHead.getVoterDetails2002() != null) {
-            VoterDetails2002 details2002 = familyHead.getVoterDetails2002();
-            dto.setHeadName2002(details2002.getName());
-            dto.setHeadParentSpouseName2002(details2002.getParentSpouseName());
-            dto.setHeadEpicNo2002(details2002.getEpicNo());
-            dto.setHeadAcNo2002(details2002.getAcNo());
-            dto.setHeadPartNo2002(details2002.getPartNo());
-            dto.setHeadSerialNo2002(details2002.getSerialNo());
-        }
-        
-        // Load current details
-        if (familyHead.getVoterDetailsCurrent() != null) {
-            VoterDetailsCurrent currentDetails = familyHead.getVoterDetailsCurrent();
-            dto.setHeadNameCurrent(currentDetails.getName());
-            dto.setHeadParentSpouseNameCurrent(currentDetails.getParentSpouseName());
-            dto.setHeadEpicNoCurrent(currentDetails.getEpicNo());
-            dto.setHeadAcNoCurrent(currentDetails.getAcNo());
-            dto.setHeadPartNoCurrent(currentDetails.getPartNo());
-            dto.setHeadSerialNoCurrent(currentDetails.getSerialNo());
-            
-            if (currentDetails.getBloDetails() != null) {
-                dto.setHeadBloName(currentDetails.getBloDetails().getBloName());
-                dto.setHeadBloMobile(currentDetails.getBloDetails().getBloMobile());
-            }
-        }
+        FamilyUpdateDTO dto = toFamilyUpdateDTO(family);
         
         model.addAttribute("family", family);
         model.addAttribute("familyUpdateDTO", dto);
@@ -206,6 +260,16 @@ public class FamilyController {
             familyService.updateFamily(id, familyUpdateDTO);
             redirectAttributes.addFlashAttribute("successMessage", "Family updated successfully");
             return "redirect:/families/" + id + "/hierarchy";
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("Concurrent edit of family {}: {}", id, e.getMessage());
+            Family family = familyService.getFamilyById(id);
+            model.addAttribute("conflict", mergeConflict(
+                "Family " + family.getFamilyCode(),
+                familyUpdateDTO, toFamilyUpdateDTO(family), "revision",
+                "/families/" + id + "/update",
+                "/families/" + id + "/edit",
+                "/families/" + id + "/hierarchy"));
+            return "family/merge-conflict";
         } catch (Exception e) {
             log.error("Error updating family", e);
             model.addAttribute("errorMessage", "Error: " + e.getMessage());
@@ -223,40 +287,7 @@ public class FamilyController {
                                     Model model) {
         Family family = familyService.getFamilyById(familyId);
         Person member = familyService.getMemberById(memberId);
-        
-        PersonUpdateDTO dto = PersonUpdateDTO.builder()
-            .personId(member.getId())
-            .relationType(member.getRelationType())
-            .age(member.getAge())
-            .status(member.getStatus())
-            .build();
-        
-        // Load 2002 details
-        if (member.getVoterDetails2002() != null) {
-            VoterDetails2002 details2002 = member.getVoterDetails2002();
-            dto.setName2002(details2002.getName());
-            dto.setParentSpouseName2002(details2002.getParentSpouseName());
-            dto.setEpicNo2002(details2002.getEpicNo());
-            dto.setAcNo2002(details2002.getAcNo());
-            dto.setPartNo2002(details2002.getPartNo());
-            dto.setSerialNo2002(details2002.getSerialNo());
-        }
-        
-        // Load current details
-        if (member.getVoterDetailsCurrent() != null) {
-            VoterDetailsCurrent currentDetails = member.getVoterDetailsCurrent();
-            dto.setNameCurrent(currentDetails.getName());
-            dto.setParentSpouseNameCurrent(currentDetails.getParentSpouseName());
-            dto.setEpicNoCurrent(currentDetails.getEpicNo());
-            dto.setAcNoCurrent(currentDetails.getAcNo());
-            dto.setPartNoCurrent(currentDetails.getPartNo());
-            dto.setSerialNoCurrent(currentDetails.getSerialNo());
-            
-            if (currentDetails.getBloDetails() != null) {
-                dto.setBloName(currentDetails.getBloDetails().getBloName());
-                dto.setBloMobile(currentDetails.getBloDetails().getBloMobile());
-            }
-        }
+        PersonUpdateDTO dto = toPersonUpdateDTO(member);
         
         model.addAttribute("family", family);
         model.addAttribute("member", member);
@@ -273,11 +304,22 @@ public class FamilyController {
     public String updateMember(@PathVariable Long familyId,
                             @PathVariable Long memberId,
                             @ModelAttribute PersonUpdateDTO personUpdateDTO,
+                            Model model,
                             RedirectAttributes redirectAttributes) {
         try {
             familyService.updateMember(memberId, personUpdateDTO);
             redirectAttributes.addFlashAttribute("successMessage", "Member updated successfully");
             return "redirect:/families/" + familyId + "/hierarchy";
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("Concurrent edit of member {}: {}", memberId, e.getMessage());
+            Person member = familyService.getMemberById(memberId);
+            model.addAttribute("conflict", mergeConflict(
+                "Member #" + memberId + " (" + member.getRelationType().getDisplayName() + ")",
+                personUpdateDTO, toPersonUpdateDTO(member), "version",
+                "/families/" + familyId + "/members/" + memberId + "/update",
+                "/families/" + familyId + "/members/" + memberId + "/edit",
+                "/families/" + familyId + "/hierarchy"));
+            return "family/merge-conflict";
         } catch (Exception e) {
             log.error("Error updating member", e);
             redirectAttributes.addFlashAttribute("errorMessage", "Error: " + e.getMessage());
@@ -311,22 +353,35 @@ public class FamilyController {
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/dashboard")
     public String dashboard(Model model) {
-        Map<String, Object> stats = familyService.getDashboardStats();
+        Map<String, Object> stats = sumStats(shardRouter.scatter(familyService::getDashboardStats));
         model.addAttribute("stats", stats);
         return "family/dashboard";
     }
 
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/summary/rebuild")
+    public String rebuildSummaries(RedirectAttributes redirectAttributes) {
+        try {
+            long rebuilt = shardRouter.sum(familyService::rebuildFamilySummaries);
+            redirectAttributes.addFlashAttribute("successMessage", "Family summaries rebuilt: " + rebuilt);
+        } catch (Exception e) {
+            log.error("Error rebuilding family summaries", e);
+            redirectAttributes.addFlashAttribute("errorMessage", "Error rebuilding summaries: " + e.getMessage());
+        }
+        return "redirect:/families";
+    }
+
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/search")
     public String search(@ModelAttribute FamilyFilterDTO filter, Model model) {
-        List<Family> families;
+        List<FamilySummary> families;
         
         if (filter.getFamilyCode() == null && filter.getContactNumber() == null && 
             filter.getContactPerson() == null && filter.getStatus() == null && 
             filter.getFamilyHeadName() == null) {
-            families = familyService.getAllFamilies();
+            families = shardRouter.gather(familyService::getFamilySummaries, BY_FAMILY_ID);
         } else {
-            families = familyService.searchFamilies(filter);
+            families = shardRouter.gather(() -> familyService.searchFamilies(filter), BY_FAMILY_ID);
         }
         
         model.addAttribute("families", families);
@@ -348,12 +403,59 @@ public class FamilyController {
         return "redirect:/families";
     }
 
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/{id}/hierarchy.json")
+    @ResponseBody
+    public FamilyHierarchyDTO viewHierarchyJson(@PathVariable Long id,
+                                                WebRequest webRequest, HttpServletResponse response) {
+        if (isNotModified("json", id, null, webRequest, response)) {
+            return null;
+        }
+
+        return familyService.getFamilyHierarchy(id);
+    }
+
+    /**
+     * Downloads the BLO verification roster of one AC/part as CSV. Rows are
+     * written to the response as they are read, so the size of the part does
+     * not matter.
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERATOR')")
+    @Admission(Admission.Mode.STREAM)
+    @GetMapping("/export/blo")
+    public ResponseEntity<StreamingResponseBody> exportBloRoster(@RequestParam String acNo,
+                                                                 @RequestParam String partNo) {
+        if (acNo.isBlank() || partNo.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String fileName = "blo-" + acNo.trim().replaceAll("[^A-Za-z0-9_-]", "") + "-"
+            + partNo.trim().replaceAll("[^A-Za-z0-9_-]", "") + ".csv";
+
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            // BOM so spreadsheet tools open the UTF-8 names correctly
+            writer.write('\uFEFF');
+            bloExportService.writeCsv(acNo, partNo, writer);
+        };
+
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+            .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+            .body(body);
+    }
+
     @PreAuthorize("hasAnyRole('ADMIN', 'OPERATOR')")
     @GetMapping("/{id}/blo-sheet")
-    public String bloVerificationSheet(@PathVariable Long id, Model model) {
+    public String bloVerificationSheet(@PathVariable Long id, Model model,
+                                       WebRequest webRequest, HttpServletResponse response) {
+        if (isNotModified("blo-sheet", id, model, webRequest, response)) {
+            return null;
+        }
+
         Family family = familyService.getFamilyForBloSheet(id);
         HierarchyNode hierarchy = familyService.buildHierarchy(id);
-        List<ValidationError> validationErrors = familyService.validateFamily(id);
+        List<ValidationError> validationErrors = familyService.getValidationErrors(id);
         
         model.addAttribute("family", family);
         model.addAttribute("hierarchy", hierarchy);
@@ -362,4 +464,185 @@ public class FamilyController {
         
         return "family/blo-sheet";
     }
+
+    // Dashboard figures are counts, so per-shard stats add up
+    private Map<String, Object> sumStats(List<Map<String, Object>> perShard) {
+        if (perShard.size() == 1) {
+            return perShard.get(0);
+        }
+        Map<String, Object> total = new LinkedHashMap<>();
+        for (Map<String, Object> stats : perShard) {
+            stats.forEach((key, value) -> total.merge(key, value,
+                (a, b) -> ((Number) a).longValue() + ((Number) b).longValue()));
+        }
+        return total;
+    }
+
+    private FamilyUpdateDTO toFamilyUpdateDTO(Family family) {
+        Person familyHead = family.getFamilyHead();
+        
+        FamilyUpdateDTO dto = FamilyUpdateDTO.builder()
+            .revision(family.getRevision())
+            .contactPerson(family.getContactPerson())
+            .contactNumber(family.getContactNumber())
+            .headStatus(familyHead.getStatus())
+            .build();
+        
+        // Load 2002 details
+        if (familyHead.getVoterDetails2002() != null) {
+            VoterDetails2002 details2002 = familyHead.getVoterDetails2002();
+            dto.setHeadName2002(details2002.getName());
+            dto.setHeadParentSpouseName2002(details2002.getParentSpouseName());
+            dto.setHeadEpicNo2002(details2002.getEpicNo());
+            dto.setHeadAcNo2002(details2002.getAcNo());
+            dto.setHeadPartNo2002(details2002.getPartNo());
+            dto.setHeadSerialNo2002(details2002.getSerialNo());
+        }
+        
+        // Load current details
+        if (familyHead.getVoterDetailsCurrent() != null) {
+            VoterDetailsCurrent currentDetails = familyHead.getVoterDetailsCurrent();
+            dto.setHeadNameCurrent(currentDetails.getName());
+            dto.setHeadParentSpouseNameCurrent(currentDetails.getParentSpouseName());
+            dto.setHeadEpicNoCurrent(currentDetails.getEpicNo());
+            dto.setHeadAcNoCurrent(currentDetails.getAcNo());
+            dto.setHeadPartNoCurrent(currentDetails.getPartNo());
+            dto.setHeadSerialNoCurrent(currentDetails.getSerialNo());
+            
+            if (currentDetails.getBloDetails() != null) {
+                dto.setHeadBloName(currentDetails.getBloDetails().getBloName());
+                dto.setHeadBloMobile(currentDetails.getBloDetails().getBloMobile());
+            }
+        }
+        return dto;
+    }
+
+    private PersonUpdateDTO toPersonUpdateDTO(Person member) {
+        PersonUpdateDTO dto = PersonUpdateDTO.builder()
+            .personId(member.getId())
+            .version(member.getVersion())
+            .relationType(member.getRelationType())
+            .age(member.getAge())
+            .status(member.getStatus())
+            .build();
+        
+        // Load 2002 details
+        if (member.getVoterDetails2002() != null) {
+            VoterDetails2002 details2002 = member.getVoterDetails2002();
+            dto.setName2002(details2002.getName());
+            dto.setParentSpouseName2002(details2002.getParentSpouseName());
+            dto.setEpicNo2002(details2002.getEpicNo());
+            dto.setAcNo2002(details2002.getAcNo());
+            dto.setPartNo2002(details2002.getPartNo());
+            dto.setSerialNo2002(details2002.getSerialNo());
+        }
+        
+        // Load current details
+        if (member.getVoterDetailsCurrent() != null) {
+            VoterDetailsCurrent currentDetails = member.getVoterDetailsCurrent();
+            dto.setNameCurrent(currentDetails.getName());
+            dto.setParentSpouseNameCurrent(currentDetails.getParentSpouseName());
+            dto.setEpicNoCurrent(currentDetails.getEpicNo());
+            dto.setAcNoCurrent(currentDetails.getAcNo());
+            dto.setPartNoCurrent(currentDetails.getPartNo());
+            dto.setSerialNoCurrent(currentDetails.getSerialNo());
+            
+            if (currentDetails.getBloDetails() != null) {
+                dto.setBloName(currentDetails.getBloDetails().getBloName());
+                dto.setBloMobile(currentDetails.getBloDetails().getBloMobile());
+            }
+        }
+        return dto;
+    }
+
+    /**
+     * Lines up the operator's submitted form against what is saved now. The
+     * retry form carries the operator's values with the current version, so
+     * submitting it again applies them over the latest data on purpose.
+     */
+    private MergeConflictDTO mergeConflict(String title, Object mine, Object current, String versionField,
+                                           String formAction, String editUrl, String cancelUrl) {
+        Map<String, Object> mineValues = objectMapper.convertValue(mine, new TypeReference<LinkedHashMap<String, Object>>() {});
+        Map<String, Object> currentValues = objectMapper.convertValue(current, new TypeReference<LinkedHashMap<String, Object>>() {});
+
+        MergeConflictDTO conflict = MergeConflictDTO.builder()
+            .title(title)
+            .formAction(formAction)
+            .editUrl(editUrl)
+            .cancelUrl(cancelUrl)
+            .build();
+
+        for (Map.Entry<String, Object> entry : mineValues.entrySet()) {
+            String field = entry.getKey();
+            Object submitted = field.equals(versionField) ? currentValues.get(field) : entry.getValue();
+            if (submitted != null) {
+                conflict.getResubmitValues().put(field, submitted.toString());
+            }
+            if (field.equals(versionField) || field.equals("personId")) {
+                continue;
+            }
+
+            String mineText = entry.getValue() != null ? entry.getValue().toString() : null;
+            Object currentValue = currentValues.get(field);
+            String currentText = currentValue != null ? currentValue.toString() : null;
+            conflict.getFields().add(MergeConflictDTO.MergeField.builder()
+                .label(fieldLabel(field))
+                .mine(mineText)
+                .current(currentText)
+                .changed(!Objects.equals(blankToNull(mineText), blankToNull(currentText)))
+                .build());
+        }
+        return conflict;
+    }
+
+    private String fieldLabel(String field) {
+        String words = field.replaceAll("([a-z])([A-Z0-9])", "$1 $2");
+        return Character.toUpperCase(words.charAt(0)) + words.substring(1);
+    }
+
+    private String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    /**
+     * Answers If-None-Match from the family revision alone, without loading the
+     * aggregate. The tag covers the representation, the revision and the
+     * caller: pages render role-specific actions, the username and forms
+     * with the session's CSRF token, so a new login (another user, or the
+     * same one in a new session) gets a fresh page. Pages carrying a one-off
+     * flash message are not tagged.
+     */
+    private boolean isNotModified(String representation, Long familyId, Model model,
+                                  WebRequest webRequest, HttpServletResponse response) {
+        if (model != null && (model.containsAttribute("successMessage") || model.containsAttribute("errorMessage"))) {
+            return false;
+        }
+
+        Long revision = familyService.getFamilyRevision(familyId);
+        if (revision == null) {
+            return false;
+        }
+
+        // Let the browser keep the page but revalidate it on every view
+        response.setHeader("Cache-Control", "private, no-cache");
+        String etag = "\"" + representation + "-" + familyId + "-" + revision + "-" + viewerTag(webRequest) + "\"";
+        return webRequest.checkNotModified(etag);
+    }
+
+    // Digest of principal, roles and session, which keeps the session ID out of the header
+    private String viewerTag(WebRequest webRequest) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return "anonymous";
+        }
+        String roles = authentication.getAuthorities().stream()
+            .map(GrantedAuthority::getAuthority)
+            .sorted()
+            .collect(Collectors.joining(","));
+        HttpServletRequest request = webRequest instanceof NativeWebRequest nativeRequest
+            ? nativeRequest.getNativeRequest(HttpServletRequest.class) : null;
+        HttpSession session = request != null ? request.getSession(false) : null;
+        String viewer = authentication.getName() + "|" + roles + "|" + (session != null ? session.getId() : "");
+        return DigestUtils.md5DigestAsHex(viewer.getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+    }
 }
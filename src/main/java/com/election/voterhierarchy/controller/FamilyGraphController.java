@@ -0,0 +1,48 @@
+package com.election.voterhierarchy.controller;
+
+import com.election.voterhierarchy.service.FamilyGraphService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/graph")
+@RequiredArgsConstructor
+@Slf4j
+public class FamilyGraphController {
+
+    private final FamilyGraphService familyGraphService;
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public Map<String, Object> status() {
+        return familyGraphService.getStatus();
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/reload")
+    public ResponseEntity<Map<String, Object>> reload() {
+        try {
+            familyGraphService.requestReload();
+            return ResponseEntity.accepted().body(familyGraphService.getStatus());
+        } catch (IllegalStateException e) {
+            log.warn("Family graph reload rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/benchmark")
+    public ResponseEntity<Map<String, Object>> benchmark(@RequestParam(defaultValue = "1000") int iterations) {
+        try {
+            return ResponseEntity.ok(familyGraphService.benchmark(iterations));
+        } catch (IllegalStateException e) {
+            log.warn("Family graph benchmark rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
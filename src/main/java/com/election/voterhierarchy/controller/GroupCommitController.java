@@ -0,0 +1,24 @@
+package com.election.voterhierarchy.controller;
+
+import com.election.voterhierarchy.service.GroupCommitWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/group-commit")
+@RequiredArgsConstructor
+public class GroupCommitController {
+
+    private final GroupCommitWriter groupCommitWriter;
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public Map<String, Object> status() {
+        return groupCommitWriter.getStats();
+    }
+}
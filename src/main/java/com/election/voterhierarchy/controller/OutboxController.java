@@ -0,0 +1,25 @@
+package com.election.voterhierarchy.controller;
+
+import com.election.voterhierarchy.service.FamilyChangeReader;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/outbox")
+@RequiredArgsConstructor
+public class OutboxController {
+
+    private final FamilyChangeReader changeReader;
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public Map<String, Object> status() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("latestEventId", changeReader.getLatestEventId());
+        return status;
+    }
+}
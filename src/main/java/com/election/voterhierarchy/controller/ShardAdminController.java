@@ -0,0 +1,52 @@
+package com.election.voterhierarchy.controller;
+
+import com.election.voterhierarchy.service.ShardRebalancer;
+import com.election.voterhierarchy.service.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/shards")
+@RequiredArgsConstructor
+@Slf4j
+public class ShardAdminController {
+
+    private final ShardRouter shardRouter;
+    private final ShardRebalancer shardRebalancer;
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public Map<String, Object> status() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("sharded", shardRouter.isSharded());
+        status.put("shards", shardRouter.getShardNames());
+        status.put("familyCounts", shardRebalancer.getFamilyCounts());
+        return status;
+    }
+
+    /**
+     * Moves all families of an AC to the target shard and places the AC's
+     * new families there.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/move")
+    public ResponseEntity<Map<String, Object>> move(@RequestParam String acNo,
+                                                    @RequestParam String targetShard) {
+        try {
+            return ResponseEntity.ok(shardRebalancer.moveAc(acNo, targetShard));
+        } catch (IllegalArgumentException e) {
+            log.warn("Shard move rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            log.warn("Shard move incomplete: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
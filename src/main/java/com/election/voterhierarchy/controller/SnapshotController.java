@@ -0,0 +1,59 @@
+package com.election.voterhierarchy.controller;
+
+import com.election.voterhierarchy.dto.SnapshotJob;
+import com.election.voterhierarchy.service.SnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/snapshots")
+@RequiredArgsConstructor
+@Slf4j
+public class SnapshotController {
+
+    private final SnapshotService snapshotService;
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public Map<String, Object> list() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("snapshots", snapshotService.listSnapshots());
+        result.put("jobs", snapshotService.getJobs());
+        return result;
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping
+    public ResponseEntity<SnapshotJob> export() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(snapshotService.startExport());
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/{name}/restore")
+    public ResponseEntity<?> restore(@PathVariable String name,
+                                     @RequestParam(defaultValue = "true") boolean includeUsers) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(snapshotService.startRestore(name, includeUsers));
+        } catch (IllegalArgumentException e) {
+            log.warn("Restore rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> job(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(snapshotService.getJob(jobId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
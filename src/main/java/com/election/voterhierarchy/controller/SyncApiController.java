@@ -0,0 +1,55 @@
+package com.election.voterhierarchy.controller;
+
+import com.election.voterhierarchy.config.Admission;
+import com.election.voterhierarchy.dto.SyncRequest;
+import com.election.voterhierarchy.dto.SyncResponse;
+import com.election.voterhierarchy.service.FieldSyncService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Sync endpoint for field devices that capture families offline. The body
+ * may be gzip-compressed (Content-Encoding: gzip); send Accept-Encoding: gzip
+ * to get a compressed response.
+ */
+@RestController
+@RequestMapping("/api/v1/sync")
+@RequiredArgsConstructor
+@Slf4j
+public class SyncApiController {
+
+    private final FieldSyncService fieldSyncService;
+
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERATOR')")
+    @Admission(Admission.Mode.UNTIMED)
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public SyncResponse sync(@RequestBody SyncRequest request) {
+        return fieldSyncService.sync(request);
+    }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<Map<String, String>> handleAccessDenied(AccessDeniedException e) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Access denied"));
+    }
+
+    @ExceptionHandler({IllegalArgumentException.class, HttpMessageNotReadableException.class})
+    public ResponseEntity<Map<String, String>> handleBadRequest(Exception e) {
+        log.warn("Sync request rejected: {}", e.getMessage());
+        return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+    }
+
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<Map<String, String>> handleError(RuntimeException e) {
+        log.error("Sync failed", e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", String.valueOf(e.getMessage())));
+    }
+}
@@ -0,0 +1,45 @@
+package com.election.voterhierarchy.controller;
+
+import com.election.voterhierarchy.config.ConnectionBoundRequestLimiter;
+import com.election.voterhierarchy.config.VirtualThreadPinningMonitor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/threads")
+public class ThreadModeController {
+
+    private final boolean virtualThreads;
+    private final ObjectProvider<ConnectionBoundRequestLimiter> limiter;
+    private final ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor;
+
+    public ThreadModeController(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                ObjectProvider<ConnectionBoundRequestLimiter> limiter,
+                                ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor) {
+        this.virtualThreads = virtualThreads;
+        this.limiter = limiter;
+        this.pinningMonitor = pinningMonitor;
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public Map<String, Object> status() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("mode", virtualThreads ? "virtual" : "platform");
+        status.put("javaVersion", Runtime.version().toString());
+        limiter.ifAvailable(l -> status.put("requestLimit", Map.of(
+            "maxConcurrent", l.getMaxConcurrent(),
+            "active", l.getActive(),
+            "waiting", l.getWaiting(),
+            "rejected", l.getRejected())));
+        pinningMonitor.ifAvailable(m -> status.put("pinnedSites", m.getPinnedSites()));
+        return status;
+    }
+}
@@ -0,0 +1,54 @@
+package com.election.voterhierarchy.dto;
+
+import com.election.voterhierarchy.enums.AnalyticsExportMode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * manifest.json of an analytics export: the columns ("name:TYPE") and one
+ * entry per AC partition. Every export lists the complete data set; with
+ * INCREMENTAL, partitions whose families did not change are carried over
+ * from the export named in basedOn (writtenBy keeps the export that wrote
+ * them). cursor is the outbox position the next incremental export starts
+ * from.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnalyticsExportManifest {
+    private int formatVersion;
+    private String name;
+    private AnalyticsExportMode mode;
+    private String basedOn;
+    private String cursor;
+    private LocalDateTime createdAt;
+    private long elapsedMillis;
+    private long rows;
+    private long bytes;
+    private int partitionsWritten;
+    @Builder.Default
+    private List<String> columns = new ArrayList<>();
+    @Builder.Default
+    private List<Partition> partitions = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Partition {
+        // Current-roll AC number; null for persons without current voter details
+        private String ac;
+        private String directory;
+        private long rows;
+        private long families;
+        private long bytes;
+        private String writtenBy;
+    }
+}
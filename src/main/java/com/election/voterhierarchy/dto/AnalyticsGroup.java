@@ -0,0 +1,28 @@
+package com.election.voterhierarchy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One group of an analytics slice: the dimension values (null where a
+ * person has none, e.g. no BLO) and the counts of the persons in it.
+ * Families are counted by their head.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnalyticsGroup {
+    @Builder.Default
+    private Map<String, String> key = new LinkedHashMap<>();
+    private long persons;
+    private long families;
+    private long active;
+    private long expired;
+    private long invalid;
+}
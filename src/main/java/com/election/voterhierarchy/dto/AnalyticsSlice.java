@@ -0,0 +1,35 @@
+package com.election.voterhierarchy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a group-by over the analytics cache: the largest groups first,
+ * at most limit of them (truncated is set when there were more), with the
+ * totals over every matching person.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnalyticsSlice {
+    @Builder.Default
+    private List<String> groupBy = new ArrayList<>();
+    @Builder.Default
+    private List<AnalyticsGroup> groups = new ArrayList<>();
+    private int groupCount;
+    private boolean truncated;
+    private long persons;
+    private long families;
+    private long invalid;
+    private long scannedRows;
+    private long tookMicros;
+    // Time of the last refresh from the outbox; changes after it are not yet included
+    private LocalDateTime refreshedAt;
+}
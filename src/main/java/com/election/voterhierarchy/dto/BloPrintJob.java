@@ -0,0 +1,80 @@
+package com.election.voterhierarchy.dto;
+
+import com.election.voterhierarchy.enums.BloPrintFormat;
+import com.election.voterhierarchy.enums.BloPrintJobStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * State of one part-wise BLO sheet print job. Written only by the job's own
+ * thread; status requests read it concurrently, hence the volatile fields.
+ */
+@Getter
+public class BloPrintJob {
+
+    private final String jobId;
+    private final String acNo;
+    private final String partNo;
+    private final BloPrintFormat format;
+    private final String requestedBy;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private volatile BloPrintJobStatus status = BloPrintJobStatus.QUEUED;
+    private volatile int familiesRendered;
+    private volatile int pagesRendered;
+    private volatile long renderMillis;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String errorMessage;
+
+    @JsonIgnore
+    private volatile Path outputFile;
+
+    public BloPrintJob(String jobId, String acNo, String partNo, BloPrintFormat format, String requestedBy) {
+        this.jobId = jobId;
+        this.acNo = acNo;
+        this.partNo = partNo;
+        this.format = format;
+        this.requestedBy = requestedBy;
+    }
+
+    public void markStarted() {
+        startedAt = LocalDateTime.now();
+        status = BloPrintJobStatus.RUNNING;
+    }
+
+    public void recordSheet(int pages) {
+        familiesRendered++;
+        pagesRendered += pages;
+        renderMillis = Duration.between(startedAt, LocalDateTime.now()).toMillis();
+    }
+
+    public void markCompleted(Path file) {
+        outputFile = file;
+        finishedAt = LocalDateTime.now();
+        renderMillis = Duration.between(startedAt, finishedAt).toMillis();
+        status = BloPrintJobStatus.COMPLETED;
+    }
+
+    public void markFailed(String message) {
+        errorMessage = message;
+        finishedAt = LocalDateTime.now();
+        status = BloPrintJobStatus.FAILED;
+    }
+
+    public double getPagesPerSecond() {
+        return renderMillis > 0 ? pagesRendered * 1000.0 / renderMillis : 0.0;
+    }
+
+    public boolean isFinished() {
+        return status == BloPrintJobStatus.COMPLETED || status == BloPrintJobStatus.FAILED;
+    }
+
+    public String getFileName() {
+        return "blo-sheets-" + acNo + "-" + partNo + "." + format.getExtension();
+    }
+}
@@ -0,0 +1,53 @@
+package com.election.voterhierarchy.dto;
+
+import com.election.voterhierarchy.enums.PersonStatus;
+import com.election.voterhierarchy.enums.RelationType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One member row of a part-wise BLO roster: family, member, 2002 and current
+ * voter details, BLO and the stored validation result.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BloRosterRow {
+    private Long familyId;
+    private String familyCode;
+    private String contactPerson;
+    private String contactNumber;
+
+    private Long personId;
+    private boolean familyHead;
+    private RelationType relationType;
+    private Integer age;
+    private PersonStatus status;
+
+    // 2002 Voter Details
+    private String name2002;
+    private String parentSpouseName2002;
+    private String epicNo2002;
+    private String acNo2002;
+    private String partNo2002;
+    private String serialNo2002;
+
+    // Current Voter Details
+    private String nameCurrent;
+    private String parentSpouseNameCurrent;
+    private String epicNoCurrent;
+    private String acNoCurrent;
+    private String partNoCurrent;
+    private String serialNoCurrent;
+    private String bloName;
+    private String bloMobile;
+
+    // Stored validation result (null when the member has not been validated)
+    private Boolean valid;
+    private String validationMessage;
+    private String expectedValue;
+    private String foundValue;
+}
@@ -0,0 +1,62 @@
+package com.election.voterhierarchy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Everything printed on one family's BLO sheet, assembled from consecutive
+ * roster rows (head first). Plain data, safe to hand to render threads.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BloSheet {
+    private int sequence;
+    private Long familyId;
+    private String familyCode;
+    private String contactPerson;
+    private String contactNumber;
+
+    @Builder.Default
+    private List<BloRosterRow> rows = new ArrayList<>();
+
+    public static BloSheet startingWith(int sequence, BloRosterRow row) {
+        BloSheet sheet = BloSheet.builder()
+            .sequence(sequence)
+            .familyId(row.getFamilyId())
+            .familyCode(row.getFamilyCode())
+            .contactPerson(row.getContactPerson())
+            .contactNumber(row.getContactNumber())
+            .build();
+        sheet.rows.add(row);
+        return sheet;
+    }
+
+    public BloRosterRow getHead() {
+        return rows.stream().filter(BloRosterRow::isFamilyHead).findFirst().orElse(null);
+    }
+
+    public List<BloRosterRow> getMembers() {
+        return rows.stream().filter(r -> !r.isFamilyHead()).collect(Collectors.toList());
+    }
+
+    public List<ValidationError> getValidationErrors() {
+        return rows.stream()
+            .filter(r -> !r.isFamilyHead() && Boolean.FALSE.equals(r.getValid()))
+            .map(r -> ValidationError.builder()
+                .memberName(r.getNameCurrent() != null ? r.getNameCurrent() : r.getName2002())
+                .relationType(r.getRelationType() != null ? r.getRelationType().getDisplayName() : null)
+                .errorMessage(r.getValidationMessage())
+                .expectedValue(r.getExpectedValue())
+                .foundValue(r.getFoundValue())
+                .build())
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,32 @@
+package com.election.voterhierarchy.dto;
+
+import com.election.voterhierarchy.enums.FamilyChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One change in the change feed. family is set for family events and member
+ * for member events (the head for family events), holding the state at the
+ * time of reading; both are null once the record is deleted. cursor is the
+ * position after this entry, for resuming an NDJSON stream.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangeFeedEntry {
+    private Long eventId;
+    private String shard;
+    private FamilyChangeType changeType;
+    private Long familyId;
+    private Long personId;
+    private String changedBy;
+    private LocalDateTime changedAt;
+    private FamilySummaryResponse family;
+    private MemberResponse member;
+    private String cursor;
+}
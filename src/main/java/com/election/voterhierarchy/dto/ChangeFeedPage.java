@@ -0,0 +1,24 @@
+package com.election.voterhierarchy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of the change feed. With hasMore set, the client asks again with
+ * the new cursor straight away; otherwise it polls again later.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangeFeedPage {
+    @Builder.Default
+    private List<ChangeFeedEntry> changes = new ArrayList<>();
+    private String cursor;
+    private boolean hasMore;
+}
@@ -13,6 +13,9 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @Builder
 public class FamilyHeadDTO {
+
+    // Device-generated family ID from the sync API; not on the web form
+    private String clientRef;
     
     @NotBlank(message = "Contact person is required")
     private String contactPerson;
@@ -0,0 +1,23 @@
+package com.election.voterhierarchy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FamilyHierarchyDTO {
+    private Long familyId;
+    private String familyCode;
+    private long revision;
+    private HierarchyNode hierarchy;
+
+    @Builder.Default
+    private List<ValidationError> validationErrors = new ArrayList<>();
+}
@@ -15,6 +15,9 @@ import lombok.NoArgsConstructor;
 @Builder
 public class FamilyMemberDTO {
 
+    // Device-generated member ID from the sync API; not on the web form
+    private String clientRef;
+
     @NotNull(message = "Relation type is required")
     private RelationType relationType;
 
@@ -0,0 +1,26 @@
+package com.election.voterhierarchy.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * All members of a family submitted at once from the batch add form.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FamilyMembersBatchDTO {
+
+    @Valid
+    @NotEmpty(message = "Add at least one member")
+    @Builder.Default
+    private List<FamilyMemberDTO> members = new ArrayList<>();
+}
@@ -0,0 +1,33 @@
+package com.election.voterhierarchy.dto;
+
+import com.election.voterhierarchy.enums.PersonStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * API projection of a family_summary row. Populated directly by JPQL
+ * constructor expressions, so listing never materializes entities.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FamilySummaryResponse {
+    private Long familyId;
+    private String familyCode;
+    private String contactPerson;
+    private String contactNumber;
+    private String headName;
+    private PersonStatus headStatus;
+    private String headEpicNo;
+    private int memberCount;
+    private int activeCount;
+    private int expiredCount;
+    private int validationErrorCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
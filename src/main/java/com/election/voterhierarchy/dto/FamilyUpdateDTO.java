@@ -13,6 +13,9 @@ import lombok.NoArgsConstructor;
 @Builder
 public class FamilyUpdateDTO {
     
+    // Family revision the form was rendered from
+    private Long revision;
+    
     @NotBlank(message = "Contact person is required")
     private String contactPerson;
     
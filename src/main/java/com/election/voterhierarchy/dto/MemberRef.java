@@ -0,0 +1,29 @@
+package com.election.voterhierarchy.dto;
+
+import com.election.voterhierarchy.enums.PersonStatus;
+import com.election.voterhierarchy.enums.RelationType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The few member columns a delete needs to decide what else to update,
+ * read without loading the member entity.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MemberRef {
+    private Long personId;
+    private Long familyId;
+    private Boolean isFamilyHead;
+    private RelationType relationType;
+    private PersonStatus status;
+    private String name2002;
+
+    public boolean isFamilyHead() {
+        return Boolean.TRUE.equals(isFamilyHead);
+    }
+}
@@ -0,0 +1,48 @@
+package com.election.voterhierarchy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What the merge screen shows after an edit lost a version check: the
+ * operator's values next to the values saved in the meantime, plus the
+ * operator's values re-keyed to the current version for a retry.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MergeConflictDTO {
+    private String title;
+    private String formAction;
+    private String editUrl;
+    private String cancelUrl;
+
+    @Builder.Default
+    private List<MergeField> fields = new ArrayList<>();
+
+    @Builder.Default
+    private Map<String, String> resubmitValues = new LinkedHashMap<>();
+
+    public long getChangedCount() {
+        return fields.stream().filter(MergeField::isChanged).count();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class MergeField {
+        private String label;
+        private String mine;
+        private String current;
+        private boolean changed;
+    }
+}
@@ -14,6 +14,8 @@ import lombok.NoArgsConstructor;
 public class PersonUpdateDTO {
     
     private Long personId;
+    // Person version the form was rendered from
+    private Long version;
     private RelationType relationType;
     private Integer age;
     private PersonStatus status;
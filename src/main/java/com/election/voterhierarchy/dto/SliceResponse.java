@@ -0,0 +1,19 @@
+package com.election.voterhierarchy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SliceResponse<T> {
+    private List<T> content;
+    private int page;
+    private int size;
+    private boolean hasNext;
+}
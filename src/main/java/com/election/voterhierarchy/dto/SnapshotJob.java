@@ -0,0 +1,81 @@
+package com.election.voterhierarchy.dto;
+
+import com.election.voterhierarchy.enums.SnapshotJobStatus;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * State of one snapshot export or restore. Written only by the job's own
+ * thread (row counts also by its workers); status requests read it
+ * concurrently, hence the volatile fields.
+ */
+@Getter
+public class SnapshotJob {
+
+    public enum Type { EXPORT, RESTORE }
+
+    private final String jobId;
+    private final Type type;
+    private final String snapshotName;
+    private final String requestedBy;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private volatile SnapshotJobStatus status = SnapshotJobStatus.QUEUED;
+    private volatile String currentTable;
+    private volatile int tablesDone;
+    private volatile long rows;
+    private volatile long bytes;
+    private volatile long elapsedMillis;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String errorMessage;
+
+    public SnapshotJob(String jobId, Type type, String snapshotName, String requestedBy) {
+        this.jobId = jobId;
+        this.type = type;
+        this.snapshotName = snapshotName;
+        this.requestedBy = requestedBy;
+    }
+
+    public void markStarted() {
+        startedAt = LocalDateTime.now();
+        status = SnapshotJobStatus.RUNNING;
+    }
+
+    public void startTable(String table) {
+        currentTable = table;
+    }
+
+    public synchronized void recordRows(long count, long size) {
+        rows += count;
+        bytes += size;
+        elapsedMillis = Duration.between(startedAt, LocalDateTime.now()).toMillis();
+    }
+
+    public void finishTable() {
+        tablesDone++;
+        currentTable = null;
+    }
+
+    public void markCompleted() {
+        finishedAt = LocalDateTime.now();
+        elapsedMillis = Duration.between(startedAt, finishedAt).toMillis();
+        status = SnapshotJobStatus.COMPLETED;
+    }
+
+    public void markFailed(String message) {
+        errorMessage = message;
+        finishedAt = LocalDateTime.now();
+        status = SnapshotJobStatus.FAILED;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis > 0 ? rows * 1000.0 / elapsedMillis : 0.0;
+    }
+
+    public boolean isFinished() {
+        return status == SnapshotJobStatus.COMPLETED || status == SnapshotJobStatus.FAILED;
+    }
+}
@@ -0,0 +1,43 @@
+package com.election.voterhierarchy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * manifest.json of a snapshot directory: the table files in restore order,
+ * with the shard each belongs to (null for the global database) and its
+ * row count, checked again after a restore.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SnapshotManifest {
+    private int formatVersion;
+    private String name;
+    private String createdBy;
+    private LocalDateTime createdAt;
+    private long elapsedMillis;
+    @Builder.Default
+    private List<String> shards = new ArrayList<>();
+    @Builder.Default
+    private List<TableFile> tables = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class TableFile {
+        private String shard;
+        private String table;
+        private String file;
+        private long rows;
+        private long bytes;
+    }
+}
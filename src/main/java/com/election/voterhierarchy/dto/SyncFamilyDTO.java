@@ -0,0 +1,40 @@
+package com.election.voterhierarchy.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A family captured or edited offline, with its new or edited members.
+ * A new family carries the head; an edit of the family itself carries the
+ * head and the revision it was made from. Members can be sent without the
+ * head to add them to a family the server already has.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncFamilyDTO {
+
+    @NotBlank(message = "Client reference is required")
+    @Size(max = 64, message = "Client reference must be at most 64 characters")
+    private String clientRef;
+
+    // Server ID, once known to the device
+    private Long id;
+
+    // Family revision the edit was made from; null for a new family
+    private Long revision;
+
+    private FamilyHeadDTO head;
+
+    // Validated one by one, so one bad member does not reject the family
+    @Builder.Default
+    private List<SyncMemberDTO> members = new ArrayList<>();
+}
@@ -0,0 +1,36 @@
+package com.election.voterhierarchy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Current state of a family sent back to sync clients: the family row plus
+ * all of its members, head first. Clients replace their copy with it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncFamilyResponse {
+    private Long familyId;
+    private String clientRef;
+    private String familyCode;
+    private long revision;
+    private String contactPerson;
+    private String contactNumber;
+    private LocalDateTime updatedAt;
+    @Builder.Default
+    private List<MemberResponse> members = new ArrayList<>();
+
+    // JPQL constructor expression (FamilyProjectionRepository.findSyncFamilies)
+    public SyncFamilyResponse(Long familyId, String clientRef, String familyCode, long revision,
+                              String contactPerson, String contactNumber, LocalDateTime updatedAt) {
+        this(familyId, clientRef, familyCode, revision, contactPerson, contactNumber, updatedAt, new ArrayList<>());
+    }
+}
@@ -0,0 +1,27 @@
+package com.election.voterhierarchy.dto;
+
+import com.election.voterhierarchy.enums.SyncOutcome;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What happened to one uploaded family or member. The server ID and the
+ * revision (family) or version (member) are those after the upload; on a
+ * conflict they are the server's, and the current record comes back in the
+ * response's changes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncItemResult {
+    private String clientRef;
+    // Client reference of the family the member belongs to; null for families
+    private String familyClientRef;
+    private SyncOutcome outcome;
+    private Long id;
+    private Long version;
+    private String error;
+}
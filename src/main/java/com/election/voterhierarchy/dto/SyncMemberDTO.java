@@ -0,0 +1,34 @@
+package com.election.voterhierarchy.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A non-head member captured or edited offline. New members carry only the
+ * client reference; edits of a member the device already got from the
+ * server also carry the version they were made from.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncMemberDTO {
+
+    @NotBlank(message = "Client reference is required")
+    @Size(max = 64, message = "Client reference must be at most 64 characters")
+    private String clientRef;
+
+    // Server ID, once known to the device
+    private Long id;
+
+    // Person version the edit was made from; null for a new member
+    private Long version;
+
+    @Valid
+    private FamilyMemberDTO member;
+}
@@ -0,0 +1,20 @@
+package com.election.voterhierarchy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Server ID and revision (family) or version (member) of a record found by
+ * its client reference, read without loading the entity.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncRef {
+    private String clientRef;
+    private Long id;
+    private Long version;
+}
@@ -0,0 +1,25 @@
+package com.election.voterhierarchy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One sync round-trip from a field device: the work captured since the last
+ * sync, and the cursor of the server changes it has already seen (null on
+ * the first sync).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncRequest {
+    private String deviceId;
+    private String cursor;
+    @Builder.Default
+    private List<SyncFamilyDTO> families = new ArrayList<>();
+}
@@ -0,0 +1,33 @@
+package com.election.voterhierarchy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a sync round-trip: one result per uploaded family and member,
+ * then the families changed on the server since the request's cursor
+ * (including the ones just uploaded) and the IDs of families deleted since.
+ * With hasMore set, the client syncs again with the new cursor to fetch the
+ * rest. cursorExpired means changes after the device's cursor were already
+ * purged, so its local copy may be missing some; it should download afresh.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncResponse {
+    @Builder.Default
+    private List<SyncItemResult> results = new ArrayList<>();
+    @Builder.Default
+    private List<SyncFamilyResponse> changed = new ArrayList<>();
+    @Builder.Default
+    private List<Long> deleted = new ArrayList<>();
+    private String cursor;
+    private boolean hasMore;
+    private boolean cursorExpired;
+}
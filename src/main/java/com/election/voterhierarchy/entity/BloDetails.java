@@ -4,10 +4,14 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
 @Table(name = "blo_details")
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,6 +24,8 @@ public class BloDetails {
 
     @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "voter_details_current_id")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private VoterDetailsCurrent voterDetailsCurrent;
 
     @Column(name = "blo_name", nullable = false)
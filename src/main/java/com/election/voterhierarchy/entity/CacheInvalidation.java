@@ -0,0 +1,47 @@
+package com.election.voterhierarchy.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Eviction broadcast to the other nodes of a cluster. Every node polls the
+ * table and evicts the named entry from its own copy of the cache. Lives in
+ * the global database.
+ */
+@Entity
+@Table(name = "cache_invalidation", indexes = {
+    @Index(name = "idx_cache_invalidation_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheInvalidation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cache_name", nullable = false, length = 50)
+    private String cacheName;
+
+    // Null evicts the whole cache
+    @Column(name = "cache_key", length = 100)
+    private String cacheKey;
+
+    @Column(name = "origin_node", nullable = false, length = 100)
+    private String originNode;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
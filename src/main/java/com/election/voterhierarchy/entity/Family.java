@@ -1,10 +1,17 @@
 package com.election.voterhierarchy.entity;
 
+import com.election.voterhierarchy.enums.PersonStatus;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.OptimisticLock;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -12,6 +19,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "family")
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,9 +33,35 @@ public class Family {
     @Column(name = "family_code", unique = true)
     private String familyCode;
 
+    // Generated by the field device for families captured offline (sync API)
+    @Column(name = "client_ref", unique = true, length = 64)
+    private String clientRef;
+
+    // Membership changes advance the revision explicitly (FamilyService), without a version check
     @OneToMany(mappedBy = "family", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @OptimisticLock(excluded = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private List<Person> members = new ArrayList<>();
 
+    // Denormalized family head pointer and summary, maintained by FamilyService
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "head_person_id")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Person headPerson;
+
+    @Column(name = "head_name")
+    private String headName;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "head_status")
+    private PersonStatus headStatus;
+
+    @Column(name = "head_epic_no")
+    private String headEpicNo;
+
     @Column(name = "contact_person", nullable = false)
     private String contactPerson;
 
@@ -43,6 +77,12 @@ public class Family {
     @Column(name = "created_by")
     private String createdBy;
 
+    // Advances on every change to the aggregate (family, members, voter and BLO details).
+    // Also the optimistic lock version of the family row itself.
+    @Version
+    @Column(name = "revision", nullable = false)
+    private long revision;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -64,8 +104,27 @@ public class Family {
         member.setFamily(null);
     }
 	
+    /**
+     * Points the family at its head and copies the head summary columns
+     * (2002 name, status, 2002 EPIC) used by list, search and count queries.
+     */
+    public void applyHeadSummary(Person head) {
+        this.headPerson = head;
+        if (head == null) {
+            this.headName = null;
+            this.headStatus = null;
+            this.headEpicNo = null;
+            return;
+        }
+        this.headStatus = head.getStatus();
+        this.headName = head.getVoterDetails2002() != null ? head.getVoterDetails2002().getName() : null;
+        this.headEpicNo = head.getVoterDetails2002() != null ? head.getVoterDetails2002().getEpicNo() : null;
+    }
+	
 	@Transient
 	public Person getFamilyHead() {
+		if (headPerson != null) return headPerson;
+		// Fallback for rows written before head_person_id was backfilled
 		if (members == null) return null;
 		return members.stream()
 				.filter(Person::isFamilyHead)
@@ -0,0 +1,54 @@
+package com.election.voterhierarchy.entity;
+
+import com.election.voterhierarchy.enums.FamilyChangeType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox row written in the same transaction as the family mutation it
+ * describes. The ID gives the delivery order.
+ */
+@Entity
+@Table(name = "family_change_outbox", indexes = {
+    @Index(name = "idx_outbox_family_id", columnList = "family_id"),
+    @Index(name = "idx_outbox_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FamilyChangeEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "change_type", nullable = false, length = 30)
+    private FamilyChangeType changeType;
+
+    @Column(name = "family_id", nullable = false)
+    private Long familyId;
+
+    @Column(name = "person_id")
+    private Long personId;
+
+    @Column(name = "created_by")
+    private String createdBy;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,27 @@
+package com.election.voterhierarchy.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Shard of a family that was moved away from the shard its ID range belongs
+ * to. Lives in the global database; families that never moved have no row.
+ */
+@Entity
+@Table(name = "family_shard_forward")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FamilyShardForward {
+
+    @Id
+    @Column(name = "family_id")
+    private Long familyId;
+
+    @Column(name = "shard_name", nullable = false, length = 50)
+    private String shardName;
+}
@@ -0,0 +1,77 @@
+package com.election.voterhierarchy.entity;
+
+import com.election.voterhierarchy.enums.PersonStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model for list, search and dashboard pages. One row per family,
+ * maintained by FamilySummaryService from every FamilyService write.
+ */
+@Entity
+@Table(name = "family_summary", indexes = {
+    @Index(name = "idx_summary_family_code", columnList = "family_code"),
+    @Index(name = "idx_summary_contact_number", columnList = "contact_number"),
+    @Index(name = "idx_summary_head_name", columnList = "head_name"),
+    @Index(name = "idx_summary_status_created", columnList = "head_status, created_at"),
+    @Index(name = "idx_summary_validation", columnList = "validation_error_count"),
+    @Index(name = "idx_summary_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FamilySummary {
+
+    @Id
+    @Column(name = "family_id")
+    private Long id;
+
+    @Column(name = "family_code")
+    private String familyCode;
+
+    @Column(name = "contact_person")
+    private String contactPerson;
+
+    @Column(name = "contact_number")
+    private String contactNumber;
+
+    @Column(name = "head_name")
+    private String headName;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "head_status")
+    private PersonStatus headStatus;
+
+    @Column(name = "head_epic_no")
+    private String headEpicNo;
+
+    @Column(name = "member_count", nullable = false)
+    private int memberCount;
+
+    @Column(name = "active_count", nullable = false)
+    private int activeCount;
+
+    @Column(name = "expired_count", nullable = false)
+    private int expiredCount;
+
+    @Column(name = "validation_error_count", nullable = false)
+    private int validationErrorCount;
+
+    @Column(name = "created_by")
+    private String createdBy;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,63 @@
+package com.election.voterhierarchy.entity;
+
+import com.election.voterhierarchy.dto.ValidationError;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stored hierarchy validation result for one non-head member. Recomputed by
+ * MemberValidationService only when something the result depends on changes.
+ */
+@Entity
+@Table(name = "member_validation", indexes = {
+    @Index(name = "idx_member_validation_family", columnList = "family_id, valid")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MemberValidation {
+
+    @Id
+    @Column(name = "person_id")
+    private Long personId;
+
+    @Column(name = "family_id", nullable = false)
+    private Long familyId;
+
+    @Column(name = "valid", nullable = false)
+    private boolean valid;
+
+    @Column(name = "member_name")
+    private String memberName;
+
+    @Column(name = "relation_type")
+    private String relationType;
+
+    @Column(name = "error_message")
+    private String errorMessage;
+
+    @Column(name = "expected_value", length = 500)
+    private String expectedValue;
+
+    @Column(name = "found_value")
+    private String foundValue;
+
+    @Column(name = "validated_at")
+    private LocalDateTime validatedAt;
+
+    public ValidationError toValidationError() {
+        return ValidationError.builder()
+            .memberName(memberName)
+            .relationType(relationType)
+            .errorMessage(errorMessage)
+            .expectedValue(expectedValue)
+            .foundValue(foundValue)
+            .build();
+    }
+}
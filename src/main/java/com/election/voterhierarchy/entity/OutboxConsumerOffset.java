@@ -0,0 +1,35 @@
+package com.election.voterhierarchy.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_consumer_offset")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxConsumerOffset {
+
+    @Id
+    @Column(name = "consumer_name", length = 100)
+    private String consumerName;
+
+    // Last event ID of the named position (the change feed's retention mark)
+    @Column(name = "last_event_id", nullable = false)
+    private Long lastEventId;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
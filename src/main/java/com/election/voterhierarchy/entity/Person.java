@@ -6,10 +6,16 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 @Entity
 @Table(name = "person")
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -22,12 +28,19 @@ public class Person {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "family_id")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Family family;
 
+    // Generated by the field device for members captured offline (sync API)
+    @Column(name = "client_ref", unique = true, length = 64)
+    private String clientRef;
+
     @Column(name = "is_family_head")
     private Boolean isFamilyHead;
 
     @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
     @Column(name = "relation_type")
     private RelationType relationType;
 
@@ -35,13 +48,23 @@ public class Person {
     private Integer age;
 
     @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
     @Column(name = "status", nullable = false)
     private PersonStatus status;
 
+    // Concurrent edits of the same member fail instead of overwriting each other
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     @OneToOne(mappedBy = "person", cascade = CascadeType.ALL, orphanRemoval = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private VoterDetails2002 voterDetails2002;
 
     @OneToOne(mappedBy = "person", cascade = CascadeType.ALL, orphanRemoval = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private VoterDetailsCurrent voterDetailsCurrent;
 
     public void setVoterDetails2002(VoterDetails2002 details) {
@@ -0,0 +1,27 @@
+package com.election.voterhierarchy.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Single-row heartbeat written to the primary and read back from the
+ * replicas to measure replication lag.
+ */
+@Entity
+@Table(name = "replication_heartbeat")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReplicationHeartbeat {
+
+    @Id
+    private Integer id;
+
+    // Primary clock (epoch millis) at the time of the beat
+    @Column(name = "beat_at", nullable = false)
+    private Long beatAt;
+}
@@ -0,0 +1,38 @@
+package com.election.voterhierarchy.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Shard that new families of an assembly constituency are created on.
+ * Lives in the global database.
+ */
+@Entity
+@Table(name = "shard_assignment")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ShardAssignment {
+
+    @Id
+    @Column(name = "ac_no", length = 50)
+    private String acNo;
+
+    @Column(name = "shard_name", nullable = false, length = 50)
+    private String shardName;
+
+    @Column(name = "assigned_at")
+    private LocalDateTime assignedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        assignedAt = LocalDateTime.now();
+    }
+}
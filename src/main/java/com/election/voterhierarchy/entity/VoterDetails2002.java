@@ -4,10 +4,14 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
 @Table(name = "voter_details_2002")
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,6 +24,8 @@ public class VoterDetails2002 {
 
     @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "person_id")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Person person;
 
     @Column(name = "name", nullable = false)
@@ -4,10 +4,14 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
 @Table(name = "voter_details_current")
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,6 +24,8 @@ public class VoterDetailsCurrent {
 
     @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "person_id")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Person person;
 
     @Column(name = "name", nullable = false)
@@ -41,6 +47,8 @@ public class VoterDetailsCurrent {
     private String serialNo;
 
     @OneToOne(mappedBy = "voterDetailsCurrent", cascade = CascadeType.ALL, orphanRemoval = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private BloDetails bloDetails;
 
     public void setBloDetails(BloDetails bloDetails) {
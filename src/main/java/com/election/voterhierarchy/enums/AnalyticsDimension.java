@@ -0,0 +1,39 @@
+package com.election.voterhierarchy.enums;
+
+import java.util.Locale;
+
+public enum AnalyticsDimension {
+    AC("ac", "Assembly Constituency (current roll)"),
+    PART("part", "Part No. (current roll)"),
+    STATUS("status", "Member Status"),
+    RELATION("relation", "Relation Type"),
+    BLO("blo", "BLO Name"),
+    HEAD("head", "Family Head"),
+    VALID("valid", "Hierarchy Validation");
+
+    private final String paramName;
+    private final String displayName;
+
+    AnalyticsDimension(String paramName, String displayName) {
+        this.paramName = paramName;
+        this.displayName = displayName;
+    }
+
+    public String getParamName() {
+        return paramName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public static AnalyticsDimension fromParam(String name) {
+        String key = name.trim().toLowerCase(Locale.ROOT);
+        for (AnalyticsDimension dimension : values()) {
+            if (dimension.paramName.equals(key)) {
+                return dimension;
+            }
+        }
+        throw new IllegalArgumentException("Unknown dimension: " + name);
+    }
+}
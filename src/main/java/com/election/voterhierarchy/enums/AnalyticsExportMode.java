@@ -0,0 +1,16 @@
+package com.election.voterhierarchy.enums;
+
+public enum AnalyticsExportMode {
+    FULL("Full"),
+    INCREMENTAL("Changed Partitions Only");
+
+    private final String displayName;
+
+    AnalyticsExportMode(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,28 @@
+package com.election.voterhierarchy.enums;
+
+public enum BloPrintFormat {
+    PDF("Single PDF", "application/pdf", "pdf"),
+    ZIP("ZIP of PDFs", "application/zip", "zip");
+
+    private final String displayName;
+    private final String contentType;
+    private final String extension;
+
+    BloPrintFormat(String displayName, String contentType, String extension) {
+        this.displayName = displayName;
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,20 @@
+package com.election.voterhierarchy.enums;
+
+public enum FamilyChangeType {
+    FAMILY_CREATED("Family Created"),
+    FAMILY_UPDATED("Family Updated"),
+    FAMILY_DELETED("Family Deleted"),
+    MEMBER_ADDED("Member Added"),
+    MEMBER_UPDATED("Member Updated"),
+    MEMBER_DELETED("Member Deleted");
+
+    private final String displayName;
+
+    FamilyChangeType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
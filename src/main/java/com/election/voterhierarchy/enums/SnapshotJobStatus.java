@@ -0,0 +1,18 @@
+package com.election.voterhierarchy.enums;
+
+public enum SnapshotJobStatus {
+    QUEUED("Queued"),
+    RUNNING("Running"),
+    COMPLETED("Completed"),
+    FAILED("Failed");
+
+    private final String displayName;
+
+    SnapshotJobStatus(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
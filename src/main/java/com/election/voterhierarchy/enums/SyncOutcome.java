@@ -0,0 +1,19 @@
+package com.election.voterhierarchy.enums;
+
+public enum SyncOutcome {
+    CREATED("Created"),
+    UPDATED("Updated"),
+    UNCHANGED("Already Applied"),
+    CONFLICT("Conflict"),
+    REJECTED("Rejected");
+
+    private final String displayName;
+
+    SyncOutcome(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,118 @@
+package com.election.voterhierarchy.repository;
+
+import com.election.voterhierarchy.dto.BloRosterRow;
+import com.election.voterhierarchy.enums.PersonStatus;
+import com.election.voterhierarchy.enums.RelationType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+/**
+ * Part-wise roster of every family and member, read with one ordered,
+ * forward-only JDBC query. A family belongs to the part of its head's current
+ * voter ID, or of the head's 2002 entry when the head has no current ID.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BloRosterRepository {
+
+    private static final int FETCH_SIZE = 500;
+
+    /**
+     * Families of one AC/part, as two branches that can each seek the
+     * (ac_no, part_no) index of their voter table: heads with a current entry
+     * in the part, and heads with no current entry whose 2002 entry is in it.
+     * The branches never overlap.
+     */
+    private static final String PART_FAMILIES_SQL =
+        "SELECT f.id AS family_id FROM voter_details_current hc " +
+        "JOIN family f ON f.head_person_id = hc.person_id " +
+        "WHERE hc.ac_no = ? AND hc.part_no = ? " +
+        "UNION ALL " +
+        "SELECT f.id AS family_id FROM voter_details_2002 h2 " +
+        "JOIN family f ON f.head_person_id = h2.person_id " +
+        "WHERE h2.ac_no = ? AND h2.part_no = ? " +
+        "AND NOT EXISTS (SELECT 1 FROM voter_details_current hc WHERE hc.person_id = h2.person_id)";
+
+    private static final String ROSTER_SQL =
+        "SELECT f.id AS family_id, f.family_code, f.contact_person, f.contact_number, " +
+        "p.id AS person_id, p.is_family_head, p.relation_type, p.age, p.status, " +
+        "v2.name AS name_2002, v2.parent_spouse_name AS parent_2002, v2.epic_no AS epic_2002, " +
+        "v2.ac_no AS ac_2002, v2.part_no AS part_2002, v2.serial_no AS serial_2002, " +
+        "vc.name AS name_current, vc.parent_spouse_name AS parent_current, vc.epic_no AS epic_current, " +
+        "vc.ac_no AS ac_current, vc.part_no AS part_current, vc.serial_no AS serial_current, " +
+        "b.blo_name, b.blo_mobile, " +
+        "mv.valid, mv.error_message, mv.expected_value, mv.found_value " +
+        "FROM (" + PART_FAMILIES_SQL + ") pf " +
+        "JOIN family f ON f.id = pf.family_id " +
+        "JOIN person p ON p.family_id = f.id " +
+        "LEFT JOIN voter_details_2002 v2 ON v2.person_id = p.id " +
+        "LEFT JOIN voter_details_current vc ON vc.person_id = p.id " +
+        "LEFT JOIN blo_details b ON b.voter_details_current_id = vc.id " +
+        "LEFT JOIN member_validation mv ON mv.person_id = p.id " +
+        "ORDER BY f.id, p.is_family_head DESC, p.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Streams the roster of one AC/part to the consumer, family by family
+     * (head first). Rows are handed over as they are read.
+     */
+    public void streamPart(String acNo, String partNo, Consumer<BloRosterRow> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                ROSTER_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setString(1, acNo);
+            statement.setString(2, partNo);
+            statement.setString(3, acNo);
+            statement.setString(4, partNo);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> consumer.accept(mapRow(resultSet)));
+    }
+
+    private BloRosterRow mapRow(ResultSet rs) throws SQLException {
+        String relationType = rs.getString("relation_type");
+        String status = rs.getString("status");
+        int age = rs.getInt("age");
+        boolean ageNull = rs.wasNull();
+        boolean valid = rs.getBoolean("valid");
+        boolean validNull = rs.wasNull();
+
+        return BloRosterRow.builder()
+            .familyId(rs.getLong("family_id"))
+            .familyCode(rs.getString("family_code"))
+            .contactPerson(rs.getString("contact_person"))
+            .contactNumber(rs.getString("contact_number"))
+            .personId(rs.getLong("person_id"))
+            .familyHead(rs.getBoolean("is_family_head"))
+            .relationType(relationType != null ? RelationType.valueOf(relationType) : null)
+            .age(ageNull ? null : age)
+            .status(status != null ? PersonStatus.valueOf(status) : null)
+            .name2002(rs.getString("name_2002"))
+            .parentSpouseName2002(rs.getString("parent_2002"))
+            .epicNo2002(rs.getString("epic_2002"))
+            .acNo2002(rs.getString("ac_2002"))
+            .partNo2002(rs.getString("part_2002"))
+            .serialNo2002(rs.getString("serial_2002"))
+            .nameCurrent(rs.getString("name_current"))
+            .parentSpouseNameCurrent(rs.getString("parent_current"))
+            .epicNoCurrent(rs.getString("epic_current"))
+            .acNoCurrent(rs.getString("ac_current"))
+            .partNoCurrent(rs.getString("part_current"))
+            .serialNoCurrent(rs.getString("serial_current"))
+            .bloName(rs.getString("blo_name"))
+            .bloMobile(rs.getString("blo_mobile"))
+            .valid(validNull ? null : valid)
+            .validationMessage(rs.getString("error_message"))
+            .expectedValue(rs.getString("expected_value"))
+            .foundValue(rs.getString("found_value"))
+            .build();
+    }
+}
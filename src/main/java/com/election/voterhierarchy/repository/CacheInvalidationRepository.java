@@ -0,0 +1,28 @@
+package com.election.voterhierarchy.repository;
+
+import com.election.voterhierarchy.entity.CacheInvalidation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CacheInvalidationRepository extends JpaRepository<CacheInvalidation, Long> {
+
+    @Query("SELECT c FROM CacheInvalidation c WHERE c.id > :afterId ORDER BY c.id")
+    List<CacheInvalidation> findBatchAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM CacheInvalidation c")
+    Long findLatestId();
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CacheInvalidation c WHERE c.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
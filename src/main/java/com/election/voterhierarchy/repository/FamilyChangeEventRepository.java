@@ -0,0 +1,61 @@
+package com.election.voterhierarchy.repository;
+
+import com.election.voterhierarchy.entity.FamilyChangeEvent;
+import com.election.voterhierarchy.enums.FamilyChangeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FamilyChangeEventRepository extends JpaRepository<FamilyChangeEvent, Long> {
+
+    @Query("SELECT e FROM FamilyChangeEvent e WHERE e.id > :afterId ORDER BY e.id")
+    List<FamilyChangeEvent> findBatchAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM FamilyChangeEvent e")
+    Long findLatestId();
+
+    // IDs of recent events, to find the ones still missing among them
+    @Query("SELECT e.id FROM FamilyChangeEvent e WHERE e.id <= :upToId AND e.createdAt >= :since ORDER BY e.id")
+    List<Long> findIdsCreatedSince(@Param("upToId") long upToId, @Param("since") LocalDateTime since);
+
+    // Open gaps of a reader that have committed since it last looked
+    @Query("SELECT e FROM FamilyChangeEvent e WHERE e.id IN :ids ORDER BY e.id")
+    List<FamilyChangeEvent> findByIds(@Param("ids") Collection<Long> ids);
+
+    // Compaction: events older than the cutoff that a later event of the same
+    // key makes redundant (family events by family, member events by person;
+    // a family delete supersedes everything of that family)
+    @Query("SELECT e.id FROM FamilyChangeEvent e " +
+           "WHERE e.id <= :upToId AND e.createdAt < :cutoff AND e.changeType <> :familyDeleted " +
+           "AND EXISTS (SELECT 1 FROM FamilyChangeEvent l WHERE l.familyId = e.familyId AND l.id > e.id " +
+           "AND (l.changeType = :familyDeleted " +
+           "OR (e.changeType IN :familyTypes AND l.changeType IN :familyTypes) " +
+           "OR (e.changeType IN :memberTypes AND l.changeType IN :memberTypes AND l.personId = e.personId))) " +
+           "ORDER BY e.id")
+    List<Long> findSupersededIds(@Param("upToId") long upToId,
+                                 @Param("cutoff") LocalDateTime cutoff,
+                                 @Param("familyDeleted") FamilyChangeType familyDeleted,
+                                 @Param("familyTypes") Collection<FamilyChangeType> familyTypes,
+                                 @Param("memberTypes") Collection<FamilyChangeType> memberTypes,
+                                 Pageable pageable);
+
+    // Retention: the newest event that is past the cutoff
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM FamilyChangeEvent e WHERE e.id <= :upToId AND e.createdAt < :cutoff")
+    Long findLastExpiredId(@Param("upToId") long upToId, @Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("DELETE FROM FamilyChangeEvent e WHERE e.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM FamilyChangeEvent e WHERE e.id > :afterId AND e.id <= :upToId")
+    int deleteRange(@Param("afterId") long afterId, @Param("upToId") long upToId);
+}
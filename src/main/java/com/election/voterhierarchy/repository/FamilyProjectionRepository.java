@@ -0,0 +1,104 @@
+package com.election.voterhierarchy.repository;
+
+import com.election.voterhierarchy.dto.FamilySummaryResponse;
+import com.election.voterhierarchy.dto.MemberResponse;
+import com.election.voterhierarchy.dto.SyncFamilyResponse;
+import com.election.voterhierarchy.dto.SyncRef;
+import com.election.voterhierarchy.entity.FamilySummary;
+import com.election.voterhierarchy.enums.PersonStatus;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+/**
+ * Read-only DTO projections for the JSON API.
+ */
+@org.springframework.stereotype.Repository
+public interface FamilyProjectionRepository extends Repository<FamilySummary, Long> {
+
+    String SUMMARY_PROJECTION = "SELECT new com.election.voterhierarchy.dto.FamilySummaryResponse(" +
+        "s.id, s.familyCode, s.contactPerson, s.contactNumber, s.headName, s.headStatus, s.headEpicNo, " +
+        "s.memberCount, s.activeCount, s.expiredCount, s.validationErrorCount, s.createdAt, s.updatedAt) " +
+        "FROM FamilySummary s ";
+
+    String SUMMARY_FILTERS = "WHERE (:familyCode IS NULL OR s.familyCode LIKE %:familyCode%) " +
+        "AND (:contactNumber IS NULL OR s.contactNumber LIKE %:contactNumber%) " +
+        "AND (:contactPerson IS NULL OR s.contactPerson LIKE %:contactPerson%) " +
+        "AND (:status IS NULL OR s.headStatus = :status) " +
+        "AND (:familyHeadName IS NULL OR s.headName LIKE :familyHeadName%) ";
+
+    @Query(SUMMARY_PROJECTION + "WHERE s.id = :id")
+    Optional<FamilySummaryResponse> findSummaryById(@Param("id") Long id);
+
+    @Query(SUMMARY_PROJECTION + "WHERE s.id IN :ids")
+    List<FamilySummaryResponse> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    @Query(SUMMARY_PROJECTION + SUMMARY_FILTERS + "ORDER BY s.id")
+    Slice<FamilySummaryResponse> findSummaries(@Param("familyCode") String familyCode,
+                                               @Param("contactNumber") String contactNumber,
+                                               @Param("contactPerson") String contactPerson,
+                                               @Param("status") PersonStatus status,
+                                               @Param("familyHeadName") String familyHeadName,
+                                               Pageable pageable);
+
+    // Forward-only cursor; callers must consume it inside a transaction and close it
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query(SUMMARY_PROJECTION + SUMMARY_FILTERS + "ORDER BY s.id")
+    Stream<FamilySummaryResponse> streamSummaries(@Param("familyCode") String familyCode,
+                                                  @Param("contactNumber") String contactNumber,
+                                                  @Param("contactPerson") String contactPerson,
+                                                  @Param("status") PersonStatus status,
+                                                  @Param("familyHeadName") String familyHeadName);
+
+    String MEMBER_PROJECTION = "SELECT new com.election.voterhierarchy.dto.MemberResponse(" +
+        "p.id, p.family.id, p.clientRef, p.version, p.isFamilyHead, p.relationType, p.age, p.status, " +
+        "v2.name, v2.parentSpouseName, v2.epicNo, v2.acNo, v2.partNo, v2.serialNo, " +
+        "vc.name, vc.parentSpouseName, vc.epicNo, vc.acNo, vc.partNo, vc.serialNo, " +
+        "b.bloName, b.bloMobile) " +
+        "FROM Person p " +
+        "LEFT JOIN p.voterDetails2002 v2 " +
+        "LEFT JOIN p.voterDetailsCurrent vc " +
+        "LEFT JOIN vc.bloDetails b ";
+
+    @Query(MEMBER_PROJECTION +
+           "WHERE p.family.id = :familyId " +
+           "ORDER BY p.isFamilyHead DESC, p.id")
+    List<MemberResponse> findMembers(@Param("familyId") Long familyId);
+
+    @Query(MEMBER_PROJECTION +
+           "WHERE p.family.id IN :familyIds " +
+           "ORDER BY p.family.id, p.isFamilyHead DESC, p.id")
+    List<MemberResponse> findMembersOfFamilies(@Param("familyIds") Collection<Long> familyIds);
+
+    @Query(MEMBER_PROJECTION + "WHERE p.id IN :personIds")
+    List<MemberResponse> findMembersByIds(@Param("personIds") Collection<Long> personIds);
+
+    // Current state of changed families for sync clients (members are added by the caller)
+    @Query("SELECT new com.election.voterhierarchy.dto.SyncFamilyResponse(" +
+           "f.id, f.clientRef, f.familyCode, f.revision, f.contactPerson, f.contactNumber, f.updatedAt) " +
+           "FROM Family f WHERE f.id IN :familyIds ORDER BY f.id")
+    List<SyncFamilyResponse> findSyncFamilies(@Param("familyIds") Collection<Long> familyIds);
+
+    @Query("SELECT new com.election.voterhierarchy.dto.SyncRef(f.clientRef, f.id, f.revision) " +
+           "FROM Family f WHERE f.clientRef IN :clientRefs")
+    List<SyncRef> findFamilyRefs(@Param("clientRefs") Collection<String> clientRefs);
+
+    @Query("SELECT new com.election.voterhierarchy.dto.SyncRef(p.clientRef, p.id, p.version) " +
+           "FROM Person p WHERE p.clientRef IN :clientRefs")
+    List<SyncRef> findMemberRefs(@Param("clientRefs") Collection<String> clientRefs);
+}
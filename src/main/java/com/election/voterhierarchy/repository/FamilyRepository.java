@@ -2,11 +2,16 @@ package com.election.voterhierarchy.repository;
 
 import com.election.voterhierarchy.entity.Family;
 import com.election.voterhierarchy.enums.PersonStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +20,16 @@ public interface FamilyRepository extends JpaRepository<Family, Long> {
 
     Optional<Family> findByFamilyCode(String familyCode);
 
+    Optional<Family> findByClientRef(String clientRef);
+
+    // Summary rebuild: the next chunk by ID, locked so writes to these families wait for the chunk
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM Family f WHERE f.id > :afterId ORDER BY f.id")
+    List<Family> findChunkForUpdate(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT f.id FROM Family f WHERE f.clientRef = :clientRef")
+    Optional<Long> findIdByClientRef(@Param("clientRef") String clientRef);
+
     @Override
     @Query("SELECT DISTINCT f FROM Family f")
     List<Family> findAll();
@@ -22,29 +37,51 @@ public interface FamilyRepository extends JpaRepository<Family, Long> {
     @Query("SELECT f FROM Family f WHERE f.id = :id")
     Optional<Family> findByIdWithFullDetails(@Param("id") Long id);
 
-    // Updated queries - join through members instead of familyHead
-    @Query("SELECT DISTINCT f FROM Family f " +
-           "LEFT JOIN f.members m " +
-           "LEFT JOIN m.voterDetails2002 v2002 " +
+    @Query("SELECT f.revision FROM Family f WHERE f.id = :id")
+    Optional<Long> findRevisionById(@Param("id") Long id);
+
+    // Head status and name filters read the denormalized head columns on family;
+    // the head name is a prefix match so idx_family_head_name can serve it
+    @Query("SELECT f FROM Family f " +
            "WHERE (:familyCode IS NULL OR f.familyCode LIKE %:familyCode%) " +
            "AND (:contactNumber IS NULL OR f.contactNumber LIKE %:contactNumber%) " +
            "AND (:contactPerson IS NULL OR f.contactPerson LIKE %:contactPerson%) " +
-           "AND (:status IS NULL OR (m.isFamilyHead = true AND m.status = :status)) " +
-           "AND (:familyHeadName IS NULL OR (m.isFamilyHead = true AND v2002.name LIKE %:familyHeadName%))")
+           "AND (:status IS NULL OR f.headStatus = :status) " +
+           "AND (:familyHeadName IS NULL OR f.headName LIKE :familyHeadName%)")
     List<Family> findByFilters(@Param("familyCode") String familyCode,
                               @Param("contactNumber") String contactNumber,
                               @Param("contactPerson") String contactPerson,
                               @Param("status") PersonStatus status,
                               @Param("familyHeadName") String familyHeadName);
 
-    @Query("SELECT COUNT(DISTINCT f) FROM Family f")
+    @Query("SELECT COUNT(f) FROM Family f")
     Long countAll();
 
-    @Query("SELECT COUNT(DISTINCT f) FROM Family f " +
-           "LEFT JOIN f.members m " +
-           "WHERE m.isFamilyHead = true AND m.status = :status")
+    @Query("SELECT COUNT(f) FROM Family f WHERE f.headStatus = :status")
     Long countByStatus(@Param("status") PersonStatus status);
 
     @Query("SELECT SUM(SIZE(f.members)) FROM Family f")
     Long getTotalMembers();
-}
\ No newline at end of file
+
+    // Unchecked increment: concurrent member changes of one family never conflict
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Family f SET f.revision = f.revision + 1, f.updatedAt = :now WHERE f.id = :id")
+    int bumpRevision(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Checked increment: updates nothing if someone else advanced the revision first
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Family f SET f.revision = f.revision + 1, f.updatedAt = :now " +
+           "WHERE f.id = :id AND f.revision = :expectedRevision")
+    int bumpRevisionIfCurrent(@Param("id") Long id,
+                              @Param("expectedRevision") long expectedRevision,
+                              @Param("now") LocalDateTime now);
+
+    // Releases the head pointer so the member rows can be deleted
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Family f SET f.headPerson = null WHERE f.id = :id")
+    int clearHeadPerson(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Family f WHERE f.id = :id")
+    int deleteFamilyById(@Param("id") Long id);
+}
@@ -0,0 +1,55 @@
+package com.election.voterhierarchy.repository;
+
+import com.election.voterhierarchy.entity.FamilySummary;
+import com.election.voterhierarchy.enums.PersonStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface FamilySummaryRepository extends JpaRepository<FamilySummary, Long> {
+
+    List<FamilySummary> findAllByOrderByIdAsc();
+
+    @Query("SELECT s FROM FamilySummary s " +
+           "WHERE (:familyCode IS NULL OR s.familyCode LIKE %:familyCode%) " +
+           "AND (:contactNumber IS NULL OR s.contactNumber LIKE %:contactNumber%) " +
+           "AND (:contactPerson IS NULL OR s.contactPerson LIKE %:contactPerson%) " +
+           "AND (:status IS NULL OR s.headStatus = :status) " +
+           "AND (:familyHeadName IS NULL OR s.headName LIKE :familyHeadName%) " +
+           "ORDER BY s.id")
+    List<FamilySummary> findByFilters(@Param("familyCode") String familyCode,
+                                      @Param("contactNumber") String contactNumber,
+                                      @Param("contactPerson") String contactPerson,
+                                      @Param("status") PersonStatus status,
+                                      @Param("familyHeadName") String familyHeadName);
+
+    Long countByHeadStatus(PersonStatus headStatus);
+
+    @Query("SELECT COALESCE(SUM(s.memberCount), 0) FROM FamilySummary s")
+    Long getTotalMembers();
+
+    @Query("SELECT COUNT(s) FROM FamilySummary s WHERE s.validationErrorCount > 0")
+    Long countWithValidationErrors();
+
+    // Summary rebuild: rows left behind by families that no longer exist
+    @Modifying
+    @Query("DELETE FROM FamilySummary s WHERE NOT EXISTS (SELECT 1 FROM Family f WHERE f.id = s.id)")
+    int deleteOrphans();
+
+    // Counts-only adjustment after a member row was deleted
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE FamilySummary s SET s.memberCount = s.memberCount - 1, " +
+           "s.activeCount = s.activeCount - :active, s.expiredCount = s.expiredCount - :expired, " +
+           "s.validationErrorCount = :validationErrors, s.updatedAt = :now WHERE s.id = :id")
+    int applyMemberRemoved(@Param("id") Long id,
+                           @Param("active") int active,
+                           @Param("expired") int expired,
+                           @Param("validationErrors") int validationErrors,
+                           @Param("now") LocalDateTime now);
+}
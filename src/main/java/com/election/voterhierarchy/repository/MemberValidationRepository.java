@@ -0,0 +1,22 @@
+package com.election.voterhierarchy.repository;
+
+import com.election.voterhierarchy.entity.MemberValidation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MemberValidationRepository extends JpaRepository<MemberValidation, Long> {
+
+    List<MemberValidation> findByFamilyIdAndValidFalseOrderByPersonId(Long familyId);
+
+    long countByFamilyIdAndValidFalse(Long familyId);
+
+    @Modifying
+    @Query("DELETE FROM MemberValidation v WHERE v.familyId = :familyId")
+    void deleteByFamilyId(@Param("familyId") Long familyId);
+}
@@ -1,13 +1,81 @@
 package com.election.voterhierarchy.repository;
 
+import com.election.voterhierarchy.dto.MemberRef;
 import com.election.voterhierarchy.entity.Person;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PersonRepository extends JpaRepository<Person, Long> {
     
     List<Person> findByFamilyIdAndIsFamilyHead(Long familyId, Boolean isFamilyHead);
+
+    Optional<Person> findByClientRef(String clientRef);
+
+    @Query("SELECT COUNT(p) FROM Person p WHERE p.isFamilyHead = false OR p.isFamilyHead IS NULL")
+    long countNonHeadMembers();
+
+    // Member with its voter and BLO details in one select, for edits. The
+    // version is always advanced and checked at commit, even when only the
+    // voter or BLO details change.
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT p FROM Person p " +
+           "LEFT JOIN FETCH p.voterDetails2002 " +
+           "LEFT JOIN FETCH p.voterDetailsCurrent vc " +
+           "LEFT JOIN FETCH vc.bloDetails " +
+           "WHERE p.id = :id")
+    Optional<Person> findByIdWithDetails(@Param("id") Long id);
+
+    @Query("SELECT new com.election.voterhierarchy.dto.MemberRef(p.id, p.family.id, p.isFamilyHead, " +
+           "p.relationType, p.status, v.name) " +
+           "FROM Person p LEFT JOIN p.voterDetails2002 v WHERE p.id = :id")
+    Optional<MemberRef> findMemberRefById(@Param("id") Long id);
+
+    // Set-based deletes, children first. They bypass the persistence context,
+    // which is cleared afterwards so no stale entity survives.
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM BloDetails b WHERE b.voterDetailsCurrent.id IN " +
+           "(SELECT vc.id FROM VoterDetailsCurrent vc WHERE vc.person.id = :personId)")
+    int deleteBloDetailsByPersonId(@Param("personId") Long personId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM VoterDetailsCurrent vc WHERE vc.person.id = :personId")
+    int deleteCurrentDetailsByPersonId(@Param("personId") Long personId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM VoterDetails2002 v WHERE v.person.id = :personId")
+    int deleteDetails2002ByPersonId(@Param("personId") Long personId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Person p WHERE p.id = :personId")
+    int deletePersonById(@Param("personId") Long personId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM BloDetails b WHERE b.voterDetailsCurrent.id IN " +
+           "(SELECT vc.id FROM VoterDetailsCurrent vc WHERE vc.person.id IN " +
+           "(SELECT p.id FROM Person p WHERE p.family.id = :familyId))")
+    int deleteBloDetailsByFamilyId(@Param("familyId") Long familyId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM VoterDetailsCurrent vc WHERE vc.person.id IN " +
+           "(SELECT p.id FROM Person p WHERE p.family.id = :familyId)")
+    int deleteCurrentDetailsByFamilyId(@Param("familyId") Long familyId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM VoterDetails2002 v WHERE v.person.id IN " +
+           "(SELECT p.id FROM Person p WHERE p.family.id = :familyId)")
+    int deleteDetails2002ByFamilyId(@Param("familyId") Long familyId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Person p WHERE p.family.id = :familyId")
+    int deletePersonsByFamilyId(@Param("familyId") Long familyId);
 }
@@ -0,0 +1,9 @@
+package com.election.voterhierarchy.repository;
+
+import com.election.voterhierarchy.entity.ShardAssignment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ShardAssignmentRepository extends JpaRepository<ShardAssignment, String> {
+}
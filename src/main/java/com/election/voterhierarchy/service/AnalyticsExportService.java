@@ -0,0 +1,571 @@
+package com.election.voterhierarchy.service;
+
+import com.election.voterhierarchy.config.ShardContext;
+import com.election.voterhierarchy.dto.AnalyticsExportManifest;
+import com.election.voterhierarchy.dto.AnalyticsExportManifest.Partition;
+import com.election.voterhierarchy.enums.AnalyticsExportMode;
+import com.election.voterhierarchy.service.FamilyChangeReader.CommittedRead;
+import com.election.voterhierarchy.service.SnapshotCodec.Column;
+import com.election.voterhierarchy.service.SnapshotCodec.ColumnType;
+import com.election.voterhierarchy.service.SnapshotCodec.RawBlock;
+import com.election.voterhierarchy.service.SnapshotCodec.TableReader;
+import com.election.voterhierarchy.service.SnapshotCodec.TableWriter;
+import com.election.voterhierarchy.util.ThreadFactoryUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Analytics export for data teams: every person joined with its family,
+ * voter details of both rolls, BLO and validation result, written as
+ * columnar files (SnapshotCodec blocks: per-column encoding, dictionaries,
+ * deflate, CRC32) partitioned by the current-roll AC number:
+ *
+ *   export-20261019-013000/manifest.json
+ *   export-20261019-013000/ac=101/persons.snap
+ *   export-20261019-013000/ac=101/families.snap   (family IDs in the partition)
+ *
+ * Each partition is read with one forward-only cursor per shard along the
+ * (ac_no, part_no, serial_no) index and written block by block, so the heap
+ * holds one block of rows and the partition's family IDs at a time.
+ *
+ * An incremental export rewrites only the partitions holding a family named
+ * in the change outbox since the previous export (before or after the
+ * change, so moves between ACs are covered) and hard-links the others from
+ * the previous export; every export directory is complete on its own. It
+ * falls back to a full export when there is no previous one or the outbox
+ * was purged past its cursor.
+ */
+@Service
+@Slf4j
+public class AnalyticsExportService {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String MANIFEST = "manifest.json";
+    private static final String PERSONS_FILE = "persons.snap";
+    private static final String FAMILIES_FILE = "families.snap";
+    private static final String PARTIAL_SUFFIX = ".partial";
+    private static final String NO_AC = "__none__";
+    private static final int FAMILY_CHUNK = 500;
+    private static final int EVENT_PAGE = 1000;
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final List<Column> COLUMNS = List.of(
+        new Column("ac_no", ColumnType.STRING),
+        new Column("part_no", ColumnType.STRING),
+        new Column("serial_no", ColumnType.STRING),
+        new Column("family_id", ColumnType.BIGINT),
+        new Column("family_code", ColumnType.STRING),
+        new Column("contact_person", ColumnType.STRING),
+        new Column("contact_number", ColumnType.STRING),
+        new Column("person_id", ColumnType.BIGINT),
+        new Column("is_family_head", ColumnType.BOOLEAN),
+        new Column("relation_type", ColumnType.STRING),
+        new Column("age", ColumnType.INT),
+        new Column("status", ColumnType.STRING),
+        new Column("name", ColumnType.STRING),
+        new Column("parent_spouse_name", ColumnType.STRING),
+        new Column("epic_no", ColumnType.STRING),
+        new Column("name_2002", ColumnType.STRING),
+        new Column("parent_spouse_name_2002", ColumnType.STRING),
+        new Column("epic_no_2002", ColumnType.STRING),
+        new Column("ac_no_2002", ColumnType.STRING),
+        new Column("part_no_2002", ColumnType.STRING),
+        new Column("serial_no_2002", ColumnType.STRING),
+        new Column("blo_name", ColumnType.STRING),
+        new Column("blo_mobile", ColumnType.STRING),
+        new Column("valid", ColumnType.BOOLEAN),
+        new Column("validation_error", ColumnType.STRING),
+        new Column("family_updated_at", ColumnType.TIMESTAMP));
+    private static final int FAMILY_ID_COLUMN = 3;
+    private static final List<Column> FAMILY_COLUMNS = List.of(new Column("family_id", ColumnType.BIGINT));
+
+    // Column order as in COLUMNS
+    private static final String SELECT =
+        "SELECT vc.ac_no, vc.part_no, vc.serial_no, f.id, f.family_code, f.contact_person, f.contact_number, " +
+        "p.id, p.is_family_head, p.relation_type, p.age, p.status, " +
+        "vc.name, vc.parent_spouse_name, vc.epic_no, " +
+        "v2.name, v2.parent_spouse_name, v2.epic_no, v2.ac_no, v2.part_no, v2.serial_no, " +
+        "b.blo_name, b.blo_mobile, mv.valid, mv.error_message, f.updated_at ";
+    private static final String PARTITION_QUERY = SELECT +
+        "FROM voter_details_current vc " +
+        "JOIN person p ON p.id = vc.person_id " +
+        "JOIN family f ON f.id = p.family_id " +
+        "LEFT JOIN voter_details_2002 v2 ON v2.person_id = p.id " +
+        "LEFT JOIN blo_details b ON b.voter_details_current_id = vc.id " +
+        "LEFT JOIN member_validation mv ON mv.person_id = p.id " +
+        "WHERE vc.ac_no = ? " +
+        "ORDER BY vc.part_no, vc.serial_no";
+    private static final String NO_AC_QUERY = SELECT +
+        "FROM person p " +
+        "JOIN family f ON f.id = p.family_id " +
+        "LEFT JOIN voter_details_current vc ON vc.person_id = p.id " +
+        "LEFT JOIN voter_details_2002 v2 ON v2.person_id = p.id " +
+        "LEFT JOIN blo_details b ON b.voter_details_current_id = vc.id " +
+        "LEFT JOIN member_validation mv ON mv.person_id = p.id " +
+        "WHERE vc.id IS NULL " +
+        "ORDER BY p.id";
+
+    private final ShardRouter shardRouter;
+    private final FamilyChangeReader changeReader;
+    private final ChangeFeedService changeFeedService;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate readOnlyTemplate;
+    private final boolean scheduled;
+    private final Path exportRoot;
+    private final int keep;
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile AnalyticsExportMode runningMode;
+    private volatile String currentPartition;
+    private volatile String lastError;
+
+    public AnalyticsExportService(ShardRouter shardRouter,
+                                  FamilyChangeReader changeReader,
+                                  ChangeFeedService changeFeedService,
+                                  ObjectMapper objectMapper,
+                                  DataSource dataSource,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.analytics-export.enabled:false}") boolean scheduled,
+                                  @Value("${app.analytics-export.dir:./exports}") String exportDir,
+                                  @Value("${app.analytics-export.keep:3}") int keep) {
+        this.shardRouter = shardRouter;
+        this.changeReader = changeReader;
+        this.changeFeedService = changeFeedService;
+        this.objectMapper = objectMapper;
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.jdbc.setFetchSize(1000);
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.scheduled = scheduled;
+        this.exportRoot = Paths.get(exportDir);
+        this.keep = Math.max(1, keep);
+        this.executor = Executors.newSingleThreadExecutor(ThreadFactoryUtil.named("analytics-export-", false));
+    }
+
+    @Scheduled(cron = "${app.analytics-export.cron:0 30 1 * * *}")
+    public void scheduledExport() {
+        if (scheduled) {
+            start(AnalyticsExportMode.INCREMENTAL);
+        }
+    }
+
+    /**
+     * Starts an export in the background unless one is running.
+     */
+    public void start(AnalyticsExportMode mode) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("An analytics export is already running");
+        }
+        runningMode = mode;
+        executor.submit(() -> {
+            try {
+                export(mode);
+                lastError = null;
+            } catch (Exception e) {
+                lastError = e.getMessage();
+                log.error("Analytics export failed", e);
+            } finally {
+                runningMode = null;
+                currentPartition = null;
+                running.set(false);
+            }
+        });
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("scheduled", scheduled);
+        status.put("running", running.get());
+        status.put("mode", runningMode);
+        status.put("currentPartition", currentPartition);
+        status.put("lastError", lastError);
+        status.put("exports", listExports());
+        return status;
+    }
+
+    /**
+     * Manifests of the complete exports, newest first.
+     */
+    public List<AnalyticsExportManifest> listExports() {
+        if (!Files.isDirectory(exportRoot)) {
+            return List.of();
+        }
+        List<AnalyticsExportManifest> manifests = new ArrayList<>();
+        try (Stream<Path> dirs = Files.list(exportRoot)) {
+            for (Path dir : dirs.filter(d -> Files.isRegularFile(d.resolve(MANIFEST))).toList()) {
+                try {
+                    manifests.add(objectMapper.readValue(dir.resolve(MANIFEST).toFile(), AnalyticsExportManifest.class));
+                } catch (IOException e) {
+                    log.warn("Unreadable export manifest in {}: {}", dir, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot list exports in " + exportRoot, e);
+        }
+        manifests.sort(Comparator.comparing(AnalyticsExportManifest::getName).reversed());
+        return manifests;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void export(AnalyticsExportMode requested) throws IOException {
+        LocalDateTime started = LocalDateTime.now();
+        String name = "export-" + started.format(NAME_FORMAT);
+        List<AnalyticsExportManifest> exports = listExports();
+        AnalyticsExportManifest previous = exports.isEmpty() ? null : exports.get(0);
+        AnalyticsExportMode mode = requested;
+
+        // Partitions to write (AC, null for none) and the outbox position they are current to
+        Set<String> changed = new HashSet<>();
+        OutboxCursor cursor = mode == AnalyticsExportMode.INCREMENTAL && previous != null
+            ? collectChanges(previous, changed) : null;
+        if (mode == AnalyticsExportMode.INCREMENTAL && cursor == null) {
+            log.info("Analytics export {}: no usable previous export, writing all partitions", name);
+            mode = AnalyticsExportMode.FULL;
+        }
+        Set<String> acs = currentAcs();
+        if (mode == AnalyticsExportMode.FULL) {
+            cursor = OutboxCursor.start();
+            OutboxCursor position = cursor;
+            // Taken before the partitions are read; later changes go into the next export
+            shardRouter.forEachShard(() -> changeReader.positionAtLatest(position));
+            changed.addAll(acs);
+            changed.add(null);
+        }
+
+        Path partial = exportRoot.resolve(name + PARTIAL_SUFFIX);
+        Files.createDirectories(partial);
+        try {
+            AnalyticsExportManifest manifest = AnalyticsExportManifest.builder()
+                .formatVersion(FORMAT_VERSION)
+                .name(name)
+                .mode(mode)
+                .basedOn(mode == AnalyticsExportMode.INCREMENTAL ? previous.getName() : null)
+                .cursor(cursor.toString())
+                .createdAt(started)
+                .columns(COLUMNS.stream().map(c -> c.name() + ":" + c.type()).collect(Collectors.toList()))
+                .build();
+
+            Set<String> all = new TreeSet<>(Comparator.nullsLast(Comparator.naturalOrder()));
+            all.addAll(acs);
+            all.add(null);
+            if (mode == AnalyticsExportMode.INCREMENTAL) {
+                previous.getPartitions().forEach(p -> all.add(p.getAc()));
+            }
+            Set<String> directories = new HashSet<>();
+            if (mode == AnalyticsExportMode.INCREMENTAL) {
+                // Carried-over partitions keep their directory names
+                previous.getPartitions().stream()
+                    .filter(p -> !changed.contains(p.getAc()))
+                    .forEach(p -> directories.add(p.getDirectory()));
+            }
+            for (String ac : all) {
+                Partition partition;
+                if (changed.contains(ac)) {
+                    partition = writePartition(partial, ac, uniqueDirectory(ac, directories), name);
+                } else {
+                    partition = carryOver(previous, partial, ac);
+                }
+                if (partition != null) {
+                    manifest.getPartitions().add(partition);
+                    manifest.setRows(manifest.getRows() + partition.getRows());
+                    manifest.setBytes(manifest.getBytes() + partition.getBytes());
+                    if (name.equals(partition.getWrittenBy())) {
+                        manifest.setPartitionsWritten(manifest.getPartitionsWritten() + 1);
+                    }
+                }
+            }
+
+            manifest.setElapsedMillis(Duration.between(started, LocalDateTime.now()).toMillis());
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(partial.resolve(MANIFEST).toFile(), manifest);
+            Files.move(partial, exportRoot.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+            log.info("Analytics export {} ({}): {} rows in {} partitions, {} rewritten, {} MB in {} s",
+                name, mode, manifest.getRows(), manifest.getPartitions().size(), manifest.getPartitionsWritten(),
+                manifest.getBytes() / (1024 * 1024), manifest.getElapsedMillis() / 1000);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(partial);
+            throw e;
+        }
+        pruneExports();
+    }
+
+    /**
+     * Adds the partitions touched by outbox events since the previous export
+     * and returns the cursor past the events read (with the gaps still open).
+     * Null if the events are no longer complete.
+     */
+    private OutboxCursor collectChanges(AnalyticsExportManifest previous, Set<String> changed) throws IOException {
+        OutboxCursor since;
+        try {
+            since = OutboxCursor.parse(previous.getCursor());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        AtomicBoolean complete = new AtomicBoolean(true);
+        Set<Long> familyIds = new HashSet<>();
+        shardRouter.forEachShard(() -> {
+            String shard = ShardContext.current();
+            if (since.position(shard) < changeFeedService.purgedThrough()) {
+                complete.set(false);
+                return;
+            }
+            while (true) {
+                CommittedRead read = changeReader.readCommitted(since, EVENT_PAGE);
+                read.events().forEach(e -> familyIds.add(e.getFamilyId()));
+                read.advanceAll(since, shard);
+                if (!read.full()) {
+                    break;
+                }
+            }
+        });
+        if (!complete.get()) {
+            return null;
+        }
+        if (familyIds.isEmpty()) {
+            return since;
+        }
+
+        // Where the changed families are now...
+        List<Long> ids = new ArrayList<>(familyIds);
+        for (int from = 0; from < ids.size(); from += FAMILY_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + FAMILY_CHUNK, ids.size()));
+            String sql = "SELECT DISTINCT vc.ac_no FROM person p " +
+                "LEFT JOIN voter_details_current vc ON vc.person_id = p.id " +
+                "WHERE p.family_id IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            shardRouter.forEachShard(() -> changed.addAll(jdbc.queryForList(sql, String.class, chunk.toArray())));
+        }
+
+        // ...and where they were
+        long[] sorted = familyIds.stream().mapToLong(Long::longValue).sorted().toArray();
+        for (Partition partition : previous.getPartitions()) {
+            if (!changed.contains(partition.getAc())
+                    && containsAny(exportRoot.resolve(previous.getName()).resolve(partition.getDirectory()).resolve(FAMILIES_FILE), sorted)) {
+                changed.add(partition.getAc());
+            }
+        }
+        return since;
+    }
+
+    private Set<String> currentAcs() {
+        Set<String> acs = new HashSet<>();
+        shardRouter.forEachShard(() -> acs.addAll(readOnlyTemplate.execute(status ->
+            jdbc.queryForList("SELECT DISTINCT ac_no FROM voter_details_current", String.class))));
+        acs.remove(null);
+        return acs;
+    }
+
+    private Partition writePartition(Path exportDir, String ac, String directory, String exportName) throws IOException {
+        currentPartition = ac != null ? ac : NO_AC;
+        Path dir = exportDir.resolve(directory);
+        Files.createDirectories(dir);
+
+        FamilyIds families = new FamilyIds();
+        long rows;
+        try (TableWriter writer = new TableWriter(
+                new BufferedOutputStream(Files.newOutputStream(dir.resolve(PERSONS_FILE)), 1 << 16), "persons", COLUMNS)) {
+            List<Object[]> block = new ArrayList<>(SnapshotCodec.BLOCK_ROWS);
+            RowCallbackHandler handler = rs -> {
+                Object[] row = SnapshotCodec.readRow(rs, COLUMNS);
+                families.add((Long) row[FAMILY_ID_COLUMN]);
+                block.add(row);
+                if (block.size() == SnapshotCodec.BLOCK_ROWS) {
+                    writeBlock(writer, COLUMNS, block);
+                }
+            };
+            shardRouter.forEachShard(() -> readOnlyTemplate.executeWithoutResult(status -> {
+                if (ac != null) {
+                    jdbc.query(PARTITION_QUERY, handler, ac);
+                } else {
+                    jdbc.query(NO_AC_QUERY, handler);
+                }
+            }));
+            if (!block.isEmpty()) {
+                writeBlock(writer, COLUMNS, block);
+            }
+            rows = writer.getRows();
+        }
+
+        if (rows == 0) {
+            // The AC has no persons left
+            deleteQuietly(dir);
+            return null;
+        }
+
+        long[] familyIds = families.sortedDistinct();
+        try (TableWriter writer = new TableWriter(
+                new BufferedOutputStream(Files.newOutputStream(dir.resolve(FAMILIES_FILE)), 1 << 16), "families", FAMILY_COLUMNS)) {
+            List<Object[]> block = new ArrayList<>(SnapshotCodec.BLOCK_ROWS);
+            for (long familyId : familyIds) {
+                block.add(new Object[] {familyId});
+                if (block.size() == SnapshotCodec.BLOCK_ROWS) {
+                    writeBlock(writer, FAMILY_COLUMNS, block);
+                }
+            }
+            if (!block.isEmpty()) {
+                writeBlock(writer, FAMILY_COLUMNS, block);
+            }
+        }
+
+        return Partition.builder()
+            .ac(ac)
+            .directory(directory)
+            .rows(rows)
+            .families(familyIds.length)
+            .bytes(Files.size(dir.resolve(PERSONS_FILE)) + Files.size(dir.resolve(FAMILIES_FILE)))
+            .writtenBy(exportName)
+            .build();
+    }
+
+    /**
+     * Links (or copies) an unchanged partition of the previous export.
+     */
+    private Partition carryOver(AnalyticsExportManifest previous, Path exportDir, String ac) throws IOException {
+        Partition old = previous.getPartitions().stream()
+            .filter(p -> Objects.equals(p.getAc(), ac))
+            .findFirst()
+            .orElse(null);
+        if (old == null) {
+            return null;
+        }
+        Path source = exportRoot.resolve(previous.getName()).resolve(old.getDirectory());
+        Path target = exportDir.resolve(old.getDirectory());
+        Files.createDirectories(target);
+        for (String file : List.of(PERSONS_FILE, FAMILIES_FILE)) {
+            try {
+                Files.createLink(target.resolve(file), source.resolve(file));
+            } catch (UnsupportedOperationException | IOException e) {
+                Files.copy(source.resolve(file), target.resolve(file));
+            }
+        }
+        return old;
+    }
+
+    private static void writeBlock(TableWriter writer, List<Column> columns, List<Object[]> block) {
+        try {
+            writer.writeBlock(SnapshotCodec.encodeBlock(columns, block), block.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        block.clear();
+    }
+
+    /**
+     * True if the families file holds any of the sorted IDs; reads it block
+     * by block.
+     */
+    private static boolean containsAny(Path file, long[] sortedIds) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            // Cannot tell; rewrite the partition
+            return true;
+        }
+        try (TableReader reader = new TableReader(new BufferedInputStream(Files.newInputStream(file)))) {
+            RawBlock block;
+            while ((block = reader.nextBlock()) != null) {
+                for (Object[] row : SnapshotCodec.decodeBlock(reader.getColumns(), block)) {
+                    if (Arrays.binarySearch(sortedIds, (Long) row[0]) >= 0) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String uniqueDirectory(String ac, Set<String> taken) {
+        String base = "ac=" + (ac != null ? ac.replaceAll("[^A-Za-z0-9_-]", "_") : NO_AC);
+        String directory = base;
+        for (int i = 2; !taken.add(directory); i++) {
+            directory = base + "-" + i;
+        }
+        return directory;
+    }
+
+    private void pruneExports() {
+        List<AnalyticsExportManifest> exports = listExports();
+        for (AnalyticsExportManifest old : exports.subList(Math.min(keep, exports.size()), exports.size())) {
+            deleteQuietly(exportRoot.resolve(old.getName()));
+            log.info("Removed old analytics export {}", old.getName());
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException e) {
+                    log.warn("Could not delete {}: {}", p, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Could not clean up {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Growable list of family IDs; one partition's worth.
+     */
+    private static final class FamilyIds {
+
+        private long[] ids = new long[1024];
+        private int size;
+
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        long[] sortedDistinct() {
+            long[] sorted = Arrays.copyOf(ids, size);
+            Arrays.sort(sorted);
+            return Arrays.stream(sorted).distinct().toArray();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.election.voterhierarchy.service;
+
+import com.election.voterhierarchy.dto.BloRosterRow;
+import com.election.voterhierarchy.repository.BloRosterRepository;
+import com.election.voterhierarchy.util.StringNormalizationUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Writes the BLO verification roster of an AC/part as CSV, one line per
+ * member, straight from the roster cursor to the writer. A part's families
+ * can sit on any shard (placement follows the 2002 AC, the roster the
+ * current one), so every shard is read in turn.
+ */
+@Service
+@Slf4j
+public class BloExportService {
+
+    private static final int FLUSH_EVERY_ROWS = 500;
+
+    private static final String[] HEADER = {
+        "Family Code", "Contact Person", "Contact Number", "Family Head", "Relation", "Age", "Status",
+        "Name (2002)", "Parent/Spouse (2002)", "EPIC (2002)", "AC (2002)", "Part (2002)", "Serial (2002)",
+        "Name (Current)", "Parent/Spouse (Current)", "EPIC (Current)", "AC (Current)", "Part (Current)", "Serial (Current)",
+        "BLO Name", "BLO Mobile", "Validation", "Validation Issue", "Expected", "Found"
+    };
+
+    private final BloRosterRepository rosterRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public BloExportService(BloRosterRepository rosterRepository,
+                            ShardRouter shardRouter,
+                            PlatformTransactionManager transactionManager) {
+        this.rosterRepository = rosterRepository;
+        this.shardRouter = shardRouter;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public long writeCsv(String acNo, String partNo, Writer writer) throws IOException {
+        String ac = StringNormalizationUtil.normalize(acNo);
+        String part = StringNormalizationUtil.normalize(partNo);
+        log.info("Exporting BLO roster for AC {} part {}", ac, part);
+
+        writeLine(writer, HEADER);
+        long[] rows = {0};
+        try {
+            shardRouter.forEachShard(() -> readOnlyTransaction.executeWithoutResult(status ->
+                rosterRepository.streamPart(ac, part, row -> {
+                    try {
+                        writeLine(writer, toColumns(row));
+                        if (++rows[0] % FLUSH_EVERY_ROWS == 0) {
+                            writer.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+
+        log.info("Exported {} rows for AC {} part {}", rows[0], ac, part);
+        return rows[0];
+    }
+
+    private String[] toColumns(BloRosterRow row) {
+        return new String[] {
+            row.getFamilyCode(), row.getContactPerson(), row.getContactNumber(),
+            row.isFamilyHead() ? "Yes" : "No",
+            row.getRelationType() != null ? row.getRelationType().getDisplayName() : null,
+            row.getAge() != null ? row.getAge().toString() : null,
+            row.getStatus() != null ? row.getStatus().getDisplayName() : null,
+            row.getName2002(), row.getParentSpouseName2002(), row.getEpicNo2002(),
+            row.getAcNo2002(), row.getPartNo2002(), row.getSerialNo2002(),
+            row.getNameCurrent(), row.getParentSpouseNameCurrent(), row.getEpicNoCurrent(),
+            row.getAcNoCurrent(), row.getPartNoCurrent(), row.getSerialNoCurrent(),
+            row.getBloName(), row.getBloMobile(),
+            validationLabel(row), row.getValidationMessage(), row.getExpectedValue(), row.getFoundValue()
+        };
+    }
+
+    private String validationLabel(BloRosterRow row) {
+        if (row.isFamilyHead() || row.getValid() == null) {
+            return "";
+        }
+        return row.getValid() ? "OK" : "MISMATCH";
+    }
+
+    private void writeLine(Writer writer, String[] columns) throws IOException {
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escape(columns[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    private String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
@@ -0,0 +1,260 @@
+package com.election.voterhierarchy.service;
+
+import com.election.voterhierarchy.dto.BloPrintJob;
+import com.election.voterhierarchy.dto.BloSheet;
+import com.election.voterhierarchy.enums.BloPrintFormat;
+import com.election.voterhierarchy.repository.BloRosterRepository;
+import com.election.voterhierarchy.service.BloSheetPdfRenderer.RenderedSheet;
+import com.election.voterhierarchy.util.StringNormalizationUtil;
+import com.election.voterhierarchy.util.ThreadFactoryUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Renders the BLO sheets of every family in an AC/part as a background job.
+ * The roster is read in one bulk query, sheets are rendered in parallel on a
+ * shared bounded pool, and finished sheets are written to disk as they
+ * complete. Jobs are kept in memory and purged after the retention period.
+ */
+@Service
+@Slf4j
+public class BloPrintService {
+
+    private final BloRosterRepository rosterRepository;
+    private final ShardRouter shardRouter;
+    private final BloSheetPdfRenderer renderer;
+    private final Path outputRoot;
+    private final int maxInFlight;
+    private final long retentionHours;
+    private final ExecutorService jobExecutor;
+    private final ExecutorService renderPool;
+    private final Map<String, BloPrintJob> jobs = new ConcurrentHashMap<>();
+
+    public BloPrintService(BloRosterRepository rosterRepository,
+                           ShardRouter shardRouter,
+                           BloSheetPdfRenderer renderer,
+                           @Value("${app.blo-print.output-dir:${java.io.tmpdir}/blo-print}") String outputDir,
+                           @Value("${app.blo-print.render-threads:4}") int renderThreads,
+                           @Value("${app.blo-print.concurrent-jobs:2}") int concurrentJobs,
+                           @Value("${app.blo-print.retention-hours:24}") long retentionHours,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.rosterRepository = rosterRepository;
+        this.shardRouter = shardRouter;
+        this.renderer = renderer;
+        this.outputRoot = Paths.get(outputDir);
+        // Keeps at most a couple of rendered sheets per thread waiting for the writer
+        this.maxInFlight = renderThreads * 2;
+        this.retentionHours = retentionHours;
+        // Job threads mostly wait on the database and disk; rendering is CPU-bound
+        // and stays on platform threads in either mode
+        this.jobExecutor = Executors.newFixedThreadPool(concurrentJobs,
+            ThreadFactoryUtil.named("blo-print-job-", virtualThreads));
+        this.renderPool = Executors.newFixedThreadPool(renderThreads,
+            ThreadFactoryUtil.named("blo-print-render-", false));
+    }
+
+    public BloPrintJob submit(String acNo, String partNo, BloPrintFormat format) {
+        String ac = StringNormalizationUtil.normalize(acNo);
+        String part = StringNormalizationUtil.normalize(partNo);
+        if (ac == null || ac.isEmpty() || part == null || part.isEmpty()) {
+            throw new IllegalArgumentException("AC number and part number are required to print BLO sheets");
+        }
+
+        BloPrintJob job = new BloPrintJob(UUID.randomUUID().toString(), ac, part, format, currentUsername());
+        jobs.put(job.getJobId(), job);
+        jobExecutor.submit(() -> run(job));
+        log.info("Queued BLO print job {} for AC {} part {} ({})", job.getJobId(), ac, part, format);
+        return job;
+    }
+
+    public BloPrintJob getJob(String jobId) {
+        BloPrintJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Print job not found with ID: " + jobId);
+        }
+        return job;
+    }
+
+    @Scheduled(fixedDelayString = "${app.blo-print.purge-interval-ms:3600000}")
+    public void purgeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+        jobs.values().removeIf(job -> {
+            if (!job.isFinished() || job.getFinishedAt().isAfter(cutoff)) {
+                return false;
+            }
+            deleteQuietly(outputRoot.resolve(job.getJobId()));
+            log.debug("Purged BLO print job {}", job.getJobId());
+            return true;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        renderPool.shutdownNow();
+    }
+
+    private void run(BloPrintJob job) {
+        job.markStarted();
+        Path jobDir = outputRoot.resolve(job.getJobId());
+        try {
+            Files.createDirectories(jobDir);
+            List<BloSheet> sheets = loadSheets(job.getAcNo(), job.getPartNo());
+            if (sheets.isEmpty()) {
+                throw new IllegalArgumentException("No families found for AC " + job.getAcNo() + " part " + job.getPartNo());
+            }
+
+            Path output = jobDir.resolve(job.getFileName());
+            if (job.getFormat() == BloPrintFormat.ZIP) {
+                writeZip(job, sheets, output);
+            } else {
+                writeMergedPdf(job, sheets, jobDir, output);
+            }
+            job.markCompleted(output);
+            log.info("BLO print job {} completed: {} families, {} pages, {} pages/sec",
+                job.getJobId(), job.getFamiliesRendered(), job.getPagesRendered(),
+                String.format("%.1f", job.getPagesPerSecond()));
+        } catch (Exception e) {
+            log.error("BLO print job {} failed", job.getJobId(), e);
+            job.markFailed(e.getMessage());
+            deleteQuietly(jobDir);
+        }
+    }
+
+    /**
+     * Reads the whole part in one query and groups the rows into sheets, so
+     * no connection is held while rendering.
+     */
+    private List<BloSheet> loadSheets(String acNo, String partNo) {
+        List<BloSheet> sheets = new ArrayList<>();
+        // The part's families can sit on any shard
+        shardRouter.forEachShard(() -> rosterRepository.streamPart(acNo, partNo, row -> {
+            BloSheet current = sheets.isEmpty() ? null : sheets.get(sheets.size() - 1);
+            if (current != null && current.getFamilyId().equals(row.getFamilyId())) {
+                current.getRows().add(row);
+            } else {
+                sheets.add(BloSheet.startingWith(sheets.size() + 1, row));
+            }
+        }));
+        return sheets;
+    }
+
+    private void writeZip(BloPrintJob job, List<BloSheet> sheets, Path output) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(output))) {
+            renderAll(job, sheets, rendered -> {
+                zip.putNextEntry(new ZipEntry(String.format("%04d-%s.pdf",
+                    rendered.getSequence(), safeFileName(rendered.getFamilyCode()))));
+                zip.write(rendered.getPdf());
+                zip.closeEntry();
+            });
+        }
+    }
+
+    private void writeMergedPdf(BloPrintJob job, List<BloSheet> sheets, Path jobDir, Path output) throws IOException {
+        Path partsDir = Files.createDirectories(jobDir.resolve("sheets"));
+        renderAll(job, sheets, rendered ->
+            Files.write(partsDir.resolve(String.format("%06d.pdf", rendered.getSequence())), rendered.getPdf()));
+
+        // Sheets finish out of order; merge them back in roster order
+        PDFMergerUtility merger = new PDFMergerUtility();
+        merger.setDestinationFileName(output.toString());
+        try (Stream<Path> parts = Files.list(partsDir)) {
+            for (Path part : parts.sorted().toList()) {
+                merger.addSource(part.toFile());
+            }
+        }
+        merger.mergeDocuments(MemoryUsageSetting.setupTempFileOnly());
+        deleteQuietly(partsDir);
+    }
+
+    /**
+     * Renders every sheet on the shared pool and hands each result to the
+     * writer (on the job thread) as soon as it is done. At most maxInFlight
+     * sheets are queued or waiting, which bounds memory for large parts.
+     */
+    private void renderAll(BloPrintJob job, List<BloSheet> sheets, SheetWriter writer) throws IOException {
+        LocalDateTime printDate = LocalDateTime.now();
+        CompletionService<RenderedSheet> completion = new ExecutorCompletionService<>(renderPool);
+        int submitted = 0;
+        int written = 0;
+
+        for (BloSheet sheet : sheets) {
+            if (submitted - written >= maxInFlight) {
+                writeNext(job, completion, writer);
+                written++;
+            }
+            completion.submit(() -> renderer.render(sheet, printDate));
+            submitted++;
+        }
+        while (written < submitted) {
+            writeNext(job, completion, writer);
+            written++;
+        }
+    }
+
+    private void writeNext(BloPrintJob job, CompletionService<RenderedSheet> completion,
+                           SheetWriter writer) throws IOException {
+        try {
+            RenderedSheet rendered = completion.take().get();
+            writer.write(rendered);
+            job.recordSheet(rendered.getPages());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("BLO print job interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Rendering BLO sheet failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private String safeFileName(String value) {
+        return value == null ? "family" : value.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    private void deleteQuietly(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(path)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "SYSTEM";
+    }
+
+    @FunctionalInterface
+    private interface SheetWriter {
+        void write(RenderedSheet rendered) throws IOException;
+    }
+}
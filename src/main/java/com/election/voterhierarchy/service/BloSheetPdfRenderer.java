@@ -0,0 +1,61 @@
+package com.election.voterhierarchy.service;
+
+import com.election.voterhierarchy.dto.BloSheet;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.jsoup.Jsoup;
+import org.jsoup.helper.W3CDom;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Renders one family's BLO sheet to PDF bytes. Stateless apart from the
+ * shared (thread-safe) template engine, so render threads can call it
+ * concurrently.
+ */
+@Service
+@RequiredArgsConstructor
+public class BloSheetPdfRenderer {
+
+    private static final String TEMPLATE = "family/blo-sheet-pdf";
+
+    private final ITemplateEngine templateEngine;
+
+    public RenderedSheet render(BloSheet sheet, LocalDateTime printDate) throws IOException {
+        Context context = new Context(Locale.ENGLISH);
+        context.setVariable("sheet", sheet);
+        context.setVariable("printDate", printDate);
+        String html = templateEngine.process(TEMPLATE, context);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.useFastMode();
+        // The PDF renderer needs a well-formed document; jsoup fixes up HTML5 markup
+        builder.withW3cDocument(new W3CDom().fromJsoup(Jsoup.parse(html)), null);
+        builder.toStream(out);
+        builder.run();
+
+        byte[] pdf = out.toByteArray();
+        try (PDDocument document = PDDocument.load(pdf)) {
+            return new RenderedSheet(sheet.getSequence(), sheet.getFamilyCode(), pdf, document.getNumberOfPages());
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class RenderedSheet {
+        private final int sequence;
+        private final String familyCode;
+        private final byte[] pdf;
+        private final int pages;
+    }
+}
@@ -0,0 +1,152 @@
+package com.election.voterhierarchy.service;
+
+import com.election.voterhierarchy.entity.CacheInvalidation;
+import com.election.voterhierarchy.repository.CacheInvalidationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Broadcasts cache evictions between the nodes of a cluster through the
+ * cache_invalidation table in the global database. The publishing node has
+ * already updated its own cache; every other node picks the row up on its
+ * next poll and hands it to the CacheInvalidationListener owning the cache.
+ * With clustering off nothing is written or polled.
+ */
+@Service
+@Slf4j
+public class CacheInvalidationBus {
+
+    private static final int BATCH_SIZE = 500;
+    // Rows can commit out of ID order; wait this long for a missing ID
+    private static final long GAP_TIMEOUT_MS = 5000;
+
+    private final CacheInvalidationRepository repository;
+    private final ObjectProvider<CacheInvalidationListener> listeners;
+    private final ShardRouter shardRouter;
+    private final boolean enabled;
+    private final String nodeId;
+    private final int retentionMinutes;
+    // Polls hold it across JDBC calls, so a lock rather than synchronized (virtual-thread pinning)
+    private final ReentrantLock pollLock = new ReentrantLock();
+    private Long lastSeenId;
+
+    public CacheInvalidationBus(CacheInvalidationRepository repository,
+                                ObjectProvider<CacheInvalidationListener> listeners,
+                                ShardRouter shardRouter,
+                                @Value("${app.cluster.enabled:false}") boolean enabled,
+                                @Value("${app.cluster.node-id:${random.uuid}}") String nodeId,
+                                @Value("${app.cluster.invalidation-retention-minutes:60}") int retentionMinutes) {
+        this.repository = repository;
+        this.listeners = listeners;
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+        this.nodeId = nodeId;
+        this.retentionMinutes = retentionMinutes;
+        if (enabled) {
+            log.info("Cluster node ID: {}", nodeId);
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Tells the other nodes to evict the entry; a null key evicts the whole
+     * cache. Call after the change is committed.
+     */
+    public void publish(String cacheName, String key) {
+        if (!enabled) {
+            return;
+        }
+        shardRouter.onGlobal(() -> repository.save(CacheInvalidation.builder()
+            .cacheName(cacheName)
+            .cacheKey(key)
+            .originNode(nodeId)
+            .build()));
+        log.debug("Published eviction of {}[{}]", cacheName, key);
+    }
+
+    public void publishAll(String cacheName, Collection<String> keys) {
+        if (!enabled || keys.isEmpty()) {
+            return;
+        }
+        List<CacheInvalidation> rows = keys.stream()
+            .map(key -> CacheInvalidation.builder().cacheName(cacheName).cacheKey(key).originNode(nodeId).build())
+            .collect(Collectors.toList());
+        shardRouter.onGlobal(() -> repository.saveAll(rows));
+        log.debug("Published eviction of {} entries of {}", rows.size(), cacheName);
+    }
+
+    @Scheduled(fixedDelayString = "${app.cluster.invalidation-poll-interval-ms:1000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        pollLock.lock();
+        try {
+            shardRouter.onGlobal(() -> {
+                if (lastSeenId == null) {
+                    // Caches start empty, so earlier evictions are irrelevant
+                    lastSeenId = repository.findLatestId();
+                    return null;
+                }
+                apply(readyBatch(repository.findBatchAfter(lastSeenId, PageRequest.of(0, BATCH_SIZE))));
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Cache invalidation poll failed: {}", e.getMessage());
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelay = 600_000)
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        int removed = shardRouter.onGlobal(() ->
+            repository.deleteOlderThan(LocalDateTime.now().minusMinutes(retentionMinutes)));
+        if (removed > 0) {
+            log.debug("Purged {} old cache invalidations", removed);
+        }
+    }
+
+    private void apply(List<CacheInvalidation> batch) {
+        for (CacheInvalidation invalidation : batch) {
+            lastSeenId = invalidation.getId();
+            if (nodeId.equals(invalidation.getOriginNode())) {
+                continue;
+            }
+            listeners.orderedStream()
+                .filter(l -> l.getCacheNames().contains(invalidation.getCacheName()))
+                .forEach(l -> l.evict(invalidation.getCacheName(), invalidation.getCacheKey()));
+            log.debug("Evicted {}[{}] on request of node {}",
+                invalidation.getCacheName(), invalidation.getCacheKey(), invalidation.getOriginNode());
+        }
+    }
+
+    private List<CacheInvalidation> readyBatch(List<CacheInvalidation> rows) {
+        LocalDateTime gapCutoff = LocalDateTime.now().minusNanos(GAP_TIMEOUT_MS * 1_000_000L);
+        long expectedId = lastSeenId + 1;
+        for (int i = 0; i < rows.size(); i++) {
+            CacheInvalidation row = rows.get(i);
+            if (row.getId() != expectedId && row.getCreatedAt().isAfter(gapCutoff)) {
+                return rows.subList(0, i);
+            }
+            expectedId = row.getId() + 1;
+        }
+        return rows;
+    }
+}
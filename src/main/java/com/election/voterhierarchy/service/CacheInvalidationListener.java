@@ -0,0 +1,22 @@
+package com.election.voterhierarchy.service;
+
+import java.util.Set;
+
+/**
+ * Node-local cache that must drop entries changed on another node.
+ * Implementations are picked up as Spring beans and fed by
+ * CacheInvalidationBus.
+ */
+public interface CacheInvalidationListener {
+
+    /**
+     * Names of the caches this listener owns, as used by the publisher.
+     */
+    Set<String> getCacheNames();
+
+    /**
+     * Drops (or reloads) one entry; a null key means the whole cache.
+     * Called on the bus polling thread.
+     */
+    void evict(String cacheName, String key);
+}
@@ -0,0 +1,324 @@
+package com.election.voterhierarchy.service;
+
+import com.election.voterhierarchy.config.ShardContext;
+import com.election.voterhierarchy.dto.ChangeFeedEntry;
+import com.election.voterhierarchy.dto.ChangeFeedPage;
+import com.election.voterhierarchy.dto.FamilySummaryResponse;
+import com.election.voterhierarchy.dto.MemberResponse;
+import com.election.voterhierarchy.entity.FamilyChangeEvent;
+import com.election.voterhierarchy.entity.OutboxConsumerOffset;
+import com.election.voterhierarchy.enums.FamilyChangeType;
+import com.election.voterhierarchy.repository.FamilyChangeEventRepository;
+import com.election.voterhierarchy.repository.FamilyProjectionRepository;
+import com.election.voterhierarchy.repository.OutboxConsumerOffsetRepository;
+import com.election.voterhierarchy.service.FamilyChangeReader.CommittedRead;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Change feed for downstream systems: family, member and voter detail
+ * mutations in commit order, read from the family change outbox after a
+ * cursor (see OutboxCursor). A change whose transaction committed after
+ * later ones were read arrives late, with a lower event ID. Each entry
+ * carries the current state of the changed family or member; deletes come
+ * as entries without state.
+ *
+ * The outbox is kept small by a scheduled maintenance run per shard:
+ * compaction drops events older than compact-after-hours that a later event
+ * of the same family or member makes redundant (the last event per record
+ * and every delete are kept), and retention drops all events older than
+ * retention-days. Retention records how far it purged; a cursor from before
+ * that is expired, and its consumer must re-export and continue from the
+ * cursor taken before the export.
+ */
+@Service
+@Slf4j
+public class ChangeFeedService {
+
+    // Offset row holding the last purged event ID of the shard
+    public static final String RETENTION_MARK = "change-feed-retention";
+
+    private static final int LOOKUP_CHUNK = 500;
+    private static final int STREAM_PAGE_SIZE = 1000;
+    private static final int DELETE_BATCH_SIZE = 1000;
+    private static final int PURGE_RANGE = 10_000;
+
+    private static final Set<FamilyChangeType> FAMILY_TYPES =
+        EnumSet.of(FamilyChangeType.FAMILY_CREATED, FamilyChangeType.FAMILY_UPDATED);
+    private static final Set<FamilyChangeType> MEMBER_TYPES =
+        EnumSet.of(FamilyChangeType.MEMBER_ADDED, FamilyChangeType.MEMBER_UPDATED, FamilyChangeType.MEMBER_DELETED);
+
+    private final FamilyChangeReader changeReader;
+    private final FamilyChangeEventRepository eventRepository;
+    private final OutboxConsumerOffsetRepository offsetRepository;
+    private final FamilyProjectionRepository projectionRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTemplate;
+    private final int maxPageSize;
+    private final int retentionDays;
+    private final int compactAfterHours;
+
+    public ChangeFeedService(FamilyChangeReader changeReader,
+                             FamilyChangeEventRepository eventRepository,
+                             OutboxConsumerOffsetRepository offsetRepository,
+                             FamilyProjectionRepository projectionRepository,
+                             ShardRouter shardRouter,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.changes.max-page-size:2000}") int maxPageSize,
+                             @Value("${app.changes.retention-days:30}") int retentionDays,
+                             @Value("${app.changes.compact-after-hours:24}") int compactAfterHours) {
+        this.changeReader = changeReader;
+        this.eventRepository = eventRepository;
+        this.offsetRepository = offsetRepository;
+        this.projectionRepository = projectionRepository;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.maxPageSize = Math.max(1, maxPageSize);
+        this.retentionDays = retentionDays;
+        this.compactAfterHours = compactAfterHours;
+    }
+
+    /**
+     * Up to limit changes after the cursor. Without a cursor the feed starts
+     * at the oldest retained change.
+     */
+    public ChangeFeedPage readPage(String since, int limit) {
+        OutboxCursor cursor = OutboxCursor.parse(since);
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        ChangeFeedPage page = new ChangeFeedPage();
+
+        shardRouter.forEachShard(() -> readOnlyTemplate.executeWithoutResult(status -> {
+            String shard = ShardContext.current();
+            int remaining = pageSize - page.getChanges().size();
+            if (remaining <= 0) {
+                // Page is full; this shard is read on the next call
+                page.setHasMore(true);
+                return;
+            }
+            skipPurged(shard, cursor);
+            EntryPage entries = readEntries(shard, cursor, remaining);
+            if (entries.more()) {
+                page.setHasMore(true);
+            }
+            page.getChanges().addAll(entries.entries());
+        }));
+
+        page.setCursor(cursor.toString());
+        return page;
+    }
+
+    /**
+     * Every change after the cursor up to the current end of the feed, one
+     * entry at a time. Each page is read in its own transaction and written
+     * after it, so a slow client does not hold a transaction open.
+     */
+    public void stream(String since, Consumer<ChangeFeedEntry> sink) {
+        OutboxCursor cursor = OutboxCursor.parse(since);
+        shardRouter.forEachShard(() -> {
+            String shard = ShardContext.current();
+            readOnlyTemplate.executeWithoutResult(status -> skipPurged(shard, cursor));
+            while (true) {
+                EntryPage entries = readOnlyTemplate.execute(status -> readEntries(shard, cursor, STREAM_PAGE_SIZE));
+                entries.entries().forEach(sink);
+                if (!entries.more()) {
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * Cursor at the current end of the feed. Taken before a full export, it
+     * is where the consumer continues after the export; changes still being
+     * committed when it was taken come after it.
+     */
+    public String currentCursor() {
+        OutboxCursor cursor = OutboxCursor.start();
+        shardRouter.forEachShard(() -> changeReader.positionAtLatest(cursor));
+        return cursor.toString();
+    }
+
+    /**
+     * True if changes after the cursor were already purged on some shard.
+     * An empty cursor never expires.
+     */
+    public boolean isExpired(String since) {
+        if (since == null || since.isBlank()) {
+            return false;
+        }
+        OutboxCursor cursor = OutboxCursor.parse(since);
+        AtomicBoolean expired = new AtomicBoolean();
+        shardRouter.forEachShard(() -> {
+            if (cursor.position(ShardContext.current()) < purgedThrough()) {
+                expired.set(true);
+            }
+        });
+        return expired.get();
+    }
+
+    /**
+     * Last event ID removed by retention on the current shard; 0 if none.
+     */
+    public long purgedThrough() {
+        return offsetRepository.findById(RETENTION_MARK)
+            .map(OutboxConsumerOffset::getLastEventId)
+            .orElse(0L);
+    }
+
+    @Scheduled(fixedDelayString = "${app.changes.maintenance-interval-ms:3600000}")
+    public void maintain() {
+        shardRouter.forEachShard(() -> {
+            try {
+                int compacted = compact();
+                int purged = purge();
+                if (compacted > 0 || purged > 0) {
+                    log.info("Change feed maintenance{}: {} superseded and {} expired events removed",
+                        shardRouter.isSharded() ? " on " + ShardContext.current() : "", compacted, purged);
+                }
+            } catch (Exception e) {
+                log.warn("Change feed maintenance failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    private void skipPurged(String shard, OutboxCursor cursor) {
+        long purged = purgedThrough();
+        if (cursor.position(shard) < purged) {
+            cursor.reset(shard, purged);
+        }
+    }
+
+    /**
+     * Entries after the cursor, each with the cursor that resumes after it;
+     * the cursor ends past the last entry.
+     */
+    private EntryPage readEntries(String shard, OutboxCursor cursor, int limit) {
+        CommittedRead read = changeReader.readCommitted(cursor, limit);
+        List<FamilyChangeEvent> events = read.events();
+        if (events.isEmpty()) {
+            read.advanceAll(cursor, shard);
+            return new EntryPage(List.of(), read.full());
+        }
+
+        // State is loaded in bulk; deleted records simply are not found
+        List<Long> familyIds = events.stream()
+            .filter(e -> FAMILY_TYPES.contains(e.getChangeType()))
+            .map(FamilyChangeEvent::getFamilyId)
+            .distinct()
+            .collect(Collectors.toList());
+        List<Long> personIds = events.stream()
+            .filter(e -> e.getChangeType() != FamilyChangeType.FAMILY_DELETED && e.getChangeType() != FamilyChangeType.MEMBER_DELETED)
+            .map(FamilyChangeEvent::getPersonId)
+            .filter(Objects::nonNull)
+            .distinct()
+            .collect(Collectors.toList());
+        Map<Long, FamilySummaryResponse> families = new HashMap<>();
+        for (int from = 0; from < familyIds.size(); from += LOOKUP_CHUNK) {
+            projectionRepository.findSummariesByIds(familyIds.subList(from, Math.min(from + LOOKUP_CHUNK, familyIds.size())))
+                .forEach(f -> families.put(f.getFamilyId(), f));
+        }
+        Map<Long, MemberResponse> members = new HashMap<>();
+        for (int from = 0; from < personIds.size(); from += LOOKUP_CHUNK) {
+            projectionRepository.findMembersByIds(personIds.subList(from, Math.min(from + LOOKUP_CHUNK, personIds.size())))
+                .forEach(m -> members.put(m.getPersonId(), m));
+        }
+
+        List<ChangeFeedEntry> entries = new ArrayList<>(events.size());
+        for (FamilyChangeEvent event : events) {
+            boolean familyEvent = FAMILY_TYPES.contains(event.getChangeType());
+            entries.add(ChangeFeedEntry.builder()
+                .eventId(event.getId())
+                .shard(shard)
+                .changeType(event.getChangeType())
+                .familyId(event.getFamilyId())
+                .personId(event.getPersonId())
+                .changedBy(event.getCreatedBy())
+                .changedAt(event.getCreatedAt())
+                .family(familyEvent ? families.get(event.getFamilyId()) : null)
+                .member(event.getPersonId() != null ? members.get(event.getPersonId()) : null)
+                .build());
+            read.advance(cursor, shard, event);
+            entries.get(entries.size() - 1).setCursor(cursor.toString());
+        }
+        return new EntryPage(entries, read.full());
+    }
+
+    /**
+     * Removes superseded events older than compact-after-hours on the
+     * current shard, in batches of their own transaction.
+     */
+    private int compact() {
+        if (compactAfterHours <= 0) {
+            return 0;
+        }
+        long upToId = eventRepository.findLatestId();
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(compactAfterHours);
+        int removed = 0;
+        while (true) {
+            List<Long> ids = eventRepository.findSupersededIds(upToId, cutoff, FamilyChangeType.FAMILY_DELETED,
+                FAMILY_TYPES, MEMBER_TYPES, PageRequest.of(0, DELETE_BATCH_SIZE));
+            if (ids.isEmpty()) {
+                return removed;
+            }
+            removed += transactionTemplate.execute(status -> eventRepository.deleteByIds(ids));
+            if (ids.size() < DELETE_BATCH_SIZE) {
+                return removed;
+            }
+        }
+    }
+
+    /**
+     * Removes events older than retention-days on the current shard. The
+     * mark is moved first, so a cursor into the purged range is reported
+     * expired rather than silently skipping events.
+     */
+    private int purge() {
+        if (retentionDays <= 0) {
+            return 0;
+        }
+        long upToId = eventRepository.findLatestId();
+        long lastExpired = eventRepository.findLastExpiredId(upToId, LocalDateTime.now().minusDays(retentionDays));
+        long purged = purgedThrough();
+        if (lastExpired <= purged) {
+            return 0;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            OutboxConsumerOffset mark = offsetRepository.findById(RETENTION_MARK)
+                .orElseGet(() -> OutboxConsumerOffset.builder().consumerName(RETENTION_MARK).build());
+            mark.setLastEventId(lastExpired);
+            offsetRepository.save(mark);
+        });
+
+        int removed = 0;
+        for (long from = purged; from < lastExpired; from += PURGE_RANGE) {
+            long after = from;
+            long upTo = Math.min(from + PURGE_RANGE, lastExpired);
+            removed += transactionTemplate.execute(status -> eventRepository.deleteRange(after, upTo));
+        }
+        return removed;
+    }
+
+    private record EntryPage(List<ChangeFeedEntry> entries, boolean more) {
+    }
+}
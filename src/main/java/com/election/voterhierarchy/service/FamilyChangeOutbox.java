@@ -0,0 +1,40 @@
+package com.election.voterhierarchy.service;
+
+import com.election.voterhierarchy.entity.FamilyChangeEvent;
+import com.election.voterhierarchy.enums.FamilyChangeType;
+import com.election.voterhierarchy.repository.FamilyChangeEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FamilyChangeOutbox {
+
+    private final FamilyChangeEventRepository eventRepository;
+
+    /**
+     * Appends a change event. Must run inside the transaction of the mutation
+     * so the event commits or rolls back with it.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(FamilyChangeType changeType, Long familyId, Long personId) {
+        FamilyChangeEvent event = eventRepository.save(FamilyChangeEvent.builder()
+            .changeType(changeType)
+            .familyId(familyId)
+            .personId(personId)
+            .createdBy(currentUsername())
+            .build());
+        log.debug("Recorded {} for family ID: {} (event {})", changeType, familyId, event.getId());
+    }
+
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "SYSTEM";
+    }
+}
@@ -0,0 +1,186 @@
+package com.election.voterhierarchy.service;
+
+import com.election.voterhierarchy.config.ShardContext;
+import com.election.voterhierarchy.entity.FamilyChangeEvent;
+import com.election.voterhierarchy.repository.FamilyChangeEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Reads the family change outbox for its consumers (change feed, field
+ * sync, analytics cache and export, family graph), each of which keeps its
+ * own OutboxCursor: a client-held cursor, or one in memory per node. Events
+ * come in ID order, except that an event whose transaction committed after
+ * later IDs were read comes late (see readCommitted). With sharding each
+ * shard has its own outbox; reads are for the current shard.
+ */
+@Service
+@Slf4j
+public class FamilyChangeReader {
+
+    // Open gaps kept per reader and shard; missing IDs beyond that are skipped with a warning
+    private static final int MAX_OPEN_GAPS = 1000;
+
+    private final ShardRouter shardRouter;
+    private final FamilyChangeEventRepository eventRepository;
+    private final long gapTimeoutMs;
+    private final long gapRetentionMs;
+
+    public FamilyChangeReader(FamilyChangeEventRepository eventRepository,
+                              ShardRouter shardRouter,
+                              @Value("${app.outbox.gap-timeout-ms:5000}") long gapTimeoutMs,
+                              @Value("${app.outbox.gap-retention-ms:600000}") long gapRetentionMs) {
+        this.eventRepository = eventRepository;
+        this.shardRouter = shardRouter;
+        this.gapTimeoutMs = gapTimeoutMs;
+        this.gapRetentionMs = gapRetentionMs;
+    }
+
+    /**
+     * Highest event ID (the highest of any shard when sharded).
+     */
+    public Long getLatestEventId() {
+        return shardRouter.scatter(eventRepository::findLatestId).stream()
+            .filter(Objects::nonNull)
+            .max(Long::compare)
+            .orElse(null);
+    }
+
+    /**
+     * Up to limit committed events after the cursor on the current shard:
+     * first any open gaps of the cursor that have committed since (delivered
+     * late, out of ID order), then the events after its position in ID order.
+     * IDs are assigned at insert time but become visible at commit, so a
+     * younger transaction can commit before an older one: the read stops at
+     * a gap until the gap is older than the gap timeout, then reads past it
+     * and reports the missing IDs as opened gaps, to be checked again on the
+     * next read. An open gap is dropped (and logged) as rolled back once it
+     * is older than the gap retention. The cursor is not changed; readers
+     * move it with CommittedRead.advance once they have handled the events.
+     */
+    public CommittedRead readCommitted(OutboxCursor cursor, int limit) {
+        String shard = ShardContext.current();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime gapCutoff = now.minusNanos(gapTimeoutMs * 1_000_000L);
+        LocalDateTime retentionCutoff = now.minusNanos(gapRetentionMs * 1_000_000L);
+
+        List<FamilyChangeEvent> events = new ArrayList<>();
+        Set<Long> droppedGaps = new HashSet<>();
+        NavigableSet<Long> open = new TreeSet<>(cursor.gaps(shard));
+        if (!open.isEmpty()) {
+            for (FamilyChangeEvent late : eventRepository.findByIds(open)) {
+                log.info("Outbox event {} committed late; delivering it out of order", late.getId());
+                events.add(late);
+                open.remove(late.getId());
+            }
+            for (Long gap : open) {
+                if (!gapExpired(gap, retentionCutoff)) {
+                    break;
+                }
+                log.warn("Outbox event {} still missing after {} ms; treating it as rolled back", gap, gapRetentionMs);
+                droppedGaps.add(gap);
+            }
+            open.removeAll(droppedGaps);
+        }
+
+        long afterId = cursor.position(shard);
+        List<FamilyChangeEvent> batch = eventRepository.findBatchAfter(afterId, PageRequest.of(0, limit));
+        NavigableSet<Long> openedGaps = new TreeSet<>();
+        long expectedId = afterId + 1;
+        int inOrder = 0;
+        for (FamilyChangeEvent event : batch) {
+            if (event.getId() != expectedId) {
+                if (event.getCreatedAt().isAfter(gapCutoff)) {
+                    break;
+                }
+                if (event.getCreatedAt().isAfter(retentionCutoff)) {
+                    openGaps(expectedId, event.getId(), open.size() + openedGaps.size(), openedGaps);
+                }
+                // Holes older than the retention are compacted or long rolled back
+            }
+            events.add(event);
+            inOrder++;
+            expectedId = event.getId() + 1;
+        }
+        return new CommittedRead(events, openedGaps, droppedGaps, inOrder == limit);
+    }
+
+    /**
+     * Moves the cursor to the latest event on the current shard, for a reader
+     * that loads the current state now and follows the outbox from there.
+     * An ID missing among the events of the last gap retention may belong
+     * to a transaction that commits after the load, so it is left open on
+     * the cursor for readCommitted to pick up.
+     */
+    public void positionAtLatest(OutboxCursor cursor) {
+        String shard = ShardContext.current();
+        long latest = eventRepository.findLatestId();
+        List<Long> recent = eventRepository.findIdsCreatedSince(latest,
+            LocalDateTime.now().minusNanos(gapRetentionMs * 1_000_000L));
+        NavigableSet<Long> missing = new TreeSet<>();
+        for (int i = 1; i < recent.size(); i++) {
+            long previous = recent.get(i - 1);
+            if (recent.get(i) != previous + 1) {
+                openGaps(previous + 1, recent.get(i), missing.size(), missing);
+            }
+        }
+        cursor.reset(shard, latest);
+        missing.forEach(gap -> cursor.openGap(shard, gap));
+    }
+
+    /**
+     * Events of one read, and how the reader's cursor moves past them.
+     * full means the read hit its limit, so more events may be ready.
+     */
+    public record CommittedRead(List<FamilyChangeEvent> events, NavigableSet<Long> openedGaps,
+                                Set<Long> droppedGaps, boolean full) {
+
+        /**
+         * Moves the cursor past one event of this read; call in the order of
+         * events() to get a resumable cursor after each event.
+         */
+        public void advance(OutboxCursor cursor, String shard, FamilyChangeEvent event) {
+            cursor.closeGaps(shard, droppedGaps);
+            long position = cursor.position(shard);
+            if (event.getId() <= position) {
+                cursor.closeGaps(shard, List.of(event.getId()));
+                return;
+            }
+            openedGaps.subSet(position, false, event.getId(), false).forEach(gap -> cursor.openGap(shard, gap));
+            cursor.advance(shard, event.getId());
+        }
+
+        public void advanceAll(OutboxCursor cursor, String shard) {
+            cursor.closeGaps(shard, droppedGaps);
+            events.forEach(event -> advance(cursor, shard, event));
+        }
+    }
+
+    // The event after the gap tells its age; gaps are checked lowest first
+    private boolean gapExpired(long gap, LocalDateTime retentionCutoff) {
+        List<FamilyChangeEvent> next = eventRepository.findBatchAfter(gap, PageRequest.of(0, 1));
+        return next.isEmpty() || next.get(0).getCreatedAt().isBefore(retentionCutoff);
+    }
+
+    private void openGaps(long fromId, long toId, int alreadyOpen, NavigableSet<Long> openedGaps) {
+        if (alreadyOpen + (toId - fromId) > MAX_OPEN_GAPS) {
+            log.warn("Outbox events {} to {} missing; too many open gaps to wait for them, skipping", fromId, toId - 1);
+            return;
+        }
+        for (long id = fromId; id < toId; id++) {
+            log.debug("Outbox event {} missing past the gap timeout; reading on and re-checking it", id);
+            openedGaps.add(id);
+        }
+    }
+}
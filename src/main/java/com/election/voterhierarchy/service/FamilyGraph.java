@@ -0,0 +1,681 @@
+package com.election.voterhierarchy.service;
+
+import com.election.voterhierarchy.dto.HierarchyNode;
+import com.election.voterhierarchy.dto.ValidationError;
+import com.election.voterhierarchy.entity.FamilySummary;
+import com.election.voterhierarchy.entity.Person;
+import com.election.voterhierarchy.entity.VoterDetails2002;
+import com.election.voterhierarchy.entity.VoterDetailsCurrent;
+import com.election.voterhierarchy.enums.PersonStatus;
+import com.election.voterhierarchy.enums.RelationType;
+import com.election.voterhierarchy.util.LongIntHashMap;
+import com.election.voterhierarchy.util.OffHeapStringStore;
+import com.election.voterhierarchy.util.StringDictionary;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Families and their members as a compact graph: one primitive array per
+ * attribute (families by slot, persons by row), members chained from their
+ * family through nextInFamily, enums as byte codes, created-by and shard
+ * names dictionary-encoded, and every name, code and contact held in an
+ * OffHeapStringStore. Ids map to slots and rows through LongIntHashMaps.
+ *
+ * A family is always replaced as a whole (putFamily, then replaceMembers),
+ * which recomputes its counts and member validation with the rules of
+ * HierarchyValidationService; per-shard totals are adjusted as families
+ * come and go, so dashboard counts are a lookup. Not thread-safe;
+ * FamilyGraphService guards it with a read-write lock.
+ */
+final class FamilyGraph {
+
+    private static final int NONE = -1;
+    private static final byte HEAD = 1;
+    private static final byte INVALID = 2;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    // Totals kept per shard
+    private static final int FAMILIES = 0;
+    private static final int ACTIVE_FAMILIES = 1;
+    private static final int EXPIRED_FAMILIES = 2;
+    private static final int MEMBERS = 3;
+    private static final int FAMILIES_WITH_ERRORS = 4;
+    private static final int TOTALS = 5;
+
+    /**
+     * A family row as loaded; headPersonId is 0 when not set.
+     */
+    record FamilyRecord(long id, String shard, String familyCode, String contactPerson, String contactNumber,
+                        String createdBy, LocalDateTime createdAt, LocalDateTime updatedAt, long revision,
+                        long headPersonId) {
+    }
+
+    /**
+     * A person row with the parts of its voter details the graph serves.
+     */
+    record PersonRecord(long id, boolean head, RelationType relation, PersonStatus status,
+                        String nameCurrent, String parentCurrent, String name2002, String parent2002,
+                        String epic2002) {
+    }
+
+    private final HierarchyValidationService validationService;
+    private final OffHeapStringStore strings = new OffHeapStringStore();
+    private final StringDictionary createdByNames = new StringDictionary();
+    private final StringDictionary shardNames = new StringDictionary();
+    private final LongIntHashMap slotOfFamily;
+    private final LongIntHashMap rowOfPerson;
+    private long[][] totals = new long[4][TOTALS];
+
+    // Families by slot; familyIds[slot] == 0 marks a free slot
+    private long[] familyIds;
+    private byte[] shard;
+    private long[] familyCode;
+    private long[] contactPerson;
+    private long[] contactNumber;
+    private int[] createdBy;
+    private long[] createdAt;
+    private long[] updatedAt;
+    private long[] revision;
+    private long[] headPersonId;
+    private int[] headRow;
+    private int[] firstMember;
+    private int[] memberCount;
+    private int[] activeCount;
+    private int[] errorCount;
+    private int familyHighWater;
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+
+    // Persons by row; personIds[row] == 0 marks a free row
+    private long[] personIds;
+    private int[] familyOf;
+    private int[] nextInFamily;
+    private byte[] relation;
+    private byte[] status;
+    private byte[] flags;
+    private long[] nameCurrent;
+    private long[] parentCurrent;
+    private long[] name2002;
+    private long[] parent2002;
+    private long[] epic2002;
+    private int personHighWater;
+    private int[] freeRows = new int[16];
+    private int freeRowCount;
+
+    FamilyGraph(HierarchyValidationService validationService, int expectedFamilies, int expectedPersons) {
+        this.validationService = validationService;
+        int families = Math.max(1024, expectedFamilies);
+        int persons = Math.max(1024, expectedPersons);
+        slotOfFamily = new LongIntHashMap(families);
+        rowOfPerson = new LongIntHashMap(persons);
+        allocateFamilies(families);
+        allocatePersons(persons);
+    }
+
+    /**
+     * Inserts the family or replaces its attributes, keeping its members.
+     * Returns false (and changes nothing) if the graph already holds a newer
+     * revision, so a late read cannot undo a fresher one.
+     */
+    boolean putFamily(FamilyRecord record) {
+        int slot = slotOfFamily.get(record.id());
+        if (slot == LongIntHashMap.MISSING) {
+            slot = allocateSlot();
+            familyIds[slot] = record.id();
+            firstMember[slot] = NONE;
+            headRow[slot] = NONE;
+            slotOfFamily.put(record.id(), slot);
+        } else {
+            if (record.revision() < revision[slot]) {
+                return false;
+            }
+            addTotals(slot, -1);
+            strings.free(familyCode[slot]);
+            strings.free(contactPerson[slot]);
+            strings.free(contactNumber[slot]);
+        }
+        shard[slot] = shardCode(record.shard());
+        familyCode[slot] = strings.add(record.familyCode());
+        contactPerson[slot] = strings.add(record.contactPerson());
+        contactNumber[slot] = strings.add(record.contactNumber());
+        createdBy[slot] = createdByNames.encode(record.createdBy());
+        createdAt[slot] = toMicros(record.createdAt());
+        updatedAt[slot] = toMicros(record.updatedAt());
+        revision[slot] = record.revision();
+        headPersonId[slot] = record.headPersonId();
+        addTotals(slot, 1);
+        return true;
+    }
+
+    /**
+     * Replaces the members of a family held in the graph and revalidates
+     * them; the family's head_person_id picks the head, falling back to the
+     * head flag.
+     */
+    void replaceMembers(long familyId, List<PersonRecord> members) {
+        int slot = slotOfFamily.get(familyId);
+        if (slot == LongIntHashMap.MISSING) {
+            return;
+        }
+        addTotals(slot, -1);
+        freeMembers(slot);
+
+        int last = NONE;
+        int flaggedHead = NONE;
+        int active = 0;
+        for (PersonRecord member : members) {
+            if (rowOfPerson.get(member.id()) != LongIntHashMap.MISSING) {
+                // Moved from another family that has not been reloaded yet
+                removePerson(member.id());
+            }
+            int row = allocateRow();
+            personIds[row] = member.id();
+            familyOf[row] = slot;
+            nextInFamily[row] = NONE;
+            relation[row] = member.relation() != null ? (byte) (member.relation().ordinal() + 1) : 0;
+            status[row] = member.status() != null ? (byte) (member.status().ordinal() + 1) : 0;
+            flags[row] = member.head() ? HEAD : 0;
+            nameCurrent[row] = strings.add(member.nameCurrent());
+            parentCurrent[row] = strings.add(member.parentCurrent());
+            name2002[row] = strings.add(member.name2002());
+            parent2002[row] = strings.add(member.parent2002());
+            epic2002[row] = strings.add(member.epic2002());
+            rowOfPerson.put(member.id(), row);
+
+            if (last == NONE) {
+                firstMember[slot] = row;
+            } else {
+                nextInFamily[last] = row;
+            }
+            last = row;
+            if (member.status() == PersonStatus.ACTIVE) {
+                active++;
+            }
+            if (member.id() == headPersonId[slot]) {
+                headRow[slot] = row;
+            } else if (member.head() && flaggedHead == NONE) {
+                flaggedHead = row;
+            }
+        }
+        // Same fallback as Family.getFamilyHead for rows without head_person_id
+        if (headRow[slot] == NONE) {
+            headRow[slot] = flaggedHead;
+        }
+        memberCount[slot] = members.size();
+        activeCount[slot] = active;
+        errorCount[slot] = validate(slot, null);
+        addTotals(slot, 1);
+    }
+
+    void removeFamily(long familyId) {
+        int slot = slotOfFamily.remove(familyId);
+        if (slot == LongIntHashMap.MISSING) {
+            return;
+        }
+        addTotals(slot, -1);
+        freeMembers(slot);
+        strings.free(familyCode[slot]);
+        strings.free(contactPerson[slot]);
+        strings.free(contactNumber[slot]);
+        familyIds[slot] = 0;
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+        }
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    boolean contains(long familyId) {
+        return slotOfFamily.get(familyId) != LongIntHashMap.MISSING;
+    }
+
+    String getFamilyCode(long familyId) {
+        return strings.get(familyCode[slotOfFamily.get(familyId)]);
+    }
+
+    long getRevision(long familyId) {
+        return revision[slotOfFamily.get(familyId)];
+    }
+
+    /**
+     * The head with every other member below it, as FamilyService builds it;
+     * null when the family is unknown or has no head.
+     */
+    HierarchyNode hierarchy(long familyId) {
+        int slot = slotOfFamily.get(familyId);
+        if (slot == LongIntHashMap.MISSING || headRow[slot] == NONE) {
+            return null;
+        }
+        HierarchyNode root = node(headRow[slot]);
+        for (int row = firstMember[slot]; row != NONE; row = nextInFamily[row]) {
+            if ((flags[row] & HEAD) == 0) {
+                root.addChild(node(row));
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Validation errors of the family's members in person ID order; null
+     * when the family is unknown.
+     */
+    List<ValidationError> validationErrors(long familyId) {
+        int slot = slotOfFamily.get(familyId);
+        if (slot == LongIntHashMap.MISSING) {
+            return null;
+        }
+        List<ValidationError> errors = new ArrayList<>();
+        validate(slot, errors);
+        return errors;
+    }
+
+    /**
+     * Dashboard counts of one shard (null when not sharded), with the keys
+     * of FamilyService.getDashboardStats.
+     */
+    Map<String, Object> stats(String shardName) {
+        int code = shardNames.find(shardName);
+        long[] counts = code >= 0 && code < totals.length ? totals[code] : new long[TOTALS];
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalFamilies", counts[FAMILIES]);
+        stats.put("activeFamilies", counts[ACTIVE_FAMILIES]);
+        stats.put("expiredFamilies", counts[EXPIRED_FAMILIES]);
+        stats.put("totalMembers", counts[MEMBERS]);
+        stats.put("familiesWithErrors", counts[FAMILIES_WITH_ERRORS]);
+        return stats;
+    }
+
+    /**
+     * Families of one shard matching the filters as family_summary rows,
+     * ordered by ID. Text filters match anywhere, ignoring case, like the
+     * LIKE query they replace; the head name matches as a prefix, as there.
+     * Null filters match everything.
+     */
+    List<FamilySummary> search(String shardName, String familyCodePart, String contactNumberPart,
+                               String contactPersonPart, PersonStatus headStatus, String headNamePart) {
+        int shardCode = shardNames.find(shardName);
+        if (shardCode < 0) {
+            return List.of();
+        }
+        Needle code = Needle.of(familyCodePart);
+        Needle number = Needle.of(contactNumberPart);
+        Needle person = Needle.of(contactPersonPart);
+        Needle headName = Needle.of(headNamePart);
+        byte statusCode = headStatus != null ? (byte) (headStatus.ordinal() + 1) : 0;
+
+        List<FamilySummary> matches = new ArrayList<>();
+        for (int slot = 0; slot < familyHighWater; slot++) {
+            if (familyIds[slot] == 0 || shard[slot] != shardCode) {
+                continue;
+            }
+            int head = headRow[slot];
+            if (statusCode != 0 && (head == NONE || status[head] != statusCode)) {
+                continue;
+            }
+            if (matches(code, familyCode[slot]) && matches(number, contactNumber[slot])
+                    && matches(person, contactPerson[slot])
+                    && (headName == null || (head != NONE && startsWith(headName, name2002[head])))) {
+                matches.add(summary(slot));
+            }
+        }
+        matches.sort(Comparator.comparing(FamilySummary::getId));
+        return matches;
+    }
+
+    /**
+     * Some held family IDs, spread over the slots, for benchmarks.
+     */
+    long[] sampleFamilyIds(int count, Random random) {
+        long[] sample = new long[count];
+        int found = 0;
+        for (int attempts = 0; found < count && attempts < count * 20 && familyHighWater > 0; attempts++) {
+            long id = familyIds[random.nextInt(familyHighWater)];
+            if (id != 0) {
+                sample[found++] = id;
+            }
+        }
+        return Arrays.copyOf(sample, found);
+    }
+
+    String headName2002(long familyId) {
+        int slot = slotOfFamily.get(familyId);
+        return slot == LongIntHashMap.MISSING || headRow[slot] == NONE ? null : strings.get(name2002[headRow[slot]]);
+    }
+
+    int getFamilies() {
+        return slotOfFamily.size();
+    }
+
+    int getPersons() {
+        return rowOfPerson.size();
+    }
+
+    /**
+     * Heap and off-heap bytes by part, for the footprint report.
+     */
+    Map<String, Long> footprint() {
+        Map<String, Long> bytes = new LinkedHashMap<>();
+        bytes.put("familyColumns", (long) familyIds.length * (Long.BYTES * 8 + Integer.BYTES * 6 + 1)
+            + (long) freeSlots.length * Integer.BYTES);
+        bytes.put("personColumns", (long) personIds.length * (Long.BYTES * 6 + Integer.BYTES * 2 + 3)
+            + (long) freeRows.length * Integer.BYTES);
+        bytes.put("idIndexes", slotOfFamily.footprintBytes() + rowOfPerson.footprintBytes());
+        bytes.put("dictionaries", createdByNames.footprintBytes() + shardNames.footprintBytes());
+        bytes.put("offHeapAllocated", strings.allocatedBytes());
+        bytes.put("offHeapUsed", strings.usedBytes());
+        bytes.put("offHeapDead", strings.deadBytes());
+        return bytes;
+    }
+
+    long heapBytes() {
+        Map<String, Long> bytes = footprint();
+        return bytes.get("familyColumns") + bytes.get("personColumns") + bytes.get("idIndexes") + bytes.get("dictionaries");
+    }
+
+    /**
+     * True when freed strings take more off-heap memory than live ones and
+     * a rebuild would give a meaningful amount back.
+     */
+    boolean needsCompaction() {
+        return strings.deadBytes() > 64L << 20 && strings.deadBytes() > strings.usedBytes() / 2;
+    }
+
+    /**
+     * Runs the member checks of HierarchyValidationService on transient
+     * persons built from the graph: flags failing members and adds their
+     * errors to the list when one is given. Returns the number of errors.
+     */
+    private int validate(int slot, List<ValidationError> errors) {
+        int head = headRow[slot];
+        String headName = head != NONE ? strings.get(name2002[head]) : null;
+        List<Integer> rows = new ArrayList<>(memberCount[slot]);
+        for (int row = firstMember[slot]; row != NONE; row = nextInFamily[row]) {
+            if ((flags[row] & HEAD) == 0) {
+                rows.add(row);
+            }
+        }
+        rows.sort(Comparator.comparingLong(row -> personIds[row]));
+
+        List<Person> members = new ArrayList<>(rows.size());
+        for (int row : rows) {
+            members.add(person(row));
+        }
+        // Without head 2002 data the hierarchy is not checked (same as MemberValidationService)
+        String familyHeadName2002 = headName != null ? validationService.headName2002(person(head)) : null;
+        Set<String> spouseNames2002 = validationService.spouseNames2002(members);
+
+        int count = 0;
+        for (int i = 0; i < members.size(); i++) {
+            int row = rows.get(i);
+            ValidationError error = familyHeadName2002 == null ? null
+                : validationService.validateMember(members.get(i), familyHeadName2002, spouseNames2002);
+            flags[row] = (byte) (error != null ? flags[row] | INVALID : flags[row] & ~INVALID);
+            if (error != null) {
+                count++;
+                if (errors != null) {
+                    errors.add(error);
+                }
+            }
+        }
+        return count;
+    }
+
+    private Person person(int row) {
+        Person.PersonBuilder builder = Person.builder()
+            .id(personIds[row])
+            .isFamilyHead((flags[row] & HEAD) != 0)
+            .relationType(relationOf(row))
+            .status(statusOf(row));
+        if (name2002[row] != OffHeapStringStore.NULL_REF || parent2002[row] != OffHeapStringStore.NULL_REF) {
+            builder.voterDetails2002(VoterDetails2002.builder()
+                .name(strings.get(name2002[row]))
+                .parentSpouseName(strings.get(parent2002[row]))
+                .build());
+        }
+        if (nameCurrent[row] != OffHeapStringStore.NULL_REF || parentCurrent[row] != OffHeapStringStore.NULL_REF) {
+            builder.voterDetailsCurrent(VoterDetailsCurrent.builder()
+                .name(strings.get(nameCurrent[row]))
+                .parentSpouseName(strings.get(parentCurrent[row]))
+                .build());
+        }
+        return builder.build();
+    }
+
+    private HierarchyNode node(int row) {
+        return HierarchyNode.builder()
+            .personId(personIds[row])
+            .relationType(relationOf(row))
+            .status(statusOf(row))
+            .isFamilyHead((flags[row] & HEAD) != 0)
+            .name2002(strings.get(name2002[row]))
+            .parentSpouseName2002(strings.get(parent2002[row]))
+            .nameCurrent(strings.get(nameCurrent[row]))
+            .parentSpouseNameCurrent(strings.get(parentCurrent[row]))
+            .build();
+    }
+
+    private FamilySummary summary(int slot) {
+        int head = headRow[slot];
+        return FamilySummary.builder()
+            .id(familyIds[slot])
+            .familyCode(strings.get(familyCode[slot]))
+            .contactPerson(strings.get(contactPerson[slot]))
+            .contactNumber(strings.get(contactNumber[slot]))
+            .headName(head != NONE ? strings.get(name2002[head]) : null)
+            .headStatus(head != NONE ? statusOf(head) : null)
+            .headEpicNo(head != NONE ? strings.get(epic2002[head]) : null)
+            .memberCount(memberCount[slot])
+            .activeCount(activeCount[slot])
+            .expiredCount(memberCount[slot] - activeCount[slot])
+            .validationErrorCount(errorCount[slot])
+            .createdBy(createdByNames.decode(createdBy[slot]))
+            .createdAt(fromMicros(createdAt[slot]))
+            .updatedAt(fromMicros(updatedAt[slot]))
+            .build();
+    }
+
+    private boolean matches(Needle needle, long ref) {
+        if (needle == null) {
+            return true;
+        }
+        if (needle.ascii() != null) {
+            return strings.containsIgnoreCase(ref, needle.ascii());
+        }
+        String value = strings.get(ref);
+        return value != null && value.toLowerCase(Locale.ROOT).contains(needle.lowerCase());
+    }
+
+    private boolean startsWith(Needle needle, long ref) {
+        if (needle.ascii() != null) {
+            return strings.startsWithIgnoreCase(ref, needle.ascii());
+        }
+        String value = strings.get(ref);
+        return value != null && value.toLowerCase(Locale.ROOT).startsWith(needle.lowerCase());
+    }
+
+    private RelationType relationOf(int row) {
+        return relation[row] == 0 ? null : RelationType.values()[relation[row] - 1];
+    }
+
+    private PersonStatus statusOf(int row) {
+        return status[row] == 0 ? null : PersonStatus.values()[status[row] - 1];
+    }
+
+    private void addTotals(int slot, int sign) {
+        long[] counts = totals[shard[slot]];
+        counts[FAMILIES] += sign;
+        int head = headRow[slot];
+        if (head != NONE && status[head] == PersonStatus.ACTIVE.ordinal() + 1) {
+            counts[ACTIVE_FAMILIES] += sign;
+        } else if (head != NONE && status[head] == PersonStatus.EXPIRED.ordinal() + 1) {
+            counts[EXPIRED_FAMILIES] += sign;
+        }
+        counts[MEMBERS] += (long) sign * memberCount[slot];
+        if (errorCount[slot] > 0) {
+            counts[FAMILIES_WITH_ERRORS] += sign;
+        }
+    }
+
+    private byte shardCode(String name) {
+        int code = shardNames.encode(name);
+        if (code > Byte.MAX_VALUE) {
+            throw new IllegalStateException("More than " + Byte.MAX_VALUE + " shards");
+        }
+        if (code >= totals.length) {
+            totals = Arrays.copyOf(totals, code + 4);
+            for (int i = 0; i < totals.length; i++) {
+                if (totals[i] == null) {
+                    totals[i] = new long[TOTALS];
+                }
+            }
+        }
+        return (byte) code;
+    }
+
+    private void freeMembers(int slot) {
+        int row = firstMember[slot];
+        while (row != NONE) {
+            int next = nextInFamily[row];
+            rowOfPerson.remove(personIds[row]);
+            freeRow(row);
+            row = next;
+        }
+        firstMember[slot] = NONE;
+        headRow[slot] = NONE;
+        memberCount[slot] = 0;
+        activeCount[slot] = 0;
+        errorCount[slot] = 0;
+    }
+
+    /**
+     * Unlinks one person from whatever family holds it.
+     */
+    private void removePerson(long personId) {
+        int row = rowOfPerson.remove(personId);
+        int slot = familyOf[row];
+        addTotals(slot, -1);
+        if (firstMember[slot] == row) {
+            firstMember[slot] = nextInFamily[row];
+        } else {
+            int previous = firstMember[slot];
+            while (nextInFamily[previous] != row) {
+                previous = nextInFamily[previous];
+            }
+            nextInFamily[previous] = nextInFamily[row];
+        }
+        if (headRow[slot] == row) {
+            headRow[slot] = NONE;
+        }
+        memberCount[slot]--;
+        if (status[row] == PersonStatus.ACTIVE.ordinal() + 1) {
+            activeCount[slot]--;
+        }
+        freeRow(row);
+        errorCount[slot] = validate(slot, null);
+        addTotals(slot, 1);
+    }
+
+    private void freeRow(int row) {
+        strings.free(nameCurrent[row]);
+        strings.free(parentCurrent[row]);
+        strings.free(name2002[row]);
+        strings.free(parent2002[row]);
+        strings.free(epic2002[row]);
+        personIds[row] = 0;
+        if (freeRowCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeRowCount * 2);
+        }
+        freeRows[freeRowCount++] = row;
+    }
+
+    private int allocateRow() {
+        if (freeRowCount > 0) {
+            return freeRows[--freeRowCount];
+        }
+        if (personHighWater == personIds.length) {
+            allocatePersons(personIds.length + (personIds.length >> 1));
+        }
+        return personHighWater++;
+    }
+
+    private int allocateSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+        if (familyHighWater == familyIds.length) {
+            allocateFamilies(familyIds.length + (familyIds.length >> 1));
+        }
+        return familyHighWater++;
+    }
+
+    private void allocateFamilies(int capacity) {
+        familyIds = grow(familyIds, capacity);
+        shard = shard != null ? Arrays.copyOf(shard, capacity) : new byte[capacity];
+        familyCode = grow(familyCode, capacity);
+        contactPerson = grow(contactPerson, capacity);
+        contactNumber = grow(contactNumber, capacity);
+        createdBy = grow(createdBy, capacity);
+        createdAt = grow(createdAt, capacity);
+        updatedAt = grow(updatedAt, capacity);
+        revision = grow(revision, capacity);
+        headPersonId = grow(headPersonId, capacity);
+        headRow = grow(headRow, capacity);
+        firstMember = grow(firstMember, capacity);
+        memberCount = grow(memberCount, capacity);
+        activeCount = grow(activeCount, capacity);
+        errorCount = grow(errorCount, capacity);
+    }
+
+    private void allocatePersons(int capacity) {
+        personIds = grow(personIds, capacity);
+        familyOf = grow(familyOf, capacity);
+        nextInFamily = grow(nextInFamily, capacity);
+        relation = relation != null ? Arrays.copyOf(relation, capacity) : new byte[capacity];
+        status = status != null ? Arrays.copyOf(status, capacity) : new byte[capacity];
+        flags = flags != null ? Arrays.copyOf(flags, capacity) : new byte[capacity];
+        nameCurrent = grow(nameCurrent, capacity);
+        parentCurrent = grow(parentCurrent, capacity);
+        name2002 = grow(name2002, capacity);
+        parent2002 = grow(parent2002, capacity);
+        epic2002 = grow(epic2002, capacity);
+    }
+
+    private static long[] grow(long[] array, int capacity) {
+        return array != null ? Arrays.copyOf(array, capacity) : new long[capacity];
+    }
+
+    private static int[] grow(int[] array, int capacity) {
+        return array != null ? Arrays.copyOf(array, capacity) : new int[capacity];
+    }
+
+    private static long toMicros(LocalDateTime value) {
+        return value == null ? NO_TIME : value.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + value.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return micros == NO_TIME ? null : LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+            (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * A text filter, as lower-case ASCII bytes when possible.
+     */
+    private record Needle(byte[] ascii, String lowerCase) {
+
+        static Needle of(String value) {
+            if (value == null || value.isEmpty()) {
+                return null;
+            }
+            return new Needle(OffHeapStringStore.asciiNeedle(value), value.toLowerCase(Locale.ROOT));
+        }
+    }
+}
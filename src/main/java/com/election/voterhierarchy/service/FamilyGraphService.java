@@ -0,0 +1,622 @@
+package com.election.voterhierarchy.service;
+
+import com.election.voterhierarchy.config.ShardContext;
+import com.election.voterhierarchy.dto.FamilyFilterDTO;
+import com.election.voterhierarchy.dto.FamilyHierarchyDTO;
+import com.election.voterhierarchy.dto.HierarchyNode;
+import com.election.voterhierarchy.dto.ValidationError;
+import com.election.voterhierarchy.entity.FamilyChangeEvent;
+import com.election.voterhierarchy.entity.FamilySummary;
+import com.election.voterhierarchy.enums.PersonStatus;
+import com.election.voterhierarchy.enums.RelationType;
+import com.election.voterhierarchy.service.FamilyChangeReader.CommittedRead;
+import com.election.voterhierarchy.service.FamilyGraph.FamilyRecord;
+import com.election.voterhierarchy.service.FamilyGraph.PersonRecord;
+import com.election.voterhierarchy.util.ThreadFactoryUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Optional resident copy of every family and person (see FamilyGraph) from
+ * which FamilyService answers hierarchy, validation, dashboard count and
+ * search reads without Hibernate or a query.
+ *
+ * The graph is loaded on a background thread in a read-only transaction.
+ * FamilyService reports each family it writes; the family is re-read from
+ * the primary right after the commit, so the writing node serves its own
+ * change on the next page. Writes from other nodes arrive through the
+ * change outbox, followed from an in-memory cursor every refresh interval
+ * as in PersonAnalyticsService. A family is only replaced by a read of the
+ * same or a newer revision. Reads fall back to the database while the graph
+ * loads or when it does not hold the family yet.
+ */
+@Service
+@Slf4j
+public class FamilyGraphService implements CacheInvalidationListener {
+
+    private static final String CACHE_NAME = "family-graph";
+
+    private static final String FAMILY_QUERY =
+        "SELECT f.id, f.family_code, f.contact_person, f.contact_number, f.created_by, " +
+        "f.created_at, f.updated_at, f.revision, f.head_person_id " +
+        "FROM family f";
+    private static final String PERSON_QUERY =
+        "SELECT p.id, p.family_id, p.is_family_head, p.relation_type, p.status, " +
+        "vc.name AS name_current, vc.parent_spouse_name AS parent_current, " +
+        "v2.name AS name_2002, v2.parent_spouse_name AS parent_2002, v2.epic_no AS epic_2002 " +
+        "FROM person p " +
+        "LEFT JOIN voter_details_current vc ON vc.person_id = p.id " +
+        "LEFT JOIN voter_details_2002 v2 ON v2.person_id = p.id";
+    private static final String MEMBER_ORDER = " ORDER BY p.family_id, p.id";
+
+    // Families written by the current transaction, refreshed after it commits
+    private static final Object PENDING_FAMILIES = new Object();
+
+    private static final int FAMILY_CHUNK = 500;
+    private static final int INITIAL_FAMILIES = 50_000;
+    private static final int INITIAL_PERSONS = 200_000;
+
+    private final ShardRouter shardRouter;
+    private final FamilyChangeReader changeReader;
+    private final ChangeFeedService changeFeedService;
+    private final HierarchyValidationService validationService;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate readOnlyTemplate;
+    private final TransactionTemplate primaryTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final ExecutorService loader;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean loading = new AtomicBoolean();
+    // Graph and cursor are replaced and advanced under the write lock
+    private volatile FamilyGraph graph;
+    private volatile OutboxCursor cursor;
+    private volatile boolean reloadRequested;
+    private volatile LocalDateTime loadedAt;
+    private volatile LocalDateTime refreshedAt;
+    private volatile long loadMillis;
+    private volatile String lastError;
+
+    public FamilyGraphService(ShardRouter shardRouter,
+                              FamilyChangeReader changeReader,
+                              ChangeFeedService changeFeedService,
+                              HierarchyValidationService validationService,
+                              DataSource dataSource,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.graph.enabled:false}") boolean enabled,
+                              @Value("${app.graph.batch-size:1000}") int batchSize) {
+        this.shardRouter = shardRouter;
+        this.changeReader = changeReader;
+        this.changeFeedService = changeFeedService;
+        this.validationService = validationService;
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.jdbc.setFetchSize(1000);
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        // After a commit: a new transaction on the primary, so the write just made is seen
+        this.primaryTemplate = new TransactionTemplate(transactionManager);
+        this.primaryTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.loader = Executors.newSingleThreadExecutor(ThreadFactoryUtil.named("family-graph-load-", false));
+    }
+
+    /**
+     * True once the graph is loaded; the read methods below return null
+     * until then.
+     */
+    public boolean isReady() {
+        return enabled && graph != null;
+    }
+
+    /**
+     * The family's hierarchy, or null if the graph cannot answer (not
+     * loaded, family not held yet, no head).
+     */
+    public HierarchyNode buildHierarchy(Long familyId) {
+        return read(g -> g.hierarchy(familyId));
+    }
+
+    public FamilyHierarchyDTO getFamilyHierarchy(Long familyId) {
+        return read(g -> {
+            HierarchyNode hierarchy = g.hierarchy(familyId);
+            if (hierarchy == null) {
+                return null;
+            }
+            return FamilyHierarchyDTO.builder()
+                .familyId(familyId)
+                .familyCode(g.getFamilyCode(familyId))
+                .revision(g.getRevision(familyId))
+                .hierarchy(hierarchy)
+                .validationErrors(g.validationErrors(familyId))
+                .build();
+        });
+    }
+
+    public List<ValidationError> getValidationErrors(Long familyId) {
+        return read(g -> g.validationErrors(familyId));
+    }
+
+    /**
+     * Dashboard counts of the current shard.
+     */
+    public Map<String, Object> getDashboardStats() {
+        return read(g -> g.stats(ShardContext.current()));
+    }
+
+    /**
+     * Family summaries of the current shard matching the filter, ordered by
+     * family ID.
+     */
+    public List<FamilySummary> searchFamilies(FamilyFilterDTO filter) {
+        return read(g -> g.search(ShardContext.current(), filter.getFamilyCode(), filter.getContactNumber(),
+            filter.getContactPerson(), filter.getStatus(), filter.getFamilyHeadName()));
+    }
+
+    /**
+     * Called by FamilyService for every family it writes, inside the write
+     * transaction; the family is re-read once the transaction commits.
+     */
+    @SuppressWarnings("unchecked")
+    public void familyWritten(Long familyId) {
+        if (!enabled || familyId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refreshAfterCommit(List.of(familyId), ShardContext.current());
+            return;
+        }
+        Set<Long> pending = (Set<Long>) TransactionSynchronizationManager.getResource(PENDING_FAMILIES);
+        if (pending == null) {
+            Set<Long> families = new LinkedHashSet<>();
+            String shard = ShardContext.current();
+            TransactionSynchronizationManager.bindResource(PENDING_FAMILIES, families);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refreshAfterCommit(new ArrayList<>(families), shard);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_FAMILIES);
+                }
+            });
+            pending = families;
+        }
+        pending.add(familyId);
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("loading", loading.get());
+        status.put("loadedAt", loadedAt);
+        status.put("loadMillis", loadMillis);
+        status.put("refreshedAt", refreshedAt);
+        status.put("lastError", lastError);
+        lock.readLock().lock();
+        try {
+            if (graph != null) {
+                Map<String, Long> bytes = graph.footprint();
+                long heap = graph.heapBytes();
+                status.put("families", graph.getFamilies());
+                status.put("persons", graph.getPersons());
+                status.put("heapMb", megabytes(heap));
+                status.put("offHeapMb", megabytes(bytes.get("offHeapAllocated")));
+                status.put("bytesPerPerson", graph.getPersons() == 0 ? 0
+                    : (heap + bytes.get("offHeapUsed")) / graph.getPersons());
+                status.put("footprintBytes", bytes);
+                status.put("cursor", cursor.toString());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return status;
+    }
+
+    /**
+     * Rebuilds the graph from the database in the background; reads keep
+     * being answered from the current one until the new one is complete.
+     */
+    public void requestReload() {
+        if (!enabled) {
+            throw new IllegalStateException("The family graph is disabled (app.graph.enabled)");
+        }
+        reloadRequested = true;
+        startReload();
+    }
+
+    @Override
+    public Set<String> getCacheNames() {
+        return Set.of(CACHE_NAME);
+    }
+
+    /**
+     * The data was replaced underneath the graph (a snapshot restore,
+     * which writes no outbox events): reload it in the background.
+     */
+    @Override
+    public void evict(String cacheName, String key) {
+        if (enabled) {
+            reloadRequested = true;
+            startReload();
+        }
+    }
+
+    /**
+     * Times each read served from the graph on randomly chosen families,
+     * on the calling thread: hierarchy, validation, dashboard counts and a
+     * head-name search. Percentiles in microseconds.
+     */
+    public Map<String, Object> benchmark(int iterations) {
+        if (!isReady()) {
+            throw new IllegalStateException("The family graph is not loaded");
+        }
+        int runs = Math.max(10, Math.min(iterations, 100_000));
+        Random random = new Random();
+        long[] familyIds = read(g -> g.sampleFamilyIds(runs, random));
+        if (familyIds == null || familyIds.length == 0) {
+            throw new IllegalStateException("The family graph holds no families");
+        }
+        List<String> needles = new ArrayList<>();
+        for (int i = 0; i < Math.min(familyIds.length, 100); i++) {
+            long familyId = familyIds[i];
+            String name = read(g -> g.headName2002(familyId));
+            if (name != null && name.length() >= 3) {
+                // The head-name filter is a prefix match
+                needles.add(name.substring(0, 3));
+            }
+        }
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("families", read(FamilyGraph::getFamilies));
+        results.put("persons", read(FamilyGraph::getPersons));
+        results.put("hierarchy", time(runs, i -> buildHierarchy(familyIds[i % familyIds.length])));
+        results.put("validation", time(runs, i -> getValidationErrors(familyIds[i % familyIds.length])));
+        results.put("counts", time(runs, i -> getDashboardStats()));
+        if (!needles.isEmpty()) {
+            // Searches scan every family, so fewer of them
+            FamilyFilterDTO filter = new FamilyFilterDTO();
+            results.put("search", time(Math.max(10, runs / 100), i -> {
+                filter.setFamilyHeadName(needles.get(i % needles.size()));
+                return shardRouter.isSharded()
+                    ? shardRouter.onShard(shardRouter.getShardNames().get(0), () -> searchFamilies(filter))
+                    : searchFamilies(filter);
+            }));
+        }
+        return results;
+    }
+
+    @Scheduled(fixedDelayString = "${app.graph.refresh-interval-ms:1000}")
+    public void refresh() {
+        if (!enabled || loading.get()) {
+            return;
+        }
+        if (graph == null || reloadRequested) {
+            startReload();
+            return;
+        }
+        try {
+            applyChanges();
+            if (read(FamilyGraph::needsCompaction)) {
+                log.info("Family graph holds more freed than live name bytes; rebuilding");
+                reloadRequested = true;
+            }
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            log.warn("Family graph refresh failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    private <T> T read(Function<FamilyGraph, T> query) {
+        if (!enabled) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return graph != null ? query.apply(graph) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void startReload() {
+        if (!loading.compareAndSet(false, true)) {
+            return;
+        }
+        loader.submit(() -> {
+            try {
+                reload();
+            } catch (Exception e) {
+                lastError = e.getMessage();
+                log.error("Family graph load failed", e);
+            } finally {
+                loading.set(false);
+            }
+        });
+    }
+
+    private void reload() {
+        reloadRequested = false;
+        long started = System.currentTimeMillis();
+        FamilyGraph previous = graph;
+        FamilyGraph fresh = previous != null
+            ? new FamilyGraph(validationService, previous.getFamilies() + previous.getFamilies() / 8,
+                previous.getPersons() + previous.getPersons() / 8)
+            : new FamilyGraph(validationService, INITIAL_FAMILIES, INITIAL_PERSONS);
+        OutboxCursor position = OutboxCursor.start();
+
+        shardRouter.forEachShard(() -> readOnlyTemplate.executeWithoutResult(status -> {
+            String shard = ShardContext.current();
+            // Read first: events up to here are reflected in the rows below; later ones,
+            // and missing IDs that commit later, are applied on refresh
+            changeReader.positionAtLatest(position);
+            jdbc.query(FAMILY_QUERY, (RowCallbackHandler) rs -> fresh.putFamily(readFamily(rs, shard)));
+            MemberGroups groups = new MemberGroups(fresh::replaceMembers);
+            jdbc.query(PERSON_QUERY + MEMBER_ORDER,
+                (RowCallbackHandler) rs -> groups.add(rs.getLong("family_id"), readPerson(rs)));
+            groups.flush();
+        }));
+
+        lock.writeLock().lock();
+        try {
+            graph = fresh;
+            cursor = position;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        loadMillis = System.currentTimeMillis() - started;
+        loadedAt = LocalDateTime.now();
+        refreshedAt = loadedAt;
+        lastError = null;
+        log.info("Family graph loaded: {} families, {} persons in {} ms, {} MB heap and {} MB off-heap",
+            fresh.getFamilies(), fresh.getPersons(), loadMillis, fresh.heapBytes() / 1048576,
+            fresh.footprint().get("offHeapAllocated") / 1048576);
+    }
+
+    /**
+     * Re-reads families written by a committed FamilyService transaction.
+     * Failures are only logged: the outbox refresh brings the family in later.
+     */
+    private void refreshAfterCommit(List<Long> familyIds, String shard) {
+        FamilyGraph current = graph;
+        if (current == null || (shardRouter.isSharded() && shard == null)) {
+            return;
+        }
+        try {
+            Snapshot snapshot = shardRouter.onShard(shard,
+                () -> primaryTemplate.execute(status -> readFamilies(familyIds, shard)));
+            apply(current, snapshot, null, null);
+        } catch (Exception e) {
+            log.warn("Family graph update after commit failed for families {}: {}", familyIds, e.getMessage());
+        }
+    }
+
+    /**
+     * Reloads the families named by outbox events after the cursor, shard by
+     * shard.
+     */
+    private void applyChanges() {
+        FamilyGraph current = graph;
+        shardRouter.forEachShard(() -> {
+            String shard = ShardContext.current();
+            while (true) {
+                OutboxCursor position = cursor;
+                if (position.position(shard) < changeFeedService.purgedThrough()) {
+                    log.warn("Family graph fell behind the change feed purge{}; reloading",
+                        shard != null ? " on " + shard : "");
+                    reloadRequested = true;
+                    return;
+                }
+
+                ChangeBatch batch = readOnlyTemplate.execute(status -> readChanges(position, shard));
+                if (!apply(current, batch.snapshot(), shard, batch.read())) {
+                    // Replaced by a reload meanwhile, which covers these changes
+                    return;
+                }
+                if (!batch.read().full()) {
+                    return;
+                }
+            }
+        });
+        refreshedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Applies re-read families to the graph they were read for; with the
+     * outbox read they came from, also advances the cursor past its events.
+     * False if the graph was replaced meanwhile.
+     */
+    private boolean apply(FamilyGraph target, Snapshot snapshot, String cursorShard, CommittedRead read) {
+        lock.writeLock().lock();
+        try {
+            if (graph != target) {
+                return false;
+            }
+            for (Long familyId : snapshot.familyIds()) {
+                FamilyRecord family = snapshot.families().get(familyId);
+                if (family == null) {
+                    // Deleted (or moved to another shard, whose events bring it back)
+                    target.removeFamily(familyId);
+                } else if (target.putFamily(family)) {
+                    target.replaceMembers(familyId, snapshot.members().getOrDefault(familyId, List.of()));
+                }
+            }
+            if (read != null) {
+                read.advanceAll(cursor, cursorShard);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private ChangeBatch readChanges(OutboxCursor position, String shard) {
+        CommittedRead read = changeReader.readCommitted(position, batchSize);
+        List<Long> familyIds = read.events().stream()
+            .map(FamilyChangeEvent::getFamilyId)
+            .distinct()
+            .collect(Collectors.toList());
+        return new ChangeBatch(readFamilies(familyIds, shard), read);
+    }
+
+    private Snapshot readFamilies(List<Long> familyIds, String shard) {
+        Map<Long, FamilyRecord> families = new HashMap<>();
+        Map<Long, List<PersonRecord>> members = new HashMap<>();
+        for (int from = 0; from < familyIds.size(); from += FAMILY_CHUNK) {
+            List<Long> chunk = familyIds.subList(from, Math.min(from + FAMILY_CHUNK, familyIds.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            jdbc.query(FAMILY_QUERY + " WHERE f.id IN (" + placeholders + ")",
+                (RowCallbackHandler) rs -> {
+                    FamilyRecord family = readFamily(rs, shard);
+                    families.put(family.id(), family);
+                }, chunk.toArray());
+            jdbc.query(PERSON_QUERY + " WHERE p.family_id IN (" + placeholders + ")" + MEMBER_ORDER,
+                (RowCallbackHandler) rs -> members.computeIfAbsent(rs.getLong("family_id"), id -> new ArrayList<>())
+                    .add(readPerson(rs)), chunk.toArray());
+        }
+        return new Snapshot(familyIds, families, members);
+    }
+
+    private static FamilyRecord readFamily(ResultSet rs, String shard) throws SQLException {
+        return new FamilyRecord(
+            rs.getLong("id"),
+            shard,
+            rs.getString("family_code"),
+            rs.getString("contact_person"),
+            rs.getString("contact_number"),
+            rs.getString("created_by"),
+            rs.getObject("created_at", LocalDateTime.class),
+            rs.getObject("updated_at", LocalDateTime.class),
+            rs.getLong("revision"),
+            rs.getLong("head_person_id"));
+    }
+
+    private static PersonRecord readPerson(ResultSet rs) throws SQLException {
+        String relation = rs.getString("relation_type");
+        String status = rs.getString("status");
+        return new PersonRecord(
+            rs.getLong("id"),
+            rs.getBoolean("is_family_head"),
+            relation != null ? RelationType.valueOf(relation) : null,
+            status != null ? PersonStatus.valueOf(status) : null,
+            rs.getString("name_current"),
+            rs.getString("parent_current"),
+            rs.getString("name_2002"),
+            rs.getString("parent_2002"),
+            rs.getString("epic_2002"));
+    }
+
+    /**
+     * Times the operation over the given number of runs (after a warm-up
+     * of a tenth as many).
+     */
+    private static Map<String, Object> time(int runs, IntFunction<Object> operation) {
+        for (int i = 0; i < Math.max(1, runs / 10); i++) {
+            operation.apply(i);
+        }
+        long[] nanos = new long[runs];
+        long total = 0;
+        for (int i = 0; i < runs; i++) {
+            long started = System.nanoTime();
+            operation.apply(i);
+            nanos[i] = System.nanoTime() - started;
+            total += nanos[i];
+        }
+        Arrays.sort(nanos);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("runs", runs);
+        result.put("p50Micros", nanos[runs / 2] / 1000.0);
+        result.put("p99Micros", nanos[Math.min(runs - 1, (int) (runs * 0.99))] / 1000.0);
+        result.put("maxMicros", nanos[runs - 1] / 1000.0);
+        result.put("opsPerSecond", total == 0 ? 0 : runs * 1_000_000_000L / total);
+        return result;
+    }
+
+    private static double megabytes(long bytes) {
+        return Math.round(bytes / 1048576.0 * 10) / 10.0;
+    }
+
+    /**
+     * Re-read state of some families: a missing family record means the
+     * family no longer exists.
+     */
+    private record Snapshot(Collection<Long> familyIds, Map<Long, FamilyRecord> families,
+                            Map<Long, List<PersonRecord>> members) {
+    }
+
+    private record ChangeBatch(Snapshot snapshot, CommittedRead read) {
+    }
+
+    /**
+     * Collects consecutive person rows of one family (rows ordered by
+     * family) and hands each complete family to the sink.
+     */
+    private static final class MemberGroups {
+
+        private final BiConsumer<Long, List<PersonRecord>> sink;
+        private long familyId;
+        private List<PersonRecord> members = new ArrayList<>();
+
+        MemberGroups(BiConsumer<Long, List<PersonRecord>> sink) {
+            this.sink = sink;
+        }
+
+        void add(long rowFamilyId, PersonRecord person) {
+            if (rowFamilyId != familyId) {
+                flush();
+                familyId = rowFamilyId;
+            }
+            members.add(person);
+        }
+
+        void flush() {
+            if (!members.isEmpty()) {
+                sink.accept(familyId, members);
+                members = new ArrayList<>();
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.election.voterhierarchy.service;
+
+import com.election.voterhierarchy.dto.FamilyFilterDTO;
+import com.election.voterhierarchy.dto.FamilySummaryResponse;
+import com.election.voterhierarchy.dto.MemberResponse;
+import com.election.voterhierarchy.dto.SliceResponse;
+import com.election.voterhierarchy.repository.FamilyProjectionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Read side of the JSON API. Everything here returns projection DTOs.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FamilyQueryService {
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final FamilyProjectionRepository projectionRepository;
+    private final ShardRouter shardRouter;
+
+    @Transactional(readOnly = true)
+    public FamilySummaryResponse getSummary(Long familyId) {
+        return projectionRepository.findSummaryById(familyId)
+            .orElseThrow(() -> new RuntimeException("Family not found with ID: " + familyId));
+    }
+
+    @Transactional(readOnly = true)
+    public SliceResponse<FamilySummaryResponse> getSummaries(FamilyFilterDTO filter, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        if (shardRouter.isSharded()) {
+            return getSummariesAcrossShards(filter, Math.max(page, 0), pageSize);
+        }
+
+        Slice<FamilySummaryResponse> slice = findSummaries(filter, PageRequest.of(Math.max(page, 0), pageSize));
+
+        return SliceResponse.<FamilySummaryResponse>builder()
+            .content(slice.getContent())
+            .page(slice.getNumber())
+            .size(slice.getSize())
+            .hasNext(slice.hasNext())
+            .build();
+    }
+
+    /**
+     * Cuts the page out of the merged head of every shard's listing. Each
+     * shard returns its first (page + 1) * size rows, so deep pages cost more;
+     * full exports should use the NDJSON stream.
+     */
+    private SliceResponse<FamilySummaryResponse> getSummariesAcrossShards(FamilyFilterDTO filter, int page, int pageSize) {
+        int limit = (page + 1) * pageSize + 1;
+        List<FamilySummaryResponse> merged = shardRouter.gather(
+            () -> findSummaries(filter, PageRequest.of(0, limit)).getContent(),
+            Comparator.comparing(FamilySummaryResponse::getFamilyId));
+
+        int from = Math.min(page * pageSize, merged.size());
+        int to = Math.min(from + pageSize, merged.size());
+        return SliceResponse.<FamilySummaryResponse>builder()
+            .content(merged.subList(from, to))
+            .page(page)
+            .size(pageSize)
+            .hasNext(merged.size() > to)
+            .build();
+    }
+
+    private Slice<FamilySummaryResponse> findSummaries(FamilyFilterDTO filter, PageRequest pageRequest) {
+        return projectionRepository.findSummaries(
+            filter.getFamilyCode(),
+            filter.getContactNumber(),
+            filter.getContactPerson(),
+            filter.getStatus(),
+            filter.getFamilyHeadName(),
+            pageRequest
+        );
+    }
+
+    /**
+     * Pushes every matching summary to the sink from a forward-only cursor.
+     * Rows are DTOs, not entities, so nothing accumulates in the persistence
+     * context; a slow sink simply slows the cursor down.
+     */
+    @Transactional(readOnly = true)
+    public long streamSummaries(FamilyFilterDTO filter, Consumer<FamilySummaryResponse> sink) {
+        long count = 0;
+        try (Stream<FamilySummaryResponse> rows = projectionRepository.streamSummaries(
+                filter.getFamilyCode(),
+                filter.getContactNumber(),
+                filter.getContactPerson(),
+                filter.getStatus(),
+                filter.getFamilyHeadName())) {
+            for (FamilySummaryResponse row : (Iterable<FamilySummaryResponse>) rows::iterator) {
+                sink.accept(row);
+                count++;
+            }
+        }
+        log.debug("Streamed {} family summaries", count);
+        return count;
+    }
+
+    @Transactional(readOnly = true)
+    public List<MemberResponse> getMembers(Long familyId) {
+        return projectionRepository.findMembers(familyId);
+    }
+}
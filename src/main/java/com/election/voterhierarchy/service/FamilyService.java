@@ -2,22 +2,25 @@ package com.election.voterhierarchy.service;
 
 import com.election.voterhierarchy.dto.*;
 import com.election.voterhierarchy.entity.*;
+import com.election.voterhierarchy.enums.FamilyChangeType;
 import com.election.voterhierarchy.enums.PersonStatus;
 import com.election.voterhierarchy.enums.RelationType;
 import com.election.voterhierarchy.repository.FamilyRepository;
+import com.election.voterhierarchy.repository.FamilySummaryRepository;
 import com.election.voterhierarchy.repository.PersonRepository;
 import com.election.voterhierarchy.util.StringNormalizationUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -27,6 +30,11 @@ public class FamilyService {
     private final FamilyRepository familyRepository;
     private final HierarchyValidationService validationService;
     private final PersonRepository personRepository;
+    private final FamilySummaryRepository familySummaryRepository;
+    private final FamilySummaryService familySummaryService;
+    private final FamilyChangeOutbox familyChangeOutbox;
+    private final MemberValidationService memberValidationService;
+    private final FamilyGraphService familyGraph;
 
     @Transactional
     public Family createFamilyWithHead(FamilyHeadDTO dto) {
@@ -41,6 +49,7 @@ public class FamilyService {
         // Create family
         Family family = Family.builder()
             .familyCode(generateFamilyCode())
+            .clientRef(dto.getClientRef())
             .createdBy("OPERATOR") // TODO: Get from security context
             .contactPerson(dto.getContactPerson())
             .contactNumber(dto.getContactNumber())
@@ -93,6 +102,9 @@ public class FamilyService {
 		family.addMember(familyHead);
 
         Family savedFamily = familyRepository.save(family);
+        // Head pointer is set once the head row has an ID; flushed as an update on commit
+        savedFamily.applyHeadSummary(familyHead);
+        familyChanged(savedFamily, FamilyChangeType.FAMILY_CREATED, familyHead.getId());
         log.info("Family created with ID: {} and code: {}", savedFamily.getId(), savedFamily.getFamilyCode());
 
         return savedFamily;
@@ -111,60 +123,95 @@ public class FamilyService {
         Family family = familyRepository.findById(familyId)
             .orElseThrow(() -> new RuntimeException("Family not found with ID: " + familyId));
 
-        // Create family member person
-        Person member = Person.builder()
-            .family(family)
-            .isFamilyHead(false)
-            .relationType(dto.getRelationType())
-            .age(dto.getAge())
-            .status(dto.getStatus())
-            .build();
+        Person member = buildMember(family, dto);
+        family.addMember(member);
+        // Persist the member directly so it keeps its generated ID for the change event
+        personRepository.save(member);
 
-        // Create 2002 voter details if age >= 41
-        if (dto.getAge() >= 41) {
-            VoterDetails2002 voterDetails2002 = VoterDetails2002.builder()
-                .person(member)
-                .name(dto.getName2002())
-                .parentSpouseName(dto.getParentSpouseName2002())
-                .epicNo(dto.getEpicNo2002())
-                .acNo(dto.getAcNo2002())
-                .partNo(dto.getPartNo2002())
-                .serialNo(dto.getSerialNo2002())
-                .build();
+        // Only the new member needs checking, plus the children when a spouse with a 2002 name joins
+        memberValidationService.revalidateMembers(family, List.of(member));
+        if (member.getRelationType() == RelationType.SPOUSE && member.getVoterDetails2002() != null) {
+            memberValidationService.revalidateDependentsOf(family, RelationType.SPOUSE);
+        }
 
-            member.setVoterDetails2002(voterDetails2002);
+        familyChanged(family, FamilyChangeType.MEMBER_ADDED, member.getId());
+
+        log.info("Member added successfully to family ID: {}", familyId);
+    }
+
+    /**
+     * Normalizes and checks a new member without touching the database, so a
+     * caller that defers the write can reject bad input straight away.
+     */
+    public void prepareMember(FamilyMemberDTO dto) {
+        normalizeDTO(dto);
+        validateFamilyMemberDTO(dto);
+    }
+
+    /**
+     * Same as prepareMember, for a new family and its head.
+     */
+    public void prepareHead(FamilyHeadDTO dto) {
+        normalizeDTO(dto);
+        validateFamilyHeadDTO(dto);
+    }
+
+    /**
+     * Adds several members in one transaction: one family load, one summary
+     * refresh and revision bump, and a single validation pass over the new
+     * members, so a child can be checked against a spouse from the same batch.
+     */
+    @Transactional
+    public int addFamilyMembers(Long familyId, List<FamilyMemberDTO> dtos) {
+        log.info("Adding {} members to family ID: {}", dtos.size(), familyId);
+
+        for (int i = 0; i < dtos.size(); i++) {
+            FamilyMemberDTO dto = dtos.get(i);
+            normalizeDTO(dto);
+            try {
+                validateFamilyMemberDTO(dto);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Member #" + (i + 1) + ": " + e.getMessage());
+            }
         }
 
-        // Create current voter details if status is ACTIVE
-        if (dto.getStatus() == PersonStatus.ACTIVE) {
-            VoterDetailsCurrent currentDetails = VoterDetailsCurrent.builder()
-                .person(member)
-                .name(dto.getNameCurrent())
-                .parentSpouseName(dto.getParentSpouseNameCurrent())
-                .epicNo(dto.getEpicNoCurrent())
-                .acNo(dto.getAcNoCurrent())
-                .partNo(dto.getPartNoCurrent())
-                .serialNo(dto.getSerialNoCurrent())
-                .build();
+        Family family = familyRepository.findById(familyId)
+            .orElseThrow(() -> new RuntimeException("Family not found with ID: " + familyId));
 
-            BloDetails bloDetails = BloDetails.builder()
-                .voterDetailsCurrent(currentDetails)
-                .bloName(dto.getBloName())
-                .bloMobile(dto.getBloMobile())
-                .build();
+        List<Person> added = new ArrayList<>();
+        for (FamilyMemberDTO dto : dtos) {
+            Person member = buildMember(family, dto);
+            family.addMember(member);
+            added.add(member);
+        }
+        personRepository.saveAll(added);
 
-            currentDetails.setBloDetails(bloDetails);
-            member.setVoterDetailsCurrent(currentDetails);
+        // A spouse with a 2002 name can change the result of children already in the family
+        boolean spouseAdded = added.stream()
+            .anyMatch(p -> p.getRelationType() == RelationType.SPOUSE && p.getVoterDetails2002() != null);
+        if (spouseAdded) {
+            memberValidationService.revalidateFamily(family);
+        } else {
+            memberValidationService.revalidateMembers(family, added);
         }
 
-        family.addMember(member);
-        familyRepository.save(family);
+        familySummaryService.refresh(family);
+        for (Person member : added) {
+            familyChangeOutbox.record(FamilyChangeType.MEMBER_ADDED, family.getId(), member.getId());
+        }
+        familyGraph.familyWritten(family.getId());
+        familyRepository.bumpRevision(family.getId(), LocalDateTime.now());
 
-        log.info("Member added successfully to family ID: {}", familyId);
+        log.info("{} members added successfully to family ID: {}", added.size(), familyId);
+        return added.size();
     }
 
     @Transactional(readOnly = true)
     public HierarchyNode buildHierarchy(Long familyId) {
+        HierarchyNode resident = familyGraph.buildHierarchy(familyId);
+        if (resident != null) {
+            return resident;
+        }
         Family family = familyRepository.findByIdWithFullDetails(familyId)
             .orElseThrow(() -> new RuntimeException("Family not found with ID: " + familyId));
 
@@ -188,18 +235,30 @@ public class FamilyService {
     }
 
     @Transactional(readOnly = true)
-    public List<ValidationError> validateFamily(Long familyId) {
+    public FamilyHierarchyDTO getFamilyHierarchy(Long familyId) {
+        FamilyHierarchyDTO resident = familyGraph.getFamilyHierarchy(familyId);
+        if (resident != null) {
+            return resident;
+        }
         Family family = familyRepository.findByIdWithFullDetails(familyId)
             .orElseThrow(() -> new RuntimeException("Family not found with ID: " + familyId));
 
-        Person familyHead = family.getFamilyHead();
-        
-        // Get only non-head members for validation
-        List<Person> nonHeadMembers = family.getMembers().stream()
-            .filter(p -> p.getIsFamilyHead() == null || !p.getIsFamilyHead())
-            .collect(Collectors.toList());
+        return FamilyHierarchyDTO.builder()
+            .familyId(family.getId())
+            .familyCode(family.getFamilyCode())
+            .revision(family.getRevision())
+            .hierarchy(buildHierarchy(familyId))
+            .validationErrors(getValidationErrors(familyId))
+            .build();
+    }
 
-        return validationService.validateHierarchy(familyHead, nonHeadMembers);  
+    @Transactional(readOnly = true)
+    public List<ValidationError> getValidationErrors(Long familyId) {
+        List<ValidationError> resident = familyGraph.getValidationErrors(familyId);
+        if (resident != null) {
+            return resident;
+        }
+        return memberValidationService.getStoredErrors(familyId);
     }
 
     @Transactional(readOnly = true)
@@ -207,6 +266,11 @@ public class FamilyService {
 		return familyRepository.findAll();
 	}
 
+	@Transactional(readOnly = true)
+	public Long getFamilyRevision(Long id) {
+		return familyRepository.findRevisionById(id).orElse(null);
+	}
+
 	@Transactional(readOnly = true)
 	public Family getFamilyById(Long id) {
 		return familyRepository.findByIdWithFullDetails(id)
@@ -235,6 +299,115 @@ public class FamilyService {
         return builder.build();
     }
 
+    /**
+     * Revalidates what an edit can affect: the member itself, plus the
+     * members that read its 2002 name when it is (or was) the head or a spouse
+     * and that name or relation changed.
+     */
+    private void revalidateAfterMemberUpdate(Person member, RelationType oldRelationType, String oldName2002) {
+        Family family = member.getFamily();
+        String newName2002 = member.getVoterDetails2002() != null ? member.getVoterDetails2002().getName() : null;
+        boolean name2002Changed = !StringNormalizationUtil.equalsIgnoreCaseNormalized(oldName2002, newName2002);
+
+        if (member.isFamilyHead()) {
+            if (name2002Changed) {
+                memberValidationService.revalidateDependentsOf(family, RelationType.FAMILY_HEAD);
+            }
+            return;
+        }
+
+        memberValidationService.revalidateMembers(family, List.of(member));
+
+        boolean spouseInvolved = oldRelationType == RelationType.SPOUSE
+            || member.getRelationType() == RelationType.SPOUSE;
+        if (spouseInvolved && (name2002Changed || oldRelationType != member.getRelationType())) {
+            memberValidationService.revalidateDependentsOf(family, RelationType.SPOUSE);
+        }
+    }
+
+    /**
+     * Keeps the read model and the change outbox in step with a family write
+     * and advances the family revision.
+     * Runs inside the caller's transaction, as its last step: the revision is
+     * bumped in the database, so the loaded family must not be changed after.
+     */
+    private void familyChanged(Family family, FamilyChangeType changeType, Long personId) {
+        familySummaryService.refresh(family);
+        familyChangeOutbox.record(changeType, family.getId(), personId);
+        familyGraph.familyWritten(family.getId());
+        familyRepository.bumpRevision(family.getId(), LocalDateTime.now());
+    }
+
+    /**
+     * Rejects an edit made from a form rendered at an older version.
+     */
+    private void checkVersion(Class<?> entityType, Long id, Long formVersion, Long currentVersion) {
+        if (formVersion != null && !formVersion.equals(currentVersion)) {
+            throw new ObjectOptimisticLockingFailureException(entityType, id);
+        }
+    }
+
+    private Person buildMember(Family family, FamilyMemberDTO dto) {
+        Person member = Person.builder()
+            .family(family)
+            .clientRef(dto.getClientRef())
+            .isFamilyHead(false)
+            .relationType(dto.getRelationType())
+            .age(dto.getAge())
+            .status(dto.getStatus())
+            .build();
+
+        // Create 2002 voter details if age >= 41
+        if (dto.getAge() >= 41) {
+            VoterDetails2002 voterDetails2002 = VoterDetails2002.builder()
+                .person(member)
+                .name(dto.getName2002())
+                .parentSpouseName(dto.getParentSpouseName2002())
+                .epicNo(dto.getEpicNo2002())
+                .acNo(dto.getAcNo2002())
+                .partNo(dto.getPartNo2002())
+                .serialNo(dto.getSerialNo2002())
+                .build();
+
+            member.setVoterDetails2002(voterDetails2002);
+        }
+
+        // Create current voter details if status is ACTIVE
+        if (dto.getStatus() == PersonStatus.ACTIVE) {
+            VoterDetailsCurrent currentDetails = VoterDetailsCurrent.builder()
+                .person(member)
+                .name(dto.getNameCurrent())
+                .parentSpouseName(dto.getParentSpouseNameCurrent())
+                .epicNo(dto.getEpicNoCurrent())
+                .acNo(dto.getAcNoCurrent())
+                .partNo(dto.getPartNoCurrent())
+                .serialNo(dto.getSerialNoCurrent())
+                .build();
+
+            BloDetails bloDetails = BloDetails.builder()
+                .voterDetailsCurrent(currentDetails)
+                .bloName(dto.getBloName())
+                .bloMobile(dto.getBloMobile())
+                .build();
+
+            currentDetails.setBloDetails(bloDetails);
+            member.setVoterDetailsCurrent(currentDetails);
+        }
+
+        return member;
+    }
+
+    /**
+     * Deletes a member's rows by person_id, children first, without loading
+     * the member or its family.
+     */
+    private void deleteMemberRows(Long memberId) {
+        personRepository.deleteBloDetailsByPersonId(memberId);
+        personRepository.deleteCurrentDetailsByPersonId(memberId);
+        personRepository.deleteDetails2002ByPersonId(memberId);
+        personRepository.deletePersonById(memberId);
+    }
+
     private String generateFamilyCode() {
         return "FAM-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
     }
@@ -376,6 +549,7 @@ public class FamilyService {
         
         Family family = familyRepository.findById(familyId)
             .orElseThrow(() -> new RuntimeException("Family not found with ID: " + familyId));
+        checkVersion(Family.class, familyId, dto.getRevision(), family.getRevision());
         
         // Update family contact info
         family.setContactPerson(StringNormalizationUtil.normalize(dto.getContactPerson()));
@@ -383,6 +557,7 @@ public class FamilyService {
         
         // Update family head (get from members)
         Person familyHead = family.getFamilyHead();
+        String oldHeadName2002 = validationService.headName2002(familyHead);
         if (familyHead != null) {
             familyHead.setStatus(dto.getHeadStatus());
             
@@ -426,9 +601,26 @@ public class FamilyService {
                 // Remove current details if status changed to EXPIRED
                 familyHead.setVoterDetailsCurrent(null);
             }
+
+            family.applyHeadSummary(familyHead);
+
+            // Every member is checked against the head's 2002 name; nothing else on the head matters
+            if (!StringNormalizationUtil.equalsIgnoreCaseNormalized(oldHeadName2002,
+                    validationService.headName2002(familyHead))) {
+                memberValidationService.revalidateDependentsOf(family, RelationType.FAMILY_HEAD);
+            }
         }
         
-        familyRepository.save(family);
+        familySummaryService.refresh(family);
+        familyChangeOutbox.record(FamilyChangeType.FAMILY_UPDATED, familyId, familyHead != null ? familyHead.getId() : null);
+        familyGraph.familyWritten(familyId);
+
+        // Family edits are checked against the revision: a member change or
+        // another family edit committed since the load makes this one fail
+        familyRepository.flush();
+        if (familyRepository.bumpRevisionIfCurrent(familyId, family.getRevision(), LocalDateTime.now()) == 0) {
+            throw new ObjectOptimisticLockingFailureException(Family.class, familyId);
+        }
         log.info("Family updated successfully: {}", familyId);
     }
 
@@ -436,8 +628,13 @@ public class FamilyService {
     public void updateMember(Long memberId, PersonUpdateDTO dto) {
         log.info("Updating member ID: {}", memberId);
         
-        Person member = personRepository.findById(memberId)
+        Person member = personRepository.findByIdWithDetails(memberId)
             .orElseThrow(() -> new RuntimeException("Member not found with ID: " + memberId));
+
+        checkVersion(Person.class, memberId, dto.getVersion(), member.getVersion());
+
+        RelationType oldRelationType = member.getRelationType();
+        String oldName2002 = member.getVoterDetails2002() != null ? member.getVoterDetails2002().getName() : null;
         
         // Update basic info
         member.setRelationType(dto.getRelationType());
@@ -493,8 +690,15 @@ public class FamilyService {
             // Remove current details if status changed to EXPIRED
             member.setVoterDetailsCurrent(null);
         }
+
+        if (member.isFamilyHead()) {
+            member.getFamily().applyHeadSummary(member);
+        }
         
-        personRepository.save(member);
+        // No explicit save: dirty checking flushes only the changed columns
+        // (@DynamicUpdate) and the person version rejects a concurrent edit
+        revalidateAfterMemberUpdate(member, oldRelationType, oldName2002);
+        familyChanged(member.getFamily(), FamilyChangeType.MEMBER_UPDATED, memberId);
         log.info("Member updated successfully: {}", memberId);
     }
 
@@ -502,14 +706,31 @@ public class FamilyService {
     public void deleteMember(Long memberId) {
         log.info("Deleting member ID: {}", memberId);
         
-        Person member = personRepository.findById(memberId)
+        MemberRef member = personRepository.findMemberRefById(memberId)
             .orElseThrow(() -> new RuntimeException("Member not found with ID: " + memberId));
         
-        if (member.getIsFamilyHead() != null && member.getIsFamilyHead()) {
+        if (member.isFamilyHead()) {
             throw new RuntimeException("Cannot delete family head. Delete the entire family instead.");
         }
         
-        personRepository.delete(member);
+        boolean spouseWithName2002 = member.getRelationType() == RelationType.SPOUSE
+            && member.getName2002() != null;
+
+        deleteMemberRows(memberId);
+        memberValidationService.removeMember(memberId);
+
+        if (spouseWithName2002) {
+            // The children's results depend on this spouse, so the family has to be read
+            Family family = familyRepository.findById(member.getFamilyId())
+                .orElseThrow(() -> new RuntimeException("Family not found with ID: " + member.getFamilyId()));
+            memberValidationService.revalidateDependentsOf(family, RelationType.SPOUSE);
+            familyChanged(family, FamilyChangeType.MEMBER_DELETED, memberId);
+        } else {
+            familyRepository.bumpRevision(member.getFamilyId(), LocalDateTime.now());
+            familySummaryService.memberRemoved(member.getFamilyId(), member.getStatus());
+            familyChangeOutbox.record(FamilyChangeType.MEMBER_DELETED, member.getFamilyId(), memberId);
+            familyGraph.familyWritten(member.getFamilyId());
+        }
         log.info("Member deleted successfully: {}", memberId);
     }
 
@@ -523,16 +744,43 @@ public class FamilyService {
     public void deleteFamily(Long familyId) {
         log.info("Deleting family ID: {}", familyId);
         
-        Family family = familyRepository.findById(familyId)
-            .orElseThrow(() -> new RuntimeException("Family not found with ID: " + familyId));
-        
-        familyRepository.delete(family);
+        if (!familyRepository.existsById(familyId)) {
+            throw new RuntimeException("Family not found with ID: " + familyId);
+        }
+
+        // Release the head pointer first so the member rows can be removed
+        familyRepository.clearHeadPerson(familyId);
+        personRepository.deleteBloDetailsByFamilyId(familyId);
+        personRepository.deleteCurrentDetailsByFamilyId(familyId);
+        personRepository.deleteDetails2002ByFamilyId(familyId);
+        personRepository.deletePersonsByFamilyId(familyId);
+        familyRepository.deleteFamilyById(familyId);
+
+        memberValidationService.removeFamily(familyId);
+        familySummaryService.remove(familyId);
+        familyChangeOutbox.record(FamilyChangeType.FAMILY_DELETED, familyId, null);
+        familyGraph.familyWritten(familyId);
         log.info("Family deleted successfully: {}", familyId);
     }
 
     @Transactional(readOnly = true)
-    public List<Family> searchFamilies(FamilyFilterDTO filter) {
-        return familyRepository.findByFilters(
+    public List<FamilySummary> getFamilySummaries() {
+        return familySummaryRepository.findAllByOrderByIdAsc();
+    }
+
+    @Transactional(readOnly = true)
+    public FamilySummary getFamilySummary(Long familyId) {
+        return familySummaryRepository.findById(familyId)
+            .orElseThrow(() -> new RuntimeException("Family not found with ID: " + familyId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<FamilySummary> searchFamilies(FamilyFilterDTO filter) {
+        List<FamilySummary> resident = familyGraph.searchFamilies(filter);
+        if (resident != null) {
+            return resident;
+        }
+        return familySummaryRepository.findByFilters(
             filter.getFamilyCode(),
             filter.getContactNumber(),
             filter.getContactPerson(),
@@ -543,16 +791,26 @@ public class FamilyService {
 
     @Transactional(readOnly = true)
     public Map<String, Object> getDashboardStats() {
+        Map<String, Object> resident = familyGraph.getDashboardStats();
+        if (resident != null) {
+            return resident;
+        }
         Map<String, Object> stats = new HashMap<>();
         
-        stats.put("totalFamilies", familyRepository.countAll());
-        stats.put("activeFamilies", familyRepository.countByStatus(PersonStatus.ACTIVE));
-        stats.put("expiredFamilies", familyRepository.countByStatus(PersonStatus.EXPIRED));
-        stats.put("totalMembers", familyRepository.getTotalMembers());
+        stats.put("totalFamilies", familySummaryRepository.count());
+        stats.put("activeFamilies", familySummaryRepository.countByHeadStatus(PersonStatus.ACTIVE));
+        stats.put("expiredFamilies", familySummaryRepository.countByHeadStatus(PersonStatus.EXPIRED));
+        stats.put("totalMembers", familySummaryRepository.getTotalMembers());
+        stats.put("familiesWithErrors", familySummaryRepository.countWithValidationErrors());
         
         return stats;
     }
 
+    // Not transactional: the rebuild commits chunk by chunk
+    public int rebuildFamilySummaries() {
+        return familySummaryService.rebuildAll();
+    }
+
     @Transactional(readOnly = true)
     public Family getFamilyForBloSheet(Long familyId) {
         return familyRepository.findByIdWithFullDetails(familyId)
@@ -0,0 +1,147 @@
+package com.election.voterhierarchy.service;
+
+import com.election.voterhierarchy.entity.Family;
+import com.election.voterhierarchy.entity.FamilySummary;
+import com.election.voterhierarchy.entity.Person;
+import com.election.voterhierarchy.enums.PersonStatus;
+import com.election.voterhierarchy.repository.FamilyRepository;
+import com.election.voterhierarchy.repository.FamilySummaryRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the family_summary read model. Every FamilyService write calls
+ * refresh/remove inside its own transaction, so the summary commits (or rolls
+ * back) together with the source rows. The rebuild also regenerates the
+ * stored member validation results.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FamilySummaryService {
+
+    private static final int REBUILD_PAGE_SIZE = 500;
+
+    private final FamilySummaryRepository summaryRepository;
+    private final FamilyRepository familyRepository;
+    private final MemberValidationService memberValidationService;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    @Transactional
+    public void refresh(Family family) {
+        summaryRepository.save(toSummary(family));
+    }
+
+    @Transactional
+    public void remove(Long familyId) {
+        if (summaryRepository.existsById(familyId)) {
+            summaryRepository.deleteById(familyId);
+        }
+    }
+
+    /**
+     * Adjusts the counts after a non-head member was deleted, without loading
+     * the family.
+     */
+    @Transactional
+    public void memberRemoved(Long familyId, PersonStatus status) {
+        boolean active = status == PersonStatus.ACTIVE;
+        summaryRepository.applyMemberRemoved(familyId, active ? 1 : 0, active ? 0 : 1,
+            (int) memberValidationService.countStoredErrors(familyId), LocalDateTime.now());
+    }
+
+    /**
+     * Regenerates the whole read model from the source tables while writes
+     * go on: families are read in ID order in chunks of their own
+     * transaction, locked for the chunk so a concurrent write to one of them
+     * waits (or is waited for) instead of being overwritten, and their
+     * summaries are upserted. Summaries of families that no longer exist are
+     * removed at the end. One rebuild runs at a time.
+     */
+    public int rebuildAll() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new IllegalStateException("A family summary rebuild is already running");
+        }
+        try {
+            log.info("Rebuilding family summary read model");
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            int rebuilt = 0;
+            long afterId = 0;
+            while (true) {
+                long from = afterId;
+                List<Long> chunk = transaction.execute(status -> rebuildChunk(from));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                rebuilt += chunk.size();
+                afterId = chunk.get(chunk.size() - 1);
+            }
+            int removed = transaction.execute(status -> summaryRepository.deleteOrphans());
+
+            log.info("Family summary rebuild complete: {} families, {} stale summaries removed", rebuilt, removed);
+            return rebuilt;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    // IDs of the families rebuilt; empty when there are no more
+    private List<Long> rebuildChunk(long afterId) {
+        List<Family> families = familyRepository.findChunkForUpdate(afterId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+        for (Family family : families) {
+            memberValidationService.revalidateFamily(family);
+            summaryRepository.save(toSummary(family));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return families.stream().map(Family::getId).collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public boolean needsRebuild() {
+        return summaryRepository.count() != familyRepository.count()
+            || memberValidationService.needsRebuild();
+    }
+
+    private FamilySummary toSummary(Family family) {
+        List<Person> members = family.getMembers();
+        Person head = family.getFamilyHead();
+
+        int activeCount = (int) members.stream()
+            .filter(p -> p.getStatus() == PersonStatus.ACTIVE)
+            .count();
+
+        // Stored per-member results are already current for this transaction
+        int validationErrorCount = (int) memberValidationService.countStoredErrors(family.getId());
+
+        return FamilySummary.builder()
+            .id(family.getId())
+            .familyCode(family.getFamilyCode())
+            .contactPerson(family.getContactPerson())
+            .contactNumber(family.getContactNumber())
+            .headName(head != null && head.getVoterDetails2002() != null ? head.getVoterDetails2002().getName() : null)
+            .headStatus(head != null ? head.getStatus() : null)
+            .headEpicNo(head != null && head.getVoterDetails2002() != null ? head.getVoterDetails2002().getEpicNo() : null)
+            .memberCount(members.size())
+            .activeCount(activeCount)
+            .expiredCount(members.size() - activeCount)
+            .validationErrorCount(validationErrorCount)
+            .createdBy(family.getCreatedBy())
+            .createdAt(family.getCreatedAt())
+            .updatedAt(LocalDateTime.now())
+            .build();
+    }
+}
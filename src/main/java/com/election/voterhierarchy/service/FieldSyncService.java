@@ -0,0 +1,516 @@
+package com.election.voterhierarchy.service;
+
+import com.election.voterhierarchy.config.ReadYourWritesContext;
+import com.election.voterhierarchy.config.ShardContext;
+import com.election.voterhierarchy.dto.*;
+import com.election.voterhierarchy.entity.Family;
+import com.election.voterhierarchy.entity.FamilyChangeEvent;
+import com.election.voterhierarchy.entity.Person;
+import com.election.voterhierarchy.enums.SyncOutcome;
+import com.election.voterhierarchy.repository.FamilyProjectionRepository;
+import com.election.voterhierarchy.repository.FamilyRepository;
+import com.election.voterhierarchy.repository.PersonRepository;
+import com.election.voterhierarchy.service.FamilyChangeReader.CommittedRead;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Offline-first sync for field devices. One round-trip uploads the families
+ * and members captured or edited offline and returns what changed on the
+ * server since the device's cursor.
+ *
+ * Uploads are idempotent: records are found by their device-generated client
+ * reference, so sending the same upload again creates nothing and reports
+ * UNCHANGED. Edits carry the revision (family) or version (member) they were
+ * made from and are applied only if the server copy is still at it;
+ * otherwise the item reports CONFLICT and the server copy comes back in the
+ * changes. Families are written in transactions of several families each;
+ * if one fails, its transaction is rolled back and the families are written
+ * again one by one, so the failure stays with that family.
+ *
+ * Changes are read from the family change outbox after the cursor and sent
+ * as the current state of each changed family, plus the IDs of deleted ones.
+ * A cursor from before the outbox retention purge (see ChangeFeedService) is
+ * reported as expired; the device then downloads its families afresh.
+ */
+@Service
+@Slf4j
+public class FieldSyncService {
+
+    private static final int LOOKUP_CHUNK = 500;
+
+    private final FamilyService familyService;
+    private final FamilyRepository familyRepository;
+    private final PersonRepository personRepository;
+    private final FamilyProjectionRepository projectionRepository;
+    private final FamilyChangeReader changeReader;
+    private final ChangeFeedService changeFeedService;
+    private final ShardRouter shardRouter;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTemplate;
+    private final int maxFamilies;
+    private final int familiesPerTransaction;
+    private final int maxChanges;
+
+    public FieldSyncService(FamilyService familyService,
+                            FamilyRepository familyRepository,
+                            PersonRepository personRepository,
+                            FamilyProjectionRepository projectionRepository,
+                            FamilyChangeReader changeReader,
+                            ChangeFeedService changeFeedService,
+                            ShardRouter shardRouter,
+                            Validator validator,
+                            EntityManager entityManager,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.sync.max-families:1000}") int maxFamilies,
+                            @Value("${app.sync.families-per-transaction:50}") int familiesPerTransaction,
+                            @Value("${app.sync.max-changes:2000}") int maxChanges) {
+        this.familyService = familyService;
+        this.familyRepository = familyRepository;
+        this.personRepository = personRepository;
+        this.projectionRepository = projectionRepository;
+        this.changeReader = changeReader;
+        this.changeFeedService = changeFeedService;
+        this.shardRouter = shardRouter;
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.maxFamilies = maxFamilies;
+        this.familiesPerTransaction = Math.max(1, familiesPerTransaction);
+        this.maxChanges = Math.max(1, maxChanges);
+    }
+
+    public SyncResponse sync(SyncRequest request) {
+        List<SyncFamilyDTO> families = request.getFamilies() != null ? request.getFamilies() : List.of();
+        if (families.size() > maxFamilies) {
+            throw new IllegalArgumentException("At most " + maxFamilies + " families per sync; split the upload");
+        }
+        // A bad cursor rejects the round-trip before anything is written
+        OutboxCursor cursor = OutboxCursor.parse(request.getCursor());
+
+        long started = System.nanoTime();
+        List<SyncItemResult> results = upload(families);
+        if (!families.isEmpty()) {
+            // The changes below must include this upload, also when reads go to a replica
+            ReadYourWritesContext.recordWrite();
+        }
+
+        SyncResponse response = changesSince(cursor);
+        response.setResults(results);
+        log.info("Sync from device {}: {} families uploaded, {} changed families returned in {} ms",
+            request.getDeviceId(), families.size(), response.getChanged().size(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return response;
+    }
+
+    private List<SyncItemResult> upload(List<SyncFamilyDTO> families) {
+        List<List<SyncItemResult>> perFamily = new ArrayList<>(Collections.nCopies(families.size(), null));
+        Map<String, List<PendingFamily>> byShard = new LinkedHashMap<>();
+
+        for (int i = 0; i < families.size(); i++) {
+            SyncFamilyDTO item = families.get(i);
+            if (item.getMembers() == null) {
+                item.setMembers(new ArrayList<>());
+            }
+            PendingFamily pending = new PendingFamily(i, item, new ArrayList<>(), new ArrayList<>());
+            String error = checkFamily(item);
+            if (error == null) {
+                checkMembers(pending);
+                try {
+                    byShard.computeIfAbsent(shardOf(item), s -> new ArrayList<>()).add(pending);
+                    continue;
+                } catch (RuntimeException e) {
+                    error = e.getMessage();
+                }
+            }
+            perFamily.set(i, failed(pending, SyncOutcome.REJECTED, error));
+        }
+
+        byShard.forEach((shard, pending) -> shardRouter.runOnShard(shard, () -> {
+            for (int from = 0; from < pending.size(); from += familiesPerTransaction) {
+                applyChunk(pending.subList(from, Math.min(from + familiesPerTransaction, pending.size())), perFamily);
+            }
+            resolveIds(pending, perFamily);
+        }));
+
+        return perFamily.stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    /**
+     * Checks what a family needs before any write, including the head
+     * rules the web form applies. Returns the error, or null.
+     */
+    private String checkFamily(SyncFamilyDTO item) {
+        String error = violations(validator.validate(item));
+        if (error == null && item.getHead() != null) {
+            error = violations(validator.validate(item.getHead()));
+            if (error == null) {
+                try {
+                    item.getHead().setClientRef(item.getClientRef());
+                    familyService.prepareHead(item.getHead());
+                } catch (IllegalArgumentException e) {
+                    error = e.getMessage();
+                }
+            }
+        }
+        return error;
+    }
+
+    /**
+     * Rejects bad members on their own; the rest of the family still syncs.
+     */
+    private void checkMembers(PendingFamily pending) {
+        for (SyncMemberDTO member : pending.item.getMembers()) {
+            String error = violations(validator.validate(member));
+            if (error == null && member.getMember() == null) {
+                error = "Member details are required";
+            }
+            if (error == null) {
+                try {
+                    member.getMember().setClientRef(member.getClientRef());
+                    familyService.prepareMember(member.getMember());
+                } catch (IllegalArgumentException e) {
+                    error = e.getMessage();
+                }
+            }
+            if (error == null) {
+                pending.members.add(member);
+            } else {
+                pending.rejected.add(memberResult(pending.item, member, SyncOutcome.REJECTED, error));
+            }
+        }
+    }
+
+    /**
+     * Shard the family lives on, or is created on; null when not sharded.
+     */
+    private String shardOf(SyncFamilyDTO item) {
+        if (!shardRouter.isSharded()) {
+            return null;
+        }
+        if (item.getId() != null) {
+            return shardRouter.shardOfFamily(item.getId());
+        }
+        if (item.getHead() != null) {
+            return shardRouter.assignAc(item.getHead().getAcNo2002());
+        }
+        // Members for a family the device knows only by its own reference
+        return shardRouter.scatter(() -> familyRepository.findIdByClientRef(item.getClientRef())).stream()
+            .filter(Optional::isPresent)
+            .map(id -> shardRouter.shardOfFamily(id.get()))
+            .findFirst()
+            .orElseThrow(() -> new RuntimeException("Family not found with client reference: " + item.getClientRef()));
+    }
+
+    private void applyChunk(List<PendingFamily> chunk, List<List<SyncItemResult>> perFamily) {
+        Map<Integer, List<SyncItemResult>> chunkResults = new HashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (PendingFamily pending : chunk) {
+                    chunkResults.put(pending.index, apply(pending));
+                }
+            });
+            chunkResults.forEach(perFamily::set);
+            return;
+        } catch (RuntimeException e) {
+            if (chunk.size() == 1) {
+                perFamily.set(chunk.get(0).index, failed(chunk.get(0), e));
+                return;
+            }
+            log.debug("Sync transaction of {} families failed ({}); writing them one by one", chunk.size(), e.getMessage());
+        }
+
+        for (PendingFamily pending : chunk) {
+            try {
+                perFamily.set(pending.index, transactionTemplate.execute(status -> apply(pending)));
+            } catch (RuntimeException e) {
+                perFamily.set(pending.index, failed(pending, e));
+            }
+        }
+    }
+
+    /**
+     * Writes one family and its members inside the caller's transaction.
+     * Every write works on freshly loaded rows, like a request of its own.
+     */
+    private List<SyncItemResult> apply(PendingFamily pending) {
+        SyncFamilyDTO item = pending.item;
+        List<SyncItemResult> results = new ArrayList<>();
+
+        Family family = item.getId() != null
+            ? familyRepository.findById(item.getId())
+                .orElseThrow(() -> new RuntimeException("Family not found with ID: " + item.getId()))
+            : familyRepository.findByClientRef(item.getClientRef()).orElse(null);
+
+        SyncOutcome familyOutcome;
+        if (family == null) {
+            if (item.getHead() == null) {
+                throw new RuntimeException("Family not found with client reference: " + item.getClientRef());
+            }
+            family = familyService.createFamilyWithHead(item.getHead());
+            familyOutcome = SyncOutcome.CREATED;
+        } else if (item.getHead() == null || item.getRevision() == null) {
+            // Already on the server: this upload was sent before
+            familyOutcome = SyncOutcome.UNCHANGED;
+        } else if (item.getRevision() != family.getRevision()) {
+            familyOutcome = SyncOutcome.CONFLICT;
+        } else {
+            familyService.updateFamily(family.getId(), toFamilyUpdate(item.getHead(), item.getRevision()));
+            familyOutcome = SyncOutcome.UPDATED;
+        }
+        Long familyId = family.getId();
+        results.add(familyResult(item, familyOutcome, null));
+        flushAndClear();
+
+        List<FamilyMemberDTO> newMembers = new ArrayList<>();
+        for (SyncMemberDTO member : pending.members) {
+            Person person = member.getId() != null
+                ? personRepository.findById(member.getId()).orElse(null)
+                : personRepository.findByClientRef(member.getClientRef()).orElse(null);
+
+            if (person == null) {
+                if (member.getId() != null) {
+                    results.add(memberResult(item, member, SyncOutcome.REJECTED, "Member not found with ID: " + member.getId()));
+                } else {
+                    newMembers.add(member.getMember());
+                    results.add(memberResult(item, member, SyncOutcome.CREATED, null));
+                }
+            } else if (!familyId.equals(person.getFamily().getId())) {
+                results.add(memberResult(item, member, SyncOutcome.REJECTED, "Member belongs to another family"));
+            } else if (member.getVersion() == null) {
+                results.add(memberResult(item, member, SyncOutcome.UNCHANGED, null));
+            } else if (!member.getVersion().equals(person.getVersion())) {
+                results.add(memberResult(item, member, SyncOutcome.CONFLICT, null));
+            } else if (person.isFamilyHead()) {
+                results.add(memberResult(item, member, SyncOutcome.REJECTED, "Edit the family head with the family"));
+            } else {
+                familyService.updateMember(person.getId(), toPersonUpdate(person.getId(), member));
+                results.add(memberResult(item, member, SyncOutcome.UPDATED, null));
+                flushAndClear();
+            }
+        }
+        if (!newMembers.isEmpty()) {
+            familyService.addFamilyMembers(familyId, newMembers);
+            flushAndClear();
+        }
+
+        results.addAll(pending.rejected);
+        return results;
+    }
+
+    /**
+     * Fills in the server ID and revision or version of every result, read
+     * after the writes committed.
+     */
+    private void resolveIds(List<PendingFamily> pending, List<List<SyncItemResult>> perFamily) {
+        List<SyncItemResult> results = pending.stream()
+            .flatMap(p -> perFamily.get(p.index).stream())
+            .collect(Collectors.toList());
+        List<String> familyRefs = results.stream().filter(r -> r.getFamilyClientRef() == null)
+            .map(SyncItemResult::getClientRef).collect(Collectors.toList());
+        List<String> memberRefs = results.stream().filter(r -> r.getFamilyClientRef() != null)
+            .map(SyncItemResult::getClientRef).collect(Collectors.toList());
+
+        Map<String, SyncRef> families = readOnlyTemplate.execute(status ->
+            lookup(familyRefs, projectionRepository::findFamilyRefs));
+        Map<String, SyncRef> members = readOnlyTemplate.execute(status ->
+            lookup(memberRefs, projectionRepository::findMemberRefs));
+
+        for (SyncItemResult result : results) {
+            SyncRef ref = (result.getFamilyClientRef() == null ? families : members).get(result.getClientRef());
+            if (ref != null) {
+                result.setId(ref.getId());
+                result.setVersion(ref.getVersion());
+            }
+        }
+    }
+
+    private Map<String, SyncRef> lookup(List<String> clientRefs, Function<List<String>, List<SyncRef>> query) {
+        Map<String, SyncRef> refs = new HashMap<>();
+        for (int from = 0; from < clientRefs.size(); from += LOOKUP_CHUNK) {
+            query.apply(clientRefs.subList(from, Math.min(from + LOOKUP_CHUNK, clientRefs.size())))
+                .forEach(ref -> refs.put(ref.getClientRef(), ref));
+        }
+        return refs;
+    }
+
+    /**
+     * Families changed after the cursor on every shard, as their current
+     * state, up to max-changes outbox events per shard.
+     */
+    private SyncResponse changesSince(OutboxCursor cursor) {
+        SyncResponse response = new SyncResponse();
+        shardRouter.forEachShard(() -> readOnlyTemplate.executeWithoutResult(status -> {
+            String shard = ShardContext.current();
+            long from = cursor.position(shard);
+            long purged = changeFeedService.purgedThrough();
+            if (from > 0 && from < purged) {
+                response.setCursorExpired(true);
+            }
+            if (from < purged) {
+                cursor.reset(shard, purged);
+            }
+            CommittedRead read = changeReader.readCommitted(cursor, maxChanges);
+            read.advanceAll(cursor, shard);
+            List<FamilyChangeEvent> events = read.events();
+            if (events.isEmpty()) {
+                return;
+            }
+            if (read.full()) {
+                response.setHasMore(true);
+            }
+
+            List<Long> familyIds = events.stream().map(FamilyChangeEvent::getFamilyId).distinct().collect(Collectors.toList());
+            List<SyncFamilyResponse> changed = loadFamilies(familyIds);
+            Set<Long> present = changed.stream().map(SyncFamilyResponse::getFamilyId).collect(Collectors.toSet());
+            response.getChanged().addAll(changed);
+            familyIds.stream().filter(id -> !present.contains(id)).forEach(response.getDeleted()::add);
+        }));
+        response.setCursor(cursor.toString());
+        return response;
+    }
+
+    private List<SyncFamilyResponse> loadFamilies(List<Long> familyIds) {
+        List<SyncFamilyResponse> families = new ArrayList<>();
+        for (int from = 0; from < familyIds.size(); from += LOOKUP_CHUNK) {
+            List<Long> ids = familyIds.subList(from, Math.min(from + LOOKUP_CHUNK, familyIds.size()));
+            List<SyncFamilyResponse> chunk = projectionRepository.findSyncFamilies(ids);
+            Map<Long, SyncFamilyResponse> byId = chunk.stream()
+                .collect(Collectors.toMap(SyncFamilyResponse::getFamilyId, Function.identity()));
+            for (MemberResponse member : projectionRepository.findMembersOfFamilies(ids)) {
+                SyncFamilyResponse family = byId.get(member.getFamilyId());
+                if (family != null) {
+                    family.getMembers().add(member);
+                }
+            }
+            families.addAll(chunk);
+        }
+        return families;
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private List<SyncItemResult> failed(PendingFamily pending, RuntimeException e) {
+        SyncOutcome outcome = e instanceof OptimisticLockingFailureException ? SyncOutcome.CONFLICT : SyncOutcome.REJECTED;
+        String error = outcome == SyncOutcome.CONFLICT ? "Changed on the server while syncing" : e.getMessage();
+        log.warn("Sync of family {} failed: {}", pending.item.getClientRef(), e.getMessage());
+        return failed(pending, outcome, error);
+    }
+
+    private List<SyncItemResult> failed(PendingFamily pending, SyncOutcome outcome, String error) {
+        List<SyncItemResult> results = new ArrayList<>();
+        results.add(familyResult(pending.item, outcome, error));
+        // Members already rejected keep their own reason
+        Set<String> rejected = pending.rejected.stream().map(SyncItemResult::getClientRef).collect(Collectors.toSet());
+        for (SyncMemberDTO member : pending.item.getMembers()) {
+            if (!rejected.contains(member.getClientRef())) {
+                results.add(memberResult(pending.item, member, outcome, error));
+            }
+        }
+        results.addAll(pending.rejected);
+        return results;
+    }
+
+    private SyncItemResult familyResult(SyncFamilyDTO item, SyncOutcome outcome, String error) {
+        return SyncItemResult.builder()
+            .clientRef(item.getClientRef())
+            .outcome(outcome)
+            .error(error)
+            .build();
+    }
+
+    private SyncItemResult memberResult(SyncFamilyDTO item, SyncMemberDTO member, SyncOutcome outcome, String error) {
+        return SyncItemResult.builder()
+            .clientRef(member.getClientRef())
+            .familyClientRef(item.getClientRef())
+            .outcome(outcome)
+            .error(error)
+            .build();
+    }
+
+    private String violations(Set<? extends ConstraintViolation<?>> violations) {
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+    }
+
+    private FamilyUpdateDTO toFamilyUpdate(FamilyHeadDTO head, Long revision) {
+        return FamilyUpdateDTO.builder()
+            .revision(revision)
+            .contactPerson(head.getContactPerson())
+            .contactNumber(head.getContactNumber())
+            .headName2002(head.getName2002())
+            .headParentSpouseName2002(head.getParentSpouseName2002())
+            .headEpicNo2002(head.getEpicNo2002())
+            .headAcNo2002(head.getAcNo2002())
+            .headPartNo2002(head.getPartNo2002())
+            .headSerialNo2002(head.getSerialNo2002())
+            .headStatus(head.getStatus())
+            .headNameCurrent(head.getNameCurrent())
+            .headParentSpouseNameCurrent(head.getParentSpouseNameCurrent())
+            .headEpicNoCurrent(head.getEpicNoCurrent())
+            .headAcNoCurrent(head.getAcNoCurrent())
+            .headPartNoCurrent(head.getPartNoCurrent())
+            .headSerialNoCurrent(head.getSerialNoCurrent())
+            .headBloName(head.getBloName())
+            .headBloMobile(head.getBloMobile())
+            .build();
+    }
+
+    private PersonUpdateDTO toPersonUpdate(Long personId, SyncMemberDTO sync) {
+        FamilyMemberDTO member = sync.getMember();
+        return PersonUpdateDTO.builder()
+            .personId(personId)
+            .version(sync.getVersion())
+            .relationType(member.getRelationType())
+            .age(member.getAge())
+            .status(member.getStatus())
+            .name2002(member.getName2002())
+            .parentSpouseName2002(member.getParentSpouseName2002())
+            .epicNo2002(member.getEpicNo2002())
+            .acNo2002(member.getAcNo2002())
+            .partNo2002(member.getPartNo2002())
+            .serialNo2002(member.getSerialNo2002())
+            .nameCurrent(member.getNameCurrent())
+            .parentSpouseNameCurrent(member.getParentSpouseNameCurrent())
+            .epicNoCurrent(member.getEpicNoCurrent())
+            .acNoCurrent(member.getAcNoCurrent())
+            .partNoCurrent(member.getPartNoCurrent())
+            .serialNoCurrent(member.getSerialNoCurrent())
+            .bloName(member.getBloName())
+            .bloMobile(member.getBloMobile())
+            .build();
+    }
+
+    // Members that passed the checks, and results of those that did not
+    private record PendingFamily(int index, SyncFamilyDTO item, List<SyncMemberDTO> members,
+                                 List<SyncItemResult> rejected) {
+    }
+}
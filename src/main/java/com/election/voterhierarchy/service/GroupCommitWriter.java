@@ -0,0 +1,292 @@
+package com.election.voterhierarchy.service;
+
+import com.election.voterhierarchy.config.ReadYourWritesContext;
+import com.election.voterhierarchy.config.ShardContext;
+import com.election.voterhierarchy.dto.FamilyMemberDTO;
+import com.election.voterhierarchy.util.ThreadFactoryUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Group commit for single-member additions. With it enabled, a submission is
+ * validated on the caller's thread, queued, and written by a committer
+ * together with whatever else arrived within the batch window: up to
+ * max-batch-size members or max-delay-ms, in one transaction and so one
+ * commit (one log flush) per batch instead of per member. The caller blocks
+ * until its batch is committed and gets its own result.
+ *
+ * Failures stay with their item: if any member of a batch fails, the batch
+ * is rolled back and its members are written again one transaction each,
+ * so only the failing one reports an error. Batches are formed per shard.
+ * Each member is written as the operator who submitted it; a member whose
+ * caller stopped waiting is skipped if its batch has not started yet.
+ * With group commit disabled, members are written directly as before.
+ */
+@Service
+@Slf4j
+public class GroupCommitWriter {
+
+    private final FamilyService familyService;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final long waitTimeoutMs;
+    private final int committers;
+    private final BlockingQueue<PendingMember> queue;
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong committed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong splitBatches = new AtomicLong();
+    private ExecutorService committerPool;
+    private volatile boolean running;
+
+    public GroupCommitWriter(FamilyService familyService,
+                             ShardRouter shardRouter,
+                             PlatformTransactionManager transactionManager,
+                             EntityManager entityManager,
+                             @Value("${app.group-commit.enabled:false}") boolean enabled,
+                             @Value("${app.group-commit.max-batch-size:50}") int maxBatchSize,
+                             @Value("${app.group-commit.max-delay-ms:10}") long maxDelayMs,
+                             @Value("${app.group-commit.queue-capacity:2000}") int queueCapacity,
+                             @Value("${app.group-commit.wait-timeout-ms:30000}") long waitTimeoutMs,
+                             @Value("${app.group-commit.committers:2}") int committers) {
+        this.familyService = familyService;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.enabled = enabled;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxDelayMs));
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.committers = Math.max(1, committers);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        committerPool = Executors.newFixedThreadPool(committers, ThreadFactoryUtil.named("group-commit-", false));
+        for (int i = 0; i < committers; i++) {
+            committerPool.submit(this::commitLoop);
+        }
+        log.info("Group commit enabled: up to {} members or {} ms per batch, {} committers",
+            maxBatchSize, TimeUnit.NANOSECONDS.toMillis(maxDelayNanos), committers);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (committerPool != null) {
+            committerPool.shutdown();
+            try {
+                committerPool.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Anything still queued was never written
+        PendingMember left;
+        while ((left = queue.poll()) != null) {
+            left.result.completeExceptionally(new IllegalStateException("Server is shutting down; member not saved"));
+        }
+    }
+
+    /**
+     * Adds the member and returns once it is committed; throws what
+     * FamilyService.addFamilyMember would have thrown for it.
+     */
+    public void addFamilyMember(Long familyId, FamilyMemberDTO dto) {
+        if (!enabled) {
+            familyService.addFamilyMember(familyId, dto);
+            return;
+        }
+
+        familyService.prepareMember(dto);
+        PendingMember pending = new PendingMember(ShardContext.current(), familyId, dto,
+            SecurityContextHolder.getContext().getAuthentication(), new CompletableFuture<>());
+        try {
+            if (!queue.offer(pending, waitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Too many members waiting to be saved; member not saved, please retry");
+            }
+            pending.result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while saving member");
+        } catch (TimeoutException e) {
+            // A committer that has not reached the member yet skips it
+            pending.result.cancel(false);
+            throw new IllegalStateException("Saving the member is taking unusually long; check the family before retrying");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Error saving member", e.getCause());
+        }
+        // The write happened on the committer thread; the caller's next reads must still see it
+        ReadYourWritesContext.recordWrite();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("maxBatchSize", maxBatchSize);
+        stats.put("maxDelayMs", TimeUnit.NANOSECONDS.toMillis(maxDelayNanos));
+        stats.put("queued", queue.size());
+        stats.put("batches", batches.get());
+        stats.put("committed", committed.get());
+        stats.put("failed", failed.get());
+        stats.put("splitBatches", splitBatches.get());
+        long batchCount = batches.get();
+        stats.put("averageBatchSize", batchCount > 0 ? Math.round(10.0 * committed.get() / batchCount) / 10.0 : 0);
+        return stats;
+    }
+
+    private void commitLoop() {
+        List<PendingMember> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                PendingMember first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // The window opens with the first member; take what arrives until it closes or the batch is full
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    PendingMember next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commitByShard(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Group commit failed", e);
+                batch.forEach(p -> p.result.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commitByShard(List<PendingMember> batch) {
+        Map<String, List<PendingMember>> byShard = new LinkedHashMap<>();
+        for (PendingMember pending : batch) {
+            byShard.computeIfAbsent(pending.shard, s -> new ArrayList<>()).add(pending);
+        }
+        byShard.forEach((shard, members) -> {
+            if (shard == null) {
+                commit(members);
+            } else {
+                shardRouter.runOnShard(shard, () -> commit(members));
+            }
+        });
+    }
+
+    private void commit(List<PendingMember> batch) {
+        // Callers that gave up waiting have cancelled theirs
+        List<PendingMember> members = batch.stream().filter(p -> !p.result.isDone()).collect(Collectors.toList());
+        if (members.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (PendingMember pending : members) {
+                    addAs(pending);
+                    // Each member works on freshly loaded rows, like a request of its own
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            });
+        } catch (RuntimeException e) {
+            if (members.size() == 1) {
+                fail(members.get(0), e);
+                return;
+            }
+            // One member failed and took the batch with it: write each on its own
+            log.debug("Batch of {} failed ({}); committing members one by one", members.size(), e.getMessage());
+            splitBatches.incrementAndGet();
+            for (PendingMember pending : members) {
+                if (pending.result.isDone()) {
+                    continue;
+                }
+                try {
+                    addAs(pending);
+                    succeed(List.of(pending));
+                } catch (RuntimeException memberError) {
+                    fail(pending, memberError);
+                }
+            }
+            return;
+        }
+        succeed(members);
+    }
+
+    /**
+     * Writes the member as the operator who submitted it, so the change
+     * outbox records them rather than SYSTEM.
+     */
+    private void addAs(PendingMember pending) {
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(pending.authentication);
+        SecurityContextHolder.setContext(context);
+        try {
+            familyService.addFamilyMember(pending.familyId, pending.dto);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private void succeed(List<PendingMember> members) {
+        batches.incrementAndGet();
+        committed.addAndGet(members.size());
+        members.forEach(p -> p.result.complete(null));
+    }
+
+    private void fail(PendingMember pending, RuntimeException e) {
+        failed.incrementAndGet();
+        pending.result.completeExceptionally(e);
+    }
+
+    private record PendingMember(String shard, Long familyId, FamilyMemberDTO dto, Authentication authentication,
+                                 CompletableFuture<Void> result) {
+    }
+}
@@ -10,14 +10,28 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Service
 @Slf4j
 public class HierarchyValidationService {
 
+    /**
+     * Which relation types read the 2002 name of a given relation type during
+     * validation. A 2002 name change on the key means the listed members must
+     * be revalidated; any other change only affects the member itself.
+     */
+    private static final Map<RelationType, Set<RelationType>> NAME_DEPENDENTS = Map.of(
+        RelationType.FAMILY_HEAD, EnumSet.of(RelationType.SPOUSE, RelationType.SON,
+                                             RelationType.DAUGHTER, RelationType.DEPENDENT),
+        RelationType.SPOUSE, EnumSet.of(RelationType.SON, RelationType.DAUGHTER, RelationType.DEPENDENT)
+    );
+
     /**
      * Validates family hierarchy based on CURRENT voter ID data only.
      * Validation Rules:
@@ -32,20 +46,8 @@ public class HierarchyValidationService {
             return errors;
         }
 
-        String familyHeadName2002 = StringNormalizationUtil.normalize(
-            familyHead.getVoterDetails2002().getName()
-        );
-
-        // Collect all spouse names from 2002 data
-        Set<String> spouseNames2002 = new HashSet<>();
-        for (Person member : members) {
-            if (member.getRelationType() == RelationType.SPOUSE && 
-                member.getVoterDetails2002() != null) {
-                spouseNames2002.add(StringNormalizationUtil.normalize(
-                    member.getVoterDetails2002().getName()
-                ));
-            }
-        }
+        String familyHeadName2002 = headName2002(familyHead);
+        Set<String> spouseNames2002 = spouseNames2002(members);
 
         log.debug("Family head name (2002): {}", familyHeadName2002);
         log.debug("Spouse names (2002): {}", spouseNames2002);
@@ -66,7 +68,42 @@ public class HierarchyValidationService {
         return errors;
     }
 
-    private ValidationError validateMember(Person member, String familyHeadName2002, Set<String> spouseNames2002) {
+    /**
+     * Relation types whose result depends on the 2002 name of a member with
+     * the given relation type.
+     */
+    public Set<RelationType> nameDependentsOf(RelationType relationType) {
+        return NAME_DEPENDENTS.getOrDefault(relationType, Collections.emptySet());
+    }
+
+    public String headName2002(Person familyHead) {
+        if (familyHead == null || familyHead.getVoterDetails2002() == null) {
+            return null;
+        }
+        return StringNormalizationUtil.normalize(familyHead.getVoterDetails2002().getName());
+    }
+
+    /**
+     * Collects all spouse names from 2002 data.
+     */
+    public Set<String> spouseNames2002(List<Person> members) {
+        Set<String> spouseNames2002 = new HashSet<>();
+        for (Person member : members) {
+            if (member.getRelationType() == RelationType.SPOUSE && 
+                member.getVoterDetails2002() != null) {
+                spouseNames2002.add(StringNormalizationUtil.normalize(
+                    member.getVoterDetails2002().getName()
+                ));
+            }
+        }
+        return spouseNames2002;
+    }
+
+    /**
+     * Validates a single non-head member against the head and spouse 2002
+     * names. Returns null when the member passes or is not checked.
+     */
+    public ValidationError validateMember(Person member, String familyHeadName2002, Set<String> spouseNames2002) {
         // Skip validation if no current voter details (expired members without current ID)
         VoterDetailsCurrent currentDetails = member.getVoterDetailsCurrent();
         if (currentDetails == null) {
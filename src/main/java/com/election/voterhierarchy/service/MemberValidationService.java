@@ -0,0 +1,140 @@
+package com.election.voterhierarchy.service;
+
+import com.election.voterhierarchy.dto.ValidationError;
+import com.election.voterhierarchy.entity.Family;
+import com.election.voterhierarchy.entity.MemberValidation;
+import com.election.voterhierarchy.entity.Person;
+import com.election.voterhierarchy.enums.RelationType;
+import com.election.voterhierarchy.repository.MemberValidationRepository;
+import com.election.voterhierarchy.repository.PersonRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps per-member validation results in member_validation. Writers call the
+ * narrowest method that covers their change; pages read the stored results.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MemberValidationService {
+
+    private final MemberValidationRepository validationRepository;
+    private final PersonRepository personRepository;
+    private final HierarchyValidationService hierarchyValidationService;
+
+    /**
+     * Revalidates the given members of a family.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void revalidateMembers(Family family, Collection<Person> targets) {
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        List<Person> nonHeadMembers = nonHeadMembers(family);
+        String headName2002 = hierarchyValidationService.headName2002(family.getFamilyHead());
+        Set<String> spouseNames2002 = hierarchyValidationService.spouseNames2002(nonHeadMembers);
+
+        for (Person target : targets) {
+            if (target.isFamilyHead()) {
+                continue;
+            }
+            // Without head 2002 data the hierarchy is not checked (same as a full validation)
+            ValidationError error = headName2002 == null ? null
+                : hierarchyValidationService.validateMember(target, headName2002, spouseNames2002);
+            validationRepository.save(toResult(family.getId(), target, error));
+        }
+        log.debug("Revalidated {} member(s) of family ID: {}", targets.size(), family.getId());
+    }
+
+    /**
+     * Revalidates the members whose result depends on the 2002 name of a
+     * member with the given relation type (head or spouse).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void revalidateDependentsOf(Family family, RelationType changedRelation) {
+        Set<RelationType> dependentRelations = hierarchyValidationService.nameDependentsOf(changedRelation);
+        if (dependentRelations.isEmpty()) {
+            return;
+        }
+
+        List<Person> dependents = nonHeadMembers(family).stream()
+            .filter(p -> dependentRelations.contains(p.getRelationType()))
+            .collect(Collectors.toList());
+        revalidateMembers(family, dependents);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void revalidateFamily(Family family) {
+        revalidateMembers(family, nonHeadMembers(family));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeMember(Long personId) {
+        if (validationRepository.existsById(personId)) {
+            validationRepository.deleteById(personId);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeFamily(Long familyId) {
+        validationRepository.deleteByFamilyId(familyId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ValidationError> getStoredErrors(Long familyId) {
+        return validationRepository.findByFamilyIdAndValidFalseOrderByPersonId(familyId).stream()
+            .map(MemberValidation::toValidationError)
+            .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public long countStoredErrors(Long familyId) {
+        return validationRepository.countByFamilyIdAndValidFalse(familyId);
+    }
+
+    /**
+     * True when some members have no stored result yet (e.g. data written
+     * before results were stored).
+     */
+    @Transactional(readOnly = true)
+    public boolean needsRebuild() {
+        return validationRepository.count() != personRepository.countNonHeadMembers();
+    }
+
+    private List<Person> nonHeadMembers(Family family) {
+        return family.getMembers().stream()
+            .filter(p -> !p.isFamilyHead())
+            .collect(Collectors.toList());
+    }
+
+    private MemberValidation toResult(Long familyId, Person member, ValidationError error) {
+        MemberValidation.MemberValidationBuilder builder = MemberValidation.builder()
+            .personId(member.getId())
+            .familyId(familyId)
+            .valid(error == null)
+            .relationType(member.getRelationType() != null ? member.getRelationType().getDisplayName() : null)
+            .validatedAt(LocalDateTime.now());
+
+        if (error != null) {
+            builder.memberName(error.getMemberName())
+                   .errorMessage(error.getErrorMessage())
+                   .expectedValue(error.getExpectedValue())
+                   .foundValue(error.getFoundValue());
+        } else if (member.getVoterDetailsCurrent() != null) {
+            builder.memberName(member.getVoterDetailsCurrent().getName());
+        }
+
+        return builder.build();
+    }
+}
@@ -0,0 +1,148 @@
+package com.election.voterhierarchy.service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Position of an outside reader in the family change outbox: the last event
+ * ID it has seen, plus the open gaps below it (IDs it read past while they
+ * were missing, whose transactions may still commit). With sharding every
+ * shard has its own outbox, so the cursor holds one position per shard.
+ * Written as "42" or "42~37~39" (gaps after '~'), or as
+ * "shard-1:42,shard-2:17" when sharded; clients treat it as opaque.
+ */
+public final class OutboxCursor {
+
+    private static final String UNSHARDED = "";
+
+    private final Map<String, Long> positions;
+    private final Map<String, NavigableSet<Long>> gaps;
+
+    private OutboxCursor(Map<String, Long> positions, Map<String, NavigableSet<Long>> gaps) {
+        this.positions = positions;
+        this.gaps = gaps;
+    }
+
+    public static OutboxCursor start() {
+        return new OutboxCursor(new LinkedHashMap<>(), new LinkedHashMap<>());
+    }
+
+    public static OutboxCursor parse(String value) {
+        if (value == null || value.isBlank()) {
+            return start();
+        }
+        OutboxCursor cursor = start();
+        try {
+            for (String part : value.trim().split(",")) {
+                int separator = part.lastIndexOf(':');
+                String shard = separator < 0 ? UNSHARDED : part.substring(0, separator).trim();
+                String[] ids = part.substring(separator + 1).trim().split("~");
+                long position = Long.parseLong(ids[0].trim());
+                if (position < 0) {
+                    throw new NumberFormatException();
+                }
+                cursor.positions.put(shard, position);
+                for (int i = 1; i < ids.length; i++) {
+                    long gap = Long.parseLong(ids[i].trim());
+                    if (gap <= 0 || gap >= position) {
+                        throw new NumberFormatException();
+                    }
+                    cursor.openGap(shard, gap);
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + value);
+        }
+        return cursor;
+    }
+
+    /**
+     * Last event ID seen on the shard (null when not sharded); 0 if none.
+     */
+    public long position(String shard) {
+        return positions.getOrDefault(key(shard), 0L);
+    }
+
+    /**
+     * Open gaps below the position on the shard, lowest first.
+     */
+    public NavigableSet<Long> gaps(String shard) {
+        NavigableSet<Long> open = gaps.get(key(shard));
+        return open != null ? Collections.unmodifiableNavigableSet(open) : Collections.emptyNavigableSet();
+    }
+
+    /**
+     * Highest ID up to which every event on the shard has been seen: the
+     * position, or just below the lowest open gap. Reading again from here
+     * redelivers rather than misses.
+     */
+    public long committedThrough(String shard) {
+        NavigableSet<Long> open = gaps.get(key(shard));
+        return open == null || open.isEmpty() ? position(shard) : open.first() - 1;
+    }
+
+    public void advance(String shard, long lastEventId) {
+        positions.merge(key(shard), lastEventId, Math::max);
+    }
+
+    public void openGap(String shard, long eventId) {
+        gaps.computeIfAbsent(key(shard), s -> new TreeSet<>()).add(eventId);
+    }
+
+    public void closeGaps(String shard, Collection<Long> eventIds) {
+        NavigableSet<Long> open = gaps.get(key(shard));
+        if (open != null) {
+            open.removeAll(eventIds);
+        }
+    }
+
+    /**
+     * Moves the shard to the given position with no open gaps.
+     */
+    public void reset(String shard, long position) {
+        positions.put(key(shard), position);
+        gaps.remove(key(shard));
+    }
+
+    public OutboxCursor copy() {
+        OutboxCursor copy = start();
+        copy.positions.putAll(positions);
+        gaps.forEach((shard, open) -> copy.gaps.put(shard, new TreeSet<>(open)));
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        if (positions.isEmpty()) {
+            return "0";
+        }
+        if (positions.size() == 1 && positions.containsKey(UNSHARDED)) {
+            return format(UNSHARDED);
+        }
+        StringBuilder value = new StringBuilder();
+        positions.keySet().forEach(shard -> {
+            if (UNSHARDED.equals(shard)) {
+                return;
+            }
+            if (value.length() > 0) {
+                value.append(',');
+            }
+            value.append(shard).append(':').append(format(shard));
+        });
+        return value.toString();
+    }
+
+    private String format(String shard) {
+        StringBuilder value = new StringBuilder().append(positions.get(shard));
+        gaps(shard).forEach(gap -> value.append('~').append(gap));
+        return value.toString();
+    }
+
+    private static String key(String shard) {
+        return shard != null ? shard : UNSHARDED;
+    }
+}
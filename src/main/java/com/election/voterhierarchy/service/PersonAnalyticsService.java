@@ -0,0 +1,338 @@
+package com.election.voterhierarchy.service;
+
+import com.election.voterhierarchy.config.ShardContext;
+import com.election.voterhierarchy.dto.AnalyticsSlice;
+import com.election.voterhierarchy.entity.FamilyChangeEvent;
+import com.election.voterhierarchy.enums.AnalyticsDimension;
+import com.election.voterhierarchy.service.FamilyChangeReader.CommittedRead;
+import com.election.voterhierarchy.service.PersonFactStore.Fact;
+import com.election.voterhierarchy.util.ThreadFactoryUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Analytics cache for supervisor breakdowns: every person with its AC, part
+ * and BLO (current roll), status, relation, head flag and validation result,
+ * held column-wise in memory (see PersonFactStore) so any group-by and
+ * filter over them is answered without a query against the family tables.
+ *
+ * The facts are loaded once in a read-only transaction (served by a replica
+ * when one is configured) on a background thread. After that, the family
+ * change outbox is read from an in-memory cursor every refresh interval and
+ * the families it names are reloaded, so slices trail writes by a few
+ * seconds. Nothing is persisted: a restarted node loads afresh. If the
+ * cursor falls behind the change feed's purge, the cache reloads.
+ */
+@Service
+@Slf4j
+public class PersonAnalyticsService implements CacheInvalidationListener {
+
+    private static final String CACHE_NAME = "person-analytics";
+
+    private static final String FACT_QUERY =
+        "SELECT p.id, p.family_id, p.status, p.relation_type, p.is_family_head, " +
+        "vc.ac_no, vc.part_no, b.blo_name, mv.valid " +
+        "FROM person p " +
+        "LEFT JOIN voter_details_current vc ON vc.person_id = p.id " +
+        "LEFT JOIN blo_details b ON b.voter_details_current_id = vc.id " +
+        "LEFT JOIN member_validation mv ON mv.person_id = p.id";
+
+    private static final int MAX_GROUP_BY = 4;
+    private static final int FAMILY_CHUNK = 500;
+    private static final int INITIAL_ROWS = 100_000;
+
+    private final ShardRouter shardRouter;
+    private final FamilyChangeReader changeReader;
+    private final ChangeFeedService changeFeedService;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate readOnlyTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxGroups;
+    private final ExecutorService loader;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean loading = new AtomicBoolean();
+    // Store and cursor are replaced and advanced under the write lock
+    private volatile PersonFactStore store;
+    private volatile OutboxCursor cursor;
+    private volatile boolean reloadRequested;
+    private volatile LocalDateTime loadedAt;
+    private volatile LocalDateTime refreshedAt;
+    private volatile long loadMillis;
+    private volatile String lastError;
+
+    public PersonAnalyticsService(ShardRouter shardRouter,
+                                  FamilyChangeReader changeReader,
+                                  ChangeFeedService changeFeedService,
+                                  DataSource dataSource,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.analytics.enabled:true}") boolean enabled,
+                                  @Value("${app.analytics.batch-size:1000}") int batchSize,
+                                  @Value("${app.analytics.max-groups:10000}") int maxGroups) {
+        this.shardRouter = shardRouter;
+        this.changeReader = changeReader;
+        this.changeFeedService = changeFeedService;
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.jdbc.setFetchSize(1000);
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxGroups = Math.max(1, maxGroups);
+        this.loader = Executors.newSingleThreadExecutor(ThreadFactoryUtil.named("analytics-load-", false));
+    }
+
+    /**
+     * Persons matching every filter (dimension to accepted values), counted
+     * per combination of the groupBy dimensions; without groupBy a single
+     * group with the totals.
+     */
+    public AnalyticsSlice slice(List<AnalyticsDimension> groupBy,
+                                Map<AnalyticsDimension, ? extends Collection<String>> filters,
+                                int limit) {
+        if (!enabled) {
+            throw new IllegalStateException("The analytics cache is disabled (app.analytics.enabled)");
+        }
+        if (groupBy.size() > MAX_GROUP_BY) {
+            throw new IllegalArgumentException("At most " + MAX_GROUP_BY + " groupBy dimensions");
+        }
+        if (groupBy.stream().distinct().count() != groupBy.size()) {
+            throw new IllegalArgumentException("Duplicate groupBy dimension");
+        }
+
+        long started = System.nanoTime();
+        AnalyticsSlice slice;
+        lock.readLock().lock();
+        try {
+            if (store == null) {
+                throw new IllegalStateException("The analytics cache is still loading");
+            }
+            slice = store.slice(groupBy, filters, Math.max(1, Math.min(limit, maxGroups)));
+        } finally {
+            lock.readLock().unlock();
+        }
+        slice.setTookMicros((System.nanoTime() - started) / 1000);
+        slice.setRefreshedAt(refreshedAt);
+        return slice;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("loading", loading.get());
+        status.put("loadedAt", loadedAt);
+        status.put("loadMillis", loadMillis);
+        status.put("refreshedAt", refreshedAt);
+        status.put("lastError", lastError);
+        lock.readLock().lock();
+        try {
+            if (store != null) {
+                status.put("persons", store.getPersons());
+                status.put("families", store.getFamilies());
+                status.put("footprintMb", Math.round(store.footprintBytes() / 1048576.0 * 10) / 10.0);
+                status.put("distinctValues", store.getDictionarySizes());
+                status.put("cursor", cursor.toString());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return status;
+    }
+
+    /**
+     * Rebuilds the cache from the database in the background; slices keep
+     * being answered from the current one until the new one is complete.
+     */
+    public void requestReload() {
+        if (!enabled) {
+            throw new IllegalStateException("The analytics cache is disabled (app.analytics.enabled)");
+        }
+        reloadRequested = true;
+        startReload();
+    }
+
+    @Override
+    public Set<String> getCacheNames() {
+        return Set.of(CACHE_NAME);
+    }
+
+    /**
+     * The data was replaced underneath the analytics cache (a snapshot restore,
+     * which writes no outbox events): reload it in the background.
+     */
+    @Override
+    public void evict(String cacheName, String key) {
+        if (enabled) {
+            reloadRequested = true;
+            startReload();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.refresh-interval-ms:2000}")
+    public void refresh() {
+        if (!enabled || loading.get()) {
+            return;
+        }
+        if (store == null || reloadRequested) {
+            startReload();
+            return;
+        }
+        try {
+            applyChanges();
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            log.warn("Analytics cache refresh failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    private void startReload() {
+        if (!loading.compareAndSet(false, true)) {
+            return;
+        }
+        loader.submit(() -> {
+            try {
+                reload();
+            } catch (Exception e) {
+                lastError = e.getMessage();
+                log.error("Analytics cache load failed", e);
+            } finally {
+                loading.set(false);
+            }
+        });
+    }
+
+    private void reload() {
+        reloadRequested = false;
+        long started = System.currentTimeMillis();
+        PersonFactStore previous = store;
+        PersonFactStore fresh = new PersonFactStore(previous != null ? previous.getPersons() + previous.getPersons() / 8 : INITIAL_ROWS);
+        OutboxCursor position = OutboxCursor.start();
+
+        shardRouter.forEachShard(() -> readOnlyTemplate.executeWithoutResult(status -> {
+            // Read first: events up to here are reflected in the rows below; later ones,
+            // and missing IDs that commit later, are applied on refresh
+            changeReader.positionAtLatest(position);
+            jdbc.query(FACT_QUERY, (RowCallbackHandler) rs -> fresh.upsert(readFact(rs)));
+        }));
+
+        lock.writeLock().lock();
+        try {
+            store = fresh;
+            cursor = position;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        loadMillis = System.currentTimeMillis() - started;
+        loadedAt = LocalDateTime.now();
+        refreshedAt = loadedAt;
+        lastError = null;
+        log.info("Analytics cache loaded: {} persons of {} families in {} ms, about {} MB",
+            fresh.getPersons(), fresh.getFamilies(), loadMillis, fresh.footprintBytes() / 1048576);
+    }
+
+    /**
+     * Reloads the families named by outbox events after the cursor, shard by
+     * shard. A family is replaced as a whole, which also covers members
+     * revalidated by a change to another member.
+     */
+    private void applyChanges() {
+        PersonFactStore current = store;
+        shardRouter.forEachShard(() -> {
+            String shard = ShardContext.current();
+            while (true) {
+                OutboxCursor position = cursor;
+                if (position.position(shard) < changeFeedService.purgedThrough()) {
+                    log.warn("Analytics cache fell behind the change feed purge{}; reloading",
+                        shard != null ? " on " + shard : "");
+                    reloadRequested = true;
+                    return;
+                }
+
+                ChangeBatch batch = readOnlyTemplate.execute(status -> readChanges(position));
+                lock.writeLock().lock();
+                try {
+                    if (store != current) {
+                        // Replaced by a reload meanwhile, which covers these changes
+                        return;
+                    }
+                    batch.familyIds().forEach(current::removeFamily);
+                    batch.facts().forEach(current::upsert);
+                    batch.read().advanceAll(position, shard);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                if (!batch.read().full()) {
+                    return;
+                }
+            }
+        });
+        refreshedAt = LocalDateTime.now();
+    }
+
+    private ChangeBatch readChanges(OutboxCursor position) {
+        CommittedRead read = changeReader.readCommitted(position, batchSize);
+        List<Long> familyIds = read.events().stream()
+            .map(FamilyChangeEvent::getFamilyId)
+            .distinct()
+            .collect(Collectors.toList());
+
+        // Deleted families and members simply are not found
+        List<Fact> facts = new ArrayList<>();
+        for (int from = 0; from < familyIds.size(); from += FAMILY_CHUNK) {
+            List<Long> chunk = familyIds.subList(from, Math.min(from + FAMILY_CHUNK, familyIds.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            jdbc.query(FACT_QUERY + " WHERE p.family_id IN (" + placeholders + ")",
+                (RowCallbackHandler) rs -> facts.add(readFact(rs)), chunk.toArray());
+        }
+        return new ChangeBatch(familyIds, facts, read);
+    }
+
+    private static Fact readFact(ResultSet rs) throws SQLException {
+        boolean valid = rs.getBoolean("valid");
+        Boolean validation = rs.wasNull() ? null : valid;
+        return new Fact(
+            rs.getLong("id"),
+            rs.getLong("family_id"),
+            rs.getString("ac_no"),
+            rs.getString("part_no"),
+            rs.getString("status"),
+            rs.getString("relation_type"),
+            rs.getString("blo_name"),
+            rs.getBoolean("is_family_head"),
+            validation);
+    }
+
+    private record ChangeBatch(List<Long> familyIds, List<Fact> facts, CommittedRead read) {
+    }
+}
@@ -0,0 +1,400 @@
+package com.election.voterhierarchy.service;
+
+import com.election.voterhierarchy.dto.AnalyticsGroup;
+import com.election.voterhierarchy.dto.AnalyticsSlice;
+import com.election.voterhierarchy.enums.AnalyticsDimension;
+import com.election.voterhierarchy.enums.PersonStatus;
+import com.election.voterhierarchy.util.LongIntHashMap;
+import com.election.voterhierarchy.util.StringDictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Person fact table held column-wise: one primitive array per attribute,
+ * strings dictionary-encoded (AC, part and BLO as int codes, the small
+ * closed sets as byte codes). A group-by is one pass over the code arrays
+ * without touching an object per row. Rows of a family are chained through
+ * nextInFamily so a family can be replaced as a whole; freed rows are
+ * reused. Not thread-safe; PersonAnalyticsService guards it with a
+ * read-write lock.
+ */
+final class PersonFactStore {
+
+    static final String TRUE = "true";
+    static final String FALSE = "false";
+
+    private static final int NO_ROW = -1;
+    private static final int MAX_BYTE_CODE = Byte.MAX_VALUE;
+    private static final long DENSE_GROUPS = 1 << 16;
+
+    // Counters kept per group
+    private static final int PERSONS = 0;
+    private static final int FAMILIES = 1;
+    private static final int ACTIVE = 2;
+    private static final int EXPIRED = 3;
+    private static final int INVALID = 4;
+    private static final int MEASURES = 5;
+
+    /**
+     * One person as loaded from the database; valid is null for family heads,
+     * which have no validation row.
+     */
+    record Fact(long personId, long familyId, String ac, String part, String status,
+                String relation, String blo, boolean head, Boolean valid) {
+    }
+
+    private final Map<AnalyticsDimension, StringDictionary> dictionaries = new EnumMap<>(AnalyticsDimension.class);
+    private final LongIntHashMap rowOfPerson;
+    private final LongIntHashMap firstRowOfFamily;
+
+    // personIds[row] == 0 marks a free row
+    private long[] personIds;
+    private long[] familyIds;
+    private int[] nextInFamily;
+    private int[] ac;
+    private int[] part;
+    private int[] blo;
+    private byte[] status;
+    private byte[] relation;
+    private byte[] head;
+    private byte[] valid;
+
+    private int highWater;
+    private int[] freeRows = new int[16];
+    private int freeCount;
+    private int families;
+
+    PersonFactStore(int expectedRows) {
+        int capacity = Math.max(1024, expectedRows);
+        for (AnalyticsDimension dimension : AnalyticsDimension.values()) {
+            dictionaries.put(dimension, new StringDictionary());
+        }
+        // Fixed codes for the two flags: 1 = true, 2 = false
+        dictionaries.get(AnalyticsDimension.HEAD).encode(TRUE);
+        dictionaries.get(AnalyticsDimension.HEAD).encode(FALSE);
+        dictionaries.get(AnalyticsDimension.VALID).encode(TRUE);
+        dictionaries.get(AnalyticsDimension.VALID).encode(FALSE);
+
+        rowOfPerson = new LongIntHashMap(capacity);
+        firstRowOfFamily = new LongIntHashMap(capacity / 3);
+        personIds = new long[capacity];
+        familyIds = new long[capacity];
+        nextInFamily = new int[capacity];
+        ac = new int[capacity];
+        part = new int[capacity];
+        blo = new int[capacity];
+        status = new byte[capacity];
+        relation = new byte[capacity];
+        head = new byte[capacity];
+        valid = new byte[capacity];
+    }
+
+    /**
+     * Inserts or replaces the person's row, also when it moved to another
+     * family.
+     */
+    void upsert(Fact fact) {
+        if (rowOfPerson.get(fact.personId()) != LongIntHashMap.MISSING) {
+            removePerson(fact.personId());
+        }
+        int row = allocateRow();
+        personIds[row] = fact.personId();
+        familyIds[row] = fact.familyId();
+        ac[row] = encode(AnalyticsDimension.AC, fact.ac());
+        part[row] = encode(AnalyticsDimension.PART, fact.part());
+        blo[row] = encode(AnalyticsDimension.BLO, fact.blo());
+        status[row] = encodeByte(AnalyticsDimension.STATUS, fact.status());
+        relation[row] = encodeByte(AnalyticsDimension.RELATION, fact.relation());
+        head[row] = encodeByte(AnalyticsDimension.HEAD, fact.head() ? TRUE : FALSE);
+        valid[row] = encodeByte(AnalyticsDimension.VALID, fact.valid() == null ? null : fact.valid() ? TRUE : FALSE);
+
+        int first = firstRowOfFamily.get(fact.familyId());
+        if (first == LongIntHashMap.MISSING) {
+            families++;
+        }
+        nextInFamily[row] = first == LongIntHashMap.MISSING ? NO_ROW : first;
+        firstRowOfFamily.put(fact.familyId(), row);
+        rowOfPerson.put(fact.personId(), row);
+    }
+
+    void removeFamily(long familyId) {
+        int row = firstRowOfFamily.remove(familyId);
+        if (row == LongIntHashMap.MISSING) {
+            return;
+        }
+        families--;
+        while (row != NO_ROW) {
+            int next = nextInFamily[row];
+            rowOfPerson.remove(personIds[row]);
+            freeRow(row);
+            row = next;
+        }
+    }
+
+    void removePerson(long personId) {
+        int row = rowOfPerson.remove(personId);
+        if (row == LongIntHashMap.MISSING) {
+            return;
+        }
+        long familyId = familyIds[row];
+        int first = firstRowOfFamily.get(familyId);
+        if (first == row) {
+            if (nextInFamily[row] == NO_ROW) {
+                firstRowOfFamily.remove(familyId);
+                families--;
+            } else {
+                firstRowOfFamily.put(familyId, nextInFamily[row]);
+            }
+        } else {
+            int previous = first;
+            while (nextInFamily[previous] != row) {
+                previous = nextInFamily[previous];
+            }
+            nextInFamily[previous] = nextInFamily[row];
+        }
+        freeRow(row);
+    }
+
+    int getPersons() {
+        return rowOfPerson.size();
+    }
+
+    int getFamilies() {
+        return families;
+    }
+
+    Map<String, Integer> getDictionarySizes() {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        dictionaries.forEach((dimension, dictionary) -> sizes.put(dimension.getParamName(), dictionary.size() - 1));
+        return sizes;
+    }
+
+    /**
+     * Heap taken by the columns, indexes and dictionaries.
+     */
+    long footprintBytes() {
+        long bytes = (long) personIds.length * (Long.BYTES * 2 + Integer.BYTES * 4 + 4);
+        bytes += (long) freeRows.length * Integer.BYTES;
+        bytes += rowOfPerson.footprintBytes() + firstRowOfFamily.footprintBytes();
+        for (StringDictionary dictionary : dictionaries.values()) {
+            bytes += dictionary.footprintBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Counts persons matching every filter (dimension to accepted values),
+     * grouped by the given dimensions; the largest groups first, at most
+     * limit of them.
+     */
+    AnalyticsSlice slice(List<AnalyticsDimension> groupBy, Map<AnalyticsDimension, ? extends Collection<String>> filters,
+                         int limit) {
+        // Accepted codes per filtered dimension; values never seen match nothing
+        List<AnalyticsDimension> filtered = new ArrayList<>(filters.keySet());
+        boolean[][] accepted = new boolean[filtered.size()][];
+        int[][] filterInts = new int[filtered.size()][];
+        byte[][] filterBytes = new byte[filtered.size()][];
+        for (int i = 0; i < filtered.size(); i++) {
+            StringDictionary dictionary = dictionaries.get(filtered.get(i));
+            accepted[i] = new boolean[dictionary.size()];
+            for (String value : filters.get(filtered.get(i))) {
+                int code = dictionary.find(value);
+                if (code >= 0) {
+                    accepted[i][code] = true;
+                }
+            }
+            filterInts[i] = intColumn(filtered.get(i));
+            filterBytes[i] = byteColumn(filtered.get(i));
+        }
+
+        // Group key: the codes of the group dimensions as digits of a mixed-radix number
+        int dimensions = groupBy.size();
+        long[] radix = new long[dimensions];
+        long[] multiplier = new long[dimensions];
+        int[][] groupInts = new int[dimensions][];
+        byte[][] groupBytes = new byte[dimensions][];
+        long span = 1;
+        for (int i = 0; i < dimensions; i++) {
+            radix[i] = dictionaries.get(groupBy.get(i)).size();
+            multiplier[i] = span;
+            try {
+                span = Math.multiplyExact(span, radix[i]);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Too many value combinations for groupBy " + groupBy);
+            }
+            groupInts[i] = intColumn(groupBy.get(i));
+            groupBytes[i] = byteColumn(groupBy.get(i));
+        }
+
+        StringDictionary statuses = dictionaries.get(AnalyticsDimension.STATUS);
+        int activeCode = statuses.find(PersonStatus.ACTIVE.name());
+        int expiredCode = statuses.find(PersonStatus.EXPIRED.name());
+        int headCode = dictionaries.get(AnalyticsDimension.HEAD).find(TRUE);
+        int invalidCode = dictionaries.get(AnalyticsDimension.VALID).find(FALSE);
+
+        // Few combinations: the key is the slot itself; otherwise slots are assigned through a hash map
+        boolean dense = span <= DENSE_GROUPS;
+        LongIntHashMap slotOfKey = dense ? null : new LongIntHashMap();
+        long[] keys = new long[dense ? 0 : 64];
+        int[][] counts = new int[MEASURES][dense ? (int) span : 64];
+        int slots = dense ? (int) span : 0;
+        long scanned = 0;
+
+        rows:
+        for (int row = 0; row < highWater; row++) {
+            if (personIds[row] == 0) {
+                continue;
+            }
+            scanned++;
+            for (int i = 0; i < accepted.length; i++) {
+                int code = filterInts[i] != null ? filterInts[i][row] : filterBytes[i][row];
+                if (!accepted[i][code]) {
+                    continue rows;
+                }
+            }
+            long key = 0;
+            for (int i = 0; i < dimensions; i++) {
+                key += (groupInts[i] != null ? groupInts[i][row] : groupBytes[i][row]) * multiplier[i];
+            }
+            int slot;
+            if (dense) {
+                slot = (int) key;
+            } else {
+                // Map keys must not be 0
+                slot = slotOfKey.get(key + 1);
+                if (slot == LongIntHashMap.MISSING) {
+                    slot = slots++;
+                    if (slot == keys.length) {
+                        keys = Arrays.copyOf(keys, slot * 2);
+                        for (int m = 0; m < MEASURES; m++) {
+                            counts[m] = Arrays.copyOf(counts[m], slot * 2);
+                        }
+                    }
+                    keys[slot] = key;
+                    slotOfKey.put(key + 1, slot);
+                }
+            }
+            counts[PERSONS][slot]++;
+            if (head[row] == headCode) {
+                counts[FAMILIES][slot]++;
+            }
+            if (status[row] == activeCode) {
+                counts[ACTIVE][slot]++;
+            } else if (status[row] == expiredCode) {
+                counts[EXPIRED][slot]++;
+            }
+            if (valid[row] == invalidCode) {
+                counts[INVALID][slot]++;
+            }
+        }
+
+        List<AnalyticsGroup> groups = new ArrayList<>();
+        long persons = 0;
+        long familyCount = 0;
+        long invalid = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            if (counts[PERSONS][slot] == 0) {
+                continue;
+            }
+            AnalyticsGroup group = AnalyticsGroup.builder()
+                .persons(counts[PERSONS][slot])
+                .families(counts[FAMILIES][slot])
+                .active(counts[ACTIVE][slot])
+                .expired(counts[EXPIRED][slot])
+                .invalid(counts[INVALID][slot])
+                .build();
+            long key = dense ? slot : keys[slot];
+            for (int i = 0; i < dimensions; i++) {
+                int code = (int) ((key / multiplier[i]) % radix[i]);
+                group.getKey().put(groupBy.get(i).getParamName(), dictionaries.get(groupBy.get(i)).decode(code));
+            }
+            groups.add(group);
+            persons += group.getPersons();
+            familyCount += group.getFamilies();
+            invalid += group.getInvalid();
+        }
+        groups.sort(Comparator.comparingLong(AnalyticsGroup::getPersons).reversed()
+            .thenComparing(g -> g.getKey().values().toString()));
+
+        return AnalyticsSlice.builder()
+            .groupBy(groupBy.stream().map(AnalyticsDimension::getParamName).collect(Collectors.toList()))
+            .groups(groups.size() > limit ? new ArrayList<>(groups.subList(0, limit)) : groups)
+            .groupCount(groups.size())
+            .truncated(groups.size() > limit)
+            .persons(persons)
+            .families(familyCount)
+            .invalid(invalid)
+            .scannedRows(scanned)
+            .build();
+    }
+
+    private int[] intColumn(AnalyticsDimension dimension) {
+        return switch (dimension) {
+            case AC -> ac;
+            case PART -> part;
+            case BLO -> blo;
+            default -> null;
+        };
+    }
+
+    private byte[] byteColumn(AnalyticsDimension dimension) {
+        return switch (dimension) {
+            case STATUS -> status;
+            case RELATION -> relation;
+            case HEAD -> head;
+            case VALID -> valid;
+            default -> null;
+        };
+    }
+
+    private int encode(AnalyticsDimension dimension, String value) {
+        return dictionaries.get(dimension).encode(value);
+    }
+
+    private byte encodeByte(AnalyticsDimension dimension, String value) {
+        int code = encode(dimension, value);
+        if (code > MAX_BYTE_CODE) {
+            throw new IllegalStateException("More than " + MAX_BYTE_CODE + " distinct values of " + dimension.getParamName());
+        }
+        return (byte) code;
+    }
+
+    private int allocateRow() {
+        if (freeCount > 0) {
+            return freeRows[--freeCount];
+        }
+        if (highWater == personIds.length) {
+            grow(personIds.length + (personIds.length >> 1));
+        }
+        return highWater++;
+    }
+
+    private void freeRow(int row) {
+        personIds[row] = 0;
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        }
+        freeRows[freeCount++] = row;
+    }
+
+    private void grow(int capacity) {
+        personIds = Arrays.copyOf(personIds, capacity);
+        familyIds = Arrays.copyOf(familyIds, capacity);
+        nextInFamily = Arrays.copyOf(nextInFamily, capacity);
+        ac = Arrays.copyOf(ac, capacity);
+        part = Arrays.copyOf(part, capacity);
+        blo = Arrays.copyOf(blo, capacity);
+        status = Arrays.copyOf(status, capacity);
+        relation = Arrays.copyOf(relation, capacity);
+        head = Arrays.copyOf(head, capacity);
+        valid = Arrays.copyOf(valid, capacity);
+    }
+}
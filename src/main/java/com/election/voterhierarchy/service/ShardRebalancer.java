@@ -0,0 +1,246 @@
+package com.election.voterhierarchy.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Moves every family of an AC onto one shard. Families are copied in
+ * chunks: rows are written to the target in one transaction, the global
+ * forwarding entries are updated, then the rows are deleted from the source,
+ * but only if no family in the chunk changed revision since it was read;
+ * otherwise the chunk is copied again. A move interrupted half-way can
+ * simply be run again; a chunk already on the target is replaced, not
+ * duplicated. Other cluster nodes learn about the new placement through the
+ * CacheInvalidationBus within one poll interval.
+ */
+@Service
+@Slf4j
+public class ShardRebalancer {
+
+    private static final int CHUNK_SIZE = 200;
+    private static final int MAX_CHUNK_ATTEMPTS = 3;
+
+    private static final String FAMILIES_OF_AC_SQL =
+        "SELECT f.id FROM family f " +
+        "JOIN voter_details_2002 h2 ON h2.person_id = f.head_person_id " +
+        "WHERE UPPER(h2.ac_no) = ? ORDER BY f.id";
+
+    private final ShardRouter shardRouter;
+    private final CacheInvalidationBus invalidationBus;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transaction;
+
+    public ShardRebalancer(ShardRouter shardRouter, CacheInvalidationBus invalidationBus,
+                           DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.shardRouter = shardRouter;
+        this.invalidationBus = invalidationBus;
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Family count per shard.
+     */
+    public Map<String, Long> getFamilyCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        List<Long> perShard = shardRouter.scatter(() -> jdbc.queryForObject("SELECT COUNT(*) FROM family", Long.class));
+        for (int i = 0; i < perShard.size(); i++) {
+            counts.put(shardRouter.isSharded() ? shardRouter.getShardNames().get(i) : "default", perShard.get(i));
+        }
+        return counts;
+    }
+
+    public Map<String, Object> moveAc(String acNo, String targetShard) {
+        if (!shardRouter.isSharded()) {
+            throw new IllegalArgumentException("Sharding is not enabled");
+        }
+        if (!shardRouter.getShardNames().contains(targetShard)) {
+            throw new IllegalArgumentException("Unknown shard: " + targetShard);
+        }
+        String ac = shardRouter.normalizeAc(acNo);
+
+        // New families of the AC go to the target from now on
+        shardRouter.reassignAc(ac, targetShard);
+        invalidationBus.publish(ShardRouter.ASSIGNMENT_CACHE, ac);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("acNo", ac);
+        result.put("targetShard", targetShard);
+        Map<String, Integer> movedFrom = new LinkedHashMap<>();
+
+        for (String source : shardRouter.getShardNames()) {
+            if (source.equals(targetShard)) {
+                continue;
+            }
+            List<Long> familyIds = shardRouter.onShard(source, () -> jdbc.queryForList(FAMILIES_OF_AC_SQL, Long.class, ac));
+            for (int from = 0; from < familyIds.size(); from += CHUNK_SIZE) {
+                List<Long> chunk = familyIds.subList(from, Math.min(from + CHUNK_SIZE, familyIds.size()));
+                moveChunk(chunk, source, targetShard);
+            }
+            if (!familyIds.isEmpty()) {
+                movedFrom.put(source, familyIds.size());
+                log.info("Moved {} families of AC {} from {} to {}", familyIds.size(), ac, source, targetShard);
+            }
+        }
+
+        result.put("movedFrom", movedFrom);
+        result.put("familyCounts", getFamilyCounts());
+        return result;
+    }
+
+    private void moveChunk(List<Long> familyIds, String source, String target) {
+        for (int attempt = 1; ; attempt++) {
+            FamilyRows rows = shardRouter.onShard(source, () -> transaction.execute(status -> readFamilies(familyIds)));
+
+            shardRouter.runOnShard(target, () -> transaction.executeWithoutResult(status -> {
+                deleteFamilies(familyIds);
+                writeFamilies(rows);
+            }));
+            shardRouter.recordMoves(familyIds, target);
+            invalidationBus.publishAll(ShardRouter.FORWARD_CACHE,
+                familyIds.stream().map(String::valueOf).collect(Collectors.toList()));
+
+            Boolean removed = shardRouter.onShard(source, () -> transaction.execute(status -> deleteIfUnchanged(familyIds, rows)));
+            if (Boolean.TRUE.equals(removed)) {
+                return;
+            }
+            if (attempt == MAX_CHUNK_ATTEMPTS) {
+                throw new IllegalStateException("Families on " + source + " kept changing during the move; run it again later");
+            }
+            log.info("Families changed on {} while being moved; copying the chunk again", source);
+        }
+    }
+
+    /**
+     * Deletes the chunk from the source if it still matches the copy. Every
+     * family or member write advances the family revision, so equal
+     * revisions mean nothing was written after the copy was read.
+     */
+    private boolean deleteIfUnchanged(List<Long> familyIds, FamilyRows rows) {
+        Map<Long, Long> copied = new HashMap<>();
+        for (Map<String, Object> family : rows.families) {
+            copied.put(((Number) family.get("id")).longValue(), ((Number) family.get("revision")).longValue());
+        }
+
+        List<Map<String, Object>> current = jdbc.queryForList(
+            "SELECT id, revision FROM family WHERE id IN (" + placeholders(familyIds) + ") FOR UPDATE",
+            familyIds.toArray());
+        if (current.size() != copied.size()) {
+            return false;
+        }
+        for (Map<String, Object> family : current) {
+            Long revision = copied.get(((Number) family.get("id")).longValue());
+            if (revision == null || revision != ((Number) family.get("revision")).longValue()) {
+                return false;
+            }
+        }
+
+        deleteFamilies(familyIds);
+        return true;
+    }
+
+    private FamilyRows readFamilies(List<Long> familyIds) {
+        FamilyRows rows = new FamilyRows();
+        rows.families = select("family", "id", familyIds);
+        rows.persons = select("person", "family_id", familyIds);
+        List<Object> personIds = rows.persons.stream().map(r -> r.get("id")).collect(Collectors.toList());
+        rows.details2002 = select("voter_details_2002", "person_id", personIds);
+        rows.detailsCurrent = select("voter_details_current", "person_id", personIds);
+        List<Object> currentIds = rows.detailsCurrent.stream().map(r -> r.get("id")).collect(Collectors.toList());
+        rows.bloDetails = select("blo_details", "voter_details_current_id", currentIds);
+        rows.summaries = select("family_summary", "family_id", familyIds);
+        rows.validations = select("member_validation", "family_id", familyIds);
+        return rows;
+    }
+
+    private void writeFamilies(FamilyRows rows) {
+        // family and person reference each other; the head is linked once the persons exist
+        List<Object[]> heads = new ArrayList<>();
+        List<Map<String, Object>> families = new ArrayList<>();
+        for (Map<String, Object> family : rows.families) {
+            Map<String, Object> copy = new LinkedCaseInsensitiveMap<>();
+            copy.putAll(family);
+            if (copy.get("head_person_id") != null) {
+                heads.add(new Object[] {copy.get("head_person_id"), copy.get("id")});
+            }
+            copy.put("head_person_id", null);
+            families.add(copy);
+        }
+
+        insert("family", families);
+        insert("person", rows.persons);
+        insert("voter_details_2002", rows.details2002);
+        insert("voter_details_current", rows.detailsCurrent);
+        insert("blo_details", rows.bloDetails);
+        insert("family_summary", rows.summaries);
+        insert("member_validation", rows.validations);
+        if (!heads.isEmpty()) {
+            jdbc.batchUpdate("UPDATE family SET head_person_id = ? WHERE id = ?", heads);
+        }
+    }
+
+    private void deleteFamilies(List<Long> familyIds) {
+        String families = placeholders(familyIds);
+        String persons = "SELECT id FROM person WHERE family_id IN (" + families + ")";
+        Object[] ids = familyIds.toArray();
+
+        jdbc.update("DELETE FROM member_validation WHERE family_id IN (" + families + ")", ids);
+        jdbc.update("DELETE FROM family_summary WHERE family_id IN (" + families + ")", ids);
+        jdbc.update("DELETE FROM blo_details WHERE voter_details_current_id IN " +
+            "(SELECT id FROM voter_details_current WHERE person_id IN (" + persons + "))", ids);
+        jdbc.update("DELETE FROM voter_details_current WHERE person_id IN (" + persons + ")", ids);
+        jdbc.update("DELETE FROM voter_details_2002 WHERE person_id IN (" + persons + ")", ids);
+        jdbc.update("UPDATE family SET head_person_id = NULL WHERE id IN (" + families + ")", ids);
+        jdbc.update("DELETE FROM person WHERE family_id IN (" + families + ")", ids);
+        jdbc.update("DELETE FROM family WHERE id IN (" + families + ")", ids);
+    }
+
+    private List<Map<String, Object>> select(String table, String column, Collection<?> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return jdbc.queryForList("SELECT * FROM " + table + " WHERE " + column + " IN (" + placeholders(ids) + ")",
+            ids.toArray());
+    }
+
+    private void insert(String table, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+            + placeholders(columns) + ")";
+        List<Object[]> values = rows.stream()
+            .map(row -> columns.stream().map(row::get).toArray())
+            .collect(Collectors.toList());
+        jdbc.batchUpdate(sql, values);
+    }
+
+    private String placeholders(Collection<?> values) {
+        return values.stream().map(v -> "?").collect(Collectors.joining(", "));
+    }
+
+    private static class FamilyRows {
+        private List<Map<String, Object>> families;
+        private List<Map<String, Object>> persons;
+        private List<Map<String, Object>> details2002;
+        private List<Map<String, Object>> detailsCurrent;
+        private List<Map<String, Object>> bloDetails;
+        private List<Map<String, Object>> summaries;
+        private List<Map<String, Object>> validations;
+    }
+}
@@ -0,0 +1,315 @@
+package com.election.voterhierarchy.service;
+
+import com.election.voterhierarchy.config.ShardContext;
+import com.election.voterhierarchy.config.ShardRoutingDataSource;
+import com.election.voterhierarchy.entity.FamilyShardForward;
+import com.election.voterhierarchy.entity.ShardAssignment;
+import com.election.voterhierarchy.repository.FamilyShardForwardRepository;
+import com.election.voterhierarchy.repository.ShardAssignmentRepository;
+import com.election.voterhierarchy.util.StringNormalizationUtil;
+import com.election.voterhierarchy.util.ThreadFactoryUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Decides which shard a family lives on and runs work against one shard or
+ * all of them. Families are placed by the AC number of the head's 2002 entry;
+ * each shard hands out family and person IDs from its own range, so the ID
+ * alone finds the shard (families moved by the rebalancer are forwarded).
+ * With sharding off every method runs its work once, on the only database.
+ * Shard switches must happen outside a transaction. The directory caches are
+ * kept coherent across cluster nodes through the CacheInvalidationBus.
+ */
+@Service
+@Slf4j
+public class ShardRouter implements CacheInvalidationListener {
+
+    // Shard N allocates IDs from N * ID_SPAN; IDs below ID_SPAN predate sharding
+    public static final long ID_SPAN = 1_000_000_000_000L;
+    public static final String ASSIGNMENT_CACHE = "shard-assignment";
+    public static final String FORWARD_CACHE = "shard-forward";
+
+    private final List<String> shardNames;
+    private final ShardAssignmentRepository assignmentRepository;
+    private final FamilyShardForwardRepository forwardRepository;
+    private final Map<String, String> assignments = new ConcurrentHashMap<>();
+    private final Map<Long, String> forwards = new ConcurrentHashMap<>();
+    private final ExecutorService scatterPool;
+    // Not a monitor: a virtual thread blocked on JDBC inside synchronized pins its carrier
+    private final ReentrantLock forwardsLock = new ReentrantLock();
+    private volatile boolean forwardsLoaded;
+
+    public ShardRouter(ObjectProvider<ShardRoutingDataSource> routingDataSource,
+                       ShardAssignmentRepository assignmentRepository,
+                       FamilyShardForwardRepository forwardRepository,
+                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        ShardRoutingDataSource routing = routingDataSource.getIfAvailable();
+        this.shardNames = routing != null ? List.copyOf(routing.getShardNames()) : List.of();
+        this.assignmentRepository = assignmentRepository;
+        this.forwardRepository = forwardRepository;
+        if (shardNames.size() <= 1) {
+            this.scatterPool = null;
+        } else if (virtualThreads) {
+            // One virtual thread per shard query; the connection pools bound the concurrency
+            this.scatterPool = ThreadFactoryUtil.threadPerTask(ThreadFactoryUtil.named("shard-scatter-", true));
+        } else {
+            this.scatterPool = Executors.newFixedThreadPool(shardNames.size(),
+                ThreadFactoryUtil.named("shard-scatter-", false));
+        }
+    }
+
+    public boolean isSharded() {
+        return !shardNames.isEmpty();
+    }
+
+    public List<String> getShardNames() {
+        return shardNames;
+    }
+
+    /**
+     * Shard that new families of the AC go to, assigning one on first use.
+     */
+    public String assignAc(String acNo) {
+        if (!isSharded()) {
+            return null;
+        }
+        String ac = normalizeAc(acNo);
+        String cached = assignments.get(ac);
+        if (cached != null) {
+            return cached;
+        }
+
+        return onGlobal(() -> assignmentRepository.findById(ac)
+            .map(ShardAssignment::getShardName)
+            .orElseGet(() -> {
+                String shard = shardNames.get(Math.floorMod(ac.hashCode(), shardNames.size()));
+                try {
+                    assignmentRepository.save(ShardAssignment.builder().acNo(ac).shardName(shard).build());
+                    log.info("AC {} assigned to {}", ac, shard);
+                    return shard;
+                } catch (DataIntegrityViolationException e) {
+                    // Assigned concurrently by another request
+                    return assignmentRepository.findById(ac).map(ShardAssignment::getShardName).orElse(shard);
+                }
+            }));
+    }
+
+    void reassignAc(String acNo, String shard) {
+        String ac = normalizeAc(acNo);
+        onGlobal(() -> assignmentRepository.save(ShardAssignment.builder().acNo(ac).shardName(shard).build()));
+        assignments.put(ac, shard);
+    }
+
+    public String shardOfFamily(Long familyId) {
+        if (!isSharded()) {
+            return null;
+        }
+        loadForwards();
+        String forwarded = forwards.get(familyId);
+        return forwarded != null ? forwarded : homeShard(familyId);
+    }
+
+    /**
+     * Shard whose ID range the ID falls in; IDs from before sharding belong
+     * to the first shard.
+     */
+    public String homeShard(Long id) {
+        long index = id / ID_SPAN;
+        return index >= 1 && index <= shardNames.size() ? shardNames.get((int) index - 1) : shardNames.get(0);
+    }
+
+    public long idRangeStart(String shard) {
+        return (shardNames.indexOf(shard) + 1) * ID_SPAN;
+    }
+
+    void recordMoves(Collection<Long> familyIds, String shard) {
+        loadForwards();
+        onGlobal(() -> {
+            for (Long familyId : familyIds) {
+                if (homeShard(familyId).equals(shard)) {
+                    forwardRepository.deleteById(familyId);
+                } else {
+                    forwardRepository.save(FamilyShardForward.builder().familyId(familyId).shardName(shard).build());
+                }
+            }
+            return null;
+        });
+        for (Long familyId : familyIds) {
+            if (homeShard(familyId).equals(shard)) {
+                forwards.remove(familyId);
+            } else {
+                forwards.put(familyId, shard);
+            }
+        }
+    }
+
+    public <T> T onShard(String shard, Supplier<T> work) {
+        if (!isSharded()) {
+            return work.get();
+        }
+        String previous = ShardContext.current();
+        ShardContext.set(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    public void runOnShard(String shard, Runnable work) {
+        onShard(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public <T> T onGlobal(Supplier<T> work) {
+        return onShard(null, work);
+    }
+
+    /**
+     * Runs the work on every shard in turn, on the calling thread.
+     */
+    public void forEachShard(Runnable work) {
+        if (!isSharded()) {
+            work.run();
+            return;
+        }
+        for (String shard : shardNames) {
+            runOnShard(shard, work);
+        }
+    }
+
+    /**
+     * Runs the work on every shard in parallel and returns the results in
+     * shard order.
+     */
+    public <T> List<T> scatter(Supplier<T> work) {
+        if (!isSharded()) {
+            return Collections.singletonList(work.get());
+        }
+        if (scatterPool == null) {
+            return Collections.singletonList(onShard(shardNames.get(0), work));
+        }
+
+        List<Future<T>> futures = new ArrayList<>();
+        for (String shard : shardNames) {
+            futures.add(scatterPool.submit(() -> onShard(shard, work)));
+        }
+        List<T> results = new ArrayList<>();
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Scatter-gather for listings: concatenates every shard's rows and sorts
+     * them into one list.
+     */
+    public <T> List<T> gather(Supplier<List<T>> query, Comparator<T> order) {
+        List<List<T>> perShard = scatter(query);
+        if (perShard.size() == 1) {
+            return perShard.get(0);
+        }
+        List<T> merged = new ArrayList<>();
+        perShard.forEach(merged::addAll);
+        merged.sort(order);
+        return merged;
+    }
+
+    public long sum(Supplier<? extends Number> count) {
+        return scatter(count).stream().mapToLong(n -> n != null ? n.longValue() : 0L).sum();
+    }
+
+    @Override
+    public Set<String> getCacheNames() {
+        return Set.of(ASSIGNMENT_CACHE, FORWARD_CACHE);
+    }
+
+    /**
+     * Drops a changed AC assignment, or re-reads a changed forward from the
+     * global database (a missing forward must not fall back to the home
+     * shard while the row still exists).
+     */
+    @Override
+    public void evict(String cacheName, String key) {
+        if (ASSIGNMENT_CACHE.equals(cacheName)) {
+            if (key == null) {
+                assignments.clear();
+            } else {
+                assignments.remove(key);
+            }
+        } else if (FORWARD_CACHE.equals(cacheName) && forwardsLoaded) {
+            if (key == null) {
+                Map<Long, String> current = new ConcurrentHashMap<>();
+                onGlobal(forwardRepository::findAll).forEach(f -> current.put(f.getFamilyId(), f.getShardName()));
+                forwards.keySet().retainAll(current.keySet());
+                forwards.putAll(current);
+            } else {
+                Long familyId = Long.valueOf(key);
+                onGlobal(() -> forwardRepository.findById(familyId)).ifPresentOrElse(
+                    f -> forwards.put(familyId, f.getShardName()),
+                    () -> forwards.remove(familyId));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scatterPool != null) {
+            scatterPool.shutdownNow();
+        }
+    }
+
+    private void loadForwards() {
+        if (forwardsLoaded) {
+            return;
+        }
+        forwardsLock.lock();
+        try {
+            if (!forwardsLoaded) {
+                onGlobal(forwardRepository::findAll).forEach(f -> forwards.put(f.getFamilyId(), f.getShardName()));
+                forwardsLoaded = true;
+                log.info("Loaded {} forwarded families", forwards.size());
+            }
+        } finally {
+            forwardsLock.unlock();
+        }
+    }
+
+    String normalizeAc(String acNo) {
+        String ac = StringNormalizationUtil.normalize(acNo);
+        if (ac == null || ac.isEmpty()) {
+            throw new IllegalArgumentException("AC number is required to place a family on a shard");
+        }
+        return ac.toUpperCase();
+    }
+}
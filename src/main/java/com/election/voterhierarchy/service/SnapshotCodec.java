@@ -0,0 +1,482 @@
+package com.election.voterhierarchy.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary snapshot format of one table. A file holds a header with the table
+ * name and its columns, blocks of up to BLOCK_ROWS rows, and an end marker
+ * with the total row count:
+ *
+ *   "VHSNAP" version table columns (name, type)*
+ *   (rows rawLength compressedLength crc32 payload)*
+ *   0 totalRows
+ *
+ * A block stores its rows column by column: a null bitmap, then the values.
+ * Numbers and timestamps are delta-encoded varints (IDs in key order cost a
+ * byte each), booleans a bitmap, and strings a per-block dictionary when
+ * values repeat (AC and part numbers, relation types, statuses, BLO names).
+ * The payload is deflated and checked against its CRC32 before it is
+ * decoded, and the end marker must match the rows read, so a damaged or
+ * truncated file is refused rather than half restored. Blocks are
+ * independent: they can be encoded and decoded on any thread.
+ *
+ * Analytics exports (AnalyticsExportService) use the same files, one per
+ * partition.
+ */
+public final class SnapshotCodec {
+
+    public static final int BLOCK_ROWS = 8192;
+
+    private static final byte[] MAGIC = "VHSNAP".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 1;
+
+    private SnapshotCodec() {
+    }
+
+    public enum ColumnType {
+        BIGINT, INT, BOOLEAN, STRING, TIMESTAMP
+    }
+
+    public record Column(String name, ColumnType type) {
+    }
+
+    /**
+     * A block as read from the file, checked but not yet decoded.
+     */
+    public record RawBlock(int rows, int rawLength, byte[] payload) {
+    }
+
+    /**
+     * Encodes rows (values in column order) into a framed, compressed block.
+     */
+    public static byte[] encodeBlock(List<Column> columns, List<Object[]> rows) {
+        try {
+            ByteArrayOutputStream raw = new ByteArrayOutputStream(rows.size() * columns.size() * 4);
+            DataOutputStream out = new DataOutputStream(raw);
+            for (int c = 0; c < columns.size(); c++) {
+                encodeColumn(out, columns.get(c).type(), rows, c);
+            }
+            out.flush();
+            byte[] rawBytes = raw.toByteArray();
+
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            byte[] compressed;
+            try {
+                deflater.setInput(rawBytes);
+                deflater.finish();
+                ByteArrayOutputStream deflated = new ByteArrayOutputStream(Math.max(64, rawBytes.length / 3));
+                byte[] buffer = new byte[16384];
+                while (!deflater.finished()) {
+                    deflated.write(buffer, 0, deflater.deflate(buffer));
+                }
+                compressed = deflated.toByteArray();
+            } finally {
+                deflater.end();
+            }
+
+            ByteArrayOutputStream frame = new ByteArrayOutputStream(compressed.length + 20);
+            DataOutputStream frameOut = new DataOutputStream(frame);
+            writeVarLong(frameOut, rows.size());
+            frameOut.writeInt(rawBytes.length);
+            frameOut.writeInt(compressed.length);
+            frameOut.writeInt(crc(compressed));
+            frameOut.write(compressed);
+            frameOut.flush();
+            return frame.toByteArray();
+        } catch (IOException e) {
+            // In-memory streams only
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Decodes a checked block into rows (values in column order).
+     */
+    public static List<Object[]> decodeBlock(List<Column> columns, RawBlock block) throws IOException {
+        byte[] rawBytes = new byte[block.rawLength()];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(block.payload());
+            int length = 0;
+            while (length < rawBytes.length && !inflater.finished()) {
+                int n = inflater.inflate(rawBytes, length, rawBytes.length - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            if (length != rawBytes.length) {
+                throw new IOException("Snapshot block is shorter than recorded");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Snapshot block cannot be decompressed: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(rawBytes));
+        List<Object[]> rows = new ArrayList<>(block.rows());
+        for (int r = 0; r < block.rows(); r++) {
+            rows.add(new Object[columns.size()]);
+        }
+        for (int c = 0; c < columns.size(); c++) {
+            decodeColumn(in, columns.get(c).type(), rows, c);
+        }
+        return rows;
+    }
+
+    /**
+     * Reads the current row of a result set, column i of the result as
+     * columns.get(i); SQL NULL stays null.
+     */
+    public static Object[] readRow(ResultSet rs, List<Column> columns) throws SQLException {
+        Object[] row = new Object[columns.size()];
+        for (int i = 0; i < row.length; i++) {
+            int index = i + 1;
+            Object value = switch (columns.get(i).type()) {
+                case BIGINT -> rs.getLong(index);
+                case INT -> rs.getInt(index);
+                case BOOLEAN -> rs.getBoolean(index);
+                case STRING -> rs.getString(index);
+                case TIMESTAMP -> rs.getObject(index, LocalDateTime.class);
+            };
+            row[i] = rs.wasNull() ? null : value;
+        }
+        return row;
+    }
+
+    /**
+     * Writes a table file: header on creation, framed blocks in order, end
+     * marker on close.
+     */
+    public static class TableWriter implements Closeable {
+
+        private final DataOutputStream out;
+        private long rows;
+        private long bytes;
+
+        public TableWriter(OutputStream output, String table, List<Column> columns) throws IOException {
+            this.out = new DataOutputStream(output);
+            out.write(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeUTF(table);
+            writeVarLong(out, columns.size());
+            for (Column column : columns) {
+                out.writeUTF(column.name());
+                out.writeByte(column.type().ordinal());
+            }
+        }
+
+        public void writeBlock(byte[] frame, int blockRows) throws IOException {
+            out.write(frame);
+            rows += blockRows;
+            bytes += frame.length;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public void close() throws IOException {
+            writeVarLong(out, 0);
+            out.writeLong(rows);
+            out.close();
+        }
+    }
+
+    /**
+     * Reads a table file block by block, checking every block's CRC and the
+     * row count in the end marker.
+     */
+    public static class TableReader implements Closeable {
+
+        private final DataInputStream in;
+        private final String table;
+        private final List<Column> columns = new ArrayList<>();
+        private long rows;
+        private boolean finished;
+
+        public TableReader(InputStream input) throws IOException {
+            this.in = new DataInputStream(input);
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a snapshot file");
+            }
+            int version = in.readUnsignedByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot format version " + version);
+            }
+            this.table = in.readUTF();
+            int count = (int) readVarLong(in);
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                int type = in.readUnsignedByte();
+                if (type >= ColumnType.values().length) {
+                    throw new IOException("Unknown type of column " + name);
+                }
+                columns.add(new Column(name, ColumnType.values()[type]));
+            }
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public List<Column> getColumns() {
+            return columns;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * The next block, or null after the last one.
+         */
+        public RawBlock nextBlock() throws IOException {
+            if (finished) {
+                return null;
+            }
+            try {
+                int blockRows = (int) readVarLong(in);
+                if (blockRows == 0) {
+                    long total = in.readLong();
+                    if (total != rows) {
+                        throw new IOException("Snapshot of " + table + " holds " + rows + " rows, expected " + total);
+                    }
+                    finished = true;
+                    return null;
+                }
+                int rawLength = in.readInt();
+                int compressedLength = in.readInt();
+                int crc = in.readInt();
+                if (blockRows < 0 || rawLength < 0 || compressedLength < 0) {
+                    throw new IOException("Snapshot of " + table + " is corrupt after " + rows + " rows");
+                }
+                byte[] payload = new byte[compressedLength];
+                in.readFully(payload);
+                if (crc(payload) != crc) {
+                    throw new IOException("Checksum mismatch in the snapshot of " + table + " after " + rows + " rows");
+                }
+                rows += blockRows;
+                return new RawBlock(blockRows, rawLength, payload);
+            } catch (EOFException e) {
+                throw new IOException("Snapshot of " + table + " is truncated after " + rows + " rows");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static void encodeColumn(DataOutputStream out, ColumnType type, List<Object[]> rows, int c) throws IOException {
+        int n = rows.size();
+        byte[] nulls = new byte[(n + 7) / 8];
+        boolean anyNull = false;
+        for (int r = 0; r < n; r++) {
+            if (rows.get(r)[c] == null) {
+                nulls[r >> 3] |= (byte) (1 << (r & 7));
+                anyNull = true;
+            }
+        }
+        out.writeBoolean(anyNull);
+        if (anyNull) {
+            out.write(nulls);
+        }
+
+        switch (type) {
+            case BIGINT, INT, TIMESTAMP -> {
+                long previous = 0;
+                for (Object[] row : rows) {
+                    if (row[c] != null) {
+                        long value = type == ColumnType.TIMESTAMP ? toMicros((LocalDateTime) row[c]) : ((Number) row[c]).longValue();
+                        writeVarLong(out, zigZag(value - previous));
+                        previous = value;
+                    }
+                }
+            }
+            case BOOLEAN -> {
+                byte[] values = new byte[(n + 7) / 8];
+                for (int r = 0; r < n; r++) {
+                    if (Boolean.TRUE.equals(rows.get(r)[c])) {
+                        values[r >> 3] |= (byte) (1 << (r & 7));
+                    }
+                }
+                out.write(values);
+            }
+            case STRING -> encodeStrings(out, rows, c);
+        }
+    }
+
+    private static void encodeStrings(DataOutputStream out, List<Object[]> rows, int c) throws IOException {
+        Map<String, Integer> dictionary = new HashMap<>();
+        int present = 0;
+        for (Object[] row : rows) {
+            if (row[c] != null) {
+                present++;
+                dictionary.putIfAbsent((String) row[c], dictionary.size());
+            }
+        }
+
+        // A dictionary pays off once values repeat
+        boolean useDictionary = dictionary.size() <= present / 2;
+        out.writeBoolean(useDictionary);
+        if (useDictionary) {
+            String[] entries = new String[dictionary.size()];
+            dictionary.forEach((value, index) -> entries[index] = value);
+            writeVarLong(out, entries.length);
+            for (String entry : entries) {
+                writeString(out, entry);
+            }
+            for (Object[] row : rows) {
+                if (row[c] != null) {
+                    writeVarLong(out, dictionary.get((String) row[c]));
+                }
+            }
+        } else {
+            for (Object[] row : rows) {
+                if (row[c] != null) {
+                    writeString(out, (String) row[c]);
+                }
+            }
+        }
+    }
+
+    private static void decodeColumn(DataInputStream in, ColumnType type, List<Object[]> rows, int c) throws IOException {
+        int n = rows.size();
+        boolean[] isNull = new boolean[n];
+        if (in.readBoolean()) {
+            byte[] nulls = new byte[(n + 7) / 8];
+            in.readFully(nulls);
+            for (int r = 0; r < n; r++) {
+                isNull[r] = (nulls[r >> 3] & (1 << (r & 7))) != 0;
+            }
+        }
+
+        switch (type) {
+            case BIGINT, INT, TIMESTAMP -> {
+                long previous = 0;
+                for (int r = 0; r < n; r++) {
+                    if (isNull[r]) {
+                        continue;
+                    }
+                    long value = previous + unZigZag(readVarLong(in));
+                    previous = value;
+                    rows.get(r)[c] = switch (type) {
+                        case INT -> (int) value;
+                        case TIMESTAMP -> fromMicros(value);
+                        default -> value;
+                    };
+                }
+            }
+            case BOOLEAN -> {
+                byte[] values = new byte[(n + 7) / 8];
+                in.readFully(values);
+                for (int r = 0; r < n; r++) {
+                    if (!isNull[r]) {
+                        rows.get(r)[c] = (values[r >> 3] & (1 << (r & 7))) != 0;
+                    }
+                }
+            }
+            case STRING -> {
+                String[] dictionary = null;
+                if (in.readBoolean()) {
+                    dictionary = new String[(int) readVarLong(in)];
+                    for (int i = 0; i < dictionary.length; i++) {
+                        dictionary[i] = readString(in);
+                    }
+                }
+                for (int r = 0; r < n; r++) {
+                    if (!isNull[r]) {
+                        rows.get(r)[c] = dictionary != null ? dictionary[(int) readVarLong(in)] : readString(in);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed number in snapshot");
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long toMicros(LocalDateTime value) {
+        return value.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + value.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+            (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static int crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,759 @@
+package com.election.voterhierarchy.service;
+
+import com.election.voterhierarchy.dto.SnapshotJob;
+import com.election.voterhierarchy.dto.SnapshotManifest;
+import com.election.voterhierarchy.dto.SnapshotManifest.TableFile;
+import com.election.voterhierarchy.service.SnapshotCodec.Column;
+import com.election.voterhierarchy.service.SnapshotCodec.ColumnType;
+import com.election.voterhierarchy.service.SnapshotCodec.RawBlock;
+import com.election.voterhierarchy.service.SnapshotCodec.TableReader;
+import com.election.voterhierarchy.service.SnapshotCodec.TableWriter;
+import com.election.voterhierarchy.util.ThreadFactoryUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Application-level backup: a snapshot is a directory with one binary file
+ * per table (see SnapshotCodec) and a manifest. Export splits each table
+ * into ranges of its key and reads and encodes the ranges in parallel, then
+ * writes the blocks in key order. Restore reads a table file block by block
+ * and inserts the blocks in parallel batch transactions, parents before
+ * children; secondary indexes are dropped before the load and created again
+ * afterwards, which is far cheaper than maintaining them row by row.
+ *
+ * Covered are the family tables with the summary and validation read models
+ * of every shard, plus users and, when sharded, the shard directory. The
+ * outbox is not: change feed consumers re-export after a restore. Jobs run
+ * one at a time in the background and are kept in memory.
+ */
+@Service
+@Slf4j
+public class SnapshotService {
+
+    private static final String MANIFEST = "manifest.json";
+    private static final String PARTIAL_SUFFIX = ".partial";
+    private static final String FILE_SUFFIX = ".snap";
+    private static final int FORMAT_VERSION = 1;
+    private static final int RANGE_ROWS = 50_000;
+    private static final int JOB_RETENTION_HOURS = 24;
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*");
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    // In restore order, parents first; ranges are split on the key (null: one range)
+    private static final List<SnapshotTable> USER_TABLES = List.of(
+        new SnapshotTable("users", "id"),
+        new SnapshotTable("user_roles", null));
+    private static final List<SnapshotTable> DIRECTORY_TABLES = List.of(
+        new SnapshotTable("shard_assignment", null),
+        new SnapshotTable("family_shard_forward", "family_id"));
+    private static final List<SnapshotTable> FAMILY_TABLES = List.of(
+        new SnapshotTable("family", "id"),
+        new SnapshotTable("person", "id"),
+        new SnapshotTable("voter_details_2002", "id"),
+        new SnapshotTable("voter_details_current", "id"),
+        new SnapshotTable("blo_details", "id"),
+        new SnapshotTable("family_summary", "family_id"),
+        new SnapshotTable("member_validation", "person_id"));
+
+    // Tables with generated IDs; their counters move past the restored rows
+    private static final Set<String> IDENTITY_TABLES =
+        Set.of("users", "family", "person", "voter_details_2002", "voter_details_current", "blo_details");
+
+    private final ShardRouter shardRouter;
+    private final ObjectProvider<CacheInvalidationListener> cacheListeners;
+    private final CacheInvalidationBus invalidationBus;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transaction;
+    private final Path snapshotRoot;
+    private final int maxInFlight;
+    private final ExecutorService jobExecutor;
+    private final ExecutorService workerPool;
+    private final Map<String, SnapshotJob> jobs = new ConcurrentHashMap<>();
+
+    public SnapshotService(ShardRouter shardRouter,
+                           ObjectProvider<CacheInvalidationListener> cacheListeners,
+                           CacheInvalidationBus invalidationBus,
+                           ObjectMapper objectMapper,
+                           DataSource dataSource,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.snapshot.dir:./snapshots}") String snapshotDir,
+                           @Value("${app.snapshot.threads:4}") int threads) {
+        this.shardRouter = shardRouter;
+        this.cacheListeners = cacheListeners;
+        this.invalidationBus = invalidationBus;
+        this.objectMapper = objectMapper;
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.jdbc.setFetchSize(1000);
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.snapshotRoot = Paths.get(snapshotDir);
+        // Bounds the encoded ranges or decoded blocks waiting for the job thread
+        this.maxInFlight = threads * 2;
+        this.jobExecutor = Executors.newSingleThreadExecutor(ThreadFactoryUtil.named("snapshot-job-", false));
+        this.workerPool = Executors.newFixedThreadPool(threads, ThreadFactoryUtil.named("snapshot-worker-", false));
+    }
+
+    public SnapshotJob startExport() {
+        String name = "snapshot-" + LocalDateTime.now().format(NAME_FORMAT);
+        return submit(new SnapshotJob(UUID.randomUUID().toString(), SnapshotJob.Type.EXPORT, name, currentUsername()),
+            job -> export(job));
+    }
+
+    /**
+     * Restores a snapshot into this database. The family tables must be
+     * empty; users (and the shard directory) are replaced by the snapshot's
+     * when includeUsers is set.
+     */
+    public SnapshotJob startRestore(String name, boolean includeUsers) {
+        Path dir = snapshotDir(name);
+        if (!Files.isRegularFile(dir.resolve(MANIFEST))) {
+            throw new IllegalArgumentException("Snapshot not found: " + name);
+        }
+        return submit(new SnapshotJob(UUID.randomUUID().toString(), SnapshotJob.Type.RESTORE, name, currentUsername()),
+            job -> restore(job, dir, includeUsers));
+    }
+
+    public SnapshotJob getJob(String jobId) {
+        SnapshotJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Snapshot job not found with ID: " + jobId);
+        }
+        return job;
+    }
+
+    public List<SnapshotJob> getJobs() {
+        return jobs.values().stream()
+            .sorted(Comparator.comparing(SnapshotJob::getCreatedAt).reversed())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Manifests of the complete snapshots, newest first.
+     */
+    public List<SnapshotManifest> listSnapshots() {
+        if (!Files.isDirectory(snapshotRoot)) {
+            return List.of();
+        }
+        List<SnapshotManifest> manifests = new ArrayList<>();
+        try (Stream<Path> dirs = Files.list(snapshotRoot)) {
+            for (Path dir : dirs.filter(d -> Files.isRegularFile(d.resolve(MANIFEST))).toList()) {
+                try {
+                    manifests.add(readManifest(dir));
+                } catch (IOException e) {
+                    log.warn("Unreadable snapshot manifest in {}: {}", dir, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot list snapshots in " + snapshotRoot, e);
+        }
+        manifests.sort(Comparator.comparing(SnapshotManifest::getName).reversed());
+        return manifests;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        workerPool.shutdownNow();
+    }
+
+    private SnapshotJob submit(SnapshotJob job, JobBody body) {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(JOB_RETENTION_HOURS);
+        jobs.values().removeIf(j -> j.isFinished() && j.getFinishedAt().isBefore(cutoff));
+        jobs.put(job.getJobId(), job);
+        jobExecutor.submit(() -> {
+            job.markStarted();
+            try {
+                body.run(job);
+                job.markCompleted();
+                log.info("Snapshot {} of {} completed: {} rows, {} MB in {} s ({} rows/s)",
+                    job.getType(), job.getSnapshotName(), job.getRows(), job.getBytes() / (1024 * 1024),
+                    job.getElapsedMillis() / 1000, String.format("%.0f", job.getRowsPerSecond()));
+            } catch (Exception e) {
+                log.error("Snapshot {} of {} failed", job.getType(), job.getSnapshotName(), e);
+                job.markFailed(e.getMessage());
+            }
+        });
+        log.info("Queued snapshot {} of {}", job.getType(), job.getSnapshotName());
+        return job;
+    }
+
+    // ------------------------------------------------------------------
+    // Export
+    // ------------------------------------------------------------------
+
+    private void export(SnapshotJob job) throws Exception {
+        Path partial = snapshotRoot.resolve(job.getSnapshotName() + PARTIAL_SUFFIX);
+        Files.createDirectories(partial);
+        try {
+            SnapshotManifest manifest = SnapshotManifest.builder()
+                .formatVersion(FORMAT_VERSION)
+                .name(job.getSnapshotName())
+                .createdBy(job.getRequestedBy())
+                .createdAt(LocalDateTime.now())
+                .shards(shardRouter.isSharded() ? new ArrayList<>(shardRouter.getShardNames()) : new ArrayList<>())
+                .build();
+
+            for (SnapshotTable table : globalTables()) {
+                manifest.getTables().add(exportTable(job, partial, null, table));
+            }
+            for (String shard : targetShards()) {
+                for (SnapshotTable table : FAMILY_TABLES) {
+                    manifest.getTables().add(exportTable(job, partial, shard, table));
+                }
+            }
+
+            manifest.setElapsedMillis(Duration.between(job.getStartedAt(), LocalDateTime.now()).toMillis());
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(partial.resolve(MANIFEST).toFile(), manifest);
+            // Only a complete snapshot gets its final name
+            Files.move(partial, snapshotRoot.resolve(job.getSnapshotName()), StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            deleteQuietly(partial);
+            throw e;
+        }
+    }
+
+    private TableFile exportTable(SnapshotJob job, Path dir, String shard, SnapshotTable table) throws Exception {
+        job.startTable(label(shard, table.name()));
+        String fileName = (shard != null ? shard + "/" : "") + table.name() + FILE_SUFFIX;
+        Path file = dir.resolve(fileName);
+        Files.createDirectories(file.getParent());
+
+        List<Column> columns = shardRouter.onShard(shard, () -> readColumns(table.name()));
+        List<Long> bounds = shardRouter.onShard(shard, () -> rangeBounds(table));
+
+        long rows;
+        try (TableWriter writer = new TableWriter(
+                new BufferedOutputStream(Files.newOutputStream(file), 1 << 16), table.name(), columns);
+             InFlight<List<EncodedBlock>> ranges = new InFlight<>()) {
+            // Ranges are read and encoded in parallel and written in key order
+            for (int i = 0; i <= bounds.size(); i++) {
+                Long after = i > 0 ? bounds.get(i - 1) : null;
+                Long upTo = i < bounds.size() ? bounds.get(i) : null;
+                List<EncodedBlock> done = ranges.submit(() -> shardRouter.onShard(shard, () -> readRange(table, columns, after, upTo)));
+                write(writer, done, job);
+            }
+            while (!ranges.isEmpty()) {
+                write(writer, ranges.next(), job);
+            }
+            rows = writer.getRows();
+        }
+
+        job.finishTable();
+        log.debug("Exported {} rows of {}", rows, label(shard, table.name()));
+        return TableFile.builder()
+            .shard(shard)
+            .table(table.name())
+            .file(fileName)
+            .rows(rows)
+            .bytes(Files.size(file))
+            .build();
+    }
+
+    private void write(TableWriter writer, List<EncodedBlock> blocks, SnapshotJob job) throws IOException {
+        if (blocks == null) {
+            return;
+        }
+        for (EncodedBlock block : blocks) {
+            writer.writeBlock(block.frame(), block.rows());
+            job.recordRows(block.rows(), block.frame().length);
+        }
+    }
+
+    /**
+     * Upper keys of consecutive ranges of RANGE_ROWS rows each, found on the
+     * key index alone; the last range is open.
+     */
+    private List<Long> rangeBounds(SnapshotTable table) {
+        List<Long> bounds = new ArrayList<>();
+        if (table.key() == null) {
+            return bounds;
+        }
+        Long after = null;
+        while (true) {
+            String sql = "SELECT " + table.key() + " FROM " + table.name()
+                + (after != null ? " WHERE " + table.key() + " > ?" : "")
+                + " ORDER BY " + table.key() + " LIMIT 1 OFFSET " + (RANGE_ROWS - 1);
+            ResultSetExtractor<Long> first = rs -> rs.next() ? rs.getLong(1) : null;
+            Long upper = after != null ? jdbc.query(sql, first, after) : jdbc.query(sql, first);
+            if (upper == null) {
+                return bounds;
+            }
+            bounds.add(upper);
+            after = upper;
+        }
+    }
+
+    private List<EncodedBlock> readRange(SnapshotTable table, List<Column> columns, Long after, Long upTo) {
+        StringBuilder sql = new StringBuilder("SELECT ")
+            .append(columns.stream().map(Column::name).collect(Collectors.joining(", ")))
+            .append(" FROM ").append(table.name());
+        List<Object> args = new ArrayList<>();
+        if (after != null || upTo != null) {
+            sql.append(" WHERE ");
+            if (after != null) {
+                sql.append(table.key()).append(" > ?");
+                args.add(after);
+            }
+            if (upTo != null) {
+                sql.append(after != null ? " AND " : "").append(table.key()).append(" <= ?");
+                args.add(upTo);
+            }
+        }
+        if (table.key() != null) {
+            sql.append(" ORDER BY ").append(table.key());
+        }
+
+        List<EncodedBlock> blocks = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>(SnapshotCodec.BLOCK_ROWS);
+        jdbc.query(sql.toString(), (RowCallbackHandler) rs -> {
+            rows.add(SnapshotCodec.readRow(rs, columns));
+            if (rows.size() == SnapshotCodec.BLOCK_ROWS) {
+                blocks.add(new EncodedBlock(SnapshotCodec.encodeBlock(columns, rows), rows.size()));
+                rows.clear();
+            }
+        }, args.toArray());
+        if (!rows.isEmpty()) {
+            blocks.add(new EncodedBlock(SnapshotCodec.encodeBlock(columns, rows), rows.size()));
+        }
+        return blocks;
+    }
+
+    private List<Column> readColumns(String table) {
+        return jdbc.query("SELECT * FROM " + table + " WHERE 1 = 0", rs -> {
+            ResultSetMetaData metaData = rs.getMetaData();
+            List<Column> columns = new ArrayList<>();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                String name = metaData.getColumnLabel(i).toLowerCase(Locale.ROOT);
+                ColumnType type = switch (metaData.getColumnType(i)) {
+                    case Types.BIGINT -> ColumnType.BIGINT;
+                    case Types.INTEGER, Types.SMALLINT, Types.TINYINT -> ColumnType.INT;
+                    // MySQL BOOLEAN is TINYINT(1), reported as BIT
+                    case Types.BOOLEAN, Types.BIT -> ColumnType.BOOLEAN;
+                    case Types.VARCHAR, Types.CHAR, Types.LONGVARCHAR, Types.NVARCHAR, Types.NCHAR, Types.CLOB -> ColumnType.STRING;
+                    case Types.TIMESTAMP -> ColumnType.TIMESTAMP;
+                    default -> throw new IllegalStateException("Column " + table + "." + name
+                        + " has a type snapshots do not support: " + metaData.getColumnTypeName(i));
+                };
+                columns.add(new Column(name, type));
+            }
+            return columns;
+        });
+    }
+
+    // ------------------------------------------------------------------
+    // Restore
+    // ------------------------------------------------------------------
+
+    private void restore(SnapshotJob job, Path dir, boolean includeUsers) throws Exception {
+        SnapshotManifest manifest = readManifest(dir);
+        if (manifest.getFormatVersion() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot format version " + manifest.getFormatVersion());
+        }
+        List<String> shards = shardRouter.isSharded() ? shardRouter.getShardNames() : List.of();
+        if (!manifest.getShards().equals(shards)) {
+            throw new IllegalArgumentException("The snapshot was taken with shards " + manifest.getShards()
+                + ", this node has " + shards);
+        }
+        for (String shard : targetShards()) {
+            Long families = shardRouter.onShard(shard, () -> jdbc.queryForObject("SELECT COUNT(*) FROM family", Long.class));
+            if (families != null && families > 0) {
+                throw new IllegalStateException("Restore needs empty family tables; "
+                    + (shard != null ? shard : "the database") + " already holds " + families + " families");
+            }
+        }
+
+        try {
+            restoreAll(job, dir, manifest, includeUsers);
+        } finally {
+            // Restored rows write no outbox events, so node caches would keep the old data
+            reloadCaches();
+        }
+    }
+
+    private void restoreAll(SnapshotJob job, Path dir, SnapshotManifest manifest, boolean includeUsers) throws Exception {
+        Set<String> globalNames = globalTables().stream().map(SnapshotTable::name).collect(Collectors.toSet());
+        List<TableFile> global = manifest.getTables().stream()
+            .filter(t -> t.getShard() == null && globalNames.contains(t.getTable()))
+            .collect(Collectors.toList());
+        if (includeUsers && !global.isEmpty()) {
+            // Children first
+            shardRouter.runOnShard(null, () -> transaction.executeWithoutResult(status -> {
+                for (int i = global.size() - 1; i >= 0; i--) {
+                    jdbc.update("DELETE FROM " + global.get(i).getTable());
+                }
+            }));
+            restoreTables(job, dir, null, global);
+        }
+
+        for (String shard : targetShards()) {
+            List<TableFile> tables = manifest.getTables().stream()
+                .filter(t -> Objects.equals(t.getShard(), shard) && !globalNames.contains(t.getTable()))
+                .collect(Collectors.toList());
+            restoreTables(job, dir, shard, tables);
+        }
+    }
+
+    /**
+     * Drops every node-local cache on this node and, through the
+     * invalidation bus, on the other nodes of a cluster.
+     */
+    private void reloadCaches() {
+        cacheListeners.orderedStream().forEach(listener -> listener.getCacheNames().forEach(cacheName -> {
+            try {
+                listener.evict(cacheName, null);
+                invalidationBus.publish(cacheName, null);
+            } catch (Exception e) {
+                log.warn("Could not reload cache {} after the restore: {}", cacheName, e.getMessage());
+            }
+        }));
+    }
+
+    private void restoreTables(SnapshotJob job, Path dir, String shard, List<TableFile> tables) throws Exception {
+        boolean mysql = shardRouter.onShard(shard, this::isMySql);
+        List<String> names = tables.stream().map(TableFile::getTable).collect(Collectors.toList());
+        List<IndexDefinition> dropped = shardRouter.onShard(shard, () -> dropSecondaryIndexes(names, mysql));
+        // family.head_person_id points at person, which is loaded after family
+        Queue<Object[]> heads = new ConcurrentLinkedQueue<>();
+        try {
+            for (TableFile table : tables) {
+                restoreTable(job, dir, shard, table, heads);
+            }
+            linkHeads(shard, heads);
+        } finally {
+            shardRouter.runOnShard(shard, () -> createIndexes(dropped));
+        }
+
+        shardRouter.runOnShard(shard, () -> {
+            for (TableFile table : tables) {
+                Long count = jdbc.queryForObject("SELECT COUNT(*) FROM " + table.getTable(), Long.class);
+                if (count == null || count != table.getRows()) {
+                    throw new IllegalStateException(label(shard, table.getTable()) + " holds " + count
+                        + " rows after the restore, the snapshot " + table.getRows());
+                }
+                if (IDENTITY_TABLES.contains(table.getTable())) {
+                    resetIdentity(shard, table.getTable(), mysql);
+                }
+            }
+        });
+    }
+
+    private void restoreTable(SnapshotJob job, Path dir, String shard, TableFile table, Queue<Object[]> heads) throws Exception {
+        job.startTable(label(shard, table.getTable()));
+        Path file = dir.resolve(table.getFile()).normalize();
+        if (!file.startsWith(dir)) {
+            throw new IllegalArgumentException("Snapshot file outside the snapshot: " + table.getFile());
+        }
+
+        try (TableReader reader = new TableReader(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+             InFlight<Void> inserts = new InFlight<>()) {
+            if (!reader.getTable().equals(table.getTable())) {
+                throw new IOException(table.getFile() + " holds table " + reader.getTable() + ", not " + table.getTable());
+            }
+            List<Column> columns = reader.getColumns();
+            Set<String> existing = shardRouter.onShard(shard, () -> readColumns(table.getTable())).stream()
+                .map(Column::name).collect(Collectors.toSet());
+            for (Column column : columns) {
+                if (!existing.contains(column.name())) {
+                    throw new IllegalStateException("Column " + table.getTable() + "." + column.name()
+                        + " of the snapshot does not exist here; restore into the same application version");
+                }
+            }
+
+            String sql = "INSERT INTO " + table.getTable() + " ("
+                + columns.stream().map(Column::name).collect(Collectors.joining(", ")) + ") VALUES ("
+                + columns.stream().map(c -> "?").collect(Collectors.joining(", ")) + ")";
+            int[] types = columns.stream().mapToInt(c -> sqlType(c.type())).toArray();
+            int headColumn = "family".equals(table.getTable()) ? indexOf(columns, "head_person_id") : -1;
+            int idColumn = indexOf(columns, "id");
+
+            RawBlock block;
+            while ((block = reader.nextBlock()) != null) {
+                RawBlock current = block;
+                inserts.submit(() -> {
+                    List<Object[]> rows = SnapshotCodec.decodeBlock(columns, current);
+                    if (headColumn >= 0) {
+                        for (Object[] row : rows) {
+                            if (row[headColumn] != null) {
+                                heads.add(new Object[] {row[headColumn], row[idColumn]});
+                                row[headColumn] = null;
+                            }
+                        }
+                    }
+                    shardRouter.runOnShard(shard, () -> transaction.executeWithoutResult(status ->
+                        jdbc.batchUpdate(sql, rows, types)));
+                    job.recordRows(rows.size(), current.payload().length);
+                    return null;
+                });
+            }
+            while (!inserts.isEmpty()) {
+                inserts.next();
+            }
+            if (reader.getRows() != table.getRows()) {
+                throw new IOException(table.getFile() + " holds " + reader.getRows() + " rows, the manifest " + table.getRows());
+            }
+        }
+        job.finishTable();
+    }
+
+    private void linkHeads(String shard, Queue<Object[]> heads) throws Exception {
+        List<Object[]> all = new ArrayList<>(heads);
+        try (InFlight<Void> updates = new InFlight<>()) {
+            for (int from = 0; from < all.size(); from += SnapshotCodec.BLOCK_ROWS) {
+                List<Object[]> chunk = all.subList(from, Math.min(from + SnapshotCodec.BLOCK_ROWS, all.size()));
+                updates.submit(() -> {
+                    shardRouter.runOnShard(shard, () -> transaction.executeWithoutResult(status ->
+                        jdbc.batchUpdate("UPDATE family SET head_person_id = ? WHERE id = ?", chunk)));
+                    return null;
+                });
+            }
+            while (!updates.isEmpty()) {
+                updates.next();
+            }
+        }
+    }
+
+    /**
+     * Drops the non-unique indexes of the tables. Indexes a foreign key
+     * depends on cannot be dropped and stay.
+     */
+    private List<IndexDefinition> dropSecondaryIndexes(List<String> tables, boolean mysql) {
+        List<IndexDefinition> indexes = jdbc.execute((ConnectionCallback<List<IndexDefinition>>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            List<IndexDefinition> found = new ArrayList<>();
+            for (String table : tables) {
+                String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+                Map<String, TreeMap<Short, String>> columns = new LinkedHashMap<>();
+                try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), name, false, true)) {
+                    while (rs.next()) {
+                        if (!rs.getBoolean("NON_UNIQUE") || rs.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) {
+                            continue;
+                        }
+                        columns.computeIfAbsent(rs.getString("INDEX_NAME"), i -> new TreeMap<>())
+                            .put(rs.getShort("ORDINAL_POSITION"), rs.getString("COLUMN_NAME"));
+                    }
+                }
+                columns.forEach((index, cols) -> found.add(new IndexDefinition(table, index, new ArrayList<>(cols.values()))));
+            }
+            return found;
+        });
+
+        List<IndexDefinition> dropped = new ArrayList<>();
+        for (IndexDefinition index : indexes) {
+            try {
+                jdbc.execute(mysql ? "DROP INDEX " + index.name() + " ON " + index.table() : "DROP INDEX " + index.name());
+                dropped.add(index);
+            } catch (DataAccessException e) {
+                log.debug("Index {} stays during the restore: {}", index.name(), e.getMessage());
+            }
+        }
+        log.info("Dropped {} of {} secondary indexes for the restore", dropped.size(), indexes.size());
+        return dropped;
+    }
+
+    private void createIndexes(List<IndexDefinition> indexes) {
+        for (IndexDefinition index : indexes) {
+            try {
+                jdbc.execute("CREATE INDEX " + index.name() + " ON " + index.table()
+                    + " (" + String.join(", ", index.columns()) + ")");
+            } catch (DataAccessException e) {
+                log.error("Could not recreate index {} on {} ({}); create it by hand: {}",
+                    index.name(), index.table(), String.join(", ", index.columns()), e.getMessage());
+            }
+        }
+    }
+
+    private void resetIdentity(String shard, String table, boolean mysql) {
+        Long maxId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        if (maxId == null || maxId == 0) {
+            return;
+        }
+        long next = Math.max(maxId + 1, shard != null ? shardRouter.idRangeStart(shard) : 1);
+        jdbc.execute(mysql
+            ? "ALTER TABLE " + table + " AUTO_INCREMENT = " + next
+            : "ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+    }
+
+    // ------------------------------------------------------------------
+    // Helpers
+    // ------------------------------------------------------------------
+
+    private List<SnapshotTable> globalTables() {
+        List<SnapshotTable> tables = new ArrayList<>(USER_TABLES);
+        if (shardRouter.isSharded()) {
+            tables.addAll(DIRECTORY_TABLES);
+        }
+        return tables;
+    }
+
+    // Shards holding family data; null is the single database when not sharded
+    private List<String> targetShards() {
+        List<String> shards = new ArrayList<>();
+        if (shardRouter.isSharded()) {
+            shards.addAll(shardRouter.getShardNames());
+        } else {
+            shards.add(null);
+        }
+        return shards;
+    }
+
+    private boolean isMySql() {
+        return DatabaseDriver.fromProductName(jdbc.execute((ConnectionCallback<String>) connection ->
+            connection.getMetaData().getDatabaseProductName())) == DatabaseDriver.MYSQL;
+    }
+
+    private Path snapshotDir(String name) {
+        if (name == null || !SNAPSHOT_NAME.matcher(name).matches() || name.endsWith(PARTIAL_SUFFIX)) {
+            throw new IllegalArgumentException("Invalid snapshot name: " + name);
+        }
+        return snapshotRoot.resolve(name);
+    }
+
+    private SnapshotManifest readManifest(Path dir) throws IOException {
+        return objectMapper.readValue(dir.resolve(MANIFEST).toFile(), SnapshotManifest.class);
+    }
+
+    private static int indexOf(List<Column> columns, String name) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).name().equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int sqlType(ColumnType type) {
+        return switch (type) {
+            case BIGINT -> Types.BIGINT;
+            case INT -> Types.INTEGER;
+            case BOOLEAN -> Types.BOOLEAN;
+            case STRING -> Types.VARCHAR;
+            case TIMESTAMP -> Types.TIMESTAMP;
+        };
+    }
+
+    private static String label(String shard, String table) {
+        return shard != null ? shard + "/" + table : table;
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "system";
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException e) {
+                    log.warn("Could not delete {}: {}", p, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Could not clean up {}: {}", path, e.getMessage());
+        }
+    }
+
+    private interface JobBody {
+        void run(SnapshotJob job) throws Exception;
+    }
+
+    private record SnapshotTable(String name, String key) {
+    }
+
+    private record EncodedBlock(byte[] frame, int rows) {
+    }
+
+    private record IndexDefinition(String table, String name, List<String> columns) {
+    }
+
+    /**
+     * Tasks on the worker pool whose results are taken in submission order.
+     * submit returns the oldest result once maxInFlight tasks are pending
+     * (null otherwise), which keeps memory bounded; closing cancels whatever
+     * is still pending after a failure.
+     */
+    private class InFlight<T> implements AutoCloseable {
+
+        private final Deque<Future<T>> pending = new ArrayDeque<>();
+
+        T submit(Callable<T> task) throws Exception {
+            pending.add(workerPool.submit(task));
+            return pending.size() >= maxInFlight ? next() : null;
+        }
+
+        boolean isEmpty() {
+            return pending.isEmpty();
+        }
+
+        T next() throws Exception {
+            try {
+                return pending.poll().get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : new IllegalStateException(e.getCause());
+            }
+        }
+
+        @Override
+        public void close() {
+            pending.forEach(f -> f.cancel(true));
+            pending.clear();
+        }
+    }
+}
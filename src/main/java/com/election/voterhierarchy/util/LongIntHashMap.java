@@ -0,0 +1,144 @@
+package com.election.voterhierarchy.util;
+
+import java.util.Arrays;
+
+/**
+ * Map from long keys to int values on two primitive arrays (open
+ * addressing, linear probing), for in-memory indexes with millions of
+ * entries where boxed HashMap entries would cost several times the data.
+ * Key 0 is reserved as the empty marker; callers offset keys that can be 0.
+ * Not thread-safe.
+ */
+public class LongIntHashMap {
+
+    public static final int MISSING = -1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int resizeAt;
+
+    public LongIntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        allocate(tableSize(expectedSize));
+    }
+
+    public int get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            if (keys[slot] == 0) {
+                return MISSING;
+            }
+        }
+    }
+
+    public void put(long key, int value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            if (++size > resizeAt) {
+                values[slot] = value;
+                rehash(keys.length * 2);
+                return;
+            }
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Removes the key and returns its value, or MISSING.
+     */
+    public int remove(long key) {
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != key) {
+            if (keys[slot] == 0) {
+                return MISSING;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int removed = values[slot];
+        size--;
+
+        // Backward-shift deletion: move later entries of the probe run into the gap
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int home = slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        keys[gap] = 0;
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        size = 0;
+    }
+
+    /**
+     * Heap taken by the two arrays.
+     */
+    public long footprintBytes() {
+        return (long) keys.length * Long.BYTES + (long) values.length * Integer.BYTES;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(oldKeys[i], mask);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        // Load factor 0.6
+        resizeAt = (int) (capacity * 0.6);
+    }
+
+    private static int tableSize(int expectedSize) {
+        long needed = Math.max(MIN_CAPACITY, (long) (expectedSize / 0.6) + 1);
+        if (needed > (1 << 30)) {
+            throw new IllegalArgumentException("Too many entries: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    private static int slot(long key, int mask) {
+        // Fibonacci hashing spreads sequential IDs over the table
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
@@ -0,0 +1,218 @@
+package com.election.voterhierarchy.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only string storage in direct (off-heap) buffers, for millions of
+ * names that would otherwise cost a String object each on the heap. A
+ * string is stored as a varint length and its UTF-8 bytes; the caller keeps
+ * the returned long reference. Freed strings are only counted, not reused:
+ * the owner rebuilds the store when dead bytes pile up.
+ * Writes are not thread-safe; reads use absolute positions only and may run
+ * concurrently with each other.
+ */
+public class OffHeapStringStore {
+
+    public static final long NULL_REF = 0;
+
+    private static final int DEFAULT_CHUNK_BYTES = 4 << 20;
+
+    private final int chunkBytes;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer current;
+    private int position;
+    private long usedBytes;
+    private long deadBytes;
+    private int count;
+
+    public OffHeapStringStore() {
+        this(DEFAULT_CHUNK_BYTES);
+    }
+
+    public OffHeapStringStore(int chunkBytes) {
+        this.chunkBytes = chunkBytes;
+        newChunk();
+        // Offset 0 of the first chunk is never handed out, so 0 can mean null
+        position = 1;
+    }
+
+    public long add(String value) {
+        if (value == null) {
+            return NULL_REF;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = varIntSize(bytes.length) + bytes.length;
+        if (length > chunkBytes) {
+            throw new IllegalArgumentException("String of " + bytes.length + " bytes does not fit a chunk");
+        }
+        if (position + length > chunkBytes) {
+            newChunk();
+        }
+        long ref = (long) (chunks.size() - 1) * chunkBytes + position;
+        int at = position;
+        for (int n = bytes.length; ; n >>>= 7) {
+            if ((n & ~0x7F) == 0) {
+                current.put(at++, (byte) n);
+                break;
+            }
+            current.put(at++, (byte) ((n & 0x7F) | 0x80));
+        }
+        current.put(at, bytes);
+        position += length;
+        usedBytes += length;
+        count++;
+        return ref;
+    }
+
+    public String get(long ref) {
+        if (ref == NULL_REF) {
+            return null;
+        }
+        ByteBuffer chunk = chunks.get((int) (ref / chunkBytes));
+        int at = (int) (ref % chunkBytes);
+        int length = lengthAt(chunk, at);
+        at += varIntSize(length);
+        byte[] bytes = new byte[length];
+        chunk.get(at, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * True if the string contains the needle, ignoring ASCII case, compared
+     * on the stored bytes without decoding. The needle must be lower-case
+     * ASCII (see asciiNeedle).
+     */
+    public boolean containsIgnoreCase(long ref, byte[] needle) {
+        if (ref == NULL_REF) {
+            return false;
+        }
+        ByteBuffer chunk = chunks.get((int) (ref / chunkBytes));
+        int at = (int) (ref % chunkBytes);
+        int length = lengthAt(chunk, at);
+        at += varIntSize(length);
+        int last = at + length - needle.length;
+        for (int start = at; start <= last; start++) {
+            int i = 0;
+            while (i < needle.length && lower(chunk.get(start + i)) == needle[i]) {
+                i++;
+            }
+            if (i == needle.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True if the string starts with the prefix, ignoring ASCII case. The
+     * prefix must be lower-case ASCII (see asciiNeedle).
+     */
+    public boolean startsWithIgnoreCase(long ref, byte[] prefix) {
+        if (ref == NULL_REF) {
+            return false;
+        }
+        ByteBuffer chunk = chunks.get((int) (ref / chunkBytes));
+        int at = (int) (ref % chunkBytes);
+        int length = lengthAt(chunk, at);
+        if (length < prefix.length) {
+            return false;
+        }
+        at += varIntSize(length);
+        for (int i = 0; i < prefix.length; i++) {
+            if (lower(chunk.get(at + i)) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lower-case bytes of an ASCII needle for containsIgnoreCase and
+     * startsWithIgnoreCase, or null if
+     * it has other characters and must be compared on decoded strings.
+     */
+    public static byte[] asciiNeedle(String needle) {
+        byte[] bytes = new byte[needle.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            char c = needle.charAt(i);
+            if (c > 0x7F) {
+                return null;
+            }
+            bytes[i] = lower((byte) c);
+        }
+        return bytes;
+    }
+
+    /**
+     * Marks a string as no longer referenced.
+     */
+    public void free(long ref) {
+        if (ref == NULL_REF) {
+            return;
+        }
+        int length = lengthAt(chunks.get((int) (ref / chunkBytes)), (int) (ref % chunkBytes));
+        deadBytes += varIntSize(length) + length;
+        count--;
+    }
+
+    /**
+     * Live strings.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Direct memory reserved by the chunks.
+     */
+    public long allocatedBytes() {
+        return (long) chunks.size() * chunkBytes;
+    }
+
+    /**
+     * Bytes written, including freed strings.
+     */
+    public long usedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Bytes of freed strings, reclaimed only by building a new store.
+     */
+    public long deadBytes() {
+        return deadBytes;
+    }
+
+    private void newChunk() {
+        current = ByteBuffer.allocateDirect(chunkBytes);
+        chunks.add(current);
+        position = 0;
+    }
+
+    private static int lengthAt(ByteBuffer chunk, int at) {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = chunk.get(at++);
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return length;
+            }
+        }
+    }
+
+    private static byte lower(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,71 @@
+package com.election.voterhierarchy.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary encoding for low-cardinality strings (AC numbers, statuses, BLO
+ * names): each distinct value gets a small int code, assigned in order of
+ * first appearance and never reused. Code 0 stands for null.
+ * Not thread-safe.
+ */
+public class StringDictionary {
+
+    public static final int NULL_CODE = 0;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    private long valueBytes;
+
+    public StringDictionary() {
+        values.add(null);
+    }
+
+    /**
+     * Code of the value, adding it if it is new.
+     */
+    public int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+            valueBytes += 40L + 2L * value.length();
+        }
+        return code;
+    }
+
+    /**
+     * Code of the value, or -1 if it never occurred.
+     */
+    public int find(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        return codes.getOrDefault(value, -1);
+    }
+
+    public String decode(int code) {
+        return values.get(code);
+    }
+
+    /**
+     * Number of codes including the null code.
+     */
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Rough heap taken by the values and both lookup structures.
+     */
+    public long footprintBytes() {
+        // Strings, plus about 48 bytes per map entry and 4 per list slot
+        return valueBytes + 52L * codes.size();
+    }
+}
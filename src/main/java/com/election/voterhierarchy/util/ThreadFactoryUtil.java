@@ -0,0 +1,38 @@
+package com.election.voterhierarchy.util;
+
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ThreadFactoryUtil {
+
+    /**
+     * Named daemon platform threads, or virtual threads when the
+     * virtual-thread mode is on (Java 21 runtime required).
+     */
+    public static ThreadFactory named(String prefix, boolean virtual) {
+        if (virtual) {
+            return new VirtualThreadTaskExecutor(prefix).getVirtualThreadFactory();
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Unbounded executor starting a fresh thread for every task; meant for
+     * virtual threads, which are cheap to create and must not be pooled.
+     */
+    public static ExecutorService threadPerTask(ThreadFactory threadFactory) {
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0L, TimeUnit.MILLISECONDS,
+            new SynchronousQueue<>(), threadFactory);
+    }
+}
@@ -0,0 +1,39 @@
+package com.election.voterhierarchy.viewer;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.session.SessionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+/**
+ * Read-only viewer API on WebFlux and R2DBC, run as its own process from the
+ * application jar. It reads the schema the main application maintains and
+ * never writes, so it takes viewer spikes without holding servlet threads or
+ * JDBC connections of the main application. Configured by viewer.properties
+ * (and viewer-{profile}.properties), not application.properties.
+ *
+ * The main application scans this package too; every bean here is
+ * conditional on a reactive web application so it only exists in the viewer.
+ */
+@SpringBootApplication(exclude = {
+    DataSourceAutoConfiguration.class,
+    DataSourceTransactionManagerAutoConfiguration.class,
+    HibernateJpaAutoConfiguration.class,
+    FlywayAutoConfiguration.class,
+    SessionAutoConfiguration.class
+})
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ViewerApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ViewerApplication.class)
+            .web(WebApplicationType.REACTIVE)
+            .properties("spring.config.name=viewer")
+            .run(args);
+    }
+}
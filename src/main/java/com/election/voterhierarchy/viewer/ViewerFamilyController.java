@@ -0,0 +1,67 @@
+package com.election.voterhierarchy.viewer;
+
+import com.election.voterhierarchy.dto.FamilyFilterDTO;
+import com.election.voterhierarchy.dto.FamilyHierarchyDTO;
+import com.election.voterhierarchy.dto.FamilySummaryResponse;
+import com.election.voterhierarchy.dto.MemberResponse;
+import com.election.voterhierarchy.dto.SliceResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Read-only viewer API. Same paths below /viewer and same JSON as the MVC
+ * API (/api/v1/families), so clients can switch by base URL.
+ */
+@RestController
+@RequestMapping("/viewer/api/v1/families")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Slf4j
+public class ViewerFamilyController {
+
+    private final ViewerQueryService viewerQueryService;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<SliceResponse<FamilySummaryResponse>> listFamilies(@ModelAttribute FamilyFilterDTO filter,
+                                                                   @RequestParam(defaultValue = "0") int page,
+                                                                   @RequestParam(defaultValue = "100") int size) {
+        return viewerQueryService.getSummaries(filter, page, size);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<FamilySummaryResponse> streamFamilies(@ModelAttribute FamilyFilterDTO filter) {
+        return viewerQueryService.streamSummaries(filter);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<FamilySummaryResponse> getFamily(@PathVariable Long id) {
+        return viewerQueryService.getSummary(id);
+    }
+
+    @GetMapping("/{id}/members")
+    public Flux<MemberResponse> getMembers(@PathVariable Long id) {
+        return viewerQueryService.getMembers(id);
+    }
+
+    @GetMapping("/{id}/hierarchy")
+    public Mono<FamilyHierarchyDTO> getHierarchy(@PathVariable Long id) {
+        return viewerQueryService.getHierarchy(id);
+    }
+
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<Map<String, String>> handleError(RuntimeException e) {
+        log.warn("Viewer request failed: {}", e.getMessage());
+        HttpStatus status = e.getMessage() != null && e.getMessage().contains("not found")
+            ? HttpStatus.NOT_FOUND : HttpStatus.INTERNAL_SERVER_ERROR;
+        return ResponseEntity.status(status).body(Map.of("error", String.valueOf(e.getMessage())));
+    }
+}
@@ -0,0 +1,194 @@
+package com.election.voterhierarchy.viewer;
+
+import com.election.voterhierarchy.dto.FamilyFilterDTO;
+import com.election.voterhierarchy.dto.FamilySummaryResponse;
+import com.election.voterhierarchy.dto.MemberResponse;
+import com.election.voterhierarchy.dto.ValidationError;
+import com.election.voterhierarchy.enums.PersonStatus;
+import com.election.voterhierarchy.enums.RelationType;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Non-blocking reads of the tables behind the JSON API, returning the same
+ * DTOs. Plain SQL over DatabaseClient; the filters match
+ * FamilyProjectionRepository's.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ViewerFamilyRepository {
+
+    private static final String SUMMARY_COLUMNS = "SELECT family_id, family_code, contact_person, contact_number, " +
+        "head_name, head_status, head_epic_no, member_count, active_count, expired_count, " +
+        "validation_error_count, created_at, updated_at FROM family_summary ";
+
+    private static final String MEMBER_QUERY = "SELECT p.id, p.family_id, p.client_ref, p.version, p.is_family_head, p.relation_type, " +
+        "p.age, p.status, " +
+        "v2.name AS name_2002, v2.parent_spouse_name AS parent_2002, v2.epic_no AS epic_2002, " +
+        "v2.ac_no AS ac_2002, v2.part_no AS part_2002, v2.serial_no AS serial_2002, " +
+        "vc.name AS name_current, vc.parent_spouse_name AS parent_current, vc.epic_no AS epic_current, " +
+        "vc.ac_no AS ac_current, vc.part_no AS part_current, vc.serial_no AS serial_current, " +
+        "b.blo_name, b.blo_mobile " +
+        "FROM person p " +
+        "LEFT JOIN voter_details_2002 v2 ON v2.person_id = p.id " +
+        "LEFT JOIN voter_details_current vc ON vc.person_id = p.id " +
+        "LEFT JOIN blo_details b ON b.voter_details_current_id = vc.id " +
+        "WHERE p.family_id = :familyId " +
+        "ORDER BY p.is_family_head DESC, p.id";
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<FamilySummaryResponse> findSummaryById(Long familyId) {
+        return databaseClient.sql(SUMMARY_COLUMNS + "WHERE family_id = :id")
+            .bind("id", familyId)
+            .map(ViewerFamilyRepository::toSummary)
+            .one();
+    }
+
+    /**
+     * Summaries matching the filter in family ID order; limit and offset as
+     * given (callers ask for one extra row to detect a next page). A null
+     * limit streams every match.
+     */
+    public Flux<FamilySummaryResponse> findSummaries(FamilyFilterDTO filter, Integer limit, long offset) {
+        StringBuilder sql = new StringBuilder(SUMMARY_COLUMNS).append("WHERE 1 = 1 ");
+        Map<String, Object> params = new LinkedHashMap<>();
+        like(sql, params, "family_code", "familyCode", filter.getFamilyCode());
+        like(sql, params, "contact_number", "contactNumber", filter.getContactNumber());
+        like(sql, params, "contact_person", "contactPerson", filter.getContactPerson());
+        startsWith(sql, params, "head_name", "familyHeadName", filter.getFamilyHeadName());
+        if (filter.getStatus() != null) {
+            sql.append("AND head_status = :status ");
+            params.put("status", filter.getStatus().name());
+        }
+        sql.append("ORDER BY family_id");
+        if (limit != null) {
+            sql.append(" LIMIT ").append(limit).append(" OFFSET ").append(offset);
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            spec = spec.bind(param.getKey(), param.getValue());
+        }
+        return spec.map(ViewerFamilyRepository::toSummary).all();
+    }
+
+    public Mono<FamilyRevision> findFamily(Long familyId) {
+        return databaseClient.sql("SELECT id, family_code, revision FROM family WHERE id = :id")
+            .bind("id", familyId)
+            .map(row -> new FamilyRevision(
+                row.get("id", Long.class),
+                row.get("family_code", String.class),
+                row.get("revision", Long.class)))
+            .one();
+    }
+
+    public Flux<MemberResponse> findMembers(Long familyId) {
+        return databaseClient.sql(MEMBER_QUERY)
+            .bind("familyId", familyId)
+            .map(row -> MemberResponse.builder()
+                .personId(row.get("id", Long.class))
+                .familyId(row.get("family_id", Long.class))
+                .clientRef(row.get("client_ref", String.class))
+                .version(row.get("version", Long.class))
+                .isFamilyHead(bool(row, "is_family_head"))
+                .relationType(enumValue(RelationType.class, row.get("relation_type", String.class)))
+                .age(row.get("age", Integer.class))
+                .status(enumValue(PersonStatus.class, row.get("status", String.class)))
+                .name2002(row.get("name_2002", String.class))
+                .parentSpouseName2002(row.get("parent_2002", String.class))
+                .epicNo2002(row.get("epic_2002", String.class))
+                .acNo2002(row.get("ac_2002", String.class))
+                .partNo2002(row.get("part_2002", String.class))
+                .serialNo2002(row.get("serial_2002", String.class))
+                .nameCurrent(row.get("name_current", String.class))
+                .parentSpouseNameCurrent(row.get("parent_current", String.class))
+                .epicNoCurrent(row.get("epic_current", String.class))
+                .acNoCurrent(row.get("ac_current", String.class))
+                .partNoCurrent(row.get("part_current", String.class))
+                .serialNoCurrent(row.get("serial_current", String.class))
+                .bloName(row.get("blo_name", String.class))
+                .bloMobile(row.get("blo_mobile", String.class))
+                .build())
+            .all();
+    }
+
+    // Stored results, as MemberValidationService.getStoredErrors returns them
+    public Flux<ValidationError> findValidationErrors(Long familyId) {
+        return databaseClient.sql("SELECT member_name, relation_type, error_message, expected_value, found_value " +
+                "FROM member_validation WHERE family_id = :familyId AND valid = FALSE ORDER BY person_id")
+            .bind("familyId", familyId)
+            .map(row -> ValidationError.builder()
+                .memberName(row.get("member_name", String.class))
+                .relationType(row.get("relation_type", String.class))
+                .errorMessage(row.get("error_message", String.class))
+                .expectedValue(row.get("expected_value", String.class))
+                .foundValue(row.get("found_value", String.class))
+                .build())
+            .all();
+    }
+
+    private static void like(StringBuilder sql, Map<String, Object> params, String column, String name, String value) {
+        if (value != null && !value.isEmpty()) {
+            sql.append("AND ").append(column).append(" LIKE :").append(name).append(' ');
+            params.put(name, "%" + value + "%");
+        }
+    }
+
+    // Prefix match, which the column's index can serve
+    private static void startsWith(StringBuilder sql, Map<String, Object> params, String column, String name, String value) {
+        if (value != null && !value.isEmpty()) {
+            sql.append("AND ").append(column).append(" LIKE :").append(name).append(' ');
+            params.put(name, value + "%");
+        }
+    }
+
+    private static FamilySummaryResponse toSummary(Readable row) {
+        return FamilySummaryResponse.builder()
+            .familyId(row.get("family_id", Long.class))
+            .familyCode(row.get("family_code", String.class))
+            .contactPerson(row.get("contact_person", String.class))
+            .contactNumber(row.get("contact_number", String.class))
+            .headName(row.get("head_name", String.class))
+            .headStatus(enumValue(PersonStatus.class, row.get("head_status", String.class)))
+            .headEpicNo(row.get("head_epic_no", String.class))
+            .memberCount(intValue(row, "member_count"))
+            .activeCount(intValue(row, "active_count"))
+            .expiredCount(intValue(row, "expired_count"))
+            .validationErrorCount(intValue(row, "validation_error_count"))
+            .createdAt(row.get("created_at", LocalDateTime.class))
+            .updatedAt(row.get("updated_at", LocalDateTime.class))
+            .build();
+    }
+
+    private static int intValue(Readable row, String column) {
+        Integer value = row.get(column, Integer.class);
+        return value != null ? value : 0;
+    }
+
+    // MySQL BOOLEAN is TINYINT(1); drivers differ in what they hand back
+    private static Boolean bool(Readable row, String column) {
+        Object value = row.get(column);
+        if (value instanceof Boolean b) {
+            return b;
+        }
+        return value instanceof Number n ? n.intValue() != 0 : null;
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String value) {
+        return value != null ? Enum.valueOf(type, value) : null;
+    }
+
+    public record FamilyRevision(Long id, String familyCode, Long revision) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.election.voterhierarchy.viewer;
+
+import com.election.voterhierarchy.dto.FamilyFilterDTO;
+import com.election.voterhierarchy.dto.FamilyHierarchyDTO;
+import com.election.voterhierarchy.dto.FamilySummaryResponse;
+import com.election.voterhierarchy.dto.HierarchyNode;
+import com.election.voterhierarchy.dto.MemberResponse;
+import com.election.voterhierarchy.dto.SliceResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Reactive counterpart of FamilyQueryService and the hierarchy part of
+ * FamilyService, producing the same JSON shapes.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Slf4j
+public class ViewerQueryService {
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final ViewerFamilyRepository repository;
+
+    public Mono<FamilySummaryResponse> getSummary(Long familyId) {
+        return repository.findSummaryById(familyId)
+            .switchIfEmpty(Mono.error(() -> new RuntimeException("Family not found with ID: " + familyId)));
+    }
+
+    public Mono<SliceResponse<FamilySummaryResponse>> getSummaries(FamilyFilterDTO filter, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNumber = Math.max(page, 0);
+        return repository.findSummaries(filter, pageSize + 1, (long) pageNumber * pageSize)
+            .collectList()
+            .map(rows -> SliceResponse.<FamilySummaryResponse>builder()
+                .content(rows.size() > pageSize ? rows.subList(0, pageSize) : rows)
+                .page(pageNumber)
+                .size(pageSize)
+                .hasNext(rows.size() > pageSize)
+                .build());
+    }
+
+    // Rows are emitted as the driver reads them, at the pace the client consumes
+    public Flux<FamilySummaryResponse> streamSummaries(FamilyFilterDTO filter) {
+        return repository.findSummaries(filter, null, 0);
+    }
+
+    public Flux<MemberResponse> getMembers(Long familyId) {
+        return repository.findMembers(familyId);
+    }
+
+    public Mono<FamilyHierarchyDTO> getHierarchy(Long familyId) {
+        return repository.findFamily(familyId)
+            .switchIfEmpty(Mono.error(() -> new RuntimeException("Family not found with ID: " + familyId)))
+            .flatMap(family -> Mono.zip(
+                    repository.findMembers(familyId).collectList(),
+                    repository.findValidationErrors(familyId).collectList())
+                .map(parts -> FamilyHierarchyDTO.builder()
+                    .familyId(family.id())
+                    .familyCode(family.familyCode())
+                    .revision(family.revision() != null ? family.revision() : 0L)
+                    .hierarchy(buildHierarchy(familyId, parts.getT1()))
+                    .validationErrors(parts.getT2())
+                    .build()));
+    }
+
+    // Same shape as FamilyService.buildHierarchy: the head with every other member below it
+    private HierarchyNode buildHierarchy(Long familyId, List<MemberResponse> members) {
+        MemberResponse head = members.stream()
+            .filter(m -> Boolean.TRUE.equals(m.getIsFamilyHead()))
+            .findFirst()
+            .orElseThrow(() -> new RuntimeException("Family head not found for family ID: " + familyId));
+
+        HierarchyNode rootNode = toNode(head);
+        for (MemberResponse member : members) {
+            if (!Boolean.TRUE.equals(member.getIsFamilyHead())) {
+                rootNode.addChild(toNode(member));
+            }
+        }
+        return rootNode;
+    }
+
+    private HierarchyNode toNode(MemberResponse member) {
+        return HierarchyNode.builder()
+            .personId(member.getPersonId())
+            .relationType(member.getRelationType())
+            .status(member.getStatus())
+            .isFamilyHead(Boolean.TRUE.equals(member.getIsFamilyHead()))
+            .name2002(member.getName2002())
+            .parentSpouseName2002(member.getParentSpouseName2002())
+            .nameCurrent(member.getNameCurrent())
+            .parentSpouseNameCurrent(member.getParentSpouseNameCurrent())
+            .build();
+    }
+}
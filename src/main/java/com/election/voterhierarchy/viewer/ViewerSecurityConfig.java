@@ -0,0 +1,81 @@
+package com.election.voterhierarchy.viewer;
+
+import com.election.voterhierarchy.enums.Role;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.WebSessionServerSecurityContextRepository;
+
+import java.util.Arrays;
+
+/**
+ * Users, passwords and roles come from the main application's users and
+ * user_roles tables. Every role may read, as on the MVC side; inactive
+ * accounts cannot sign in. A client authenticates with HTTP Basic once and
+ * then reuses the session cookie, so BCrypt runs once per session rather
+ * than once per request.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ViewerSecurityConfig {
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return new BCryptPasswordEncoder();
+    }
+
+    @Bean
+    public ReactiveUserDetailsService viewerUserDetailsService(DatabaseClient databaseClient) {
+        return username -> databaseClient.sql(
+                "SELECT u.username, u.password, u.active, r.role FROM users u " +
+                "LEFT JOIN user_roles r ON r.user_id = u.id WHERE u.username = :username")
+            .bind("username", username)
+            .map(row -> new String[] {
+                row.get("password", String.class),
+                String.valueOf(row.get("active")),
+                row.get("role", String.class)
+            })
+            .all()
+            .collectList()
+            .filter(rows -> !rows.isEmpty())
+            .map(rows -> User.withUsername(username)
+                .password(rows.get(0)[0])
+                .disabled(!isActive(rows.get(0)[1]))
+                .roles(rows.stream()
+                    .map(row -> row[2])
+                    .filter(role -> role != null)
+                    .map(role -> Role.valueOf(role).name())
+                    .toArray(String[]::new))
+                .build());
+    }
+
+    @Bean
+    public SecurityWebFilterChain viewerSecurityFilterChain(ServerHttpSecurity http) {
+        String[] readRoles = Arrays.stream(Role.values()).map(Role::name).toArray(String[]::new);
+        WebSessionServerSecurityContextRepository sessions = new WebSessionServerSecurityContextRepository();
+        return http
+            .authorizeExchange(exchange -> exchange
+                .pathMatchers("/viewer/**").hasAnyRole(readRoles)
+                .anyExchange().denyAll())
+            .httpBasic(basic -> basic.securityContextRepository(sessions))
+            .securityContextRepository(sessions)
+            .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+            // Read-only: nothing to protect from cross-site writes
+            .csrf(ServerHttpSecurity.CsrfSpec::disable)
+            .build();
+    }
+
+    // BOOLEAN comes back as Boolean (H2) or a number (MySQL TINYINT)
+    private static boolean isActive(String active) {
+        return "true".equalsIgnoreCase(active) || "1".equals(active);
+    }
+}
@@ -0,0 +1,16 @@
+-- ============================================================================
+-- CACHE INVALIDATION BUS (global database)
+-- ============================================================================
+-- Evictions of node-local caches, broadcast to the other nodes of a cluster.
+-- Every node polls rows newer than the last one it applied and skips its
+-- own; rows older than the retention period are purged.
+
+CREATE TABLE IF NOT EXISTS cache_invalidation (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    cache_name VARCHAR(50) NOT NULL,
+    cache_key VARCHAR(100),
+    origin_node VARCHAR(100) NOT NULL,
+    created_at DATETIME NOT NULL
+);
+
+CREATE INDEX idx_cache_invalidation_created_at ON cache_invalidation(created_at);
@@ -0,0 +1,13 @@
+-- ============================================================================
+-- CLIENT REFERENCES FOR OFFLINE SYNC
+-- ============================================================================
+-- IDs generated on the field device for families and members captured
+-- offline. The sync API looks records up by them, so an upload that is sent
+-- twice creates nothing the second time. Rows entered through the web forms
+-- have none.
+
+ALTER TABLE family ADD COLUMN client_ref VARCHAR(64);
+ALTER TABLE person ADD COLUMN client_ref VARCHAR(64);
+
+CREATE UNIQUE INDEX uk_family_client_ref ON family(client_ref);
+CREATE UNIQUE INDEX uk_person_client_ref ON person(client_ref);
@@ -0,0 +1,19 @@
+-- ============================================================================
+-- FAMILY HEAD BACKFILL FOR SCHEMAS CREATED BY DDL-AUTO
+-- ============================================================================
+-- A database that ran with ddl-auto=update got the head columns from
+-- Hibernate, is baselined past V2 and so never ran its backfill. Repeats it
+-- for families without a head pointer; a no-op where V2 already ran.
+
+UPDATE family f
+SET head_person_id = (
+    SELECT MIN(p.id) FROM person p
+    WHERE p.family_id = f.id AND p.is_family_head = TRUE
+)
+WHERE f.head_person_id IS NULL;
+
+UPDATE family f
+SET head_status = (SELECT p.status FROM person p WHERE p.id = f.head_person_id),
+    head_name = (SELECT v.name FROM voter_details_2002 v WHERE v.person_id = f.head_person_id),
+    head_epic_no = (SELECT v.epic_no FROM voter_details_2002 v WHERE v.person_id = f.head_person_id)
+WHERE f.head_person_id IS NOT NULL AND f.head_status IS NULL;
@@ -0,0 +1,153 @@
+-- ============================================================================
+-- VOTER HIERARCHY SYSTEM - BASE SCHEMA
+-- ============================================================================
+-- Users, families, persons, voter details and BLO details as first released.
+-- Later versions add to these tables. Kept to SQL that MySQL and H2 both
+-- accept; default users are created by DataInitializer on first start.
+
+-- ============================================================================
+-- USER MANAGEMENT TABLES
+-- ============================================================================
+
+CREATE TABLE users (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    username VARCHAR(50) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    full_name VARCHAR(100),
+    email VARCHAR(100),
+    active BOOLEAN NOT NULL DEFAULT TRUE,
+    created_at DATETIME,
+    updated_at DATETIME,
+    last_login DATETIME,
+    created_by VARCHAR(255),
+    CONSTRAINT uk_users_username UNIQUE (username)
+);
+
+CREATE INDEX idx_users_active ON users(active);
+CREATE INDEX idx_users_created_at ON users(created_at);
+CREATE INDEX idx_users_auth ON users(username, active);
+
+-- Roles of a user (element collection of User)
+CREATE TABLE user_roles (
+    user_id BIGINT NOT NULL,
+    role VARCHAR(20) NOT NULL,
+    PRIMARY KEY (user_id, role),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
+CREATE INDEX idx_user_roles_role ON user_roles(role);
+
+-- ============================================================================
+-- FAMILY AND PERSON TABLES
+-- ============================================================================
+
+CREATE TABLE family (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    family_code VARCHAR(255),
+    contact_person VARCHAR(255) NOT NULL,
+    contact_number VARCHAR(255) NOT NULL,
+    created_by VARCHAR(255),
+    created_at DATETIME,
+    updated_at DATETIME,
+    CONSTRAINT uk_family_family_code UNIQUE (family_code)
+);
+
+CREATE INDEX idx_family_contact_number ON family(contact_number);
+CREATE INDEX idx_family_created_at ON family(created_at);
+
+-- Both family heads and members
+CREATE TABLE person (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    family_id BIGINT,
+    is_family_head BOOLEAN,
+    relation_type VARCHAR(20),
+    age INT,
+    status VARCHAR(20) NOT NULL,
+    CONSTRAINT fk_person_family FOREIGN KEY (family_id) REFERENCES family(id)
+);
+
+CREATE INDEX idx_person_is_family_head ON person(is_family_head);
+CREATE INDEX idx_person_status ON person(status);
+CREATE INDEX idx_person_relation_type ON person(relation_type);
+CREATE INDEX idx_person_family_head_status ON person(family_id, is_family_head, status);
+
+-- ============================================================================
+-- VOTER DETAILS TABLES
+-- ============================================================================
+
+CREATE TABLE voter_details_2002 (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    person_id BIGINT,
+    name VARCHAR(255) NOT NULL,
+    parent_spouse_name VARCHAR(255) NOT NULL,
+    epic_no VARCHAR(255) NOT NULL,
+    ac_no VARCHAR(255) NOT NULL,
+    part_no VARCHAR(255) NOT NULL,
+    serial_no VARCHAR(255) NOT NULL,
+    CONSTRAINT uk_voter_2002_person UNIQUE (person_id),
+    CONSTRAINT fk_voter_2002_person FOREIGN KEY (person_id) REFERENCES person(id)
+);
+
+CREATE INDEX idx_voter_2002_name ON voter_details_2002(name);
+CREATE INDEX idx_voter_2002_epic_no ON voter_details_2002(epic_no);
+CREATE INDEX idx_voter_2002_ac_part_serial ON voter_details_2002(ac_no, part_no, serial_no);
+CREATE INDEX idx_voter_2002_search ON voter_details_2002(name, epic_no);
+
+CREATE TABLE voter_details_current (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    person_id BIGINT,
+    name VARCHAR(255) NOT NULL,
+    parent_spouse_name VARCHAR(255) NOT NULL,
+    epic_no VARCHAR(255) NOT NULL,
+    ac_no VARCHAR(255) NOT NULL,
+    part_no VARCHAR(255) NOT NULL,
+    serial_no VARCHAR(255) NOT NULL,
+    CONSTRAINT uk_voter_current_person UNIQUE (person_id),
+    CONSTRAINT fk_voter_current_person FOREIGN KEY (person_id) REFERENCES person(id)
+);
+
+CREATE INDEX idx_voter_current_name ON voter_details_current(name);
+CREATE INDEX idx_voter_current_parent_spouse ON voter_details_current(parent_spouse_name);
+CREATE INDEX idx_voter_current_epic_no ON voter_details_current(epic_no);
+CREATE INDEX idx_voter_current_ac_part_serial ON voter_details_current(ac_no, part_no, serial_no);
+CREATE INDEX idx_voter_current_search ON voter_details_current(name, epic_no);
+
+-- ============================================================================
+-- BLO DETAILS
+-- ============================================================================
+
+CREATE TABLE blo_details (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    voter_details_current_id BIGINT,
+    blo_name VARCHAR(255) NOT NULL,
+    blo_mobile VARCHAR(255) NOT NULL,
+    CONSTRAINT uk_blo_voter_current UNIQUE (voter_details_current_id),
+    CONSTRAINT fk_blo_voter_current FOREIGN KEY (voter_details_current_id) REFERENCES voter_details_current(id)
+);
+
+CREATE INDEX idx_blo_name ON blo_details(blo_name);
+CREATE INDEX idx_blo_mobile ON blo_details(blo_mobile);
+
+-- ============================================================================
+-- PERFORMANCE OPTIMIZATION NOTES
+-- ============================================================================
+
+/*
+Index Strategy:
+1. Primary Keys: Auto-indexed by MySQL
+2. Foreign Keys: Indexed for JOIN performance
+3. Search Fields: name, epic_no, family_code, username
+4. Filter Fields: status, active, is_family_head
+5. Composite: Multi-column WHERE clauses
+
+Query Optimization:
+- Use EXPLAIN to analyze slow queries
+- Composite indexes for common multi-field searches
+- Covering indexes for frequently selected columns
+- Regular ANALYZE TABLE to update statistics
+
+Maintenance:
+- Weekly: OPTIMIZE TABLE for fragmentation
+- Monthly: Review slow query log
+- Quarterly: Review and update indexes based on usage patterns
+*/
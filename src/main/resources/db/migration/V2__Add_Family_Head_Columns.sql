@@ -0,0 +1,33 @@
+-- ============================================================================
+-- FAMILY HEAD POINTER AND DENORMALIZED HEAD SUMMARY
+-- ============================================================================
+-- head_person_id points at the family head row; head_name (2002 name),
+-- head_status and head_epic_no (2002 EPIC) are copied from the head and kept
+-- in sync by FamilyService so list/search/count queries stay on one table.
+
+ALTER TABLE family ADD COLUMN head_person_id BIGINT NULL;
+ALTER TABLE family ADD COLUMN head_name VARCHAR(100) NULL;
+ALTER TABLE family ADD COLUMN head_status VARCHAR(20) NULL;
+ALTER TABLE family ADD COLUMN head_epic_no VARCHAR(50) NULL;
+
+-- Backfill head pointer from person.is_family_head
+UPDATE family f
+SET head_person_id = (
+    SELECT MIN(p.id) FROM person p
+    WHERE p.family_id = f.id AND p.is_family_head = TRUE
+);
+
+-- Backfill head summary columns
+UPDATE family f
+SET head_status = (SELECT p.status FROM person p WHERE p.id = f.head_person_id),
+    head_name = (SELECT v.name FROM voter_details_2002 v WHERE v.person_id = f.head_person_id),
+    head_epic_no = (SELECT v.epic_no FROM voter_details_2002 v WHERE v.person_id = f.head_person_id)
+WHERE f.head_person_id IS NOT NULL;
+
+ALTER TABLE family
+    ADD CONSTRAINT fk_family_head_person FOREIGN KEY (head_person_id) REFERENCES person(id) ON DELETE SET NULL;
+
+CREATE INDEX idx_family_head_person ON family(head_person_id);
+CREATE INDEX idx_family_head_status ON family(head_status);
+CREATE INDEX idx_family_head_name ON family(head_name);
+CREATE INDEX idx_family_head_epic_no ON family(head_epic_no);
@@ -0,0 +1,31 @@
+-- ============================================================================
+-- FAMILY SUMMARY READ MODEL
+-- ============================================================================
+-- One row per family with the facts list/search/dashboard pages need.
+-- Maintained transactionally by FamilySummaryService; regenerated from the
+-- source tables on startup when row counts diverge, or via
+-- POST /families/summary/rebuild (ADMIN).
+
+CREATE TABLE family_summary (
+    family_id BIGINT PRIMARY KEY,
+    family_code VARCHAR(50),
+    contact_person VARCHAR(100),
+    contact_number VARCHAR(20),
+    head_name VARCHAR(100),
+    head_status VARCHAR(20),
+    head_epic_no VARCHAR(50),
+    member_count INT NOT NULL DEFAULT 0,
+    active_count INT NOT NULL DEFAULT 0,
+    expired_count INT NOT NULL DEFAULT 0,
+    validation_error_count INT NOT NULL DEFAULT 0,
+    created_by VARCHAR(50),
+    created_at DATETIME,
+    updated_at DATETIME
+);
+
+CREATE INDEX idx_summary_family_code ON family_summary(family_code);
+CREATE INDEX idx_summary_contact_number ON family_summary(contact_number);
+CREATE INDEX idx_summary_head_name ON family_summary(head_name);
+CREATE INDEX idx_summary_status_created ON family_summary(head_status, created_at);
+CREATE INDEX idx_summary_validation ON family_summary(validation_error_count);
+CREATE INDEX idx_summary_created_at ON family_summary(created_at);
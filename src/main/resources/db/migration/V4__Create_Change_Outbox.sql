@@ -0,0 +1,24 @@
+-- ============================================================================
+-- FAMILY CHANGE OUTBOX
+-- ============================================================================
+-- FamilyService appends one row per mutation in the same transaction.
+-- FamilyChangeDispatcher delivers rows in ID order to in-process subscribers
+-- and records each subscriber's last acknowledged ID in outbox_consumer_offset.
+
+CREATE TABLE family_change_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    change_type VARCHAR(30) NOT NULL,
+    family_id BIGINT NOT NULL,
+    person_id BIGINT,
+    created_by VARCHAR(50),
+    created_at DATETIME NOT NULL
+);
+
+CREATE INDEX idx_outbox_family_id ON family_change_outbox(family_id);
+CREATE INDEX idx_outbox_created_at ON family_change_outbox(created_at);
+
+CREATE TABLE outbox_consumer_offset (
+    consumer_name VARCHAR(100) PRIMARY KEY,
+    last_event_id BIGINT NOT NULL,
+    updated_at DATETIME
+);
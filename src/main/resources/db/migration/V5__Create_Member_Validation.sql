@@ -0,0 +1,20 @@
+-- ============================================================================
+-- STORED PER-MEMBER VALIDATION RESULTS
+-- ============================================================================
+-- One row per non-head member. FamilyService recomputes only the rows a write
+-- can affect; hierarchy and BLO pages read failing rows by family.
+-- Existing data is filled in by the family summary rebuild on startup.
+
+CREATE TABLE member_validation (
+    person_id BIGINT PRIMARY KEY,
+    family_id BIGINT NOT NULL,
+    valid BOOLEAN NOT NULL,
+    member_name VARCHAR(255),
+    relation_type VARCHAR(50),
+    error_message VARCHAR(255),
+    expected_value VARCHAR(500),
+    found_value VARCHAR(255),
+    validated_at DATETIME
+);
+
+CREATE INDEX idx_member_validation_family ON member_validation(family_id, valid);
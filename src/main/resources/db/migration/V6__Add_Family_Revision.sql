@@ -0,0 +1,8 @@
+-- ============================================================================
+-- FAMILY AGGREGATE REVISION
+-- ============================================================================
+-- Advanced by FamilyService on every change to a family, its members, voter
+-- details or BLO details. Used as the ETag source for hierarchy, BLO sheet
+-- and JSON views.
+
+ALTER TABLE family ADD COLUMN revision BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,8 @@
+-- ============================================================================
+-- PERSON OPTIMISTIC LOCK VERSION
+-- ============================================================================
+-- Incremented by Hibernate on every update of a person row. Member edits
+-- update only the changed columns and fail on a concurrent modification
+-- instead of silently overwriting it.
+
+ALTER TABLE person ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,11 @@
+-- ============================================================================
+-- REPLICATION HEARTBEAT
+-- ============================================================================
+-- Single row rewritten on the primary every heartbeat interval. Reading it
+-- back from a replica tells how far behind that replica is; read-only
+-- transactions skip replicas that lag more than the configured maximum.
+
+CREATE TABLE IF NOT EXISTS replication_heartbeat (
+    id INT PRIMARY KEY,
+    beat_at BIGINT NOT NULL
+);
@@ -0,0 +1,18 @@
+-- ============================================================================
+-- SHARD DIRECTORY (global database)
+-- ============================================================================
+-- shard_assignment: shard that new families of an AC are created on.
+-- family_shard_forward: families moved off the shard their ID range belongs
+-- to by the rebalancer. Family data itself lives in the shard databases,
+-- which carry the full family schema.
+
+CREATE TABLE IF NOT EXISTS shard_assignment (
+    ac_no VARCHAR(50) PRIMARY KEY,
+    shard_name VARCHAR(50) NOT NULL,
+    assigned_at TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS family_shard_forward (
+    family_id BIGINT PRIMARY KEY,
+    shard_name VARCHAR(50) NOT NULL
+);
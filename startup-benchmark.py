@@ -0,0 +1,118 @@
+#!/usr/bin/env python3
+"""
+Startup-time benchmark: time from process start to the first answered HTTP
+request, for the standard executable jar and for the fast-startup layout
+(Spring AOT + AppCDS archive). Each start runs against a fresh in-memory H2
+database unless --use-config is given, so both modes do the same work
+(Flyway migrations, schema validation, context refresh).
+
+Build both first:
+
+    mvn -Pfast-startup package
+    python3 startup-benchmark.py --runs 5
+"""
+import argparse
+import os
+import re
+import statistics
+import subprocess
+import tempfile
+import time
+import urllib.error
+import urllib.request
+
+H2_ARGS = [
+    '--spring.datasource.url=jdbc:h2:mem:startup_bench;DB_CLOSE_DELAY=-1',
+    '--spring.datasource.driver-class-name=org.h2.Driver',
+    '--spring.datasource.username=sa',
+    '--spring.datasource.password=',
+    '--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect',
+]
+
+STARTED = re.compile(r'Started \S+ in ([0-9.]+) seconds')
+
+
+def first_request(port, process, timeout):
+    """Polls until the login page answers; returns False if the app died."""
+    url = 'http://localhost:%d/login' % port
+    deadline = time.monotonic() + timeout
+    while time.monotonic() < deadline:
+        if process.poll() is not None:
+            return False
+        try:
+            with urllib.request.urlopen(url, timeout=1) as response:
+                if response.status == 200:
+                    return True
+        except (urllib.error.URLError, ConnectionError, OSError):
+            pass
+        time.sleep(0.02)
+    return False
+
+
+def start_once(command, port, timeout):
+    with tempfile.TemporaryFile() as log:
+        started = time.monotonic()
+        process = subprocess.Popen(command, stdout=log, stderr=subprocess.STDOUT)
+        try:
+            if not first_request(port, process, timeout):
+                log.seek(0)
+                tail = log.read().decode(errors='replace')[-2000:]
+                raise SystemExit('Application did not answer on port %d:\n%s' % (port, tail))
+            elapsed = time.monotonic() - started
+        finally:
+            process.terminate()
+            try:
+                process.wait(timeout=30)
+            except subprocess.TimeoutExpired:
+                process.kill()
+        log.seek(0)
+        match = STARTED.search(log.read().decode(errors='replace'))
+        return elapsed, float(match.group(1)) if match else None
+
+
+def report(name, results):
+    first = [r[0] for r in results]
+    refresh = [r[1] for r in results if r[1] is not None]
+    print('%-10s first request: median %.2f s (min %.2f, max %.2f)%s' % (
+        name, statistics.median(first), min(first), max(first),
+        ', Spring reports %.2f s' % statistics.median(refresh) if refresh else ''))
+    return statistics.median(first)
+
+
+def main():
+    parser = argparse.ArgumentParser(description='Time-to-first-request startup benchmark')
+    parser.add_argument('--jar', default='target/voter-hierarchy-system-1.0.0.jar')
+    parser.add_argument('--fast-dir', default='target/fast-startup')
+    parser.add_argument('--mode', choices=['standard', 'fast', 'both'], default='both')
+    parser.add_argument('--runs', type=int, default=5)
+    parser.add_argument('--port', type=int, default=8099)
+    parser.add_argument('--timeout', type=int, default=180, help='seconds to wait for one start')
+    parser.add_argument('--use-config', action='store_true',
+                        help='use the configured database instead of in-memory H2')
+    parser.add_argument('--app-arg', action='append', default=[], help='extra application argument')
+    args = parser.parse_args()
+
+    app_args = ['--server.port=%d' % args.port] + ([] if args.use_config else H2_ARGS) + args.app_arg
+    commands = {}
+    if args.mode in ('standard', 'both'):
+        commands['standard'] = ['java', '-jar', args.jar] + app_args
+    if args.mode in ('fast', 'both'):
+        if not os.path.exists(os.path.join(args.fast_dir, 'application.jsa')):
+            raise SystemExit('No CDS archive in %s; build with mvn -Pfast-startup package' % args.fast_dir)
+        commands['fast'] = ['sh', os.path.join(args.fast_dir, 'run.sh')] + app_args
+
+    medians = {}
+    for name, command in commands.items():
+        # One unmeasured start warms the OS file cache
+        start_once(command, args.port, args.timeout)
+        results = [start_once(command, args.port, args.timeout) for _ in range(args.runs)]
+        medians[name] = report(name, results)
+
+    if len(medians) == 2:
+        print('Fast startup saves %.2f s per start (%.0f%%)' % (
+            medians['standard'] - medians['fast'],
+            100.0 * (medians['standard'] - medians['fast']) / medians['standard']))
+
+
+if __name__ == '__main__':
+    main()
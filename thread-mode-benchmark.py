@@ -0,0 +1,216 @@
+#!/usr/bin/env python3
+"""
+Platform vs virtual thread benchmark under an operator read workload.
+
+Many simulated operators browse concurrently for a fixed time (dashboard,
+family list, search, hierarchy page and JSON) while the script records every
+response time. Run it once against a node in the default (platform thread)
+mode and once against the same node started with the virtual-threads profile;
+each run is appended to the results file and, once both modes are present,
+throughput and latency are compared.
+
+Operators share a few accounts (sessions are limited to one per user, but one
+session may have many requests in flight).
+
+    python3 thread-mode-benchmark.py --label platform --operator op1:secret1 --clients 200
+    # restart with --spring.profiles.active=virtual-threads on Java 21
+    python3 thread-mode-benchmark.py --label virtual --operator op1:secret1 --clients 200
+"""
+import argparse
+import http.cookiejar
+import json
+import random
+import re
+import statistics
+import threading
+import time
+import urllib.error
+import urllib.parse
+import urllib.request
+from html.parser import HTMLParser
+
+FAMILY_LINK = re.compile(r'/families/(\d+)/hierarchy')
+SEARCH_TERMS = ['a', 'e', 'ra', 'kumar', 'singh']
+
+
+class FormParser(HTMLParser):
+    """Collects the input values of the login form."""
+
+    def __init__(self):
+        super().__init__()
+        self.in_form = False
+        self.values = {}
+
+    def handle_starttag(self, tag, attrs):
+        attrs = dict(attrs)
+        if tag == 'form' and attrs.get('action', '').endswith('/login'):
+            self.in_form = True
+        elif self.in_form and tag == 'input' and attrs.get('name'):
+            self.values[attrs['name']] = attrs.get('value') or ''
+
+    def handle_endtag(self, tag):
+        if tag == 'form':
+            self.in_form = False
+
+
+class NoRedirect(urllib.request.HTTPRedirectHandler):
+    def redirect_request(self, req, fp, code, msg, headers, newurl):
+        return None
+
+
+class Operator:
+    def __init__(self, base_url, username, password):
+        self.base_url = base_url
+        self.cookies = http.cookiejar.CookieJar()
+        self.opener = urllib.request.build_opener(urllib.request.HTTPCookieProcessor(self.cookies))
+        self.login(username, password)
+
+    def get(self, path, timeout=60):
+        """Returns (status, body); HTTP errors are results, not exceptions."""
+        try:
+            with self.opener.open(self.base_url + path, timeout=timeout) as response:
+                return response.status, response.read().decode('utf-8', 'replace')
+        except urllib.error.HTTPError as e:
+            e.read()
+            return e.code, ''
+
+    def login(self, username, password):
+        parser = FormParser()
+        parser.feed(self.get('/login')[1])
+        values = dict(parser.values, username=username, password=password)
+        opener = urllib.request.build_opener(urllib.request.HTTPCookieProcessor(self.cookies), NoRedirect())
+        try:
+            opener.open(self.base_url + '/login', urllib.parse.urlencode(values).encode('utf-8'))
+            location = ''
+        except urllib.error.HTTPError as e:
+            location = e.headers.get('Location', '') if e.code == 302 else 'error'
+        if 'error' in location or not location:
+            raise SystemExit('Login failed for ' + username)
+
+
+def next_path(family_ids):
+    roll = random.random()
+    if roll < 0.15 or not family_ids:
+        return '/families/dashboard'
+    if roll < 0.35:
+        return '/families'
+    if roll < 0.55:
+        return '/families/search?familyHeadName=' + random.choice(SEARCH_TERMS)
+    family_id = random.choice(family_ids)
+    if roll < 0.80:
+        return '/families/%d/hierarchy' % family_id
+    return '/families/%d/hierarchy.json' % family_id
+
+
+def client(operator, family_ids, deadline, results, lock):
+    latencies, errors, rejected = [], 0, 0
+    while time.monotonic() < deadline:
+        path = next_path(family_ids)
+        started = time.monotonic()
+        try:
+            status, _ = operator.get(path)
+        except (urllib.error.URLError, ConnectionError, OSError):
+            status = None
+        elapsed_ms = (time.monotonic() - started) * 1000
+        if status == 200:
+            latencies.append(elapsed_ms)
+        elif status == 503:
+            rejected += 1
+        else:
+            errors += 1
+    with lock:
+        results['latencies'].extend(latencies)
+        results['errors'] += errors
+        results['rejected'] += rejected
+
+
+def percentile(sorted_values, fraction):
+    if not sorted_values:
+        return 0.0
+    return sorted_values[min(len(sorted_values) - 1, int(fraction * len(sorted_values)))]
+
+
+def summarize(label, clients, duration, results):
+    latencies = sorted(results['latencies'])
+    return {
+        'label': label,
+        'clients': clients,
+        'durationSeconds': duration,
+        'requests': len(latencies),
+        'throughput': len(latencies) / duration,
+        'p50Ms': percentile(latencies, 0.50),
+        'p95Ms': percentile(latencies, 0.95),
+        'p99Ms': percentile(latencies, 0.99),
+        'maxMs': latencies[-1] if latencies else 0.0,
+        'meanMs': statistics.mean(latencies) if latencies else 0.0,
+        'rejected': results['rejected'],
+        'errors': results['errors'],
+    }
+
+
+def print_run(run):
+    print('%-9s clients %4d  %7.1f req/s  p50 %7.1f ms  p95 %7.1f ms  p99 %7.1f ms  max %7.1f ms  503s %d  errors %d' % (
+        run['label'], run['clients'], run['throughput'], run['p50Ms'], run['p95Ms'], run['p99Ms'],
+        run['maxMs'], run['rejected'], run['errors']))
+
+
+def compare(results_file, clients):
+    latest = {}
+    with open(results_file) as f:
+        for line in f:
+            run = json.loads(line)
+            if run['clients'] == clients:
+                latest[run['label']] = run
+    if 'platform' not in latest or 'virtual' not in latest:
+        return
+    platform, virtual = latest['platform'], latest['virtual']
+    print()
+    print('Comparison at %d clients (latest run of each mode):' % clients)
+    print_run(platform)
+    print_run(virtual)
+    print('Throughput: %+.0f%%   p99: %+.0f%%' % (
+        100.0 * (virtual['throughput'] - platform['throughput']) / max(platform['throughput'], 0.001),
+        100.0 * (virtual['p99Ms'] - platform['p99Ms']) / max(platform['p99Ms'], 0.001)))
+
+
+def main():
+    parser = argparse.ArgumentParser(description='Platform vs virtual thread request benchmark')
+    parser.add_argument('--base-url', default='http://localhost:8080')
+    parser.add_argument('--label', choices=['platform', 'virtual'], required=True,
+                        help='thread mode the server was started in')
+    parser.add_argument('--operator', action='append', required=True, help='username:password, repeatable')
+    parser.add_argument('--clients', type=int, default=100, help='concurrent simulated operators')
+    parser.add_argument('--duration', type=int, default=60, help='seconds of measured load')
+    parser.add_argument('--warmup', type=int, default=10, help='seconds of unmeasured load first')
+    parser.add_argument('--results', default='thread-mode-results.jsonl')
+    args = parser.parse_args()
+
+    operators = [Operator(args.base_url, *credentials.split(':', 1)) for credentials in args.operator]
+    family_ids = sorted({int(i) for i in FAMILY_LINK.findall(operators[0].get('/families')[1])})
+    if not family_ids:
+        print('No families found; only dashboard requests will be made')
+
+    def load(seconds):
+        results = {'latencies': [], 'errors': 0, 'rejected': 0}
+        lock = threading.Lock()
+        deadline = time.monotonic() + seconds
+        threads = [threading.Thread(target=client,
+                                    args=(operators[i % len(operators)], family_ids, deadline, results, lock))
+                   for i in range(args.clients)]
+        for thread in threads:
+            thread.start()
+        for thread in threads:
+            thread.join()
+        return results
+
+    if args.warmup > 0:
+        load(args.warmup)
+    run = summarize(args.label, args.clients, args.duration, load(args.duration))
+    print_run(run)
+    with open(args.results, 'a') as f:
+        f.write(json.dumps(run) + '\n')
+    compare(args.results, args.clients)
+
+
+if __name__ == '__main__':
+    main()
@@ -0,0 +1,216 @@
+#!/usr/bin/env python3
+"""
+Side-by-side load test: family hierarchy reads through the MVC application
+and through the reactive viewer, at rising numbers of concurrent viewers.
+
+Every simulated viewer keeps one keep-alive connection open and requests
+hierarchies of random families in a loop (with optional think time). Each
+level runs against the MVC stack (/families/{id}/hierarchy.json) and then
+against the viewer (/viewer/api/v1/families/{id}/hierarchy); both return the
+same JSON. The report gives throughput and latency per level and the highest
+level each stack sustained within the p99 target.
+
+Start the main application and the viewer on the same database, then:
+
+    python3 viewer-load-test.py --user viewer1:secret1 --levels 100,500,1000,2000
+
+Raise the open-file limit for large levels (ulimit -n 10000). The viewers
+share a few sessions: the MVC side allows one session per user.
+"""
+import argparse
+import asyncio
+import base64
+import http.cookiejar
+import json
+import random
+import statistics
+import time
+import urllib.error
+import urllib.parse
+import urllib.request
+from html.parser import HTMLParser
+
+
+class FormParser(HTMLParser):
+    """Collects the input values of the login form."""
+
+    def __init__(self):
+        super().__init__()
+        self.in_form = False
+        self.values = {}
+
+    def handle_starttag(self, tag, attrs):
+        attrs = dict(attrs)
+        if tag == 'form' and attrs.get('action', '').endswith('/login'):
+            self.in_form = True
+        elif self.in_form and tag == 'input' and attrs.get('name'):
+            self.values[attrs['name']] = attrs.get('value') or ''
+
+    def handle_endtag(self, tag):
+        if tag == 'form':
+            self.in_form = False
+
+
+class NoRedirect(urllib.request.HTTPRedirectHandler):
+    def redirect_request(self, req, fp, code, msg, headers, newurl):
+        return None
+
+
+def cookie_header(cookies):
+    return '; '.join('%s=%s' % (c.name, c.value) for c in cookies)
+
+
+def mvc_session(base_url, username, password):
+    """Form login; returns the Cookie header of the session."""
+    cookies = http.cookiejar.CookieJar()
+    opener = urllib.request.build_opener(urllib.request.HTTPCookieProcessor(cookies))
+    parser = FormParser()
+    with opener.open(base_url + '/login') as response:
+        parser.feed(response.read().decode('utf-8'))
+    values = dict(parser.values, username=username, password=password)
+    no_redirect = urllib.request.build_opener(urllib.request.HTTPCookieProcessor(cookies), NoRedirect())
+    try:
+        no_redirect.open(base_url + '/login', urllib.parse.urlencode(values).encode('utf-8'))
+        location = 'error'
+    except urllib.error.HTTPError as e:
+        location = e.headers.get('Location', '') if e.code == 302 else 'error'
+    if 'error' in location:
+        raise SystemExit('MVC login failed for ' + username)
+    return cookie_header(cookies)
+
+
+def viewer_session(base_url, username, password):
+    """One Basic-authenticated request; returns the session Cookie header and family IDs."""
+    cookies = http.cookiejar.CookieJar()
+    opener = urllib.request.build_opener(urllib.request.HTTPCookieProcessor(cookies))
+    request = urllib.request.Request(base_url + '/viewer/api/v1/families?size=500', headers={
+        'Authorization': 'Basic ' + base64.b64encode(('%s:%s' % (username, password)).encode()).decode(),
+        'Accept': 'application/json',
+    })
+    try:
+        with opener.open(request) as response:
+            page = json.loads(response.read().decode('utf-8'))
+    except urllib.error.HTTPError as e:
+        raise SystemExit('Viewer login failed for %s: HTTP %d' % (username, e.code))
+    return cookie_header(cookies), [row['familyId'] for row in page['content']]
+
+
+async def get(reader, writer, host, path, cookie):
+    """One keep-alive GET; returns (status, connection closed by server)."""
+    writer.write(('GET %s HTTP/1.1\r\nHost: %s\r\nCookie: %s\r\nAccept: application/json\r\n\r\n'
+                  % (path, host, cookie)).encode('latin-1'))
+    await writer.drain()
+    status_line = await reader.readline()
+    if not status_line:
+        raise ConnectionError('connection closed')
+    status = int(status_line.split()[1])
+    headers = {}
+    while True:
+        line = await reader.readline()
+        if line in (b'\r\n', b''):
+            break
+        name, value = line.decode('latin-1').split(':', 1)
+        headers[name.strip().lower()] = value.strip()
+    if 'content-length' in headers:
+        await reader.readexactly(int(headers['content-length']))
+    elif headers.get('transfer-encoding', '').lower() == 'chunked':
+        while True:
+            size = int((await reader.readline()).split(b';')[0], 16)
+            if size == 0:
+                while (await reader.readline()) not in (b'\r\n', b''):
+                    pass
+                break
+            await reader.readexactly(size + 2)
+    return status, headers.get('connection', '').lower() == 'close'
+
+
+async def viewer_loop(url, path_template, cookies, family_ids, deadline, think_ms, timeout, stats):
+    parsed = urllib.parse.urlparse(url)
+    host, port = parsed.hostname, parsed.port or 80
+    cookie = random.choice(cookies)
+    connection = None
+    while time.monotonic() < deadline:
+        path = path_template % random.choice(family_ids)
+        started = time.monotonic()
+        try:
+            if connection is None:
+                connection = await asyncio.wait_for(asyncio.open_connection(host, port), timeout)
+            status, closed = await asyncio.wait_for(get(*connection, parsed.netloc, path, cookie), timeout)
+            if closed:
+                connection[1].close()
+                connection = None
+        except (OSError, asyncio.TimeoutError, asyncio.IncompleteReadError, ValueError, IndexError):
+            status = None
+            if connection is not None:
+                connection[1].close()
+                connection = None
+        if status == 200:
+            stats['latencies'].append((time.monotonic() - started) * 1000)
+        else:
+            stats['errors'] += 1
+        if think_ms > 0:
+            await asyncio.sleep(random.uniform(0, 2 * think_ms) / 1000)
+    if connection is not None:
+        connection[1].close()
+
+
+async def run_level(url, path_template, cookies, family_ids, viewers, args):
+    stats = {'latencies': [], 'errors': 0}
+    deadline = time.monotonic() + args.duration
+    await asyncio.gather(*[
+        viewer_loop(url, path_template, cookies, family_ids, deadline, args.think_ms, args.timeout, stats)
+        for _ in range(viewers)])
+    latencies = sorted(stats['latencies'])
+    total = len(latencies) + stats['errors']
+    return {
+        'viewers': viewers,
+        'throughput': len(latencies) / args.duration,
+        'p50Ms': latencies[len(latencies) // 2] if latencies else 0.0,
+        'p99Ms': latencies[min(len(latencies) - 1, int(0.99 * len(latencies)))] if latencies else 0.0,
+        'meanMs': statistics.mean(latencies) if latencies else 0.0,
+        'errorRate': stats['errors'] / total if total else 1.0,
+    }
+
+
+def main():
+    parser = argparse.ArgumentParser(description='MVC vs reactive viewer load test')
+    parser.add_argument('--mvc-url', default='http://localhost:8080')
+    parser.add_argument('--viewer-url', default='http://localhost:8090')
+    parser.add_argument('--user', action='append', required=True, help='username:password, repeatable')
+    parser.add_argument('--levels', default='100,500,1000,2000', help='concurrent viewers per step')
+    parser.add_argument('--duration', type=int, default=30, help='seconds per level and stack')
+    parser.add_argument('--think-ms', type=int, default=0, help='mean pause between a viewer\'s requests')
+    parser.add_argument('--timeout', type=float, default=30, help='seconds before a request counts as failed')
+    parser.add_argument('--p99-target-ms', type=float, default=1000)
+    args = parser.parse_args()
+
+    accounts = [credentials.split(':', 1) for credentials in args.user]
+    mvc_cookies = [mvc_session(args.mvc_url, *account) for account in accounts]
+    viewer_logins = [viewer_session(args.viewer_url, *account) for account in accounts]
+    viewer_cookies = [cookie for cookie, _ in viewer_logins]
+    family_ids = viewer_logins[0][1]
+    if not family_ids:
+        raise SystemExit('No families to read')
+
+    stacks = [
+        ('mvc', args.mvc_url, '/families/%d/hierarchy.json', mvc_cookies),
+        ('viewer', args.viewer_url, '/viewer/api/v1/families/%d/hierarchy', viewer_cookies),
+    ]
+    sustained = {'mvc': 0, 'viewer': 0}
+    print('%-7s %8s %10s %10s %10s %8s' % ('stack', 'viewers', 'req/s', 'p50 ms', 'p99 ms', 'errors'))
+    for viewers in [int(level) for level in args.levels.split(',')]:
+        for name, url, path_template, cookies in stacks:
+            result = asyncio.run(run_level(url, path_template, cookies, family_ids, viewers, args))
+            print('%-7s %8d %10.1f %10.1f %10.1f %7.1f%%' % (
+                name, viewers, result['throughput'], result['p50Ms'], result['p99Ms'],
+                100 * result['errorRate']))
+            if result['p99Ms'] <= args.p99_target_ms and result['errorRate'] < 0.01:
+                sustained[name] = max(sustained[name], viewers)
+
+    print()
+    print('Highest level within p99 %.0f ms and <1%% errors: MVC %d viewers, reactive viewer %d viewers' % (
+        args.p99_target_ms, sustained['mvc'], sustained['viewer']))
+
+
+if __name__ == '__main__':
+    main()